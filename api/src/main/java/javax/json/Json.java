@@ -46,6 +46,7 @@ import javax.json.stream.JsonGeneratorFactory;
 import javax.json.stream.JsonParser;
 import javax.json.stream.JsonParserFactory;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 /**
@@ -105,6 +106,60 @@ public class Json {
         return JsonProvider.provider().createParser(in);
     }
 
+    /**
+     * Creates a JSON parser from the specified characters. The characters
+     * are read directly, without a {@link Reader}.
+     *
+     * <p>The reference implementation copies up to a million characters
+     * once, and parses the copy without refilling a buffer; this takes
+     * memory for a copy of the characters while the parser is in use.
+     * Longer sequences are copied in chunks to a fixed buffer, like the
+     * characters of a {@code Reader}, which bounds the memory but refills
+     * the buffer as the text is parsed.
+     *
+     * @param chars the characters from which JSON is to be read
+     * @return a JSON parser
+     * @since 1.1
+     */
+    public static JsonParser createParser(CharSequence chars) {
+        return JsonProvider.provider().createParser(chars);
+    }
+
+    /**
+     * Creates a JSON parser from the specified range of a char array. The
+     * chars are read in place and must not be modified while the parser is
+     * in use.
+     *
+     * @param chars the array from which JSON is to be read
+     * @param off the index of the first char
+     * @param len the number of chars
+     * @return a JSON parser
+     * @throws IndexOutOfBoundsException if {@code off} or {@code len} is
+     *         out of the array bounds
+     * @since 1.1
+     */
+    public static JsonParser createParser(char[] chars, int off, int len) {
+        return JsonProvider.provider().createParser(chars, off, len);
+    }
+
+    /**
+     * Creates a JSON parser from the bytes between the position and the
+     * limit of the specified buffer. The character encoding of the bytes
+     * is determined as specified in
+     * <a href="http://tools.ietf.org/rfc/rfc4627.txt">RFC 4627</a>.
+     * The buffer may be a heap buffer, a direct buffer or a memory-mapped
+     * region of a file. Its contents must not be modified while the parser
+     * is in use.
+     *
+     * @param buffer a byte buffer from which JSON is to be read
+     * @return a JSON parser
+     * @throws JsonException if encoding cannot be determined
+     * @since 1.1
+     */
+    public static JsonParser createParser(ByteBuffer buffer) {
+        return JsonProvider.provider().createParser(buffer);
+    }
+
     /**
      * Creates a JSON generator for writing JSON to a character stream.
      *
@@ -221,6 +276,36 @@ public class Json {
         return JsonProvider.provider().createReader(in);
     }
 
+    /**
+     * Creates a JSON reader from the specified characters. The characters
+     * are read directly, without a {@link Reader}. They are copied as
+     * described for {@link #createParser(CharSequence)}.
+     *
+     * @param chars the characters from which JSON is to be read
+     * @return a JSON reader
+     * @since 1.1
+     */
+    public static JsonReader createReader(CharSequence chars) {
+        return JsonProvider.provider().createReader(chars);
+    }
+
+    /**
+     * Creates a JSON reader from the specified range of a char array. The
+     * chars are read in place and must not be modified while the reader is
+     * in use.
+     *
+     * @param chars the array from which JSON is to be read
+     * @param off the index of the first char
+     * @param len the number of chars
+     * @return a JSON reader
+     * @throws IndexOutOfBoundsException if {@code off} or {@code len} is
+     *         out of the array bounds
+     * @since 1.1
+     */
+    public static JsonReader createReader(char[] chars, int off, int len) {
+        return JsonProvider.provider().createReader(chars, off, len);
+    }
+
     /**
      * Creates a reader factory for creating {@link JsonReader} objects.
      * The factory is configured with the specified map of provider specific
@@ -291,6 +376,22 @@ public class Json {
         return JsonProvider.provider().createObjectBuilder(object);
     }
 
+    /**
+     * Creates a JSON pointer from the specified string. The provider may
+     * return the same instance for a string that is used again, so that it
+     * is parsed only once.
+     *
+     * @param pointer a JSON pointer string, as defined in
+     *     <a href="http://tools.ietf.org/html/rfc6901">RFC 6901</a>
+     * @return a JSON pointer
+     * @throws JsonException if the string is not a valid JSON pointer
+     *
+     * @since 1.1
+     */
+    public static JsonPointer createPointer(String pointer) {
+        return JsonProvider.provider().createPointer(pointer);
+    }
+
     /**
      * Creates a builder factory for creating {@link JsonArrayBuilder}
      * and {@link JsonObjectBuilder} objects.
@@ -4,20 +4,63 @@ import javax.json.JsonValue.ValueType;
 
 public class JsonPointer {
 
-    private String pointer;
-    private String[] tokens;
+    private final String pointer;
+    // reference tokens, the first one is the empty string before the first '/'
+    // (package-private for JsonPointerSet)
+    final String[] tokens;
+    // array index of each token, or -1 if the token isn't a number
+    final int[] indices;
 
     public JsonPointer(final String pointer) {
         this.pointer = pointer;
 
-        tokens = pointer.split("/", -1); // keep the trailing blanks
-        if (!"".equals(tokens[0])) {
+        if (!pointer.isEmpty() && pointer.charAt(0) != '/') {
             throw new JsonException(
                     "A non-empty JSON pointer must begin with a '/'");
         }
-        for (int i = 1; i < tokens.length; i++) { // start from 1
-            tokens[i] = escapeChars(tokens[i]);
+        int count = 1;
+        for (int i = 0; i < pointer.length(); i++) {
+            if (pointer.charAt(i) == '/') {
+                count++;
+            }
+        }
+        tokens = new String[count];
+        indices = new int[count];
+        tokens[0] = "";
+        indices[0] = -1;
+        int begin = 1;
+        for (int i = 1; i < count; i++) { // start from 1
+            int end = pointer.indexOf('/', begin);
+            if (end == -1) {
+                end = pointer.length();
+            }
+            String token = pointer.substring(begin, end);
+            tokens[i] = (token.indexOf('~') == -1) ? token : escapeChars(token);
+            indices[i] = toIndex(tokens[i]);
+            begin = end + 1;
+        }
+    }
+
+    // Parses an array index, up to 9 digits
+    private static int toIndex(String token) {
+        int len = token.length();
+        if (len == 0 || len > 9) {
+            return -1;
         }
+        int index = 0;
+        for (int i = 0; i < len; i++) {
+            char ch = token.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return -1;
+            }
+            index = index * 10 + (ch - '0');
+        }
+        return index;
+    }
+
+    private int getIndex(int tokenIndex) {
+        int index = indices[tokenIndex];
+        return (index != -1) ? index : Integer.parseInt(tokens[tokenIndex]);
     }
 
     private String escapeChars(String token) {
@@ -64,7 +107,7 @@ public class JsonPointer {
      *             is the target.
      */
     public JsonStructure replace(JsonStructure target, JsonValue value) {
-        return null;
+        return (JsonStructure) update(target, REPLACE, value);
     }
 
     /**
@@ -81,19 +124,7 @@ public class JsonPointer {
      *             is the target.
      */
     public JsonValue remove(JsonStructure target) {
-        return traverseAndRemoveJsonObject(target, 1);
-    }
-
-    private JsonValue traverseAndRemoveJsonObject(JsonValue target,
-            int currentTokenIndex) {
-        if(currentTokenIndex == tokens.length-1) {
-            return removeJsonValue(target, tokens.length-1);
-        } else {
-            JsonValue copiedObject = traverseAndRemoveJsonObject(
-                    getNextJsonValue(target, tokens[currentTokenIndex]),
-                    currentTokenIndex + 1);
-            return copyJsonValue(target, currentTokenIndex, copiedObject);
-        }
+        return update(target, REMOVE, null);
     }
 
     /**
@@ -120,89 +151,125 @@ public class JsonPointer {
      *             if the index to the array is out of range
      */
     public JsonValue add(JsonStructure target, JsonValue value) {
-        JsonValue modifiedNode = traverseAndCopyJsonObject(target, 1, value);
-        return modifiedNode;
+        if (tokens.length == 1) {
+            if (value.getValueType() != target.getValueType()) {
+                throw new JsonException("The value must be of the same type as the target");
+            }
+            return value;
+        }
+        return update(target, ADD, value);
     }
 
-    private JsonValue traverseAndCopyJsonObject(JsonValue current,
-            int currentTokenIndex, JsonValue value) {
-        // trivial case
-        if (currentTokenIndex == tokens.length - 1) {
-            return copyJsonValue(current, tokens.length - 1, value);
-        } else {
-            JsonValue copiedObject = traverseAndCopyJsonObject(
-                    getNextJsonValue(current, tokens[currentTokenIndex]),
-                    currentTokenIndex + 1, value);
-            return copyJsonValue(current, currentTokenIndex, copiedObject);
+    private static final int ADD = 0;
+    private static final int REMOVE = 1;
+    private static final int REPLACE = 2;
+
+    // Only the structures on the path are copied, with the builders that
+    // are created from them. The other values are shared with the target.
+    private JsonValue update(JsonStructure target, int op, JsonValue value) {
+        if (tokens.length == 1) {
+            throw new JsonException("The reference must not be the target");
         }
+        return update(target, 1, op, value);
     }
 
-    private JsonStructure removeJsonValue(JsonValue currentNode, int tokenIndex) {
-        if (currentNode.getValueType() == ValueType.OBJECT) {
+    private JsonValue update(JsonValue current, int tokenIndex, int op, JsonValue value) {
+        if (tokenIndex < tokens.length - 1) {
+            JsonValue child = getNextJsonValue(current, tokenIndex);
+            if (child == null) {
+                throw new JsonException("No value for reference token="
+                        + tokens[tokenIndex]);
+            }
+            return replaceJsonValue(current, tokenIndex,
+                    update(child, tokenIndex + 1, op, value));
+        }
+        switch (op) {
+            case ADD:
+                return addJsonValue(current, tokenIndex, value);
+            case REMOVE:
+                return removeJsonValue(current, tokenIndex);
+            default:
+                return replaceJsonValue(current, tokenIndex, value);
+        }
+    }
 
-            JsonObjectBuilder objectBuilder = Json
-                    .createObjectBuilder((JsonObject) currentNode);
-            objectBuilder.remove(tokens[tokenIndex]);
-            return objectBuilder.build();
+    private JsonValue addJsonValue(JsonValue currentNode, int tokenIndex,
+            JsonValue value) {
+        String token = tokens[tokenIndex];
+        if (currentNode.getValueType() == ValueType.OBJECT) {
+            return Json.createObjectBuilder((JsonObject) currentNode)
+                    .add(token, value)
+                    .build();
         } else if (currentNode.getValueType() == ValueType.ARRAY) {
-
             JsonArray currentArray = (JsonArray) currentNode;
-            JsonArrayBuilder arrayBuilder = Json
-                    .createArrayBuilder(currentArray);
-            //In case of remove the position must be set
-            int position = Integer.parseInt(tokens[tokens.length - 1]);
-            arrayBuilder.remove(position);
-            return arrayBuilder.build();
-
+            int position = "-".equals(token)
+                    ? currentArray.size() : getIndex(tokenIndex);
+            return Json.createArrayBuilder(currentArray)
+                    .add(position, value)
+                    .build();
         } else {
             throw new IllegalArgumentException("Illegal reference token="
-                    + tokens[tokenIndex]);
+                    + token + " for value=" + value);
         }
     }
-    
-    private JsonValue copyJsonValue(JsonValue currentNode, int tokenIndex,
-            JsonValue value) {
-        if (currentNode.getValueType() == ValueType.OBJECT) {
 
-            JsonObjectBuilder objectBuilder = Json
-                    .createObjectBuilder((JsonObject) currentNode);
-            objectBuilder.add(tokens[tokenIndex], value);
-            return objectBuilder.build();
+    private JsonValue removeJsonValue(JsonValue currentNode, int tokenIndex) {
+        String token = tokens[tokenIndex];
+        if (currentNode.getValueType() == ValueType.OBJECT) {
+            JsonObject currentObject = (JsonObject) currentNode;
+            if (!currentObject.containsKey(token)) {
+                throw new JsonException("No value for reference token=" + token);
+            }
+            return Json.createObjectBuilder(currentObject)
+                    .remove(token)
+                    .build();
         } else if (currentNode.getValueType() == ValueType.ARRAY) {
-
             JsonArray currentArray = (JsonArray) currentNode;
-            JsonArrayBuilder arrayBuilder = Json
-                    .createArrayBuilder(currentArray);
-            int position = getPositionToInsert(currentArray);
-            arrayBuilder.add(position, value);
-            return arrayBuilder.build();
-
+            return Json.createArrayBuilder(currentArray)
+                    .remove(getIndex(currentArray, tokenIndex))
+                    .build();
         } else {
             throw new IllegalArgumentException("Illegal reference token="
-                    + tokens[tokenIndex] + " for value=" + value);
+                    + token);
         }
     }
 
-    private int getPositionToInsert(JsonArray currentArray) {
-        String positionString = tokens[tokens.length - 1];
-        int position = 0;
-        if ("-".equals(positionString)) {
-            position = currentArray.size();
+    // Replaces an existing value
+    private JsonValue replaceJsonValue(JsonValue currentNode, int tokenIndex,
+            JsonValue value) {
+        String token = tokens[tokenIndex];
+        if (currentNode.getValueType() == ValueType.OBJECT) {
+            JsonObject currentObject = (JsonObject) currentNode;
+            if (!currentObject.containsKey(token)) {
+                throw new JsonException("No value for reference token=" + token);
+            }
+            return Json.createObjectBuilder(currentObject)
+                    .add(token, value)
+                    .build();
+        } else if (currentNode.getValueType() == ValueType.ARRAY) {
+            JsonArray currentArray = (JsonArray) currentNode;
+            return Json.createArrayBuilder(currentArray)
+                    .set(getIndex(currentArray, tokenIndex), value)
+                    .build();
         } else {
-            position = Integer.parseInt(positionString);
+            throw new IllegalArgumentException("Illegal reference token="
+                    + token + " for value=" + value);
         }
-        return position;
     }
 
-    public JsonValue getValue(JsonValue target) {
-
-        if ((this.pointer == null) || this.pointer.isEmpty()) {
-            return target;
+    private int getIndex(JsonArray array, int tokenIndex) {
+        int index = getIndex(tokenIndex);
+        if (index < 0 || index >= array.size()) {
+            throw new JsonException("No value for reference token="
+                    + tokens[tokenIndex]);
         }
+        return index;
+    }
 
+    public JsonValue getValue(JsonValue target) {
         JsonValue current = target;
         for (int i = 1; i < tokens.length; i++) {
-            current = getNextJsonValue(current, tokens[i]);
+            current = getNextJsonValue(current, i);
         }
         if (current == null) {
             throw new IllegalArgumentException(
@@ -212,14 +279,15 @@ public class JsonPointer {
         return current;
     }
 
-    private JsonValue getNextJsonValue(JsonValue target, String referenceToken) {
-        if (target.getValueType() == JsonValue.ValueType.OBJECT) {
-            return ((JsonObject) target).get(referenceToken);
-        } else if (target.getValueType() == JsonValue.ValueType.ARRAY) {
-            return ((JsonArray) target).get(Integer.parseInt(referenceToken));
+    private JsonValue getNextJsonValue(JsonValue target, int tokenIndex) {
+        ValueType valueType = target.getValueType();
+        if (valueType == ValueType.OBJECT) {
+            return ((JsonObject) target).get(tokens[tokenIndex]);
+        } else if (valueType == ValueType.ARRAY) {
+            return ((JsonArray) target).get(getIndex(tokenIndex));
         } else {
             throw new IllegalArgumentException("Illegal reference token="
-                    + referenceToken + " for value=" + target);
+                    + tokens[tokenIndex] + " for value=" + target);
         }
     }
 
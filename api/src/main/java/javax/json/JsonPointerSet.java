@@ -0,0 +1,493 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package javax.json;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.json.JsonValue.ValueType;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+/**
+ * A set of {@link JsonPointer}s that are resolved together. The reference
+ * tokens of the pointers are merged into a tree, so a value is looked up
+ * once for all the pointers that share its prefix, and a target is walked
+ * once for the whole set. The values can also be extracted from a
+ * {@link JsonParser}, without building the whole document.
+ *
+ * <p>
+ * <b>For example:</b>
+ * <pre>
+ * <code>
+ * JsonPointerSet set = new JsonPointerSet(
+ *         Json.createPointer("/name"),
+ *         Json.createPointer("/address/city"),
+ *         Json.createPointer("/address/zip"));
+ * JsonValue[] values = set.getValues(object);
+ * </code>
+ * </pre>
+ *
+ * <p> A {@code JsonPointerSet} is immutable, and it can be used by multiple
+ * concurrent threads.
+ *
+ * @author Jitendra Kotamraju
+ * @since 1.1
+ */
+public final class JsonPointerSet {
+
+    private final JsonPointer[] pointers;
+    private final Node root;
+
+    /**
+     * Creates a set of the specified pointers.
+     *
+     * @param pointers the pointers, the same pointer may be repeated
+     * @throws NullPointerException if {@code pointers} or any of the pointers
+     *     is {@code null}
+     */
+    public JsonPointerSet(JsonPointer... pointers) {
+        this.pointers = pointers.clone();
+        NodeBuilder rootBuilder = new NodeBuilder(null, -1);
+        for (int i = 0; i < this.pointers.length; i++) {
+            JsonPointer pointer = this.pointers[i];
+            NodeBuilder builder = rootBuilder;
+            for (int j = 1; j < pointer.tokens.length; j++) {
+                builder = builder.child(pointer.tokens[j], pointer.indices[j]);
+            }
+            builder.targets.add(i);
+        }
+        this.root = rootBuilder.build();
+    }
+
+    /**
+     * Returns the number of pointers in this set.
+     *
+     * @return the number of pointers
+     */
+    public int size() {
+        return pointers.length;
+    }
+
+    /**
+     * Returns the pointer at the specified position, in the order the
+     * pointers were given to the constructor.
+     *
+     * @param index the position of the pointer
+     * @return the pointer
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public JsonPointer getPointer(int index) {
+        return pointers[index];
+    }
+
+    /**
+     * Returns the values referenced by the pointers of this set in the
+     * specified {@code target}. The values are in the order the pointers
+     * were given to the constructor. If a referenced value doesn't exist,
+     * the result has {@code null} at its position; this includes a name
+     * that is missing from an object, an index that is out of range or
+     * isn't a number, and a reference token for a value that isn't an
+     * object or an array.
+     *
+     * @param target the target referenced by the pointers
+     * @return an array with a value, or {@code null}, for each pointer
+     * @throws NullPointerException if {@code target} is {@code null}
+     */
+    public JsonValue[] getValues(JsonValue target) {
+        if (target == null) {
+            throw new NullPointerException();
+        }
+        JsonValue[] values = new JsonValue[pointers.length];
+        resolve(root, target, values);
+        return values;
+    }
+
+    /**
+     * Returns the values referenced by the pointers of this set in the JSON
+     * text of the specified {@code parser}. The parser must not have
+     * returned any event yet. Only the referenced values are built; the
+     * other values are skipped, and the parser isn't advanced any further
+     * once all the referenced values are found. The parser is not closed.
+     *
+     * <p>The result is the same as that of {@link #getValues(JsonValue)}
+     * for the document, except when an object has duplicate names; then
+     * the value of the first of them is used.
+     *
+     * @param parser the parser of the target referenced by the pointers
+     * @return an array with a value, or {@code null}, for each pointer
+     * @throws NullPointerException if {@code parser} is {@code null}
+     * @throws JsonException if an i/o error occurs (IOException
+     *     would be cause of JsonException)
+     * @throws javax.json.stream.JsonParsingException if the parser
+     *     encounters invalid JSON
+     * @throws java.util.NoSuchElementException if the parser has no
+     *     more events
+     */
+    public JsonValue[] getValues(JsonParser parser) {
+        JsonValue[] values = new JsonValue[pointers.length];
+        StreamResolver resolver = new StreamResolver(parser, values,
+                Json.createBuilderFactory(null), root.targetCount);
+        if (resolver.remaining > 0) {
+            resolver.resolve(root, parser.next());
+        }
+        return values;
+    }
+
+    private static void resolve(Node node, JsonValue value, JsonValue[] values) {
+        for (int target : node.targets) {
+            values[target] = value;
+        }
+        Node[] children = node.children;
+        if (children.length == 0) {
+            return;
+        }
+        ValueType valueType = value.getValueType();
+        if (valueType == ValueType.OBJECT) {
+            JsonObject object = (JsonObject) value;
+            for (Node child : children) {
+                JsonValue childValue = object.get(child.token);
+                if (childValue != null) {
+                    resolve(child, childValue, values);
+                }
+            }
+        } else if (valueType == ValueType.ARRAY) {
+            JsonArray array = (JsonArray) value;
+            int size = array.size();
+            for (Node child : children) {
+                if (child.index >= 0 && child.index < size) {
+                    resolve(child, array.get(child.index), values);
+                }
+            }
+        }
+    }
+
+    // Resolves the pointers while the JSON text is parsed
+    private static final class StreamResolver {
+        private final JsonParser parser;
+        private final JsonValue[] values;
+        private final JsonBuilderFactory factory;
+        // number of pointers that are neither found nor known to be missing
+        private int remaining;
+        private boolean skipSupported = true;
+
+        StreamResolver(JsonParser parser, JsonValue[] values,
+                JsonBuilderFactory factory, int remaining) {
+            this.parser = parser;
+            this.values = values;
+            this.factory = factory;
+            this.remaining = remaining;
+        }
+
+        // The parser is at the first event of the value of the node. When
+        // this returns, the pointers of the node and the nodes below it are
+        // either found or known to be missing.
+        void resolve(Node node, Event event) {
+            if (node.targets.length > 0) {
+                JsonValue value = readValue(event);
+                JsonPointerSet.resolve(node, value, values);
+            } else if (event == Event.START_OBJECT) {
+                resolveObject(node);
+                return;
+            } else if (event == Event.START_ARRAY) {
+                resolveArray(node);
+                return;
+            }
+            remaining -= node.targetCount;
+        }
+
+        private void resolveObject(Node node) {
+            // a name may be repeated, only its first value is used
+            boolean[] done = new boolean[node.children.length];
+            int found = 0;
+            int decided = 0;
+            while (parser.next() != Event.END_OBJECT) {
+                int i = node.indexOf(parser.getString());
+                Event event = parser.next();
+                if (i == -1 || done[i]) {
+                    skip(event);
+                    continue;
+                }
+                done[i] = true;
+                Node child = node.children[i];
+                resolve(child, event);
+                if (remaining == 0) {
+                    return;
+                }
+                decided += child.targetCount;
+                if (++found == node.children.length) {
+                    skip(Event.START_OBJECT);
+                    break;
+                }
+            }
+            remaining -= node.targetCount - decided;
+        }
+
+        private void resolveArray(Node node) {
+            boolean[] done = new boolean[node.children.length];
+            int found = 0;
+            int decided = 0;
+            Event event;
+            for (int index = 0; (event = parser.next()) != Event.END_ARRAY; index++) {
+                int i = node.indexOf(index);
+                if (i == -1 || done[i]) {
+                    skip(event);
+                    continue;
+                }
+                done[i] = true;
+                Node child = node.children[i];
+                resolve(child, event);
+                if (remaining == 0) {
+                    return;
+                }
+                decided += child.targetCount;
+                if (++found == node.children.length) {
+                    skip(Event.START_ARRAY);
+                    break;
+                }
+            }
+            remaining -= node.targetCount - decided;
+        }
+
+        // Skips the rest of the value that starts with the event
+        private void skip(Event event) {
+            if (event != Event.START_OBJECT && event != Event.START_ARRAY) {
+                return;
+            }
+            if (skipSupported) {
+                try {
+                    if (event == Event.START_OBJECT) {
+                        parser.skipObject();
+                    } else {
+                        parser.skipArray();
+                    }
+                    return;
+                } catch (UnsupportedOperationException e) {
+                    skipSupported = false;
+                }
+            }
+            int depth = 1;
+            while (depth > 0) {
+                switch (parser.next()) {
+                    case START_OBJECT:
+                    case START_ARRAY:
+                        depth++;
+                        break;
+                    case END_OBJECT:
+                    case END_ARRAY:
+                        depth--;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        private JsonValue readValue(Event event) {
+            switch (event) {
+                case START_OBJECT:
+                    return readObject();
+                case START_ARRAY:
+                    return readArray();
+                case VALUE_TRUE:
+                    return JsonValue.TRUE;
+                case VALUE_FALSE:
+                    return JsonValue.FALSE;
+                case VALUE_NULL:
+                    return JsonValue.NULL;
+                default:
+                    // a string or a number, built as an array element
+                    JsonArrayBuilder builder = factory.createArrayBuilder();
+                    addValue(builder, event);
+                    return builder.build().get(0);
+            }
+        }
+
+        private JsonObject readObject() {
+            JsonObjectBuilder builder = factory.createObjectBuilder();
+            while (parser.next() != Event.END_OBJECT) {
+                String name = parser.getString();
+                Event event = parser.next();
+                switch (event) {
+                    case START_OBJECT:
+                        builder.add(name, readObject());
+                        break;
+                    case START_ARRAY:
+                        builder.add(name, readArray());
+                        break;
+                    case VALUE_STRING:
+                        builder.add(name, parser.getString());
+                        break;
+                    case VALUE_NUMBER:
+                        builder.add(name, parser.getBigDecimal());
+                        break;
+                    default:
+                        builder.add(name, readValue(event));
+                        break;
+                }
+            }
+            return builder.build();
+        }
+
+        private JsonArray readArray() {
+            JsonArrayBuilder builder = factory.createArrayBuilder();
+            Event event;
+            while ((event = parser.next()) != Event.END_ARRAY) {
+                addValue(builder, event);
+            }
+            return builder.build();
+        }
+
+        private void addValue(JsonArrayBuilder builder, Event event) {
+            switch (event) {
+                case VALUE_STRING:
+                    builder.add(parser.getString());
+                    break;
+                case VALUE_NUMBER:
+                    builder.add(parser.getBigDecimal());
+                    break;
+                default:
+                    builder.add(readValue(event));
+                    break;
+            }
+        }
+    }
+
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+        // children are looked up by name in a map above this count
+        private static final int MAX_LINEAR_CHILDREN = 8;
+
+        final String token;
+        // array index of the token, or -1 if the token isn't an index
+        final int index;
+        // positions of the pointers that end at this node
+        final int[] targets;
+        final Node[] children;
+        // number of the pointers that end at this node or below it
+        final int targetCount;
+        // positions of the children by name
+        private final Map<String, Integer> childMap;
+
+        Node(String token, int index, int[] targets, Node[] children) {
+            this.token = token;
+            this.index = index;
+            this.targets = targets;
+            this.children = children;
+            int count = targets.length;
+            for (Node child : children) {
+                count += child.targetCount;
+            }
+            this.targetCount = count;
+            if (children.length > MAX_LINEAR_CHILDREN) {
+                childMap = new HashMap<>();
+                for (int i = children.length - 1; i >= 0; i--) {
+                    childMap.put(children[i].token, i);
+                }
+            } else {
+                childMap = null;
+            }
+        }
+
+        // Returns the position of the child with the name, or -1
+        int indexOf(String name) {
+            if (childMap != null) {
+                Integer i = childMap.get(name);
+                return i == null ? -1 : i;
+            }
+            for (int i = 0; i < children.length; i++) {
+                if (children[i].token.equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Returns the position of the child with the array index, or -1
+        int indexOf(int index) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i].index == index) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class NodeBuilder {
+        final String token;
+        final int index;
+        final List<Integer> targets = new ArrayList<>(1);
+        final List<NodeBuilder> children = new ArrayList<>(4);
+
+        NodeBuilder(String token, int index) {
+            this.token = token;
+            this.index = index;
+        }
+
+        NodeBuilder child(String token, int index) {
+            for (NodeBuilder child : children) {
+                if (child.token.equals(token)) {
+                    return child;
+                }
+            }
+            NodeBuilder child = new NodeBuilder(token, index);
+            children.add(child);
+            return child;
+        }
+
+        Node build() {
+            int[] targetArray = new int[targets.size()];
+            for (int i = 0; i < targetArray.length; i++) {
+                targetArray[i] = targets.get(i);
+            }
+            Node[] childArray = children.isEmpty()
+                    ? Node.NO_CHILDREN : new Node[children.size()];
+            for (int i = 0; i < childArray.length; i++) {
+                childArray[i] = children.get(i).build();
+            }
+            return new Node(token, index, targetArray, childArray);
+        }
+    }
+
+}
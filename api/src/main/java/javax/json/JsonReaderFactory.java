@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -40,8 +40,10 @@
 
 package javax.json;
 
+import java.io.CharArrayReader;
 import java.io.InputStream;
 import java.io.Reader;
+import java.io.StringReader;
 import java.nio.charset.Charset;
 import java.util.Map;
 
@@ -103,6 +105,37 @@ public interface JsonReaderFactory {
      */
     JsonReader createReader(InputStream in, Charset charset);
 
+    /**
+     * Creates a JSON reader from the specified characters. The characters
+     * are read directly, without a {@link Reader}.
+     * The reader is configured with the factory configuration.
+     *
+     * @param chars the characters from which JSON is to be read
+     * @return a JSON reader
+     * @since 1.1
+     */
+    default JsonReader createReader(CharSequence chars) {
+        return createReader(new StringReader(chars.toString()));
+    }
+
+    /**
+     * Creates a JSON reader from the specified range of a char array. The
+     * chars are read in place and must not be modified while the reader is
+     * in use.
+     * The reader is configured with the factory configuration.
+     *
+     * @param chars the array from which JSON is to be read
+     * @param off the index of the first char
+     * @param len the number of chars
+     * @return a JSON reader
+     * @throws IndexOutOfBoundsException if {@code off} or {@code len} is
+     *         out of the array bounds
+     * @since 1.1
+     */
+    default JsonReader createReader(char[] chars, int off, int len) {
+        return createReader(new CharArrayReader(chars, off, len));
+    }
+
     /**
      * Returns read-only map of supported provider specific configuration
      * properties that are used to configure the created JSON readers.
@@ -45,10 +45,13 @@ import javax.json.stream.JsonGenerator;
 import javax.json.stream.JsonGeneratorFactory;
 import javax.json.stream.JsonParser;
 import javax.json.stream.JsonParserFactory;
+import java.io.CharArrayReader;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.ServiceLoader;
@@ -140,6 +143,53 @@ public abstract class JsonProvider {
      */
     public abstract JsonParser createParser(InputStream in);
 
+    /**
+     * Creates a JSON parser from the specified characters. The characters
+     * are read directly, without a {@link Reader}.
+     *
+     * @param chars the characters from which JSON is to be read
+     * @return a JSON parser
+     * @since 1.1
+     */
+    public JsonParser createParser(CharSequence chars) {
+        return createParser(new StringReader(chars.toString()));
+    }
+
+    /**
+     * Creates a JSON parser from the specified range of a char array. The
+     * chars are read in place and must not be modified while the parser is
+     * in use.
+     *
+     * @param chars the array from which JSON is to be read
+     * @param off the index of the first char
+     * @param len the number of chars
+     * @return a JSON parser
+     * @throws IndexOutOfBoundsException if {@code off} or {@code len} is
+     *         out of the array bounds
+     * @since 1.1
+     */
+    public JsonParser createParser(char[] chars, int off, int len) {
+        return createParser(new CharArrayReader(chars, off, len));
+    }
+
+    /**
+     * Creates a JSON parser from the bytes between the position and the
+     * limit of the specified buffer. The character encoding of the bytes
+     * is determined as specified in
+     * <a href="http://tools.ietf.org/rfc/rfc4627.txt">RFC 4627</a>.
+     * The buffer may be a heap buffer, a direct buffer or a memory-mapped
+     * region of a file. Its contents must not be modified while the parser
+     * is in use.
+     *
+     * @param buffer a byte buffer from which JSON is to be read
+     * @return a JSON parser
+     * @throws javax.json.JsonException if encoding cannot be determined
+     * @since 1.1
+     */
+    public JsonParser createParser(ByteBuffer buffer) {
+        return createParserFactory(null).createParser(buffer);
+    }
+
     /**
      * Creates a parser factory for creating {@link JsonParser} instances.
      *
@@ -215,6 +265,35 @@ public abstract class JsonProvider {
      */
     public abstract JsonReader createReader(InputStream in);
 
+    /**
+     * Creates a JSON reader from the specified characters. The characters
+     * are read directly, without a {@link Reader}.
+     *
+     * @param chars the characters from which JSON is to be read
+     * @return a JSON reader
+     * @since 1.1
+     */
+    public JsonReader createReader(CharSequence chars) {
+        return createReader(new StringReader(chars.toString()));
+    }
+
+    /**
+     * Creates a JSON reader from the specified range of a char array. The
+     * chars are read in place and must not be modified while the reader is
+     * in use.
+     *
+     * @param chars the array from which JSON is to be read
+     * @param off the index of the first char
+     * @param len the number of chars
+     * @return a JSON reader
+     * @throws IndexOutOfBoundsException if {@code off} or {@code len} is
+     *         out of the array bounds
+     * @since 1.1
+     */
+    public JsonReader createReader(char[] chars, int off, int len) {
+        return createReader(new CharArrayReader(chars, off, len));
+    }
+
     /**
      * Creates a JSON writer to write a
      * JSON {@link JsonObject object} or {@link JsonArray array}
@@ -296,6 +375,21 @@ public abstract class JsonProvider {
         return null;
     }
 
+    /**
+     * Creates a JSON pointer from the specified string. As a
+     * {@code JsonPointer} is immutable, a provider may return the same
+     * instance for the same string.
+     *
+     * @param pointer a JSON pointer string, as defined in
+     *     <a href="http://tools.ietf.org/html/rfc6901">RFC 6901</a>
+     * @return a JSON pointer
+     * @throws JsonException if the string is not a valid JSON pointer
+     * @since 1.1
+     */
+    public JsonPointer createPointer(String pointer) {
+        return new JsonPointer(pointer);
+    }
+
     /**
      * Creates a builder factory for creating {@link JsonArrayBuilder}
      * and {@link JsonObjectBuilder} objects.
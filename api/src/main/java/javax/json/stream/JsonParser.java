@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2011-2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -291,6 +291,23 @@ public interface JsonParser extends /*Auto*/Closeable {
      */
     long getLong();
 
+    /**
+     * Returns a JSON number as a double. The returned value is equal
+     * to {@code new BigDecimal(getString()).doubleValue()}. Note that this
+     * conversion can lose information about the overall magnitude and
+     * precision of the number value. This method should only be called
+     * when the parser state is {@link Event#VALUE_NUMBER}.
+     *
+     * @return a double for a JSON number
+     * @throws IllegalStateException when the parser state is not
+     *      {@code VALUE_NUMBER}
+     * @see java.math.BigDecimal#doubleValue()
+     * @since 1.1
+     */
+    default double getDouble() {
+        return getBigDecimal().doubleValue();
+    }
+
     /**
      * Returns a JSON number as a {@code BigDecimal}. The {@code BigDecimal}
      * is created using {@code new BigDecimal(getString())}. This
@@ -330,6 +347,65 @@ public interface JsonParser extends /*Auto*/Closeable {
     public <T extends JsonValue> T getJsonValue(Class<T> clazz);
      */
 
+    /**
+     * Advance the parser to {@code END_ARRAY}.
+     * If the parser is in array context, i.e. it has previously
+     * encountered a {@code START_ARRAY} without encountering the
+     * corresponding {@code END_ARRAY}, the parser is advanced to the
+     * corresponding {@code END_ARRAY}. The skipped values are not
+     * reported, and an implementation may skip them without fully
+     * parsing or validating them.
+     * If the parser is not in any array context, nothing happens.
+     *
+     * @throws javax.json.JsonException if an i/o error occurs (IOException
+     * would be cause of JsonException)
+     * @throws JsonParsingException if the parser encounters invalid JSON
+     * when advancing to {@code END_ARRAY}
+     * @since 1.1
+     */
+    default void skipArray() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Advance the parser to {@code END_OBJECT}.
+     * If the parser is in object context, i.e. it has previously
+     * encountered a {@code START_OBJECT} without encountering the
+     * corresponding {@code END_OBJECT}, the parser is advanced to the
+     * corresponding {@code END_OBJECT}. The skipped names and values are
+     * not reported, and an implementation may skip them without fully
+     * parsing or validating them.
+     * If the parser is not in any object context, nothing happens.
+     *
+     * @throws javax.json.JsonException if an i/o error occurs (IOException
+     * would be cause of JsonException)
+     * @throws JsonParsingException if the parser encounters invalid JSON
+     * when advancing to {@code END_OBJECT}
+     * @since 1.1
+     */
+    default void skipObject() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Skips the current value.
+     * If the parser state is {@code START_ARRAY} or {@code START_OBJECT},
+     * the parser is advanced to the corresponding {@code END_ARRAY} or
+     * {@code END_OBJECT}. If the parser state is {@code KEY_NAME}, the value
+     * of that name is skipped and the parser state becomes the last event
+     * of the value, for e.g. {@code VALUE_STRING} or {@code END_OBJECT}.
+     * In any other state, nothing happens.
+     *
+     * @throws javax.json.JsonException if an i/o error occurs (IOException
+     * would be cause of JsonException)
+     * @throws JsonParsingException if the parser encounters invalid JSON
+     * when skipping the value
+     * @since 1.1
+     */
+    default void skipValue() {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Closes this parser and frees any resources associated with the
      * parser. This method closes the underlying input source.
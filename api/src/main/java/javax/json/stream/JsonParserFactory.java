@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2011-2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -42,8 +42,11 @@ package javax.json.stream;
 
 import javax.json.JsonArray;
 import javax.json.JsonObject;
+import java.io.CharArrayReader;
 import java.io.InputStream;
 import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Map;
 
@@ -104,6 +107,53 @@ public interface JsonParserFactory {
      */
     JsonParser createParser(InputStream in, Charset charset);
 
+    /**
+     * Creates a JSON parser from the specified characters. The characters
+     * are read directly, without a {@link Reader}.
+     *
+     * @param chars the characters from which JSON is to be read
+     * @return the created JSON parser
+     * @since 1.1
+     */
+    default JsonParser createParser(CharSequence chars) {
+        return createParser(new StringReader(chars.toString()));
+    }
+
+    /**
+     * Creates a JSON parser from the specified range of a char array. The
+     * chars are read in place and must not be modified while the parser is
+     * in use.
+     *
+     * @param chars the array from which JSON is to be read
+     * @param off the index of the first char
+     * @param len the number of chars
+     * @return the created JSON parser
+     * @throws IndexOutOfBoundsException if {@code off} or {@code len} is
+     *         out of the array bounds
+     * @since 1.1
+     */
+    default JsonParser createParser(char[] chars, int off, int len) {
+        return createParser(new CharArrayReader(chars, off, len));
+    }
+
+    /**
+     * Creates a JSON parser from the bytes between the position and the
+     * limit of the specified buffer. The character encoding of the bytes
+     * is determined as specified in
+     * <a href="http://tools.ietf.org/rfc/rfc4627.txt">RFC 4627</a>.
+     * The buffer may be a heap buffer, a direct buffer or a memory-mapped
+     * region of a file. Its contents must not be modified while the parser
+     * is in use.
+     *
+     * @param buffer a byte buffer from which JSON is to be read
+     * @return the created JSON parser
+     * @throws javax.json.JsonException if encoding cannot be determined
+     * @since 1.1
+     */
+    default JsonParser createParser(ByteBuffer buffer) {
+        return createParser(new ByteBufferInputStream(buffer.duplicate()));
+    }
+
     /**
      * Creates a JSON parser from the specified JSON object.
      *
@@ -0,0 +1,295 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.flow;
+
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.stream.JsonGenerationException;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the UTF-8 encoded JSON text generated from a publisher of
+ * values. Every value becomes one {@code ByteBuffer}, so a request for
+ * n buffers is passed upstream as requests for n values, one at a time.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonBytesPublisher implements Flow.Publisher<ByteBuffer> {
+
+    private final Flow.Publisher<? extends JsonValue> source;
+    private final JsonGeneratorFactory generatorFactory;
+    private final JsonWriterFactory writerFactory;
+    private final boolean array;
+
+    JsonBytesPublisher(Flow.Publisher<? extends JsonValue> source,
+            JsonGeneratorFactory generatorFactory, JsonWriterFactory writerFactory,
+            boolean array) {
+        this.source = Objects.requireNonNull(source);
+        this.generatorFactory = generatorFactory;
+        this.writerFactory = writerFactory;
+        this.array = array;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        Objects.requireNonNull(subscriber);
+        source.subscribe(new GeneratingSubscription(subscriber, generatorFactory,
+                writerFactory, array));
+    }
+
+    /*
+     * Same serialization scheme as the parsing subscription: all signals
+     * are handled by a single drain loop.
+     */
+    private static final class GeneratingSubscription
+            implements Flow.Subscriber<JsonValue>, Flow.Subscription {
+
+        private final Flow.Subscriber<? super ByteBuffer> downstream;
+        private final JsonGeneratorFactory generatorFactory;
+        private final JsonWriterFactory writerFactory;
+        private final boolean array;
+        private final ChunkOutputStream out = new ChunkOutputStream();
+
+        private final Queue<JsonValue> values = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile Flow.Subscription upstream;
+        private volatile boolean upstreamDone;
+        private volatile Throwable upstreamError;
+        private volatile Throwable badRequest;
+        private volatile boolean cancelled;
+
+        // accessed only by the drain loop
+        private JsonGenerator arrayGenerator;
+        private boolean valueRequested;
+        private boolean done;
+
+        GeneratingSubscription(Flow.Subscriber<? super ByteBuffer> downstream,
+                JsonGeneratorFactory generatorFactory, JsonWriterFactory writerFactory,
+                boolean array) {
+            this.downstream = downstream;
+            this.generatorFactory = generatorFactory;
+            this.writerFactory = writerFactory;
+            this.array = array;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(JsonValue value) {
+            values.offer(value);
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            upstreamError = throwable;
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException(
+                        "Non-positive subscription request: " + n);
+            } else {
+                long r;
+                do {
+                    r = requested.get();
+                } while (r != Long.MAX_VALUE
+                        && !requested.compareAndSet(r, r + n < 0 ? Long.MAX_VALUE : r + n));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                try {
+                    drainLoop();
+                } catch (RuntimeException e) {
+                    fail(e);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drainLoop() {
+            while (!done) {
+                if (cancelled) {
+                    done = true;
+                    upstream.cancel();
+                    values.clear();
+                    return;
+                }
+                if (badRequest != null) {
+                    fail(badRequest);
+                    return;
+                }
+                if (requested.get() == 0) {
+                    return;
+                }
+                JsonValue value = values.poll();
+                if (value != null) {
+                    valueRequested = false;
+                    emit(write(value));
+                    continue;
+                }
+                if (upstreamDone) {
+                    if (upstreamError != null) {
+                        fail(upstreamError);
+                        return;
+                    }
+                    done = true;
+                    if (array) {
+                        downstream.onNext(endArray());
+                    }
+                    downstream.onComplete();
+                    return;
+                }
+                if (!valueRequested) {
+                    valueRequested = true;
+                    upstream.request(1);
+                }
+                return;
+            }
+        }
+
+        private void emit(ByteBuffer chunk) {
+            if (requested.get() != Long.MAX_VALUE) {
+                requested.decrementAndGet();
+            }
+            downstream.onNext(chunk);
+        }
+
+        private ByteBuffer write(JsonValue value) {
+            if (array) {
+                if (arrayGenerator == null) {
+                    arrayGenerator = generatorFactory.createGenerator(out);
+                    arrayGenerator.writeStartArray();
+                }
+                arrayGenerator.write(value).flush();
+            } else {
+                if (!(value instanceof JsonStructure)) {
+                    throw new JsonGenerationException(
+                            "Only a JsonObject or JsonArray can be written as a JSON text, not "
+                            + value.getValueType());
+                }
+                try (JsonWriter writer = writerFactory.createWriter(out)) {
+                    writer.write((JsonStructure)value);
+                }
+                out.write('\n');
+            }
+            return out.takeChunk();
+        }
+
+        private ByteBuffer endArray() {
+            if (arrayGenerator == null) {
+                arrayGenerator = generatorFactory.createGenerator(out);
+                arrayGenerator.writeStartArray();
+            }
+            arrayGenerator.writeEnd().close();
+            return out.takeChunk();
+        }
+
+        private void fail(Throwable t) {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (!upstreamDone) {
+                upstream.cancel();
+            }
+            values.clear();
+            downstream.onError(t);
+        }
+    }
+
+    // The generator and writers close their stream, the collected bytes are kept
+    private static final class ChunkOutputStream extends ByteArrayOutputStream {
+
+        ByteBuffer takeChunk() {
+            ByteBuffer chunk = ByteBuffer.wrap(toByteArray());
+            reset();
+            return chunk;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
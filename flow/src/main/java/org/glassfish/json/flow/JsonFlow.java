@@ -0,0 +1,194 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.flow;
+
+import org.glassfish.json.api.JsonPushParserFactory;
+
+import javax.json.Json;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParserFactory;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Flow;
+
+/**
+ * Adapts JSON parsing and generation to {@link Flow} publishers. Parsing
+ * is driven by a {@link org.glassfish.json.api.JsonPushParser}, so no thread
+ * blocks waiting for input, and both directions honour the demand signalled
+ * by the subscriber.
+ *
+ * <p>For example, a publisher of UTF-8 encoded chunks containing a JSON
+ * array can be turned into a publisher of the array's elements:
+ *
+ * <pre>
+ * <code>
+ * Flow.Publisher&lt;JsonValue&gt; values = JsonFlow.parseArrayElements(chunks);
+ * Flow.Publisher&lt;ByteBuffer&gt; bytes = JsonFlow.generateArray(values);
+ * </code>
+ * </pre>
+ *
+ * <p>{@code ByteBuffer}s passed to {@code onNext} are handed over to the
+ * receiver and must not be modified afterwards by the sender.
+ *
+ * @author Jitendra Kotamraju
+ */
+public final class JsonFlow {
+
+    private JsonFlow() {
+    }
+
+    /**
+     * Parses a UTF-8 encoded JSON text and publishes its top-level value.
+     *
+     * @param source publisher of the JSON text
+     * @return a publisher that emits one {@code JsonValue}, or signals
+     *     {@code onError} with a {@code JsonParsingException} if the text
+     *     is not valid
+     */
+    public static Flow.Publisher<JsonValue> parse(Flow.Publisher<ByteBuffer> source) {
+        return parse(source, Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * Parses a UTF-8 encoded JSON text and publishes its top-level value.
+     *
+     * @param source publisher of the JSON text
+     * @param config configuration of the parser and builders, may be empty
+     * @return a publisher that emits one {@code JsonValue}
+     */
+    public static Flow.Publisher<JsonValue> parse(Flow.Publisher<ByteBuffer> source,
+            Map<String, ?> config) {
+        return new JsonValuePublisher(source, parserFactory(config),
+                Json.createBuilderFactory(config), false);
+    }
+
+    /**
+     * Parses a UTF-8 encoded JSON text and, if its top-level value is an
+     * array, publishes each element of the array as soon as it is complete.
+     * Any other top-level value is published as is. This keeps the memory
+     * use bounded by the largest element rather than by the whole text.
+     *
+     * @param source publisher of the JSON text
+     * @return a publisher of the array elements
+     */
+    public static Flow.Publisher<JsonValue> parseArrayElements(
+            Flow.Publisher<ByteBuffer> source) {
+        return parseArrayElements(source, Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * Parses a UTF-8 encoded JSON text and publishes the elements of its
+     * top-level array. See {@link #parseArrayElements(Flow.Publisher)}.
+     *
+     * @param source publisher of the JSON text
+     * @param config configuration of the parser and builders, may be empty
+     * @return a publisher of the array elements
+     */
+    public static Flow.Publisher<JsonValue> parseArrayElements(
+            Flow.Publisher<ByteBuffer> source, Map<String, ?> config) {
+        return new JsonValuePublisher(source, parserFactory(config),
+                Json.createBuilderFactory(config), true);
+    }
+
+    /**
+     * Generates a JSON array containing the published values. Each value
+     * is encoded as UTF-8 into its own {@code ByteBuffer}; the brackets are
+     * part of the first and the last buffer.
+     *
+     * @param values values of the array
+     * @return a publisher of the generated JSON text
+     */
+    public static Flow.Publisher<ByteBuffer> generateArray(
+            Flow.Publisher<? extends JsonValue> values) {
+        return generateArray(values, Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * Generates a JSON array containing the published values.
+     * See {@link #generateArray(Flow.Publisher)}.
+     *
+     * @param values values of the array
+     * @param config configuration of the generator, may be empty
+     * @return a publisher of the generated JSON text
+     */
+    public static Flow.Publisher<ByteBuffer> generateArray(
+            Flow.Publisher<? extends JsonValue> values, Map<String, ?> config) {
+        return new JsonBytesPublisher(values, Json.createGeneratorFactory(config), null, true);
+    }
+
+    /**
+     * Generates one JSON text per published value, each followed by a
+     * newline. The values must be {@code JsonObject}s or {@code JsonArray}s.
+     *
+     * @param values values to be written
+     * @return a publisher of the generated JSON texts, one per
+     *     {@code ByteBuffer}
+     */
+    public static Flow.Publisher<ByteBuffer> generateLines(
+            Flow.Publisher<? extends JsonValue> values) {
+        return generateLines(values, Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * Generates one JSON text per published value, each followed by a
+     * newline. See {@link #generateLines(Flow.Publisher)}.
+     *
+     * @param values values to be written
+     * @param config configuration of the generator, may be empty
+     * @return a publisher of the generated JSON texts
+     */
+    public static Flow.Publisher<ByteBuffer> generateLines(
+            Flow.Publisher<? extends JsonValue> values, Map<String, ?> config) {
+        return new JsonBytesPublisher(values, Json.createGeneratorFactory(config),
+                Json.createWriterFactory(config), false);
+    }
+
+    private static JsonPushParserFactory parserFactory(Map<String, ?> config) {
+        JsonParserFactory factory = Json.createParserFactory(config);
+        if (!(factory instanceof JsonPushParserFactory)) {
+            throw new IllegalStateException("JSON provider " + factory.getClass().getName()
+                    + " does not support push parsing");
+        }
+        return (JsonPushParserFactory)factory;
+    }
+
+}
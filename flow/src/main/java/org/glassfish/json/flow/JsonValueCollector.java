@@ -0,0 +1,177 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.flow;
+
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParser;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Builds {@code JsonValue}s from parser events that may arrive over
+ * several chunks of input. The state between events is kept in a stack of
+ * builders rather than on the call stack.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonValueCollector {
+
+    private final JsonBuilderFactory builderFactory;
+    private final boolean arrayElements;
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    // true when the elements of the top-level array are being emitted
+    private boolean inTopLevelArray;
+
+    JsonValueCollector(JsonBuilderFactory builderFactory, boolean arrayElements) {
+        this.builderFactory = builderFactory;
+        this.arrayElements = arrayElements;
+    }
+
+    /**
+     * Processes the current event of the parser.
+     *
+     * @return a complete value that is to be emitted, or null
+     */
+    JsonValue accept(JsonParser.Event event, JsonParser parser) {
+        switch (event) {
+            case START_ARRAY:
+                if (arrayElements && stack.isEmpty() && !inTopLevelArray) {
+                    inTopLevelArray = true;
+                } else {
+                    stack.push(new Frame(builderFactory.createArrayBuilder()));
+                }
+                return null;
+            case START_OBJECT:
+                stack.push(new Frame(builderFactory.createObjectBuilder()));
+                return null;
+            case KEY_NAME:
+                stack.peek().key = parser.getString();
+                return null;
+            case END_ARRAY:
+                if (stack.isEmpty()) {
+                    // end of the top-level array whose elements were emitted
+                    inTopLevelArray = false;
+                    return null;
+                }
+                return complete(stack.pop().array.build());
+            case END_OBJECT:
+                return complete(stack.pop().object.build());
+            case VALUE_STRING:
+                if (stack.isEmpty()) {
+                    return scalar().add(parser.getString()).build().get(0);
+                }
+                stack.peek().add(parser.getString());
+                return null;
+            case VALUE_NUMBER:
+                if (stack.isEmpty()) {
+                    return scalar().add(parser.getBigDecimal()).build().get(0);
+                }
+                stack.peek().add(parser.getBigDecimal());
+                return null;
+            case VALUE_TRUE:
+                return complete(JsonValue.TRUE);
+            case VALUE_FALSE:
+                return complete(JsonValue.FALSE);
+            case VALUE_NULL:
+                return complete(JsonValue.NULL);
+            default:
+                throw new IllegalStateException(String.valueOf(event));
+        }
+    }
+
+    private JsonValue complete(JsonValue value) {
+        if (stack.isEmpty()) {
+            return value;
+        }
+        stack.peek().add(value);
+        return null;
+    }
+
+    // JsonString and JsonNumber instances are only created by builders
+    private JsonArrayBuilder scalar() {
+        return builderFactory.createArrayBuilder();
+    }
+
+    private static final class Frame {
+        final JsonObjectBuilder object;
+        final JsonArrayBuilder array;
+        String key;
+
+        Frame(JsonObjectBuilder object) {
+            this.object = object;
+            this.array = null;
+        }
+
+        Frame(JsonArrayBuilder array) {
+            this.object = null;
+            this.array = array;
+        }
+
+        void add(JsonValue value) {
+            if (object != null) {
+                object.add(key, value);
+            } else {
+                array.add(value);
+            }
+        }
+
+        void add(String value) {
+            if (object != null) {
+                object.add(key, value);
+            } else {
+                array.add(value);
+            }
+        }
+
+        void add(BigDecimal value) {
+            if (object != null) {
+                object.add(key, value);
+            } else {
+                array.add(value);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,276 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.flow;
+
+import org.glassfish.json.api.JsonPushParser;
+import org.glassfish.json.api.JsonPushParserFactory;
+
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonValue;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the values parsed from a publisher of UTF-8 encoded bytes.
+ * Each subscription subscribes to the source with its own push parser.
+ * Chunks are requested one at a time and only while the subscriber has
+ * outstanding demand, so at most one chunk is buffered ahead.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonValuePublisher implements Flow.Publisher<JsonValue> {
+
+    private final Flow.Publisher<ByteBuffer> source;
+    private final JsonPushParserFactory parserFactory;
+    private final JsonBuilderFactory builderFactory;
+    private final boolean arrayElements;
+
+    JsonValuePublisher(Flow.Publisher<ByteBuffer> source, JsonPushParserFactory parserFactory,
+            JsonBuilderFactory builderFactory, boolean arrayElements) {
+        this.source = Objects.requireNonNull(source);
+        this.parserFactory = parserFactory;
+        this.builderFactory = builderFactory;
+        this.arrayElements = arrayElements;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super JsonValue> subscriber) {
+        Objects.requireNonNull(subscriber);
+        source.subscribe(new ParsingSubscription(subscriber, parserFactory.createPushParser(),
+                new JsonValueCollector(builderFactory, arrayElements)));
+    }
+
+    /*
+     * Both the upstream signals and the downstream requests end up in
+     * drain(). Only one thread runs the drain loop at a time, the others
+     * just bump the wip counter so that the loop runs again.
+     */
+    private static final class ParsingSubscription
+            implements Flow.Subscriber<ByteBuffer>, Flow.Subscription {
+
+        private final Flow.Subscriber<? super JsonValue> downstream;
+        private final JsonPushParser parser;
+        private final JsonValueCollector collector;
+
+        private final Queue<ByteBuffer> chunks = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile Flow.Subscription upstream;
+        private volatile boolean upstreamDone;
+        private volatile Throwable upstreamError;
+        private volatile Throwable badRequest;
+        private volatile boolean cancelled;
+
+        // accessed only by the drain loop
+        private boolean chunkRequested;
+        private boolean inputEnded;
+        private boolean done;
+
+        ParsingSubscription(Flow.Subscriber<? super JsonValue> downstream,
+                JsonPushParser parser, JsonValueCollector collector) {
+            this.downstream = downstream;
+            this.parser = parser;
+            this.collector = collector;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(ByteBuffer chunk) {
+            chunks.offer(chunk);
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            upstreamError = throwable;
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException(
+                        "Non-positive subscription request: " + n);
+            } else {
+                long r;
+                do {
+                    r = requested.get();
+                } while (r != Long.MAX_VALUE
+                        && !requested.compareAndSet(r, r + n < 0 ? Long.MAX_VALUE : r + n));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                try {
+                    drainLoop();
+                } catch (RuntimeException e) {
+                    fail(e);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drainLoop() {
+            while (!done) {
+                if (cancelled) {
+                    done = true;
+                    upstream.cancel();
+                    cleanup();
+                    return;
+                }
+                if (badRequest != null) {
+                    fail(badRequest);
+                    return;
+                }
+                if (!parser.hasNext()) {
+                    if (inputEnded) {
+                        done = true;
+                        cleanup();
+                        downstream.onComplete();
+                        return;
+                    }
+                } else {
+                    if (requested.get() == 0) {
+                        return;
+                    }
+                    JsonValue value = nextValue();
+                    if (value != null) {
+                        if (requested.get() != Long.MAX_VALUE) {
+                            requested.decrementAndGet();
+                        }
+                        downstream.onNext(value);
+                        continue;
+                    }
+                    if (!parser.hasNext()) {
+                        continue;
+                    }
+                }
+                // the parser needs more input
+                ByteBuffer chunk = chunks.poll();
+                if (chunk != null) {
+                    chunkRequested = false;
+                    parser.feed(chunk);
+                    continue;
+                }
+                if (upstreamDone) {
+                    if (upstreamError != null) {
+                        fail(upstreamError);
+                        return;
+                    }
+                    inputEnded = true;
+                    parser.endOfInput();
+                    continue;
+                }
+                if (!chunkRequested) {
+                    chunkRequested = true;
+                    upstream.request(1);
+                }
+                return;
+            }
+        }
+
+        // Returns the next value to emit, or null if more input is needed
+        // or the end of the JSON text is reached
+        private JsonValue nextValue() {
+            while (parser.hasNext()) {
+                if (!parser.tryNext()) {
+                    return null;
+                }
+                JsonValue value = collector.accept(parser.currentEvent(), parser);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        private void fail(Throwable t) {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (!upstreamDone) {
+                upstream.cancel();
+            }
+            cleanup();
+            downstream.onError(t);
+        }
+
+        private void cleanup() {
+            chunks.clear();
+            parser.close();
+        }
+    }
+
+}
@@ -0,0 +1,328 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.flow;
+
+import junit.framework.TestCase;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonValue;
+import javax.json.stream.JsonGenerationException;
+import javax.json.stream.JsonParsingException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+/**
+ * Tests {@link JsonFlow} publishers
+ *
+ * @author Jitendra Kotamraju
+ */
+public class JsonFlowTest extends TestCase {
+
+    public JsonFlowTest(String testName) {
+        super(testName);
+    }
+
+    public void testParseSplitChunks() throws Exception {
+        String json = "{\"a\":[1,2.5,{\"b\":\"x\u00e9\u20ac\"}],\"c\":true,\"d\":null}";
+        for (int size = 1; size < 8; size++) {
+            ChunkPublisher source = new ChunkPublisher(json, size);
+            CollectingSubscriber<JsonValue> subscriber = new CollectingSubscriber<>();
+            JsonFlow.parse(source).subscribe(subscriber);
+            subscriber.request(Long.MAX_VALUE);
+
+            assertTrue(subscriber.completed);
+            assertEquals(1, subscriber.items.size());
+            assertEquals(Json.createReader(new StringReader(json)).read(),
+                    subscriber.items.get(0));
+        }
+    }
+
+    public void testParseArrayElements() throws Exception {
+        String json = " [1, \"two\", {\"three\":[3]}, [4], null, false] ";
+        ChunkPublisher source = new ChunkPublisher(json, 3);
+        CollectingSubscriber<JsonValue> subscriber = new CollectingSubscriber<>();
+        JsonFlow.parseArrayElements(source).subscribe(subscriber);
+
+        JsonArray expected = (JsonArray)Json.createReader(new StringReader(json)).read();
+        for (int i = 0; i < expected.size(); i++) {
+            subscriber.request(1);
+            assertEquals(i + 1, subscriber.items.size());
+            assertEquals(expected.get(i), subscriber.items.get(i));
+        }
+        subscriber.request(1);
+        assertTrue(subscriber.completed);
+        assertEquals(expected.size(), subscriber.items.size());
+    }
+
+    public void testParseArrayElementsTopLevelObject() throws Exception {
+        String json = "{\"a\":[1]}";
+        CollectingSubscriber<JsonValue> subscriber = new CollectingSubscriber<>();
+        JsonFlow.parseArrayElements(new ChunkPublisher(json, 2)).subscribe(subscriber);
+        subscriber.request(5);
+
+        assertTrue(subscriber.completed);
+        assertEquals(Arrays.asList(Json.createReader(new StringReader(json)).read()),
+                subscriber.items);
+    }
+
+    public void testParseBackpressure() throws Exception {
+        ChunkPublisher source = new ChunkPublisher("[1,2,3,4,5,6,7,8]", 4);
+        CollectingSubscriber<JsonValue> subscriber = new CollectingSubscriber<>();
+        JsonFlow.parseArrayElements(source).subscribe(subscriber);
+        assertEquals(0, source.requested);
+
+        subscriber.request(1);
+        assertEquals(1, subscriber.items.size());
+        // "[1,2" has the first element, no more chunks are needed
+        assertEquals(1, source.requested);
+
+        subscriber.request(2);
+        assertEquals(3, subscriber.items.size());
+        assertEquals(2, source.requested);
+        assertFalse(subscriber.completed);
+    }
+
+    public void testParseInvalid() throws Exception {
+        for (String json : new String[] {"{\"a\":}", "[1,2", "[1] 2", ""}) {
+            CollectingSubscriber<JsonValue> subscriber = new CollectingSubscriber<>();
+            ChunkPublisher source = new ChunkPublisher(json, 1);
+            JsonFlow.parseArrayElements(source).subscribe(subscriber);
+            subscriber.request(Long.MAX_VALUE);
+            assertTrue(json, subscriber.error instanceof JsonParsingException);
+            assertFalse(subscriber.completed);
+        }
+    }
+
+    public void testParseCancel() throws Exception {
+        ChunkPublisher source = new ChunkPublisher("[1,2,3,4,5,6,7,8]", 2);
+        CollectingSubscriber<JsonValue> subscriber = new CollectingSubscriber<>();
+        JsonFlow.parseArrayElements(source).subscribe(subscriber);
+        subscriber.request(1);
+        subscriber.subscription.cancel();
+        subscriber.request(1);
+
+        assertTrue(source.cancelled);
+        assertEquals(1, subscriber.items.size());
+        assertFalse(subscriber.completed);
+    }
+
+    public void testGenerateArray() throws Exception {
+        List<JsonValue> values = Arrays.asList(
+                Json.createArrayBuilder().add(1).add("a").build().get(0),
+                JsonValue.TRUE,
+                Json.createObjectBuilder().add("b", "\u00e9").build());
+        ValuePublisher source = new ValuePublisher(values);
+        CollectingSubscriber<ByteBuffer> subscriber = new CollectingSubscriber<>();
+        JsonFlow.generateArray(source).subscribe(subscriber);
+
+        subscriber.request(2);
+        assertEquals(2, subscriber.items.size());
+        assertEquals(2, source.requested);
+        subscriber.request(Long.MAX_VALUE);
+
+        assertTrue(subscriber.completed);
+        assertEquals(4, subscriber.items.size());
+        assertEquals("[1,true,{\"b\":\"\u00e9\"}]", toString(subscriber.items));
+    }
+
+    public void testGenerateEmptyArray() throws Exception {
+        CollectingSubscriber<ByteBuffer> subscriber = new CollectingSubscriber<>();
+        JsonFlow.generateArray(new ValuePublisher(new ArrayList<JsonValue>()))
+                .subscribe(subscriber);
+        subscriber.request(1);
+
+        assertTrue(subscriber.completed);
+        assertEquals("[]", toString(subscriber.items));
+    }
+
+    public void testGenerateLines() throws Exception {
+        List<JsonValue> values = Arrays.asList(
+                Json.createObjectBuilder().add("a", 1).build(),
+                Json.createArrayBuilder().add("b").build());
+        CollectingSubscriber<ByteBuffer> subscriber = new CollectingSubscriber<>();
+        JsonFlow.generateLines(new ValuePublisher(values)).subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+
+        assertTrue(subscriber.completed);
+        assertEquals(2, subscriber.items.size());
+        assertEquals("{\"a\":1}\n[\"b\"]\n", toString(subscriber.items));
+    }
+
+    public void testGenerateLinesScalar() throws Exception {
+        ValuePublisher source = new ValuePublisher(Arrays.asList(JsonValue.NULL, JsonValue.TRUE));
+        CollectingSubscriber<ByteBuffer> subscriber = new CollectingSubscriber<>();
+        JsonFlow.generateLines(source).subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+
+        assertTrue(subscriber.error instanceof JsonGenerationException);
+        assertTrue(source.cancelled);
+    }
+
+    public void testRoundTrip() throws Exception {
+        String json = "[{\"a\":1},[2,3],\"four\",5.5,null]";
+        CollectingSubscriber<ByteBuffer> subscriber = new CollectingSubscriber<>();
+        JsonFlow.generateArray(JsonFlow.parseArrayElements(new ChunkPublisher(json, 5)))
+                .subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+
+        assertTrue(subscriber.completed);
+        assertEquals(json, toString(subscriber.items));
+    }
+
+    private static String toString(List<ByteBuffer> chunks) {
+        StringBuilder sb = new StringBuilder();
+        for (ByteBuffer chunk : chunks) {
+            sb.append(StandardCharsets.UTF_8.decode(chunk));
+        }
+        return sb.toString();
+    }
+
+    // Synchronously publishes the UTF-8 bytes of a string in fixed size chunks
+    private static class ChunkPublisher implements Flow.Publisher<ByteBuffer> {
+        final byte[] bytes;
+        final int size;
+        int pos;
+        long requested;
+        boolean cancelled;
+
+        ChunkPublisher(String json, int size) {
+            this.bytes = json.getBytes(StandardCharsets.UTF_8);
+            this.size = size;
+        }
+
+        @Override
+        public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    requested += n;
+                    for (long i = 0; i < n && !cancelled; i++) {
+                        if (pos == bytes.length) {
+                            subscriber.onComplete();
+                            return;
+                        }
+                        int len = Math.min(size, bytes.length - pos);
+                        ByteBuffer chunk = ByteBuffer.wrap(Arrays.copyOfRange(bytes, pos, pos + len));
+                        pos += len;
+                        subscriber.onNext(chunk);
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    // Synchronously publishes the values of a list
+    private static class ValuePublisher implements Flow.Publisher<JsonValue> {
+        final List<JsonValue> values;
+        int index;
+        long requested;
+        boolean cancelled;
+
+        ValuePublisher(List<JsonValue> values) {
+            this.values = values;
+        }
+
+        @Override
+        public void subscribe(final Flow.Subscriber<? super JsonValue> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    requested += n;
+                    for (long i = 0; i < n && !cancelled; i++) {
+                        if (index == values.size()) {
+                            subscriber.onComplete();
+                            return;
+                        }
+                        subscriber.onNext(values.get(index++));
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    private static class CollectingSubscriber<T> implements Flow.Subscriber<T> {
+        final List<T> items = new ArrayList<>();
+        Flow.Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        void request(long n) {
+            subscription.request(n);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+}
@@ -48,7 +48,7 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -59,17 +59,29 @@ import java.util.List;
  */
 
 class JsonArrayBuilderImpl implements JsonArrayBuilder {
+    private static final JsonValue[] EMPTY_VALUES = new JsonValue[0];
+
     private ArrayList<JsonValue> valueList;
     private final BufferPool bufferPool;
 
+    // Array that the builder is created from, until its elements are
+    // needed in a list. It is a JsonArrayImpl or a JsonNumberArrayImpl,
+    // and it is copied before it is modified.
+    private JsonArray array;
+    private boolean arrayCopied;
+
     JsonArrayBuilderImpl(BufferPool bufferPool) {
         this.bufferPool = bufferPool;
     }
 
     JsonArrayBuilderImpl(JsonArray array, BufferPool bufferPool) {
         this.bufferPool = bufferPool;
-        valueList = new ArrayList<>();
-        valueList.addAll(array);
+        if (array instanceof JsonArrayImpl || array instanceof JsonNumberArrayImpl) {
+            this.array = array;
+        } else {
+            valueList = new ArrayList<>();
+            valueList.addAll(array);
+        }
     }
 
     @Override
@@ -153,6 +165,7 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
         if (builder == null) {
             throw new NullPointerException(JsonMessages.ARRBUILDER_ARRAY_BUILDER_NULL());
         }
+        copyToValueList();
         if (valueList == null) {
             valueList = new ArrayList<>();
         }
@@ -314,6 +327,14 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
 
     @Override
     public JsonArrayBuilder remove(int index) {
+        if (array != null) {
+            if (index < 0 || index >= array.size()) {
+                throw new IndexOutOfBoundsException();
+            }
+            array = copyArray(index, -1);
+            arrayCopied = true;
+            return this;
+        }
         if (valueList == null) {
             throw new IndexOutOfBoundsException();
         }
@@ -323,19 +344,100 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
 
     @Override
     public JsonArray build() {
-        List<JsonValue> snapshot;
+        if (this.array != null) {
+            return buildArray();
+        }
+        JsonArray array;
         if (valueList == null) {
-            snapshot = Collections.emptyList();
+            array = new JsonArrayImpl(EMPTY_VALUES, bufferPool);
         } else {
-            // Should we trim to minimize storage ?
-            // valueList.trimToSize();
-            snapshot = Collections.unmodifiableList(valueList);
+            // arrays of numbers are stored packed
+            array = JsonNumberArrayImpl.create(valueList, bufferPool);
+            if (array == null) {
+                array = new JsonArrayImpl(
+                        valueList.toArray(new JsonValue[valueList.size()]), bufferPool);
+            }
         }
         valueList = null;
-        return new JsonArrayImpl(snapshot, bufferPool);
+        return array;
+    }
+
+    /*
+     * Creates an array from the values in [from, to) of the given values,
+     * without a builder. Used by the readers, which keep the values of all
+     * the open arrays in the same array.
+     */
+    static JsonArray createArray(JsonValue[] values, int from, int to, BufferPool bufferPool) {
+        if (from == to) {
+            return new JsonArrayImpl(EMPTY_VALUES, bufferPool);
+        }
+        JsonValue[] elements = Arrays.copyOfRange(values, from, to);
+        JsonArray array = JsonNumberArrayImpl.create(Arrays.asList(elements), bufferPool);
+        return (array != null) ? array : new JsonArrayImpl(elements, bufferPool);
+    }
+
+    private JsonArray buildArray() {
+        JsonArray built = array;
+        if (arrayCopied) {
+            if (built.isEmpty()) {
+                built = new JsonArrayImpl(EMPTY_VALUES, bufferPool);
+            } else if (built instanceof JsonArrayImpl) {
+                // the values that are not numbers may be replaced or removed
+                JsonArray numbers = JsonNumberArrayImpl.create(built, bufferPool);
+                if (numbers != null) {
+                    built = numbers;
+                }
+            }
+        }
+        array = null;
+        arrayCopied = false;
+        return built;
+    }
+
+    /*
+     * Returns a copy of the array with a free slot at index if delta is 1,
+     * without the element at index if delta is -1, or with all the elements
+     * if delta is 0.
+     */
+    private JsonArray copyArray(int index, int delta) {
+        if (array instanceof JsonArrayImpl) {
+            JsonValue[] values = ((JsonArrayImpl)array).values;
+            JsonValue[] copy = new JsonValue[values.length + delta];
+            JsonNumberArrayImpl.copy(values, values.length, copy, index, delta);
+            return new JsonArrayImpl(copy, bufferPool);
+        }
+        return ((JsonNumberArrayImpl)array).copy(index, delta);
+    }
+
+    private boolean canStoreInArray(JsonValue value) {
+        return array instanceof JsonArrayImpl || (value instanceof JsonNumber
+                && ((JsonNumberArrayImpl)array).fits((JsonNumber)value));
+    }
+
+    // Stores the value in the copy of the array
+    private void storeInArray(int index, JsonValue value) {
+        if (array instanceof JsonArrayImpl) {
+            ((JsonArrayImpl)array).values[index] = value;
+        } else {
+            ((JsonNumberArrayImpl)array).store(index, (JsonNumber)value);
+        }
+    }
+
+    private void copyToValueList() {
+        if (array != null) {
+            if (array instanceof JsonArrayImpl) {
+                // a single copy of the values
+                valueList = new ArrayList<>(Arrays.asList(((JsonArrayImpl)array).values));
+            } else {
+                valueList = new ArrayList<>(array);
+            }
+            array = null;
+            arrayCopied = false;
+        }
     }
 
     private void addValueList(JsonValue value) {
+        copyToValueList();
         if (valueList == null) {
             valueList = new ArrayList<>();
         }
@@ -343,6 +445,18 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
     }
 
     private void addValueList(int index, JsonValue value) {
+        if (array != null) {
+            if (index < 0 || index > array.size()) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (canStoreInArray(value)) {
+                array = copyArray(index, 1);
+                arrayCopied = true;
+                storeInArray(index, value);
+                return;
+            }
+            copyToValueList();
+        }
         if (valueList == null) {
             valueList = new ArrayList<>();
         }
@@ -350,6 +464,20 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
     }
 
     private void setValueList(int index, JsonValue value) {
+        if (array != null) {
+            if (index < 0 || index >= array.size()) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (canStoreInArray(value)) {
+                if (!arrayCopied) {
+                    array = copyArray(0, 0);
+                    arrayCopied = true;
+                }
+                storeInArray(index, value);
+                return;
+            }
+            copyToValueList();
+        }
         if (valueList == null) {
             throw new IndexOutOfBoundsException();
         }
@@ -363,43 +491,43 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
     }
 
     private static final class JsonArrayImpl extends AbstractList<JsonValue> implements JsonArray {
-        private final List<JsonValue> valueList;    // Unmodifiable
+        private final JsonValue[] values;     // not modified once built
         private final BufferPool bufferPool;
 
-        JsonArrayImpl(List<JsonValue> valueList, BufferPool bufferPool) {
-            this.valueList = valueList;
+        JsonArrayImpl(JsonValue[] values, BufferPool bufferPool) {
+            this.values = values;
             this.bufferPool = bufferPool;
         }
 
         @Override
         public int size() {
-            return valueList.size();
+            return values.length;
         }
 
         @Override
         public JsonObject getJsonObject(int index) {
-            return (JsonObject)valueList.get(index);
+            return (JsonObject)get(index);
         }
 
         @Override
         public JsonArray getJsonArray(int index) {
-            return (JsonArray)valueList.get(index);
+            return (JsonArray)get(index);
         }
 
         @Override
         public JsonNumber getJsonNumber(int index) {
-            return (JsonNumber)valueList.get(index);
+            return (JsonNumber)get(index);
         }
 
         @Override
         public JsonString getJsonString(int index) {
-            return (JsonString)valueList.get(index);
+            return (JsonString)get(index);
         }
 
         @Override
         @SuppressWarnings("unchecked")
         public <T extends JsonValue> List<T> getValuesAs(Class<T> clazz) {
-            return (List<T>)valueList;
+            return (List<T>)this;
         }
 
         @Override
@@ -453,7 +581,7 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
 
         @Override
         public boolean isNull(int index) {
-            return valueList.get(index).equals(JsonValue.NULL);
+            return get(index).equals(JsonValue.NULL);
         }
 
         @Override
@@ -463,7 +591,7 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
 
         @Override
         public JsonValue get(int index) {
-            return valueList.get(index);
+            return values[index];
         }
 
         @Override
@@ -0,0 +1,812 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2012-2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.JsonException;
+import javax.json.JsonNumber;
+import javax.json.stream.JsonLocation;
+import java.io.*;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * JSON Tokenizer that works on chars from a {@link Reader}. In-memory
+ * chars are tokenized in place without any fill of the buffer. A
+ * {@code CharSequence} is copied once, to a pooled buffer if it fits in
+ * it. Only a sequence longer than {@link #MAX_COPY_LENGTH} is copied to
+ * the buffer in chunks, as the chars of a reader are. A caller's
+ * {@code char[]} is never modified, a string with escaped chars is copied
+ * to a separate store buffer instead.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonCharTokenizer extends JsonTokenizer {
+
+    // A longer CharSequence is not copied at once, to bound the memory
+    static final int MAX_COPY_LENGTH = 1 << 20;
+
+    private final BufferPool bufferPool;
+
+    // null when all the chars are in buf
+    private final Reader reader;
+    // the chars that are copied to buf as it is filled, null when all
+    // the chars are in buf or they are read from the reader
+    private final CharSequence chars;
+    private int charsPos;
+
+    // Internal buffer that is used for parsing. It is also used
+    // for storing current string and number value token
+    private char[] buf;
+
+    // true if buf is the caller's array. Escaped strings are not stored in it
+    private final boolean external;
+    // false if buf is not taken from the pool
+    private final boolean recycleBuf;
+
+    // Buffer for the current token value, it is buf except for
+    // an escaped string in an external buffer
+    private char[] store;
+    private char[] scratch;
+
+    // Indexes in buffer
+    //
+    // XXXssssssssssssXXXXXXXXXXXXXXXXXXXXXXrrrrrrrrrrrrrrXXXXXX
+    //    ^           ^                     ^             ^
+    //    |           |                     |             |
+    //   storeBegin  storeEnd            readBegin      readEnd
+    private int readBegin;
+    private int readEnd;
+    private int storeBegin;
+    private int storeEnd;
+
+    // line number of the current pointer of parsing char
+    private long lineNo = 1;
+
+    // XXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXX
+    // ^
+    // |
+    // bufferOffset
+    //
+    // offset of the last \r\n or \n. will be used to calculate column number
+    // of a token or an error. This may be outside of the buffer.
+    private long lastLineOffset = 0;
+    // offset in the stream for the start of the buffer, will be used in
+    // calculating JsonLocation's stream offset, column no.
+    private long bufferOffset = 0;
+
+    private boolean minus;
+    private boolean fracOrExp;
+    private BigDecimal bd;
+
+    JsonCharTokenizer(Reader reader, BufferPool bufferPool) {
+        this.reader = reader;
+        this.chars = null;
+        this.bufferPool = bufferPool;
+        this.external = false;
+        this.recycleBuf = true;
+        buf = store = bufferPool.take();
+    }
+
+    // The chars are copied to a pooled buffer if they fit in it, or to a
+    // buffer of their length. Only a very long sequence fills the pooled
+    // buffer with chunks of it like for a reader
+    JsonCharTokenizer(CharSequence chars, BufferPool bufferPool) {
+        this.reader = null;
+        this.bufferPool = bufferPool;
+        this.external = false;
+        char[] pooled = bufferPool.take();
+        int len = chars.length();
+        if (len <= pooled.length || len > MAX_COPY_LENGTH) {
+            this.recycleBuf = true;
+            buf = store = pooled;
+        } else {
+            bufferPool.recycle(pooled);
+            this.recycleBuf = false;
+            buf = store = new char[len];
+        }
+        if (len <= buf.length) {
+            this.chars = null;
+            copyChars(chars, 0, len, buf, 0);
+            readEnd = len;
+        } else {
+            this.chars = chars;
+        }
+    }
+
+    JsonCharTokenizer(char[] chars, int off, int len, BufferPool bufferPool) {
+        if (off < 0 || len < 0 || len > chars.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.reader = null;
+        this.chars = null;
+        this.bufferPool = bufferPool;
+        this.external = true;
+        this.recycleBuf = false;
+        buf = store = chars;
+        readBegin = off;
+        readEnd = off + len;
+        bufferOffset = -off;
+    }
+
+    private void readString() {
+        // when inPlace is true, no need to copy chars
+        boolean inPlace = true;
+        storeBegin = storeEnd = readBegin;
+
+        do {
+            // Write unescaped char block within the current buffer
+            if (inPlace) {
+                int ch;
+                while(readBegin < readEnd && ((ch=buf[readBegin]) >= 0x20) && ch != '\\') {
+                    if (ch == '"') {
+                        storeEnd = readBegin++; // ++ to consume quote char
+                        return;                 // Got the entire string
+                    }
+                    readBegin++;                // consume unescaped char
+                }
+                storeEnd = readBegin;
+            }
+
+            // string may be crossing buffer boundaries and may contain
+            // escaped characters.
+            int ch = read();
+            if (ch >= 0x20 && ch != 0x22 && ch != 0x5c) {
+                if (!inPlace) {
+                    ensureStoreCapacity();
+                    store[storeEnd] = (char)ch;
+                }
+                storeEnd++;
+                continue;
+            }
+            switch (ch) {
+                case '\\':
+                    if (inPlace && external) {
+                        copyToScratch();
+                    }
+                    inPlace = false;        // Now onwards need to copy chars
+                    unescape();
+                    break;
+                case '"':
+                    return;
+                default:
+                    throw unexpectedChar(ch);
+            }
+        } while (true);
+    }
+
+    private void unescape() {
+        int ch = read();
+        ensureStoreCapacity();
+        switch (ch) {
+            case 'b':
+                store[storeEnd++] = '\b';
+                break;
+            case 't':
+                store[storeEnd++] = '\t';
+                break;
+            case 'n':
+                store[storeEnd++] = '\n';
+                break;
+            case 'f':
+                store[storeEnd++] = '\f';
+                break;
+            case 'r':
+                store[storeEnd++] = '\r';
+                break;
+            case '"':
+            case '\\':
+            case '/':
+                store[storeEnd++] = (char)ch;
+                break;
+            case 'u': {
+                int unicode = 0;
+                for (int i = 0; i < 4; i++) {
+                    int ch3 = read();
+                    int digit = (ch3 >= 0 && ch3 < HEX_LENGTH) ? HEX[ch3] : -1;
+                    if (digit < 0) {
+                        throw unexpectedChar(ch3);
+                    }
+                    unicode = (unicode << 4)|digit;
+                }
+                store[storeEnd++] = (char)unicode;
+                break;
+            }
+            default:
+                throw unexpectedChar(ch);
+        }
+    }
+
+    // An escaped char is stored before readBegin in the internal buffer,
+    // only a store buffer for an external buffer may need to grow.
+    private void ensureStoreCapacity() {
+        if (external && storeEnd == store.length) {
+            char[] doubleBuf = Arrays.copyOf(store, 2 * store.length);
+            bufferPool.recycle(store);
+            store = scratch = doubleBuf;
+        }
+    }
+
+    // Copies the string read so far from the external buffer, so that
+    // the unescaped chars can be stored without modifying that buffer
+    private void copyToScratch() {
+        int storeLen = storeEnd - storeBegin;
+        if (scratch == null) {
+            scratch = bufferPool.take();
+        }
+        if (scratch.length <= storeLen) {
+            bufferPool.recycle(scratch);
+            scratch = new char[2 * storeLen];
+        }
+        System.arraycopy(buf, storeBegin, scratch, 0, storeLen);
+        store = scratch;
+        storeBegin = 0;
+        storeEnd = storeLen;
+    }
+
+    // Reads a number char. If the char is within the buffer, directly
+    // reads from the buffer. Otherwise, uses read() which takes care
+    // of resizing, filling up the buf, adjusting the pointers
+    private int readNumberChar() {
+        if (readBegin < readEnd) {
+            return buf[readBegin++];
+        } else {
+            storeEnd = readBegin;
+            return read();
+        }
+    }
+
+    private void readNumber(int ch)  {
+        storeBegin = storeEnd = readBegin-1;
+        // sign
+        if (ch == '-') {
+            this.minus = true;
+            ch = readNumberChar();
+            if (ch < '0' || ch >'9') {
+                throw unexpectedChar(ch);
+            }
+        }
+
+        // int
+        if (ch == '0') {
+            ch = readNumberChar();
+        } else {
+            do {
+                ch = readNumberChar();
+            } while (ch >= '0' && ch <= '9');
+        }
+
+        // frac
+        if (ch == '.') {
+            this.fracOrExp = true;
+            int count = 0;
+            do {
+                ch = readNumberChar();
+                count++;
+            } while (ch >= '0' && ch <= '9');
+            if (count == 1) {
+                throw unexpectedChar(ch);
+            }
+        }
+
+        // exp
+        if (ch == 'e' || ch == 'E') {
+            this.fracOrExp = true;
+            ch = readNumberChar();
+            if (ch == '+' || ch == '-') {
+                ch = readNumberChar();
+            }
+            int count;
+            for (count = 0; ch >= '0' && ch <= '9'; count++) {
+                ch = readNumberChar();
+            }
+            if (count == 0) {
+                throw unexpectedChar(ch);
+            }
+        }
+        if (ch != -1) {
+            // unread the char after the number
+            readBegin--;
+        }
+        storeEnd = readBegin;
+    }
+
+    private void readTrue() {
+        int ch1 = read();
+        if (ch1 != 'r') {
+            throw expectedChar(ch1, 'r');
+        }
+        int ch2 = read();
+        if (ch2 != 'u') {
+            throw expectedChar(ch2, 'u');
+        }
+        int ch3 = read();
+        if (ch3 != 'e') {
+            throw expectedChar(ch3, 'e');
+        }
+    }
+
+    private void readFalse() {
+        int ch1 = read();
+        if (ch1 != 'a') {
+            throw expectedChar(ch1, 'a');
+        }
+        int ch2 = read();
+        if (ch2 != 'l') {
+            throw expectedChar(ch2, 'l');
+        }
+        int ch3 = read();
+        if (ch3 != 's') {
+            throw expectedChar(ch3, 's');
+        }
+        int ch4 = read();
+        if (ch4 != 'e') {
+            throw expectedChar(ch4, 'e');
+        }
+    }
+
+    private void readNull() {
+        int ch1 = read();
+        if (ch1 != 'u') {
+            throw expectedChar(ch1, 'u');
+        }
+        int ch2 = read();
+        if (ch2 != 'l') {
+            throw expectedChar(ch2, 'l');
+        }
+        int ch3 = read();
+        if (ch3 != 'l') {
+            throw expectedChar(ch3, 'l');
+        }
+    }
+
+    /*
+     * Could be optimized if the parser uses separate methods to match colon
+     * etc (that would avoid the switch statement cost in certain cases)
+     */
+    @Override
+    JsonToken nextToken() {
+        reset();
+        int ch = read();
+
+        // whitespace
+        while (ch == 0x20 || ch == 0x09 || ch == 0x0a || ch == 0x0d) {
+            if (ch == '\r') {
+                ++lineNo;
+                ch = read();
+                if (ch == '\n') {
+                    lastLineOffset = bufferOffset+readBegin;
+                } else {
+                    lastLineOffset = bufferOffset+readBegin-1;
+                    continue;
+                }
+            } else if (ch == '\n') {
+                ++lineNo;
+                lastLineOffset = bufferOffset+readBegin;
+            }
+            ch = read();
+        }
+
+        switch (ch) {
+            case '"':
+                readString();
+                return JsonToken.STRING;
+            case '{':
+                return JsonToken.CURLYOPEN;
+            case '[':
+                return JsonToken.SQUAREOPEN;
+            case ':':
+                return JsonToken.COLON;
+            case ',':
+                return JsonToken.COMMA;
+            case 't':
+                readTrue();
+                return JsonToken.TRUE;
+            case 'f':
+                readFalse();
+                return JsonToken.FALSE;
+            case 'n':
+                readNull();
+                return JsonToken.NULL;
+            case ']':
+                return JsonToken.SQUARECLOSE;
+            case '}':
+                return JsonToken.CURLYCLOSE;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case '-':
+                readNumber(ch);
+                return JsonToken.NUMBER;
+            case -1:
+                return JsonToken.EOF;
+            default:
+                throw unexpectedChar(ch);
+        }
+    }
+
+    @Override
+    void skipStructure() {
+        reset();
+        int depth = 0;
+        boolean cr = false;     // last char is \r, for \r\n line ending
+        while(true) {
+            int ch = read();
+            switch (ch) {
+                case '"':
+                    skipString();
+                    break;
+                case '[':
+                case '{':
+                    depth++;
+                    break;
+                case ']':
+                case '}':
+                    if (depth-- == 0) {
+                        return;
+                    }
+                    break;
+                case '\r':
+                    ++lineNo;
+                    lastLineOffset = bufferOffset+readBegin;
+                    break;
+                case '\n':
+                    if (!cr) {
+                        ++lineNo;
+                    }
+                    lastLineOffset = bufferOffset+readBegin;
+                    break;
+                case -1:
+                    throw unexpectedChar(ch);
+                default:
+                    break;
+            }
+            cr = ch == '\r';
+        }
+    }
+
+    // Skips the rest of a string token without storing or unescaping it
+    private void skipString() {
+        while(true) {
+            int ch;
+            while(readBegin < readEnd && (ch=buf[readBegin]) != '"' && ch != '\\') {
+                readBegin++;
+            }
+            ch = read();
+            if (ch == '"') {
+                return;
+            } else if (ch == '\\') {
+                ch = read();
+            }
+            if (ch == -1) {
+                throw unexpectedChar(ch);
+            }
+        }
+    }
+
+    // Gives the location of the last char. Used for
+    // JsonParsingException.getLocation
+    @Override
+    JsonLocation getLastCharLocation() {
+        // Already read the char, so subtracting -1
+        return new JsonLocationImpl(lineNo, bufferOffset +readBegin-lastLineOffset, bufferOffset +readBegin-1);
+    }
+
+    // Gives the parser location. Used for JsonParser.getLocation
+    @Override
+    JsonLocation getLocation() {
+        return new JsonLocationImpl(lineNo, bufferOffset +readBegin-lastLineOffset+1, bufferOffset +readBegin);
+    }
+
+    private int read() {
+        try {
+            if (readBegin == readEnd) {     // need to fill the buffer
+                int len = fillBuf();
+                if (len == -1) {
+                    return -1;
+                }
+                assert len != 0;
+                readBegin = storeEnd;
+                readEnd = readBegin+len;
+            }
+            return buf[readBegin++];
+        } catch (IOException ioe) {
+            throw new JsonException(JsonMessages.TOKENIZER_IO_ERR(), ioe);
+        }
+    }
+
+    private int fillBuf() throws IOException {
+        if (reader == null && chars == null) {
+            return -1;
+        }
+        if (storeEnd != 0) {
+            int storeLen = storeEnd-storeBegin;
+            if (storeLen > 0) {
+                // there is some store data
+                if (storeLen == buf.length) {
+                    // buffer is full, double the capacity
+                    char[] doubleBuf = Arrays.copyOf(buf, 2 * buf.length);
+                    bufferPool.recycle(buf);
+                    buf = store = doubleBuf;
+                } else {
+                    // Left shift all the stored data to make space
+                    System.arraycopy(buf, storeBegin, buf, 0, storeLen);
+                    storeEnd = storeLen;
+                    storeBegin = 0;
+                    bufferOffset += readBegin-storeEnd;
+                }
+            } else {
+                storeBegin = storeEnd = 0;
+                bufferOffset += readBegin;
+            }
+        } else {
+            bufferOffset += readBegin;
+        }
+        // everything before storeEnd is consumed, also when the end of
+        // input is reached
+        readBegin = readEnd = storeEnd;
+        // Fill the rest of the buf
+        if (reader != null) {
+            return reader.read(buf, storeEnd, buf.length-storeEnd);
+        }
+        int len = Math.min(buf.length-storeEnd, chars.length()-charsPos);
+        if (len == 0) {
+            return -1;
+        }
+        copyChars(chars, charsPos, charsPos+len, buf, storeEnd);
+        charsPos += len;
+        return len;
+    }
+
+    private static void copyChars(CharSequence chars, int begin, int end, char[] dst, int off) {
+        if (chars instanceof String) {
+            ((String)chars).getChars(begin, end, dst, off);
+        } else if (chars instanceof StringBuilder) {
+            ((StringBuilder)chars).getChars(begin, end, dst, off);
+        } else {
+            for(int i=begin; i < end; i++) {
+                dst[off++] = chars.charAt(i);
+            }
+        }
+    }
+
+    // state associated with the current token is no more valid
+    private void reset() {
+        if (storeEnd != 0) {
+            store = buf;
+            storeBegin = 0;
+            storeEnd = 0;
+            bd = null;
+            minus = false;
+            fracOrExp = false;
+        }
+    }
+
+    @Override
+    String getValue() {
+        return new String(store, storeBegin, storeEnd-storeBegin);
+    }
+
+    @Override
+    String getValue(JsonKeyTable keyTable) {
+        return keyTable.get(store, storeBegin, storeEnd);
+    }
+
+    @Override
+    BigDecimal getBigDecimal() {
+        if (bd == null) {
+            bd = new BigDecimal(store, storeBegin, storeEnd-storeBegin);
+        }
+        return bd;
+    }
+
+    @Override
+    int getInt() {
+        // no need to create BigDecimal for common integer values (1-9 digits)
+        int storeLen = storeEnd-storeBegin;
+        if (!fracOrExp && (storeLen <= 9 || (minus && storeLen == 10))) {
+            int num = 0;
+            int i = minus ? 1 : 0;
+            for(; i < storeLen; i++) {
+                num = num * 10 + (store[storeBegin+i] - '0');
+            }
+            return minus ? -num : num;
+        } else {
+            // same as getBigDecimal().intValue()
+            return (int)getLong();
+        }
+    }
+
+    @Override
+    long getLong() {
+        int i = minus ? storeBegin+1 : storeBegin;
+        if (!fracOrExp && storeEnd-i <= 19) {
+            // accumulated as a negative number to cover Long.MIN_VALUE
+            long num = 0;
+            for(; i < storeEnd; i++) {
+                int digit = store[i] - '0';
+                if (num < Long.MIN_VALUE / 10 || (num == Long.MIN_VALUE / 10 && digit > 8)) {
+                    return getBigDecimal().longValue();
+                }
+                num = num * 10 - digit;
+            }
+            if (minus) {
+                return num;
+            }
+            if (num != Long.MIN_VALUE) {
+                return -num;
+            }
+        }
+        return getBigDecimal().longValue();
+    }
+
+    @Override
+    double getDouble() {
+        // up to 19 significant digits are accumulated in an unsigned long
+        long mantissa = 0;
+        int digits = 0;
+        int exp10 = 0;
+        int i = minus ? storeBegin+1 : storeBegin;
+        int ch = 0;
+        for(; i < storeEnd && (ch = store[i]) >= '0' && ch <= '9'; i++) {
+            if (digits < 19) {
+                mantissa = mantissa * 10 + (ch - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else if (ch != '0') {
+                return Double.parseDouble(getValue());
+            } else {
+                exp10++;
+            }
+        }
+        if (ch == '.') {
+            for(i++; i < storeEnd && (ch = store[i]) >= '0' && ch <= '9'; i++) {
+                if (digits < 19) {
+                    mantissa = mantissa * 10 + (ch - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    exp10--;
+                } else if (ch != '0') {
+                    return Double.parseDouble(getValue());
+                }
+            }
+        }
+        if (ch == 'e' || ch == 'E') {
+            ch = store[++i];
+            boolean expMinus = ch == '-';
+            if (ch == '-' || ch == '+') {
+                i++;
+            }
+            int exp = 0;
+            for(; i < storeEnd; i++) {
+                if (exp < 100000) {
+                    exp = exp * 10 + (store[i] - '0');
+                }
+            }
+            exp10 += expMinus ? -exp : exp;
+        }
+        double d = JsonNumberParser.toDouble(mantissa, exp10, minus);
+        return Double.isNaN(d) ? Double.parseDouble(getValue()) : d;
+    }
+
+    @Override
+    JsonNumber getJsonNumber() {
+        if (isDefinitelyInt()) {
+            return JsonNumberImpl.getJsonNumber(getInt());
+        }
+        // up to 18 digits fit in a long. The scale is from the number of
+        // fraction digits and the exponent
+        long unscaledValue = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean frac = false;
+        int i = minus ? storeBegin+1 : storeBegin;
+        for(; i < storeEnd; i++) {
+            int ch = store[i];
+            if (ch >= '0' && ch <= '9') {
+                if (++digits > 18) {
+                    return JsonNumberImpl.getJsonNumber(getBigDecimal());
+                }
+                unscaledValue = unscaledValue * 10 + (ch - '0');
+                if (frac) {
+                    scale++;
+                }
+            } else if (ch == '.') {
+                frac = true;
+            } else {
+                break;                      // exponent
+            }
+        }
+        if (i < storeEnd) {
+            int ch = store[++i];
+            boolean expMinus = ch == '-';
+            if (ch == '-' || ch == '+') {
+                i++;
+            }
+            if (storeEnd-i > 9) {
+                return JsonNumberImpl.getJsonNumber(getBigDecimal());
+            }
+            int exp = 0;
+            for(; i < storeEnd; i++) {
+                exp = exp * 10 + (store[i] - '0');
+            }
+            scale += expMinus ? exp : -exp;
+        }
+        return JsonNumberImpl.getJsonNumber(minus ? -unscaledValue : unscaledValue, scale);
+    }
+
+    // returns true for common integer values (1-9 digits).
+    // So there are cases it will return false even though the number is int
+    @Override
+    boolean isDefinitelyInt() {
+        int storeLen = storeEnd-storeBegin;
+        return !fracOrExp && (storeLen <= 9 || (minus && storeLen == 10));
+    }
+
+    @Override
+    boolean isIntegral() {
+        return !fracOrExp || getBigDecimal().scale() == 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+        if (recycleBuf) {
+            bufferPool.recycle(buf);
+        }
+        if (scratch != null) {
+            bufferPool.recycle(scratch);
+        }
+    }
+
+}
@@ -0,0 +1,353 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import java.math.BigInteger;
+
+/**
+ * Writes the shortest decimal that rounds to a double, straight into a
+ * char buffer. The digits are computed with Raffaello Giulietti's
+ * Schubfach algorithm and formatted like {@link Double#toString(double)},
+ * so no intermediate String is created.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonDoubleFormatter {
+
+    // Max no of chars for a double, as in -2.2250738585072014E-308
+    static final int MAX_CHARS = 24;
+
+    private static final int P = 53;            // precision
+    private static final int W = 11;            // exponent width
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << P - 1;
+    private static final int BQ_MASK = (1 << W) - 1;
+    private static final long T_MASK = (1L << P - 1) - 1;
+    private static final long C_TINY = 3;
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final int H = 17;            // max no of digits
+    private static final long MASK_63 = (1L << 63) - 1;
+    private static final int MASK_28 = (1 << 28) - 1;
+
+    private static final long[] POW10 = new long[H + 1];
+
+    // g1, g0 for k from K_MIN to K_MAX. Let 10^-k = beta 2^r with
+    // 2^125 <= beta < 2^126, and g = floor(beta) + 1 = g1 2^63 + g0
+    private static final long[] G1 = new long[K_MAX - K_MIN + 1];
+    private static final long[] G0 = new long[K_MAX - K_MIN + 1];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i <= H; i++) {
+            POW10[i] = 10 * POW10[i - 1];
+        }
+        BigInteger mask = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            BigInteger pow = BigInteger.TEN.pow(Math.abs(k));
+            BigInteger beta;
+            if (k <= 0) {
+                int r = pow.bitLength() - 1 - 125;
+                beta = r >= 0 ? pow.shiftRight(r) : pow.shiftLeft(-r);
+            } else {
+                int r = -pow.bitLength() - 125;
+                beta = BigInteger.ONE.shiftLeft(-r).divide(pow);
+            }
+            BigInteger g = beta.add(BigInteger.ONE);
+            G1[k - K_MIN] = g.shiftRight(63).longValue();
+            G0[k - K_MIN] = g.and(mask).longValue();
+        }
+    }
+
+    private JsonDoubleFormatter() {
+    }
+
+    /**
+     * Writes the chars of a finite double to the buffer, which must have
+     * space for {@link #MAX_CHARS} chars from the index.
+     *
+     * @param v a finite double
+     * @param buf buffer to write the chars
+     * @param index index in the buffer to start writing
+     * @return index after the last written char
+     */
+    static int format(double v, char[] buf, int index) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> P - 1) & BQ_MASK;
+        if (bits < 0) {
+            buf[index++] = '-';
+        }
+        if (bq != 0) {
+            // normal value. Here mq = -q
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            // integer values in the precision range
+            if (0 < mq & mq < P) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    return toChars(f, 0, buf, index);
+                }
+            }
+            return toDecimal(-mq, c, 0, buf, index);
+        }
+        if (t != 0) {
+            // subnormal value
+            return t < C_TINY
+                    ? toDecimal(Q_MIN, 10 * t, -1, buf, index)
+                    : toDecimal(Q_MIN, t, 0, buf, index);
+        }
+        buf[index++] = '0';
+        buf[index++] = '.';
+        buf[index++] = '0';
+        return index;
+    }
+
+    private static int toDecimal(int q, long c, int dk, char[] buf, int index) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN | q == Q_MIN) {
+            // regular spacing
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // irregular spacing
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = G1[k - K_MIN];
+        long g0 = G0[k - K_MIN];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // sp10 = 10 floor(s / 10), tp10 = sp10 + 10
+            long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return toChars(upin ? sp10 : tp10, k, buf, index);
+            }
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            // exactly one of u or w lies in the rounding interval
+            return toChars(uin ? s : t, k + dk, buf, index);
+        }
+        // both u and w lie in the rounding interval, pick the closest
+        long cmp = vb - (s + t << 1);
+        return toChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, buf, index);
+    }
+
+    // rop(cp g 2^-127), where g = g1 2^63 + g0
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    // Writes f 10^e in the format of Double.toString()
+    private static int toChars(long f, int e, char[] buf, int index) {
+        // 10^(len-1) <= f < 10^len
+        int len = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+        if (f >= POW10[len]) {
+            len += 1;
+        }
+        // 10^(H-1) <= f < 10^H, f 10^(e-H) = 0.f 10^e
+        f *= POW10[H - len];
+        e += len;
+
+        // h is the most significant digit, m the next 8 digits and
+        // l the least significant 8 digits of f
+        long hm = multiplyHigh(f, 193_428_131_138_340_668L) >>> 20;
+        int l = (int) (f - 100_000_000L * hm);
+        int h = (int) (hm * 1_441_151_881L >>> 57);
+        int m = (int) (hm - 100_000_000 * h);
+
+        if (0 < e && e <= 7) {
+            return toChars1(h, m, l, e, buf, index);
+        }
+        if (-3 < e && e <= 0) {
+            return toChars2(h, m, l, e, buf, index);
+        }
+        return toChars3(h, m, l, e, buf, index);
+    }
+
+    // 0 < e <= 7: plain format without leading zeroes
+    private static int toChars1(int h, int m, int l, int e, char[] buf, int index) {
+        buf[index++] = (char) ('0' + h);
+        int y = y(m);
+        int t;
+        int i = 1;
+        for (; i < e; ++i) {
+            t = 10 * y;
+            buf[index++] = (char) ('0' + (t >>> 28));
+            y = t & MASK_28;
+        }
+        buf[index++] = '.';
+        for (; i <= 8; ++i) {
+            t = 10 * y;
+            buf[index++] = (char) ('0' + (t >>> 28));
+            y = t & MASK_28;
+        }
+        return lowDigits(l, buf, index);
+    }
+
+    // -3 < e <= 0: plain format with leading zeroes
+    private static int toChars2(int h, int m, int l, int e, char[] buf, int index) {
+        buf[index++] = '0';
+        buf[index++] = '.';
+        for (; e < 0; ++e) {
+            buf[index++] = '0';
+        }
+        buf[index++] = (char) ('0' + h);
+        index = append8Digits(m, buf, index);
+        return lowDigits(l, buf, index);
+    }
+
+    // -3 >= e | e > 7: computerized scientific notation
+    private static int toChars3(int h, int m, int l, int e, char[] buf, int index) {
+        buf[index++] = (char) ('0' + h);
+        buf[index++] = '.';
+        index = append8Digits(m, buf, index);
+        index = lowDigits(l, buf, index);
+        return exponent(e - 1, buf, index);
+    }
+
+    private static int lowDigits(int l, char[] buf, int index) {
+        if (l != 0) {
+            index = append8Digits(l, buf, index);
+        }
+        // remove trailing zeroes, but not the one directly after '.'
+        while (buf[index - 1] == '0') {
+            --index;
+        }
+        if (buf[index - 1] == '.') {
+            ++index;
+        }
+        return index;
+    }
+
+    // left-to-right digits extraction of 8 digits
+    private static int append8Digits(int m, char[] buf, int index) {
+        int y = y(m);
+        for (int i = 0; i < 8; ++i) {
+            int t = 10 * y;
+            buf[index++] = (char) ('0' + (t >>> 28));
+            y = t & MASK_28;
+        }
+        return index;
+    }
+
+    // floor((a + 1) 2^28 / 10^8) - 1
+    private static int y(int a) {
+        return (int) (multiplyHigh((long) (a + 1) << 28, 193_428_131_138_340_668L) >>> 20) - 1;
+    }
+
+    private static int exponent(int e, char[] buf, int index) {
+        buf[index++] = 'E';
+        if (e < 0) {
+            buf[index++] = '-';
+            e = -e;
+        }
+        if (e < 10) {
+            buf[index++] = (char) ('0' + e);
+            return index;
+        }
+        int d;
+        if (e >= 100) {
+            // floor(e / 100)
+            d = e * 1_311 >>> 17;
+            buf[index++] = (char) ('0' + d);
+            e -= 100 * d;
+        }
+        // floor(e / 10)
+        d = e * 103 >>> 10;
+        buf[index++] = (char) ('0' + d);
+        buf[index++] = (char) ('0' + e - 10 * d);
+        return index;
+    }
+
+    // floor(log10(2^e))
+    private static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    // floor(log10(3/4 2^e))
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    // floor(log2(10^e))
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    // high 64 bits of the 128-bit product of non-negative longs
+    private static long multiplyHigh(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long y1 = y >>> 32;
+        long p00 = x0 * y0;
+        long p01 = x0 * y1;
+        long p10 = x1 * y0;
+        long p11 = x1 * y1;
+        long middle = p10 + (p00 >>> 32) + (p01 & 0xFFFFFFFFL);
+        return p11 + (middle >>> 32) + (p01 >>> 32);
+    }
+
+}
@@ -56,34 +56,42 @@ class JsonGeneratorFactoryImpl implements JsonGeneratorFactory {
 
     private final boolean prettyPrinting;
     private final Map<String, ?> config;    // unmodifiable map
+    private final int maxDepth;             // Integer.MAX_VALUE if not limited
     private final BufferPool bufferPool;
 
     JsonGeneratorFactoryImpl(Map<String, ?> config, boolean prettyPrinting,
-            BufferPool bufferPool) {
+            int maxDepth, BufferPool bufferPool) {
         this.config = config;
         this.prettyPrinting = prettyPrinting;
+        this.maxDepth = maxDepth;
         this.bufferPool = bufferPool;
     }
 
     @Override
     public JsonGenerator createGenerator(Writer writer) {
-        return prettyPrinting
+        JsonGeneratorImpl generator = prettyPrinting
                 ? new JsonPrettyGeneratorImpl(writer, bufferPool)
                 : new JsonGeneratorImpl(writer, bufferPool);
+        generator.setMaxDepth(maxDepth);
+        return generator;
     }
 
     @Override
     public JsonGenerator createGenerator(OutputStream out) {
-        return prettyPrinting
+        JsonGeneratorImpl generator = prettyPrinting
                 ? new JsonPrettyGeneratorImpl(out, bufferPool)
                 : new JsonGeneratorImpl(out, bufferPool);
+        generator.setMaxDepth(maxDepth);
+        return generator;
     }
 
     @Override
     public JsonGenerator createGenerator(OutputStream out, Charset charset) {
-        return prettyPrinting
+        JsonGeneratorImpl generator = prettyPrinting
                 ? new JsonPrettyGeneratorImpl(out, charset, bufferPool)
                 : new JsonGeneratorImpl(out, charset, bufferPool);
+        generator.setMaxDepth(maxDepth);
+        return generator;
     }
 
     @Override
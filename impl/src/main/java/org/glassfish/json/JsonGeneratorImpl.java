@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2012-2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -48,10 +48,17 @@ import javax.json.stream.JsonGenerator;
 import java.io.*;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -60,6 +67,7 @@ import java.util.Map;
 class JsonGeneratorImpl implements JsonGenerator {
 
     private static final char[] INT_MIN_VALUE_CHARS = "-2147483648".toCharArray();
+    private static final char[] LONG_MIN_VALUE_CHARS = "-9223372036854775808".toCharArray();
     private static final int[] INT_CHARS_SIZE_TABLE = { 9, 99, 999, 9999, 99999,
             999999, 9999999, 99999999, 999999999, Integer.MAX_VALUE };
 
@@ -97,6 +105,27 @@ class JsonGeneratorImpl implements JsonGenerator {
             '6' , '7' , '8' , '9'
     };
 
+    /**
+     * Escape sequences for the characters that must be escaped in a JSON
+     * string, indexed by the character. A null entry means the character
+     * is written as it is. All characters >= ESCAPES.length are written
+     * as they are.
+     */
+    private static final char[][] ESCAPES = new char['\\'+1][];
+    static {
+        for(int i=0; i < 0x20; i++) {
+            ESCAPES[i] = new char[] { '\\', 'u', '0', '0',
+                    Character.forDigit(i >> 4, 16), Character.forDigit(i & 0xF, 16) };
+        }
+        ESCAPES['"'] = new char[] { '\\', '"' };
+        ESCAPES['\\'] = new char[] { '\\', '\\' };
+        ESCAPES['\b'] = new char[] { '\\', 'b' };
+        ESCAPES['\f'] = new char[] { '\\', 'f' };
+        ESCAPES['\n'] = new char[] { '\\', 'n' };
+        ESCAPES['\r'] = new char[] { '\\', 'r' };
+        ESCAPES['\t'] = new char[] { '\\', 't' };
+    }
+
     private static enum Scope {
         IN_NONE,
         IN_OBJECT,
@@ -104,9 +133,12 @@ class JsonGeneratorImpl implements JsonGenerator {
     }
 
     private final BufferPool bufferPool;
-    private final Writer writer;
+    private final Writer writer;            // null for byte streams
+    private final OutputStream out;         // null for character streams
+    private final CharsetEncoder encoder;   // null for UTF-8 byte streams
     private Context currentContext = new Context(Scope.IN_NONE);
     private final Deque<Context> stack = new ArrayDeque<>();
+    private int maxDepth = Integer.MAX_VALUE;
 
     // Using own buffering mechanism as JDK's BufferedWriter uses synchronized
     // methods. Also, flushBuffer() is useful when you don't want to actually
@@ -114,10 +146,20 @@ class JsonGeneratorImpl implements JsonGenerator {
     private final char buf[];     // capacity >= INT_MIN_VALUE_CHARS.length
     private int len = 0;
 
+    // buf is encoded into these bytes for byte streams. Not using
+    // OutputStreamWriter as it does its own buffering on top of buf
+    private final byte[] bytes;
+    // high surrogate at the end of buf that is encoded with the next
+    // flushBuffer(), 0 if there is none
+    private char highSurrogate;
+
     JsonGeneratorImpl(Writer writer, BufferPool bufferPool) {
         this.writer = writer;
+        this.out = null;
+        this.encoder = null;
         this.bufferPool = bufferPool;
         this.buf = bufferPool.take();
+        this.bytes = null;
     }
 
     JsonGeneratorImpl(OutputStream out, BufferPool bufferPool) {
@@ -125,14 +167,27 @@ class JsonGeneratorImpl implements JsonGenerator {
     }
 
     JsonGeneratorImpl(OutputStream out, Charset encoding, BufferPool bufferPool) {
-        this(new OutputStreamWriter(out, encoding), bufferPool);
+        this.writer = null;
+        this.out = out;
+        this.encoder = encoding.equals(StandardCharsets.UTF_8)
+                ? null
+                : encoding.newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bufferPool = bufferPool;
+        this.buf = bufferPool.take();
+        this.bytes = bufferPool.takeBytes();
     }
 
     @Override
     public void flush() {
         flushBuffer();
         try {
-            writer.flush();
+            if (writer != null) {
+                writer.flush();
+            } else {
+                out.flush();
+            }
         } catch (IOException ioe) {
             throw new JsonException(JsonMessages.GENERATOR_FLUSH_IO_ERR(), ioe);
         }
@@ -148,8 +203,7 @@ class JsonGeneratorImpl implements JsonGenerator {
         }
         writeComma();
         writeChar('{');
-        stack.push(currentContext);
-        currentContext = new Context(Scope.IN_OBJECT);
+        pushContext(Scope.IN_OBJECT);
         return this;
     }
 
@@ -161,8 +215,7 @@ class JsonGeneratorImpl implements JsonGenerator {
         }
         writeName(name);
         writeChar('{');
-        stack.push(currentContext);
-        currentContext = new Context(Scope.IN_OBJECT);
+        pushContext(Scope.IN_OBJECT);
         return this;
     }
 
@@ -202,7 +255,7 @@ class JsonGeneratorImpl implements JsonGenerator {
                     JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
         }
         writeName(name);
-        writeString(String.valueOf(value));
+        writeLong(value);
         return this;
     }
 
@@ -216,7 +269,7 @@ class JsonGeneratorImpl implements JsonGenerator {
             throw new NumberFormatException(JsonMessages.GENERATOR_DOUBLE_INFINITE_NAN());
         }
         writeName(name);
-        writeString(String.valueOf(value));
+        writeDouble(value);
         return this;
     }
 
@@ -272,20 +325,12 @@ class JsonGeneratorImpl implements JsonGenerator {
         }
         switch (value.getValueType()) {
             case ARRAY:
-                JsonArray array = (JsonArray)value;
                 writeStartArray();
-                for(JsonValue child: array) {
-                    write(child);
-                }
-                writeEnd();
+                writeStructure((JsonArray)value);
                 break;
             case OBJECT:
-                JsonObject object = (JsonObject)value;
                 writeStartObject();
-                for(Map.Entry<String, JsonValue> member: object.entrySet()) {
-                    write(member.getKey(), member.getValue());
-                }
-                writeEnd();
+                writeStructure((JsonObject)value);
                 break;
             case STRING:
                 JsonString str = (JsonString)value;
@@ -319,8 +364,7 @@ class JsonGeneratorImpl implements JsonGenerator {
         }
         writeComma();
         writeChar('[');
-        stack.push(currentContext);
-        currentContext = new Context(Scope.IN_ARRAY);
+        pushContext(Scope.IN_ARRAY);
         return this;
     }
 
@@ -332,8 +376,7 @@ class JsonGeneratorImpl implements JsonGenerator {
         }
         writeName(name);
         writeChar('[');
-        stack.push(currentContext);
-        currentContext = new Context(Scope.IN_ARRAY);
+        pushContext(Scope.IN_ARRAY);
         return this;
     }
 
@@ -345,20 +388,12 @@ class JsonGeneratorImpl implements JsonGenerator {
         }
         switch (value.getValueType()) {
             case ARRAY:
-                JsonArray array = (JsonArray)value;
                 writeStartArray(name);
-                for(JsonValue child: array) {
-                    write(child);
-                }
-                writeEnd();
+                writeStructure((JsonArray)value);
                 break;
             case OBJECT:
-                JsonObject object = (JsonObject)value;
                 writeStartObject(name);
-                for(Map.Entry<String, JsonValue> member: object.entrySet()) {
-                    write(member.getKey(), member.getValue());
-                }
-                writeEnd();
+                writeStructure((JsonObject)value);
                 break;
             case STRING:
                 JsonString str = (JsonString)value;
@@ -381,6 +416,87 @@ class JsonGeneratorImpl implements JsonGenerator {
         return this;
     }
 
+    /*
+     * Writes the members of the structure that was just started, and its
+     * end. The nested structures are written with an explicit stack of
+     * member iterators instead of recursion, so the depth is limited only
+     * by maxDepth, not by the thread's stack. The start and end of each
+     * structure go through the overridable writeStartXXX()/writeEnd().
+     */
+    void writeStructure(JsonStructure structure) {
+        Iterator<?>[] iterators = new Iterator<?>[8];
+        iterators[0] = members(structure);
+        int depth = 1;
+        while (depth > 0) {
+            Iterator<?> members = iterators[depth-1];
+            if (!members.hasNext()) {
+                iterators[--depth] = null;
+                writeEnd();
+                continue;
+            }
+            JsonValue value;
+            JsonValue.ValueType type;
+            if (currentContext.scope == Scope.IN_OBJECT) {
+                Map.Entry<?, ?> member = (Map.Entry<?, ?>) members.next();
+                String name = (String) member.getKey();
+                value = (JsonValue) member.getValue();
+                type = value.getValueType();
+                if (type == JsonValue.ValueType.ARRAY) {
+                    writeStartArray(name);
+                } else if (type == JsonValue.ValueType.OBJECT) {
+                    writeStartObject(name);
+                } else {
+                    writeName(name);
+                    writeScalar(type, value);
+                    continue;
+                }
+            } else {
+                value = (JsonValue) members.next();
+                type = value.getValueType();
+                if (type == JsonValue.ValueType.ARRAY) {
+                    writeStartArray();
+                } else if (type == JsonValue.ValueType.OBJECT) {
+                    writeStartObject();
+                } else {
+                    writeComma();
+                    writeScalar(type, value);
+                    continue;
+                }
+            }
+            if (depth == iterators.length) {
+                iterators = Arrays.copyOf(iterators, 2 * depth);
+            }
+            iterators[depth++] = members((JsonStructure) value);
+        }
+    }
+
+    // Writes a value that is not a structure, after its comma or name
+    private void writeScalar(JsonValue.ValueType type, JsonValue value) {
+        switch (type) {
+            case STRING:
+                writeEscapedString(((JsonString) value).getString());
+                break;
+            case NUMBER:
+                writeString(value.toString());
+                break;
+            case TRUE:
+                writeString("true");
+                break;
+            case FALSE:
+                writeString("false");
+                break;
+            default:
+                writeString("null");
+                break;
+        }
+    }
+
+    private static Iterator<?> members(JsonStructure structure) {
+        return structure.getValueType() == JsonValue.ValueType.OBJECT
+                ? ((JsonObject) structure).entrySet().iterator()
+                : ((JsonArray) structure).iterator();
+    }
+
     public JsonGenerator write(String value) {
         if (currentContext.scope != Scope.IN_ARRAY) {
             throw new JsonGenerationException(
@@ -408,7 +524,8 @@ class JsonGeneratorImpl implements JsonGenerator {
             throw new JsonGenerationException(
                     JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
         }
-        writeValue(String.valueOf(value));
+        writeComma();
+        writeLong(value);
         return this;
     }
 
@@ -421,7 +538,8 @@ class JsonGeneratorImpl implements JsonGenerator {
         if (Double.isInfinite(value) || Double.isNaN(value)) {
             throw new NumberFormatException(JsonMessages.GENERATOR_DOUBLE_INFINITE_NAN());
         }
-        writeValue(String.valueOf(value));
+        writeComma();
+        writeDouble(value);
         return this;
     }
 
@@ -487,6 +605,19 @@ class JsonGeneratorImpl implements JsonGenerator {
         return this;
     }
 
+    private void pushContext(Scope scope) {
+        if (stack.size() == maxDepth) {
+            throw new JsonGenerationException(JsonMessages.GENERATOR_MAX_DEPTH(maxDepth));
+        }
+        stack.push(currentContext);
+        currentContext = new Context(scope);
+    }
+
+    // Integer.MAX_VALUE if the depth is not limited
+    void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
     protected void writeComma() {
         if (!currentContext.first) {
             writeChar(',');
@@ -510,68 +641,46 @@ class JsonGeneratorImpl implements JsonGenerator {
         }
         flushBuffer();
         try {
-            writer.close();
+            if (writer != null) {
+                writer.close();
+            } else {
+                endBytes();
+                out.close();
+            }
         } catch (IOException ioe) {
             throw new JsonException(JsonMessages.GENERATOR_CLOSE_IO_ERR(), ioe);
         }
         bufferPool.recycle(buf);
+        if (bytes != null) {
+            bufferPool.recycleBytes(bytes);
+        }
     }
 
-    // begin, end-1 indexes represent characters that need not
+    // begin, i-1 indexes represent characters that need not
     // be escaped
     //
     // XXXssssssssssssXXXXXXXXXXXXXXXXXXXXXXrrrrrrrrrrrrrrXXXXXX
     //    ^           ^                     ^             ^
     //    |           |                     |             |
-    //   begin       end                   begin         end
+    //   begin        i                    begin          i
     void writeEscapedString(String string) {
         writeChar('"');
-        int len = string.length();
-        for(int i = 0; i < len; i++) {
-            int begin = i, end = i;
+        int length = string.length();
+        int begin = 0;
+        for(int i = 0; i < length; i++) {
             char c = string.charAt(i);
-            // find all the characters that need not be escaped
             // unescaped = %x20-21 | %x23-5B | %x5D-10FFFF
-            while(c >= 0x20 && c <= 0x10ffff && c != 0x22 && c != 0x5c) {
-                i++; end = i;
-                if (i < len) {
-                    c = string.charAt(i);
-                } else {
-                    break;
+            if (c < ESCAPES.length && ESCAPES[c] != null) {
+                // Write characters without escaping
+                if (begin < i) {
+                    writeString(string, begin, i);
                 }
+                writeChars(ESCAPES[c]);
+                begin = i + 1;
             }
-            // Write characters without escaping
-            if (begin < end) {
-                writeString(string, begin, end);
-                if (i == len) {
-                    break;
-                }
-            }
-
-            switch (c) {
-                case '"':
-                case '\\':
-                    writeChar('\\'); writeChar(c);
-                    break;
-                case '\b':
-                    writeChar('\\'); writeChar('b');
-                    break;
-                case '\f':
-                    writeChar('\\'); writeChar('f');
-                    break;
-                case '\n':
-                    writeChar('\\'); writeChar('n');
-                    break;
-                case '\r':
-                    writeChar('\\'); writeChar('r');
-                    break;
-                case '\t':
-                    writeChar('\\'); writeChar('t');
-                    break;
-                default:
-                    String hex = "000" + Integer.toHexString(c);
-                    writeString("\\u" + hex.substring(hex.length() - 4));
-            }
+        }
+        if (begin < length) {
+            writeString(string, begin, length);
         }
         writeChar('"');
     }
@@ -592,6 +701,19 @@ class JsonGeneratorImpl implements JsonGenerator {
         writeString(str, 0, str.length());
     }
 
+    void writeChars(char[] chars) {
+        int begin = 0;
+        while (begin < chars.length) {
+            int no = Math.min(buf.length - len, chars.length - begin);
+            System.arraycopy(chars, begin, buf, len, no);
+            begin += no;
+            len += no;
+            if (len >= buf.length) {
+                flushBuffer();
+            }
+        }
+    }
+
     void writeChar(char c) {
         if (len >= buf.length) {
             flushBuffer();
@@ -619,14 +741,60 @@ class JsonGeneratorImpl implements JsonGenerator {
         len += size;
     }
 
-    // flushBuffer writes the buffered contents to writer. But incase of
-    // byte stream, an OuputStreamWriter is created and that buffers too.
-    // We may need to call OutputStreamWriter#flushBuffer() using
-    // reflection if that is really required (commented out below)
+    // Not using Long.toString() since it creates intermediary String
+    void writeLong(long num) {
+        if ((int)num == num) {
+            writeInt((int)num);
+            return;
+        }
+        int size;
+        if (num == Long.MIN_VALUE) {
+            size = LONG_MIN_VALUE_CHARS.length;
+        } else {
+            size = (num < 0) ? stringSize(-num) + 1 : stringSize(num);
+        }
+        if (len+size >= buf.length) {
+            flushBuffer();
+        }
+        if (size > buf.length) {
+            // buffer is too small for all the digits
+            writeString(Long.toString(num));
+        } else if (num == Long.MIN_VALUE) {
+            System.arraycopy(LONG_MIN_VALUE_CHARS, 0, buf, len, size);
+            len += size;
+        } else {
+            fillLongChars(num, buf, len+size);
+            len += size;
+        }
+    }
+
+    // Not using Double.toString() since it creates intermediary String.
+    // Also, the shortest decimal that rounds to the double is written
+    void writeDouble(double num) {
+        if (len+JsonDoubleFormatter.MAX_CHARS >= buf.length) {
+            flushBuffer();
+        }
+        if (JsonDoubleFormatter.MAX_CHARS > buf.length) {
+            // buffer is too small for all the chars
+            char[] chars = new char[JsonDoubleFormatter.MAX_CHARS];
+            int size = JsonDoubleFormatter.format(num, chars, 0);
+            writeString(new String(chars, 0, size));
+        } else {
+            len = JsonDoubleFormatter.format(num, buf, len);
+        }
+    }
+
+    // flushBuffer writes the buffered contents to writer. In case of
+    // byte stream, the contents are encoded and written to the stream
+    // without flushing the stream.
     void flushBuffer() {
         try {
             if (len > 0) {
-                writer.write(buf, 0, len);
+                if (writer != null) {
+                    writer.write(buf, 0, len);
+                } else {
+                    writeBytes();
+                }
                 len = 0;
             }
         } catch (IOException ioe) {
@@ -634,27 +802,116 @@ class JsonGeneratorImpl implements JsonGenerator {
         }
     }
 
-//    private static final Method flushBufferMethod;
-//    static {
-//        Method m = null;
-//        try {
-//            m = OutputStreamWriter.class.getDeclaredMethod("flushBuffer");
-//            m.setAccessible(true);
-//        } catch (Exception e) {
-//            // no-op
-//        }
-//        flushBufferMethod = m;
-//    }
-//    void flushBufferOSW() {
-//        flushBuffer();
-//        if (writer instanceof OutputStreamWriter) {
-//            try {
-//                flushBufferMethod.invoke(writer);
-//            } catch (Exception e) {
-//                // no-op
-//            }
-//        }
-//    }
+    // Encodes buf and writes the bytes to the byte stream. A high surrogate
+    // at the end of buf is kept, as its low surrogate may come in the next
+    // flushBuffer()
+    private void writeBytes() throws IOException {
+        int begin = 0;
+        int end = len;
+        if (highSurrogate != 0) {
+            if (Character.isLowSurrogate(buf[0])) {
+                encode(new char[] { highSurrogate, buf[0] }, 0, 2);
+                begin = 1;
+            } else {
+                writeReplacement();
+            }
+            highSurrogate = 0;
+        }
+        if (end > begin && Character.isHighSurrogate(buf[end - 1])) {
+            highSurrogate = buf[--end];
+        }
+        encode(buf, begin, end);
+    }
+
+    // Writes a high surrogate that never got its low surrogate, and
+    // anything the encoder holds back until the end of the input
+    private void endBytes() throws IOException {
+        if (highSurrogate != 0) {
+            writeReplacement();
+            highSurrogate = 0;
+        }
+        if (encoder != null) {
+            ByteBuffer bb = ByteBuffer.wrap(bytes);
+            encodeAll(CharBuffer.allocate(0), bb, true);
+            while (encoder.flush(bb).isOverflow()) {
+                out.write(bytes, 0, bb.position());
+                bb.clear();
+            }
+            out.write(bytes, 0, bb.position());
+        }
+    }
+
+    private void encode(char[] chars, int begin, int end) throws IOException {
+        if (encoder == null) {
+            encodeUtf8(chars, begin, end);
+        } else {
+            ByteBuffer bb = ByteBuffer.wrap(bytes);
+            encodeAll(CharBuffer.wrap(chars, begin, end - begin), bb, false);
+            out.write(bytes, 0, bb.position());
+        }
+    }
+
+    // A lone high surrogate is replaced like OutputStreamWriter does
+    private void writeReplacement() throws IOException {
+        if (encoder == null) {
+            out.write('?');
+        } else {
+            out.write(encoder.replacement());
+        }
+    }
+
+    private void encodeAll(CharBuffer cb, ByteBuffer bb, boolean endOfInput) throws IOException {
+        CoderResult result;
+        while ((result = encoder.encode(cb, bb, endOfInput)).isOverflow()) {
+            out.write(bytes, 0, bb.position());
+            bb.clear();
+        }
+        if (result.isError()) {
+            result.throwException();
+        }
+    }
+
+    // A lone surrogate is written as '?' like OutputStreamWriter does
+    private void encodeUtf8(char[] chars, int begin, int end) throws IOException {
+        byte[] b = bytes;
+        int pos = 0;
+        int i = begin;
+        while (i < end) {
+            // ASCII fast path
+            int limit = Math.min(end, i + b.length - pos);
+            char c;
+            while (i < limit && (c = chars[i]) < 0x80) {
+                b[pos++] = (byte)c;
+                i++;
+            }
+            if (pos + 4 > b.length) {
+                out.write(b, 0, pos);
+                pos = 0;
+            }
+            if (i == end || (c = chars[i]) < 0x80) {
+                continue;
+            }
+            i++;
+            if (c < 0x800) {
+                b[pos++] = (byte)(0xC0 | (c >> 6));
+                b[pos++] = (byte)(0x80 | (c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                b[pos++] = (byte)(0xE0 | (c >> 12));
+                b[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                b[pos++] = (byte)(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i < end
+                    && Character.isLowSurrogate(chars[i])) {
+                int cp = Character.toCodePoint(c, chars[i++]);
+                b[pos++] = (byte)(0xF0 | (cp >> 18));
+                b[pos++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+                b[pos++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+                b[pos++] = (byte)(0x80 | (cp & 0x3F));
+            } else {
+                b[pos++] = '?';
+            }
+        }
+        out.write(b, 0, pos);
+    }
 
     // Requires positive x
     private static int stringSize(int x) {
@@ -663,6 +920,17 @@ class JsonGeneratorImpl implements JsonGenerator {
                 return i+1;
     }
 
+    // Requires positive x
+    private static int stringSize(long x) {
+        long p = 10;
+        for (int i=1; i<19; i++) {
+            if (x < p)
+                return i;
+            p = 10*p;
+        }
+        return 19;
+    }
+
     /**
      * Places characters representing the integer i into the
      * character array buf. The characters are placed into
@@ -706,4 +974,41 @@ class JsonGeneratorImpl implements JsonGenerator {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Places characters representing the long i into the
+     * character array buf. The characters are placed into
+     * the buffer backwards starting with the least significant
+     * digit at the specified index (exclusive), and working
+     * backwards from there.
+     *
+     * Will fail if i == Long.MIN_VALUE
+     */
+    private static void fillLongChars(long i, char[] buf, int index) {
+        long q;
+        int r;
+        int charPos = index;
+        char sign = 0;
+
+        if (i < 0) {
+            sign = '-';
+            i = -i;
+        }
+
+        // Get 2 digits/iteration using longs until quotient fits into an int
+        while (i > Integer.MAX_VALUE) {
+            q = i / 100;
+            // really: r = i - (q * 100);
+            r = (int)(i - ((q << 6) + (q << 5) + (q << 2)));
+            i = q;
+            buf[--charPos] = DIGIT_ONES[r];
+            buf[--charPos] = DIGIT_TENS[r];
+        }
+
+        // the rest of the digits are same as for an int
+        fillIntChars((int)i, buf, charPos);
+        if (sign != 0) {
+            buf[charPos - stringSize((int)i) - 1] = sign;
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.glassfish.json.api.JsonConfig;
+
+/**
+ * Bounded table of object key names that is shared by the parsers of a
+ * factory, so that the same String instance is returned for a repeated
+ * key name. A key is looked up by its hash over the chars in the
+ * tokenizer's buffer, so no String is created for a key that is already
+ * in the table.
+ *
+ * <p>
+ * Each slot holds only one key, a key with the same slot replaces it. The
+ * table is safe to use from multiple threads without locking, as the slots
+ * only hold immutable Strings and a key is always compared with the chars
+ * before it is returned.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonKeyTable {
+    // Longer keys are not kept in the table
+    static final int MAX_KEY_LENGTH = 64;
+    // no of slots, power of 2
+    private static final int SIZE = 4096;
+
+    private final String[] keys = new String[SIZE];
+
+    // Creates a table if it is enabled in the config, otherwise null
+    static JsonKeyTable create(Map<String, ?> config) {
+        if (config != null) {
+            Object value = config.get(JsonConfig.CANONICALIZE_KEYS);
+            if (value != null && Boolean.parseBoolean(value.toString())) {
+                return new JsonKeyTable();
+            }
+        }
+        return null;
+    }
+
+    String get(char[] chars, int begin, int end) {
+        int len = end - begin;
+        if (len > MAX_KEY_LENGTH) {
+            return new String(chars, begin, len);
+        }
+        int hash = 0;
+        for(int i=begin; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = slot(hash);
+        String key = keys[slot];
+        if (key != null && key.hashCode() == hash && key.length() == len) {
+            int i = 0;
+            while (i < len && key.charAt(i) == chars[begin+i]) {
+                i++;
+            }
+            if (i == len) {
+                return key;
+            }
+        }
+        key = new String(chars, begin, len);
+        keys[slot] = key;
+        return key;
+    }
+
+    // Requires ASCII bytes
+    String get(byte[] bytes, int begin, int end) {
+        int len = end - begin;
+        if (len > MAX_KEY_LENGTH) {
+            return new String(bytes, begin, len, StandardCharsets.ISO_8859_1);
+        }
+        int hash = 0;
+        for(int i=begin; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        int slot = slot(hash);
+        String key = keys[slot];
+        if (key != null && key.hashCode() == hash && key.length() == len) {
+            int i = 0;
+            while (i < len && key.charAt(i) == bytes[begin+i]) {
+                i++;
+            }
+            if (i == len) {
+                return key;
+            }
+        }
+        key = new String(bytes, begin, len, StandardCharsets.ISO_8859_1);
+        keys[slot] = key;
+        return key;
+    }
+
+    private static int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & (SIZE-1);
+    }
+
+}
@@ -0,0 +1,653 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import javax.json.JsonWriter;
+import javax.json.stream.JsonLocation;
+import javax.json.stream.JsonParser;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * JsonReader that returns a JSON object or array backed by the UTF-8
+ * bytes of the input.
+ *
+ * <p>
+ * A structure is indexed when it is first accessed: its own tokens are
+ * parsed and validated, its key names are decoded and the offsets of its
+ * values are recorded, but the nested structures are only skipped. A
+ * string or number value is decoded from the bytes when it is accessed,
+ * and a nested structure is indexed then. So reading a few values of a
+ * large document doesn't cost building all of it. Malformed input inside
+ * a nested structure is reported when that structure is accessed.
+ *
+ * <p>
+ * The decoded values are kept, so that a value is decoded once. The
+ * structures are immutable like the ones from {@link JsonReaderImpl}.
+ * Other encodings are read with a {@code JsonReaderImpl}.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonLazyReader implements JsonReader {
+
+    private final InputStream in;
+    private final Charset charset;     // null if it is to be detected
+    private final JsonKeyTable keyTable;
+    private final BufferPool bufferPool;
+    private boolean readDone;
+
+    JsonLazyReader(InputStream in, Charset charset,
+            JsonKeyTable keyTable, BufferPool bufferPool) {
+        this.in = in;
+        this.charset = charset;
+        this.keyTable = keyTable;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public JsonStructure read() {
+        return read(null);
+    }
+
+    @Override
+    public JsonObject readObject() {
+        return (JsonObject)read(JsonParser.Event.START_OBJECT);
+    }
+
+    @Override
+    public JsonArray readArray() {
+        return (JsonArray)read(JsonParser.Event.START_ARRAY);
+    }
+
+    @Override
+    public void close() {
+        readDone = true;
+        try {
+            in.close();
+        } catch (IOException ioe) {
+            throw new JsonException(JsonMessages.PARSER_TOKENIZER_CLOSE_IO(), ioe);
+        }
+    }
+
+    // Reads the top-level structure, it is an object or array as expected
+    // if expected is not null
+    private JsonStructure read(JsonParser.Event expected) {
+        if (readDone) {
+            throw new IllegalStateException(JsonMessages.READER_READ_ALREADY_CALLED());
+        }
+        readDone = true;
+        byte[] bytes = readAll(in);
+        int begin = 0;
+        Charset encoding = charset;
+        if (encoding == null) {
+            byte[] head = Arrays.copyOf(bytes, Math.min(4, bytes.length));
+            UnicodeDetectingInputStream uin = new UnicodeDetectingInputStream(
+                    new ByteArrayInputStream(head));
+            encoding = uin.getCharset();
+            begin = uin.getBomLength();
+        }
+        if (!StandardCharsets.UTF_8.equals(encoding)) {
+            InputStream bin = new ByteArrayInputStream(bytes);
+            JsonTokenizer tokenizer = charset == null
+                    ? JsonParserImpl.createTokenizer(bin, bufferPool)
+                    : JsonParserImpl.createTokenizer(bin, charset, bufferPool);
+            try (JsonReaderImpl reader = new JsonReaderImpl(tokenizer, keyTable, bufferPool)) {
+                return expected == null ? reader.read()
+                        : expected == JsonParser.Event.START_OBJECT
+                        ? reader.readObject() : reader.readArray();
+            }
+        }
+
+        Document doc = new Document(bytes, begin, keyTable, bufferPool);
+        JsonUtf8Tokenizer tokenizer = doc.tokenizer(begin, 1, 0);
+        try (JsonParserImpl parser = new JsonParserImpl(tokenizer, keyTable)) {
+            if (parser.hasNext()) {
+                JsonParser.Event e = parser.next();
+                if (expected == JsonParser.Event.START_OBJECT && e == JsonParser.Event.START_ARRAY) {
+                    throw new JsonException(JsonMessages.READER_EXPECTED_OBJECT_GOT_ARRAY());
+                } else if (expected == JsonParser.Event.START_ARRAY && e == JsonParser.Event.START_OBJECT) {
+                    throw new JsonException(JsonMessages.READER_EXPECTED_ARRAY_GOT_OBJECT());
+                }
+                return doc.index(parser, tokenizer, e);
+            }
+        }
+        throw new JsonException("Internal Error");
+    }
+
+    private static byte[] readAll(InputStream in) {
+        try {
+            byte[] bytes = new byte[8192];
+            int len = 0;
+            int n;
+            while ((n = in.read(bytes, len, bytes.length - len)) != -1) {
+                len += n;
+                if (len == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+                }
+            }
+            return len == bytes.length ? bytes : Arrays.copyOf(bytes, len);
+        } catch (IOException ioe) {
+            throw new JsonException(JsonMessages.TOKENIZER_IO_ERR(), ioe);
+        }
+    }
+
+    /*
+     * The input bytes and what is needed to decode them. A structure has
+     * an index with three ints for each value: the offset of the value in
+     * the bytes, and the line number and the offset of that line for a
+     * nested structure, so that its errors have the locations in the input.
+     */
+    private static final class Document {
+        private final byte[] bytes;
+        private final int begin;            // after the byte order mark
+        private final JsonKeyTable keyTable;
+        private final BufferPool bufferPool;
+
+        Document(byte[] bytes, int begin, JsonKeyTable keyTable, BufferPool bufferPool) {
+            this.bytes = bytes;
+            this.begin = begin;
+            this.keyTable = keyTable;
+            this.bufferPool = bufferPool;
+        }
+
+        // Tokenizes from the given offset in the bytes to the end
+        JsonUtf8Tokenizer tokenizer(int offset, int lineNo, int lastLineOffset) {
+            JsonUtf8Tokenizer tokenizer = new JsonUtf8Tokenizer(
+                    ByteBuffer.wrap(bytes, offset, bytes.length - offset), bufferPool);
+            tokenizer.setStartLocation(offset - begin, lineNo, lastLineOffset);
+            return tokenizer;
+        }
+
+        // Indexes the structure whose start event is just parsed
+        JsonStructure index(JsonParserImpl parser, JsonUtf8Tokenizer tokenizer,
+                JsonParser.Event start) {
+            String[] keys = start == JsonParser.Event.START_OBJECT ? new String[8] : null;
+            int[] index = new int[24];
+            int size = 0;
+            JsonParser.Event end = start == JsonParser.Event.START_OBJECT
+                    ? JsonParser.Event.END_OBJECT : JsonParser.Event.END_ARRAY;
+            JsonParser.Event e;
+            while ((e = parser.next()) != end) {
+                if (3*size == index.length) {
+                    index = Arrays.copyOf(index, 2*index.length);
+                }
+                if (keys != null) {
+                    if (size == keys.length) {
+                        keys = Arrays.copyOf(keys, 2*keys.length);
+                    }
+                    keys[size] = parser.getString();
+                    e = parser.next();
+                }
+                if (e == JsonParser.Event.START_OBJECT || e == JsonParser.Event.START_ARRAY) {
+                    JsonLocation location = parser.getLastCharLocation();
+                    int offset = (int)location.getStreamOffset();
+                    index[3*size] = offset + begin;
+                    index[3*size+1] = (int)location.getLineNumber();
+                    index[3*size+2] = offset + 1 - (int)location.getColumnNumber();
+                    if (e == JsonParser.Event.START_OBJECT) {
+                        parser.skipObject();
+                    } else {
+                        parser.skipArray();
+                    }
+                } else {
+                    index[3*size] = tokenizer.getTokenBegin();
+                }
+                size++;
+            }
+            return keys != null
+                    ? new LazyObject(this, keys, index, size)
+                    : new LazyArray(this, index, size);
+        }
+
+        // Decodes the i-th value of the index
+        JsonValue value(int[] index, int i) {
+            int offset = index[3*i];
+            switch (bytes[offset]) {
+                case '{':
+                case '[':
+                    JsonUtf8Tokenizer structureTokenizer = tokenizer(offset, index[3*i+1], index[3*i+2]);
+                    try (JsonParserImpl parser = new JsonParserImpl(structureTokenizer, keyTable)) {
+                        return index(parser, structureTokenizer, parser.next());
+                    }
+                case 't':
+                    return JsonValue.TRUE;
+                case 'f':
+                    return JsonValue.FALSE;
+                case 'n':
+                    return JsonValue.NULL;
+                default:
+                    break;
+            }
+            try (JsonUtf8Tokenizer tokenizer = tokenizer(offset, 1, 0)) {
+                if (tokenizer.nextToken() == JsonTokenizer.JsonToken.STRING) {
+                    return new JsonStringImpl(tokenizer.getValue());
+                }
+                return tokenizer.getJsonNumber();
+            } catch (IOException ioe) {
+                throw new JsonException(JsonMessages.PARSER_TOKENIZER_CLOSE_IO(), ioe);
+            }
+        }
+    }
+
+    private static final class LazyObject extends AbstractMap<String, JsonValue> implements JsonObject {
+        private final Document doc;
+        private final String[] keys;
+        private final int[] index;
+        private final int size;
+        // positions of the keys, null for a small object that is searched
+        private final Map<String, Integer> positions;
+        private final JsonValue[] values;   // decoded on demand
+
+        LazyObject(Document doc, String[] keys, int[] index, int size) {
+            // like a map, a duplicate key keeps its first position and
+            // gets the last value
+            Map<String, Integer> positions = size > 8 ? new HashMap<>(2*size) : null;
+            int unique = 0;
+            for(int i=0; i < size; i++) {
+                int pos = positions != null
+                        ? positions.getOrDefault(keys[i], -1)
+                        : indexOf(keys, unique, keys[i]);
+                if (pos == -1) {
+                    pos = unique++;
+                    keys[pos] = keys[i];
+                    if (positions != null) {
+                        positions.put(keys[pos], pos);
+                    }
+                }
+                System.arraycopy(index, 3*i, index, 3*pos, 3);
+            }
+            this.doc = doc;
+            this.keys = keys;
+            this.index = index;
+            this.size = unique;
+            this.positions = positions;
+            this.values = new JsonValue[unique];
+        }
+
+        private static int indexOf(String[] keys, int size, Object key) {
+            for(int i=0; i < size; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int position(Object key) {
+            if (positions != null) {
+                Integer pos = positions.get(key);
+                return pos == null ? -1 : pos;
+            }
+            return indexOf(keys, size, key);
+        }
+
+        private JsonValue value(int i) {
+            JsonValue value = values[i];
+            if (value == null) {
+                value = doc.value(index, i);
+                values[i] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public JsonValue get(Object key) {
+            int i = position(key);
+            return i == -1 ? null : value(i);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return position(key) != -1;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public JsonArray getJsonArray(String name) {
+            return (JsonArray)get(name);
+        }
+
+        @Override
+        public JsonObject getJsonObject(String name) {
+            return (JsonObject)get(name);
+        }
+
+        @Override
+        public JsonNumber getJsonNumber(String name) {
+            return (JsonNumber)get(name);
+        }
+
+        @Override
+        public JsonString getJsonString(String name) {
+            return (JsonString)get(name);
+        }
+
+        @Override
+        public String getString(String name) {
+            return getJsonString(name).getString();
+        }
+
+        @Override
+        public String getString(String name, String defaultValue) {
+            try {
+                return getString(name);
+            } catch (Exception e) {
+                return defaultValue;
+            }
+        }
+
+        @Override
+        public int getInt(String name) {
+            return getJsonNumber(name).intValue();
+        }
+
+        @Override
+        public int getInt(String name, int defaultValue) {
+            try {
+                return getInt(name);
+            } catch (Exception e) {
+                return defaultValue;
+            }
+        }
+
+        @Override
+        public boolean getBoolean(String name) {
+            JsonValue value = get(name);
+            if (value == null) {
+                throw new NullPointerException();
+            } else if (value == JsonValue.TRUE) {
+                return true;
+            } else if (value == JsonValue.FALSE) {
+                return false;
+            } else {
+                throw new ClassCastException();
+            }
+        }
+
+        @Override
+        public boolean getBoolean(String name, boolean defaultValue) {
+            try {
+                return getBoolean(name);
+            } catch (Exception e) {
+                return defaultValue;
+            }
+        }
+
+        @Override
+        public boolean isNull(String name) {
+            return get(name).equals(JsonValue.NULL);
+        }
+
+        @Override
+        public ValueType getValueType() {
+            return ValueType.OBJECT;
+        }
+
+        // the key names without decoding the values
+        @Override
+        public Set<String> keySet() {
+            return new AbstractSet<String>() {
+                @Override
+                public Iterator<String> iterator() {
+                    return Arrays.asList(keys).subList(0, size).iterator();
+                }
+
+                @Override
+                public boolean contains(Object key) {
+                    return containsKey(key);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        @Override
+        public Set<Entry<String, JsonValue>> entrySet() {
+            return new AbstractSet<Entry<String, JsonValue>>() {
+                @Override
+                public Iterator<Entry<String, JsonValue>> iterator() {
+                    return new Iterator<Entry<String, JsonValue>>() {
+                        private int i;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < size;
+                        }
+
+                        @Override
+                        public Entry<String, JsonValue> next() {
+                            if (i >= size) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, JsonValue> entry =
+                                    new SimpleImmutableEntry<>(keys[i], value(i));
+                            i++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            StringWriter sw = new StringWriter();
+            try (JsonWriter jw = new JsonWriterImpl(sw, doc.bufferPool)) {
+                jw.write(this);
+            }
+            return sw.toString();
+        }
+
+        @Override
+        public JsonObject asJsonObject() {
+            return this;
+        }
+    }
+
+    private static final class LazyArray extends AbstractList<JsonValue> implements JsonArray {
+        private final Document doc;
+        private final int[] index;
+        private final int size;
+        private final JsonValue[] values;   // decoded on demand
+
+        LazyArray(Document doc, int[] index, int size) {
+            this.doc = doc;
+            this.index = index;
+            this.size = size;
+            this.values = new JsonValue[size];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public JsonObject getJsonObject(int index) {
+            return (JsonObject)get(index);
+        }
+
+        @Override
+        public JsonArray getJsonArray(int index) {
+            return (JsonArray)get(index);
+        }
+
+        @Override
+        public JsonNumber getJsonNumber(int index) {
+            return (JsonNumber)get(index);
+        }
+
+        @Override
+        public JsonString getJsonString(int index) {
+            return (JsonString)get(index);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends JsonValue> List<T> getValuesAs(Class<T> clazz) {
+            return (List<T>)this;
+        }
+
+        @Override
+        public String getString(int index) {
+            return getJsonString(index).getString();
+        }
+
+        @Override
+        public String getString(int index, String defaultValue) {
+            try {
+                return getString(index);
+            } catch (Exception e) {
+                return defaultValue;
+            }
+        }
+
+        @Override
+        public int getInt(int index) {
+            return getJsonNumber(index).intValue();
+        }
+
+        @Override
+        public int getInt(int index, int defaultValue) {
+            try {
+                return getInt(index);
+            } catch (Exception e) {
+                return defaultValue;
+            }
+        }
+
+        @Override
+        public boolean getBoolean(int index) {
+            JsonValue jsonValue = get(index);
+            if (jsonValue == JsonValue.TRUE) {
+                return true;
+            } else if (jsonValue == JsonValue.FALSE) {
+                return false;
+            } else {
+                throw new ClassCastException();
+            }
+        }
+
+        @Override
+        public boolean getBoolean(int index, boolean defaultValue) {
+            try {
+                return getBoolean(index);
+            } catch (Exception e) {
+                return defaultValue;
+            }
+        }
+
+        @Override
+        public boolean isNull(int index) {
+            return get(index).equals(JsonValue.NULL);
+        }
+
+        @Override
+        public ValueType getValueType() {
+            return ValueType.ARRAY;
+        }
+
+        @Override
+        public JsonValue get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            JsonValue value = values[index];
+            if (value == null) {
+                value = doc.value(this.index, index);
+                values[index] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            StringWriter sw = new StringWriter();
+            try (JsonWriter jw = new JsonWriterImpl(sw, doc.bufferPool)) {
+                jw.write(this);
+            }
+            return sw.toString();
+        }
+
+        @Override
+        public JsonArray asJsonArray() {
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Reads newline-delimited JSON from a byte stream in batches of whole
+ * lines. Every split hands a batch to a {@link JsonLinesSpliterator}, and
+ * the batches grow so that large inputs are split in fewer, bigger ranges,
+ * like the spliterators of {@code Iterator}s do.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonLinesInputSpliterator implements Spliterator<JsonObject> {
+
+    private static final int MIN_BATCH_SIZE = 1 << 16;
+    private static final int MAX_BATCH_SIZE = 1 << 24;
+
+    private final InputStream in;
+    private final boolean ordered;
+    private final JsonKeyTable keyTable;
+    private final int maxDepth;
+    private final BufferPool bufferPool;
+    private int batchSize = MIN_BATCH_SIZE;
+    private boolean eof;
+    private boolean started;
+    // incomplete last line of the previous batch
+    private byte[] carry = new byte[0];
+    private int carryLen;
+    // batch that is being consumed by tryAdvance()
+    private JsonLinesSpliterator current;
+
+    JsonLinesInputSpliterator(InputStream in, boolean ordered,
+            JsonKeyTable keyTable, int maxDepth, BufferPool bufferPool) {
+        this.in = in;
+        this.ordered = ordered;
+        this.keyTable = keyTable;
+        this.maxDepth = maxDepth;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super JsonObject> action) {
+        do {
+            if (current != null && current.tryAdvance(action)) {
+                return true;
+            }
+            current = nextBatch();
+        } while (current != null);
+        return false;
+    }
+
+    @Override
+    public Spliterator<JsonObject> trySplit() {
+        // the rest of the current batch comes before the next batches
+        if (current != null) {
+            JsonLinesSpliterator batch = current;
+            current = null;
+            return batch;
+        }
+        JsonLinesSpliterator batch = nextBatch();
+        if (batch != null) {
+            batchSize = Math.min(2 * batchSize, MAX_BATCH_SIZE);
+        }
+        return batch;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ordered ? ORDERED|NONNULL|IMMUTABLE : NONNULL|IMMUTABLE;
+    }
+
+    // Reads the next batch of whole lines, null at the end of the stream
+    private JsonLinesSpliterator nextBatch() {
+        if (eof && carryLen == 0) {
+            return null;
+        }
+        byte[] bytes = carryLen < batchSize
+                ? new byte[batchSize] : new byte[2 * carryLen];
+        System.arraycopy(carry, 0, bytes, 0, carryLen);
+        int len = carryLen;
+        int from = carryLen;
+        while (true) {
+            len = fill(bytes, len);
+            int end = lastNewline(bytes, from, len);
+            if (eof || end != -1) {
+                int lineEnd = eof ? len : end+1;
+                carryLen = len - lineEnd;
+                carry = carryLen == 0 ? carry : Arrays.copyOfRange(bytes, lineEnd, len);
+                ByteBuffer batch = ByteBuffer.wrap(bytes, 0, lineEnd);
+                if (!started) {
+                    started = true;
+                    JsonLinesSpliterator.skipBom(batch);
+                }
+                return new JsonLinesSpliterator(batch, ordered, keyTable, maxDepth, bufferPool);
+            }
+            // a line longer than the batch
+            from = len;
+            bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+        }
+    }
+
+    private int fill(byte[] bytes, int len) {
+        try {
+            while (len < bytes.length) {
+                int n = in.read(bytes, len, bytes.length - len);
+                if (n == -1) {
+                    eof = true;
+                    break;
+                }
+                len += n;
+            }
+            return len;
+        } catch (IOException ioe) {
+            throw new JsonException(JsonMessages.TOKENIZER_IO_ERR(), ioe);
+        }
+    }
+
+    private static int lastNewline(byte[] bytes, int from, int to) {
+        for(int i=to-1; i >= from; i--) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
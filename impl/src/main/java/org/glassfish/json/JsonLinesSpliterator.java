@@ -0,0 +1,174 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.JsonObject;
+import java.nio.ByteBuffer;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Splits a range of newline-delimited JSON bytes at the line boundaries
+ * and parses each line with its own tokenizer. The bytes are shared by
+ * all the split ranges and are not copied if the buffer has an array.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonLinesSpliterator implements Spliterator<JsonObject> {
+
+    // ranges smaller than this are not split any further
+    private static final int MIN_SPLIT_SIZE = 1 << 14;
+
+    private final ByteBuffer buffer;    // only absolute get()s are used
+    private final int fence;
+    private final int characteristics;
+    private final JsonKeyTable keyTable;
+    private final int maxDepth;
+    private final BufferPool bufferPool;
+    private int index;
+
+    JsonLinesSpliterator(ByteBuffer buffer, boolean ordered,
+            JsonKeyTable keyTable, int maxDepth, BufferPool bufferPool) {
+        this(buffer, buffer.position(), buffer.limit(),
+                ordered ? ORDERED|NONNULL|IMMUTABLE : NONNULL|IMMUTABLE,
+                keyTable, maxDepth, bufferPool);
+    }
+
+    private JsonLinesSpliterator(ByteBuffer buffer, int index, int fence,
+            int characteristics, JsonKeyTable keyTable, int maxDepth,
+            BufferPool bufferPool) {
+        this.buffer = buffer;
+        this.index = index;
+        this.fence = fence;
+        this.characteristics = characteristics;
+        this.keyTable = keyTable;
+        this.maxDepth = maxDepth;
+        this.bufferPool = bufferPool;
+    }
+
+    // Skips the UTF-8 byte order mark at the start of the input
+    static void skipBom(ByteBuffer buffer) {
+        int pos = buffer.position();
+        if (buffer.limit() - pos >= 3 && (buffer.get(pos)&0xFF) == 0xEF
+                && (buffer.get(pos+1)&0xFF) == 0xBB && (buffer.get(pos+2)&0xFF) == 0xBF) {
+            buffer.position(pos+3);
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super JsonObject> action) {
+        while (index < fence) {
+            int begin = index;
+            int end = indexOfNewline(begin);
+            index = end < fence ? end+1 : fence;
+            if (!isBlank(begin, end)) {
+                action.accept(read(begin, end));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super JsonObject> action) {
+        while (tryAdvance(action)) {
+        }
+    }
+
+    // Splits off the first half of the lines, so that the order is kept
+    @Override
+    public Spliterator<JsonObject> trySplit() {
+        if (fence - index < MIN_SPLIT_SIZE) {
+            return null;
+        }
+        int mid = indexOfNewline((index + fence) >>> 1);
+        if (mid >= fence - 1) {
+            return null;
+        }
+        JsonLinesSpliterator prefix = new JsonLinesSpliterator(buffer, index, mid+1,
+                characteristics, keyTable, maxDepth, bufferPool);
+        index = mid+1;
+        return prefix;
+    }
+
+    // The number of lines is not known without scanning the bytes
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return characteristics;
+    }
+
+    private int indexOfNewline(int from) {
+        for(int i=from; i < fence; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return fence;
+    }
+
+    private boolean isBlank(int begin, int end) {
+        for(int i=begin; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private JsonObject read(int begin, int end) {
+        ByteBuffer line = buffer.duplicate();
+        line.limit(end);
+        line.position(begin);
+        JsonTokenizer tokenizer = new JsonUtf8Tokenizer(line, bufferPool);
+        try (JsonReaderImpl reader = new JsonReaderImpl(tokenizer, keyTable, maxDepth, bufferPool)) {
+            return reader.readObject();
+        }
+    }
+
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -86,6 +86,10 @@ final class JsonMessages {
         return localize("parser.getLong.err", event);
     }
 
+    static String PARSER_GETDOUBLE_ERR(JsonParser.Event event) {
+        return localize("parser.getDouble.err", event);
+    }
+
     static String PARSER_GETBIGDECIMAL_ERR(JsonParser.Event event) {
         return localize("parser.getBigDecimal.err", event);
     }
@@ -102,6 +106,20 @@ final class JsonMessages {
         return localize("parser.invalid.token", token, location, expectedTokens);
     }
 
+    static String PARSER_NEED_MORE_INPUT() {
+        return localize("parser.need.more.input");
+    }
+
+    static String PARSER_INPUT_ENDED() {
+        return localize("parser.input.ended");
+    }
+
+
+    // number messages
+    static String NUMBER_DOUBLE_INFINITE_NAN() {
+        return localize("number.double.infinite.nan");
+    }
+
 
     // generator messages
     static String GENERATOR_FLUSH_IO_ERR() {
@@ -132,6 +150,10 @@ final class JsonMessages {
         return localize("generator.illegal.multiple.text");
     }
 
+    static String GENERATOR_MAX_DEPTH(int maxDepth) {
+        return localize("generator.max.depth", maxDepth);
+    }
+
 
 
     // writer messages
@@ -153,6 +175,30 @@ final class JsonMessages {
         return localize("reader.expected.object.got.array");
     }
 
+    static String READER_LINES_CLOSE_IO_ERR() {
+        return localize("reader.lines.close.io.err");
+    }
+
+    static String READER_MAX_DEPTH(int maxDepth) {
+        return localize("reader.max.depth", maxDepth);
+    }
+
+
+    // config messages
+    static String CONFIG_MAX_DEPTH_ERR(Object maxDepth) {
+        return localize("config.max.depth.err", maxDepth);
+    }
+
+
+    // path query messages
+    static String PATH_SYNTAX_ERR(String path, int index) {
+        return localize("path.syntax.err", path, index);
+    }
+
+    static String PATH_NEGATIVE_INDEX_ERR(String path, int index) {
+        return localize("path.negative.index.err", path, index);
+    }
+
 
     // obj builder messages
     static String OBJBUILDER_NAME_NULL() {
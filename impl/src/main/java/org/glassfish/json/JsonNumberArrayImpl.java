@@ -0,0 +1,540 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+import org.glassfish.json.api.JsonNumberArray;
+
+import javax.json.*;
+import java.io.StringWriter;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * JsonArray impl for arrays whose elements are all numbers. Integers,
+ * decimals of at most 18 digits and doubles are stored in primitive arrays,
+ * and their JsonNumber values are created when they are accessed. A
+ * JsonNumber that is created again is equal to the one that was added.
+ *
+ * <p>
+ * A JsonArrayBuilder that is created from such an array copies the packed
+ * values with {@link #copy}, and stores the numbers that fit the packing
+ * directly in the copy, before the copy is built. An array isn't modified
+ * once it is built.
+ *
+ * @author Jitendra Kotamraju
+ */
+abstract class JsonNumberArrayImpl extends AbstractList<JsonValue> implements JsonNumberArray {
+    private final BufferPool bufferPool;
+
+    JsonNumberArrayImpl(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    BufferPool bufferPool() {
+        return bufferPool;
+    }
+
+    /*
+     * Returns an immutable array with the given values, or null if the values
+     * are empty or not all numbers.
+     */
+    static JsonArray create(List<JsonValue> values, BufferPool bufferPool) {
+        int size = values.size();
+        if (size == 0) {
+            return null;
+        }
+        int kind = JsonNumberImpl.INT;
+        for(int i=0; i < size; i++) {
+            JsonValue value = values.get(i);
+            if (!(value instanceof JsonNumber)) {
+                return null;
+            }
+            int valueKind = kind((JsonNumber)value);
+            if (valueKind == JsonNumberImpl.DOUBLE) {
+                // doubles are packed with doubles only, to keep toString()
+                kind = (i == 0 || kind == JsonNumberImpl.DOUBLE)
+                        ? JsonNumberImpl.DOUBLE : JsonNumberImpl.OTHER;
+            } else if (kind == JsonNumberImpl.DOUBLE) {
+                kind = JsonNumberImpl.OTHER;
+            } else {
+                kind = Math.max(kind, valueKind);
+            }
+        }
+        switch (kind) {
+            case JsonNumberImpl.INT: {
+                int[] ints = new int[size];
+                for(int i=0; i < size; i++) {
+                    ints[i] = ((JsonNumber)values.get(i)).intValue();
+                }
+                return new JsonIntArray(ints, bufferPool);
+            }
+            case JsonNumberImpl.LONG: {
+                long[] longs = new long[size];
+                for(int i=0; i < size; i++) {
+                    longs[i] = ((JsonNumber)values.get(i)).longValue();
+                }
+                return new JsonLongArray(longs, bufferPool);
+            }
+            case JsonNumberImpl.DECIMAL: {
+                long[] unscaledValues = new long[size];
+                byte[] scales = new byte[size];
+                for(int i=0; i < size; i++) {
+                    JsonNumberImpl num = (JsonNumberImpl)values.get(i);
+                    unscaledValues[i] = num.unscaledValue();
+                    scales[i] = (byte)num.scale();
+                }
+                return new JsonDecimalArray(unscaledValues, scales, bufferPool);
+            }
+            case JsonNumberImpl.DOUBLE: {
+                double[] doubles = new double[size];
+                for(int i=0; i < size; i++) {
+                    doubles[i] = ((JsonNumber)values.get(i)).doubleValue();
+                }
+                return new JsonDoubleArray(doubles, bufferPool);
+            }
+            default:
+                return new JsonBoxedArray(values.toArray(new JsonNumber[size]), bufferPool);
+        }
+    }
+
+    /*
+     * Returns a copy with a free slot at index if delta is 1, without the
+     * element at index if delta is -1, or with all the elements if delta
+     * is 0.
+     */
+    abstract JsonNumberArrayImpl copy(int index, int delta);
+
+    // true if the number can be stored without changing the packing
+    abstract boolean fits(JsonNumber value);
+
+    // Stores a number that fits, only in a copy that is not built yet
+    abstract void store(int index, JsonNumber value);
+
+    static int kind(JsonNumber value) {
+        return (value instanceof JsonNumberImpl)
+                ? ((JsonNumberImpl)value).kind() : JsonNumberImpl.OTHER;
+    }
+
+    // Copies src of the given length into dst, as copy() describes it
+    static void copy(Object src, int length, Object dst, int index, int delta) {
+        System.arraycopy(src, 0, dst, 0, delta == 0 ? length : index);
+        if (delta > 0) {
+            System.arraycopy(src, index, dst, index + 1, length - index);
+        } else if (delta < 0) {
+            System.arraycopy(src, index + 1, dst, index, length - index - 1);
+        }
+    }
+
+    @Override
+    public abstract JsonNumber getJsonNumber(int index);
+
+    @Override
+    public JsonValue get(int index) {
+        return getJsonNumber(index);
+    }
+
+    @Override
+    public int[] toIntArray() {
+        int[] ints = new int[size()];
+        for(int i=0; i < ints.length; i++) {
+            ints[i] = getJsonNumber(i).intValue();
+        }
+        return ints;
+    }
+
+    @Override
+    public long[] toLongArray() {
+        long[] longs = new long[size()];
+        for(int i=0; i < longs.length; i++) {
+            longs[i] = getJsonNumber(i).longValue();
+        }
+        return longs;
+    }
+
+    @Override
+    public double[] toDoubleArray() {
+        double[] doubles = new double[size()];
+        for(int i=0; i < doubles.length; i++) {
+            doubles[i] = getJsonNumber(i).doubleValue();
+        }
+        return doubles;
+    }
+
+    @Override
+    public JsonObject getJsonObject(int index) {
+        return (JsonObject)get(index);
+    }
+
+    @Override
+    public JsonArray getJsonArray(int index) {
+        return (JsonArray)get(index);
+    }
+
+    @Override
+    public JsonString getJsonString(int index) {
+        return (JsonString)get(index);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends JsonValue> List<T> getValuesAs(Class<T> clazz) {
+        return (List<T>)this;
+    }
+
+    @Override
+    public String getString(int index) {
+        return getJsonString(index).getString();
+    }
+
+    @Override
+    public String getString(int index, String defaultValue) {
+        try {
+            return getString(index);
+        } catch (Exception e) {
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public int getInt(int index) {
+        return getJsonNumber(index).intValue();
+    }
+
+    @Override
+    public int getInt(int index, int defaultValue) {
+        try {
+            return getInt(index);
+        } catch (Exception e) {
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+        get(index);
+        throw new ClassCastException();
+    }
+
+    @Override
+    public boolean getBoolean(int index, boolean defaultValue) {
+        try {
+            return getBoolean(index);
+        } catch (Exception e) {
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        return get(index).equals(JsonValue.NULL);
+    }
+
+    @Override
+    public ValueType getValueType() {
+        return ValueType.ARRAY;
+    }
+
+    @Override
+    public String toString() {
+        StringWriter sw = new StringWriter();
+        try (JsonWriter jw = new JsonWriterImpl(sw, bufferPool)) {
+            jw.write(this);
+        }
+        return sw.toString();
+    }
+
+    @Override
+    public JsonArray asJsonArray() {
+        return this;
+    }
+
+    private static final class JsonIntArray extends JsonNumberArrayImpl {
+        private final int[] ints;
+
+        JsonIntArray(int[] ints, BufferPool bufferPool) {
+            super(bufferPool);
+            this.ints = ints;
+        }
+
+        @Override
+        public int size() {
+            return ints.length;
+        }
+
+        @Override
+        JsonNumberArrayImpl copy(int index, int delta) {
+            int[] copy = new int[ints.length + delta];
+            copy(ints, ints.length, copy, index, delta);
+            return new JsonIntArray(copy, bufferPool());
+        }
+
+        @Override
+        boolean fits(JsonNumber value) {
+            return kind(value) == JsonNumberImpl.INT;
+        }
+
+        @Override
+        void store(int index, JsonNumber value) {
+            ints[index] = value.intValue();
+        }
+
+        @Override
+        public JsonNumber getJsonNumber(int index) {
+            return JsonNumberImpl.getJsonNumber(ints[index]);
+        }
+
+        @Override
+        public int getInt(int index) {
+            return ints[index];
+        }
+
+        @Override
+        public int[] toIntArray() {
+            return ints.clone();
+        }
+
+        @Override
+        public long[] toLongArray() {
+            long[] longs = new long[ints.length];
+            for(int i=0; i < ints.length; i++) {
+                longs[i] = ints[i];
+            }
+            return longs;
+        }
+
+        @Override
+        public double[] toDoubleArray() {
+            double[] doubles = new double[ints.length];
+            for(int i=0; i < ints.length; i++) {
+                doubles[i] = ints[i];
+            }
+            return doubles;
+        }
+    }
+
+    private static final class JsonLongArray extends JsonNumberArrayImpl {
+        private final long[] longs;
+
+        JsonLongArray(long[] longs, BufferPool bufferPool) {
+            super(bufferPool);
+            this.longs = longs;
+        }
+
+        @Override
+        public int size() {
+            return longs.length;
+        }
+
+        @Override
+        JsonNumberArrayImpl copy(int index, int delta) {
+            long[] copy = new long[longs.length + delta];
+            copy(longs, longs.length, copy, index, delta);
+            return new JsonLongArray(copy, bufferPool());
+        }
+
+        @Override
+        boolean fits(JsonNumber value) {
+            int kind = kind(value);
+            return kind == JsonNumberImpl.INT || kind == JsonNumberImpl.LONG;
+        }
+
+        @Override
+        void store(int index, JsonNumber value) {
+            longs[index] = value.longValue();
+        }
+
+        @Override
+        public JsonNumber getJsonNumber(int index) {
+            return JsonNumberImpl.getJsonNumber(longs[index]);
+        }
+
+        @Override
+        public int getInt(int index) {
+            return (int)longs[index];
+        }
+
+        @Override
+        public int[] toIntArray() {
+            int[] ints = new int[longs.length];
+            for(int i=0; i < longs.length; i++) {
+                ints[i] = (int)longs[i];
+            }
+            return ints;
+        }
+
+        @Override
+        public long[] toLongArray() {
+            return longs.clone();
+        }
+
+        @Override
+        public double[] toDoubleArray() {
+            double[] doubles = new double[longs.length];
+            for(int i=0; i < longs.length; i++) {
+                doubles[i] = longs[i];
+            }
+            return doubles;
+        }
+    }
+
+    private static final class JsonDecimalArray extends JsonNumberArrayImpl {
+        private final long[] unscaledValues;
+        private final byte[] scales;
+
+        JsonDecimalArray(long[] unscaledValues, byte[] scales, BufferPool bufferPool) {
+            super(bufferPool);
+            this.unscaledValues = unscaledValues;
+            this.scales = scales;
+        }
+
+        @Override
+        public int size() {
+            return unscaledValues.length;
+        }
+
+        @Override
+        JsonNumberArrayImpl copy(int index, int delta) {
+            int length = unscaledValues.length;
+            long[] unscaledCopy = new long[length + delta];
+            byte[] scalesCopy = new byte[length + delta];
+            copy(unscaledValues, length, unscaledCopy, index, delta);
+            copy(scales, length, scalesCopy, index, delta);
+            return new JsonDecimalArray(unscaledCopy, scalesCopy, bufferPool());
+        }
+
+        @Override
+        boolean fits(JsonNumber value) {
+            return kind(value) <= JsonNumberImpl.DECIMAL;
+        }
+
+        @Override
+        void store(int index, JsonNumber value) {
+            JsonNumberImpl num = (JsonNumberImpl)value;
+            unscaledValues[index] = num.unscaledValue();
+            scales[index] = (byte)num.scale();
+        }
+
+        @Override
+        public JsonNumber getJsonNumber(int index) {
+            return JsonNumberImpl.getJsonNumber(unscaledValues[index], scales[index]);
+        }
+    }
+
+    private static final class JsonDoubleArray extends JsonNumberArrayImpl {
+        private final double[] doubles;
+
+        JsonDoubleArray(double[] doubles, BufferPool bufferPool) {
+            super(bufferPool);
+            this.doubles = doubles;
+        }
+
+        @Override
+        public int size() {
+            return doubles.length;
+        }
+
+        @Override
+        JsonNumberArrayImpl copy(int index, int delta) {
+            double[] copy = new double[doubles.length + delta];
+            copy(doubles, doubles.length, copy, index, delta);
+            return new JsonDoubleArray(copy, bufferPool());
+        }
+
+        @Override
+        boolean fits(JsonNumber value) {
+            return kind(value) == JsonNumberImpl.DOUBLE;
+        }
+
+        @Override
+        void store(int index, JsonNumber value) {
+            doubles[index] = value.doubleValue();
+        }
+
+        @Override
+        public JsonNumber getJsonNumber(int index) {
+            return JsonNumberImpl.getJsonNumber(doubles[index]);
+        }
+
+        @Override
+        public double[] toDoubleArray() {
+            return doubles.clone();
+        }
+    }
+
+    // Numbers that can't be packed, like BigDecimal numbers
+    private static final class JsonBoxedArray extends JsonNumberArrayImpl {
+        private final JsonNumber[] numbers;
+
+        JsonBoxedArray(JsonNumber[] numbers, BufferPool bufferPool) {
+            super(bufferPool);
+            this.numbers = numbers;
+        }
+
+        @Override
+        public int size() {
+            return numbers.length;
+        }
+
+        @Override
+        JsonNumberArrayImpl copy(int index, int delta) {
+            JsonNumber[] copy = new JsonNumber[numbers.length + delta];
+            copy(numbers, numbers.length, copy, index, delta);
+            return new JsonBoxedArray(copy, bufferPool());
+        }
+
+        @Override
+        boolean fits(JsonNumber value) {
+            return true;
+        }
+
+        @Override
+        void store(int index, JsonNumber value) {
+            numbers[index] = value;
+        }
+
+        @Override
+        public JsonNumber getJsonNumber(int index) {
+            return numbers[index];
+        }
+    }
+
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -46,28 +46,50 @@ import java.math.BigInteger;
 
 /**
  * JsonNumber impl. Subclasses provide optimized implementations
- * when backed by int, long, BigDecimal
+ * when backed by int, long, double, an unscaled long with a scale and
+ * BigDecimal
  *
  * @author Jitendra Kotamraju
  */
 abstract class JsonNumberImpl implements JsonNumber {
 
+    // Kinds of numbers that JsonNumberArrayImpl stores in primitive arrays.
+    // An INT number is also a LONG number, and a LONG number is also a
+    // DECIMAL number with scale 0.
+    static final int INT = 0;
+    static final int LONG = 1;
+    static final int DECIMAL = 2;
+    static final int DOUBLE = 3;
+    static final int OTHER = 4;
+
     static JsonNumber getJsonNumber(int num) {
         return new JsonIntNumber(num);
     }
 
     static JsonNumber getJsonNumber(long num) {
+        if ((int)num == num) {
+            return new JsonIntNumber((int)num);
+        }
         return new JsonLongNumber(num);
     }
 
+    // Same as getJsonNumber(BigDecimal.valueOf(unscaledValue, scale))
+    static JsonNumber getJsonNumber(long unscaledValue, int scale) {
+        if (scale == 0) {
+            return getJsonNumber(unscaledValue);
+        }
+        return new JsonDecimalNumber(unscaledValue, scale);
+    }
+
     static JsonNumber getJsonNumber(BigInteger value) {
         return new JsonBigDecimalNumber(new BigDecimal(value));
     }
 
     static JsonNumber getJsonNumber(double value) {
-        //bigDecimal = new BigDecimal(value);
-        // This is the preferred way to convert double to BigDecimal
-        return new JsonBigDecimalNumber(BigDecimal.valueOf(value));
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new NumberFormatException(JsonMessages.NUMBER_DOUBLE_INFINITE_NAN());
+        }
+        return new JsonDoubleNumber(value);
     }
 
     static JsonNumber getJsonNumber(BigDecimal value) {
@@ -83,6 +105,16 @@ abstract class JsonNumberImpl implements JsonNumber {
             this.num = num;
         }
 
+        @Override
+        int kind() {
+            return INT;
+        }
+
+        @Override
+        long unscaledValue() {
+            return num;
+        }
+
         @Override
         public boolean isIntegral() {
             return true;
@@ -139,11 +171,31 @@ abstract class JsonNumberImpl implements JsonNumber {
             this.num = num;
         }
 
+        @Override
+        int kind() {
+            return LONG;
+        }
+
+        @Override
+        long unscaledValue() {
+            return num;
+        }
+
         @Override
         public boolean isIntegral() {
             return true;
         }
 
+        @Override
+        public int intValue() {
+            return (int) num;
+        }
+
+        @Override
+        public int intValueExact() {
+            return Math.toIntExact(num);
+        }
+
         @Override
         public long longValue() {
             return num;
@@ -177,6 +229,130 @@ abstract class JsonNumberImpl implements JsonNumber {
 
     }
 
+    // Optimized JsonNumber impl for double numbers. The BigDecimal is
+    // the same as BigDecimal.valueOf(num)
+    private static final class JsonDoubleNumber extends JsonNumberImpl {
+        private final double num;
+        private BigDecimal bigDecimal;  // assigning it lazily on demand
+
+        JsonDoubleNumber(double num) {
+            this.num = num;
+        }
+
+        @Override
+        int kind() {
+            return DOUBLE;
+        }
+
+        @Override
+        public int intValue() {
+            // casting truncates like BigDecimal when the value is in range
+            if (num > Integer.MIN_VALUE - 1.0 && num < Integer.MAX_VALUE + 1.0) {
+                return (int) num;
+            }
+            return super.intValue();
+        }
+
+        @Override
+        public long longValue() {
+            if (num >= -0x1p63 && num < 0x1p63) {
+                return (long) num;
+            }
+            return super.longValue();
+        }
+
+        @Override
+        public double doubleValue() {
+            return num;
+        }
+
+        @Override
+        public BigDecimal bigDecimalValue() {
+            // reference assignments are atomic. At the most some more temp
+            // BigDecimal objects are created
+            BigDecimal bd = bigDecimal;
+            if (bd == null) {
+                // This is the preferred way to convert double to BigDecimal
+                bigDecimal = bd = BigDecimal.valueOf(num);
+            }
+            return bd;
+        }
+
+    }
+
+    // Optimized JsonNumber impl for decimal numbers that have at most
+    // 18 digits. The BigDecimal is BigDecimal.valueOf(unscaledValue, scale)
+    private static final class JsonDecimalNumber extends JsonNumberImpl {
+        private final long unscaledValue;
+        private final int scale;
+        private BigDecimal bigDecimal;  // assigning it lazily on demand
+
+        JsonDecimalNumber(long unscaledValue, int scale) {
+            this.unscaledValue = unscaledValue;
+            this.scale = scale;
+        }
+
+        @Override
+        int kind() {
+            // scale is stored in a byte when packed
+            return scale == (byte)scale ? DECIMAL : OTHER;
+        }
+
+        @Override
+        long unscaledValue() {
+            return unscaledValue;
+        }
+
+        @Override
+        int scale() {
+            return scale;
+        }
+
+        @Override
+        public boolean isIntegral() {
+            return scale == 0;
+        }
+
+        @Override
+        public int intValue() {
+            return (int) longValue();
+        }
+
+        @Override
+        public long longValue() {
+            if (scale > 0 && scale < LONG_POW10.length) {
+                return unscaledValue / LONG_POW10[scale];
+            }
+            return super.longValue();
+        }
+
+        @Override
+        public double doubleValue() {
+            double d = JsonNumberParser.toDouble(Math.abs(unscaledValue), -scale, unscaledValue < 0);
+            return Double.isNaN(d) ? super.doubleValue() : d;
+        }
+
+        @Override
+        public BigDecimal bigDecimalValue() {
+            // reference assignments are atomic. At the most some more temp
+            // BigDecimal objects are created
+            BigDecimal bd = bigDecimal;
+            if (bd == null) {
+                bigDecimal = bd = BigDecimal.valueOf(unscaledValue, scale);
+            }
+            return bd;
+        }
+
+    }
+
+    private static final long[] LONG_POW10 = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+        100000000L, 1000000000L, 10000000000L, 100000000000L,
+        1000000000000L, 10000000000000L, 100000000000000L,
+        1000000000000000L, 10000000000000000L, 100000000000000000L,
+        1000000000000000000L
+    };
+
     // JsonNumber impl using BigDecimal numbers.
     private static final class JsonBigDecimalNumber extends JsonNumberImpl {
         private final BigDecimal bigDecimal;
@@ -192,6 +368,20 @@ abstract class JsonNumberImpl implements JsonNumber {
 
     }
 
+    int kind() {
+        return OTHER;
+    }
+
+    // Unscaled value of INT, LONG and DECIMAL numbers
+    long unscaledValue() {
+        throw new UnsupportedOperationException();
+    }
+
+    // Scale of INT, LONG and DECIMAL numbers
+    int scale() {
+        return 0;
+    }
+
     @Override
     public boolean isIntegral() {
         return bigDecimalValue().scale() == 0;
@@ -0,0 +1,185 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import java.math.BigInteger;
+
+/**
+ * Converts the decimal digits of a JSON number to a {@code double} without
+ * creating any objects. The tokenizers accumulate the significant digits
+ * and the decimal exponent, and this class does the conversion. It uses
+ * Clinger's fast path when the mantissa and the power of ten are exactly
+ * representable as doubles, and the Eisel-Lemire algorithm otherwise.
+ * When the result cannot be determined for sure, {@code Double.NaN} is
+ * returned and the caller falls back to a slow path.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonNumberParser {
+
+    private static final double[] SMALL_POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final int MIN_EXP10 = -348;
+    private static final int MAX_EXP10 = 347;
+
+    // 128-bit approximations (rounded down) of the powers of ten from
+    // MIN_EXP10 to MAX_EXP10, normalized so that the highest bit is set
+    private static final long[] POW10_HI = new long[MAX_EXP10 - MIN_EXP10 + 1];
+    private static final long[] POW10_LO = new long[MAX_EXP10 - MIN_EXP10 + 1];
+
+    static {
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int exp10 = MIN_EXP10; exp10 <= MAX_EXP10; exp10++) {
+            BigInteger pow = BigInteger.TEN.pow(Math.abs(exp10));
+            BigInteger mantissa;
+            if (exp10 >= 0) {
+                int shift = pow.bitLength() - 128;
+                mantissa = shift > 0 ? pow.shiftRight(shift) : pow.shiftLeft(-shift);
+            } else {
+                mantissa = BigInteger.ONE.shiftLeft(pow.bitLength() + 127).divide(pow);
+            }
+            POW10_HI[exp10 - MIN_EXP10] = mantissa.shiftRight(64).longValue();
+            POW10_LO[exp10 - MIN_EXP10] = mantissa.and(mask).longValue();
+        }
+    }
+
+    private JsonNumberParser() {
+    }
+
+    /**
+     * Returns {@code mantissa * 10^exp10} rounded to the nearest double.
+     *
+     * @param mantissa the significant digits as an unsigned long
+     * @param exp10 the decimal exponent
+     * @param negative true if the number is negative
+     * @return the double value, or {@code Double.NaN} if the value is not
+     * known to be correctly rounded
+     */
+    static double toDouble(long mantissa, int exp10, boolean negative) {
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        // Clinger's fast path
+        if (mantissa > 0 && mantissa <= (1L << 53) && exp10 >= -22 && exp10 <= 22) {
+            double d = (double)mantissa;
+            d = exp10 < 0 ? d / SMALL_POW10[-exp10] : d * SMALL_POW10[exp10];
+            return negative ? -d : d;
+        }
+        return eiselLemire(mantissa, exp10, negative);
+    }
+
+    private static double eiselLemire(long man, int exp10, boolean negative) {
+        if (exp10 < MIN_EXP10 || exp10 > MAX_EXP10) {
+            return Double.NaN;
+        }
+        // Normalization
+        int clz = Long.numberOfLeadingZeros(man);
+        man <<= clz;
+        long retExp2 = ((217706 * exp10) >> 16) + 64 + 1023 - clz;
+
+        // Multiplication
+        int index = exp10 - MIN_EXP10;
+        long xHi = multiplyHigh(man, POW10_HI[index]);
+        long xLo = man * POW10_HI[index];
+
+        // Wider approximation
+        if ((xHi & 0x1FF) == 0x1FF && Long.compareUnsigned(xLo + man, man) < 0) {
+            long yHi = multiplyHigh(man, POW10_LO[index]);
+            long yLo = man * POW10_LO[index];
+            long mergedHi = xHi;
+            long mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0) {
+                mergedHi++;
+            }
+            if ((mergedHi & 0x1FF) == 0x1FF && mergedLo + 1 == 0
+                    && Long.compareUnsigned(yLo + man, man) < 0) {
+                return Double.NaN;
+            }
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+
+        // Shifting to 54 bits
+        long msb = xHi >>> 63;
+        long retMantissa = xHi >>> (msb + 9);
+        retExp2 -= 1 ^ msb;
+
+        // Half-way ambiguity
+        if (xLo == 0 && (xHi & 0x1FF) == 0 && (retMantissa & 3) == 1) {
+            return Double.NaN;
+        }
+
+        // From 54 to 53 bits
+        retMantissa += retMantissa & 1;
+        retMantissa >>>= 1;
+        if ((retMantissa >>> 53) > 0) {
+            retMantissa >>>= 1;
+            retExp2++;
+        }
+        // subnormal, infinite numbers are left to the slow path
+        if (retExp2 <= 0 || retExp2 >= 0x7FF) {
+            return Double.NaN;
+        }
+        long bits = retExp2 << 52 | retMantissa & 0x000FFFFFFFFFFFFFL;
+        if (negative) {
+            bits |= 0x8000000000000000L;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    // high 64 bits of the unsigned 128-bit product
+    private static long multiplyHigh(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long y1 = y >>> 32;
+        long p00 = x0 * y0;
+        long p01 = x0 * y1;
+        long p10 = x1 * y0;
+        long p11 = x1 * y1;
+        long middle = p10 + (p00 >>> 32) + (p01 & 0xFFFFFFFFL);
+        return p11 + (middle >>> 32) + (p01 >>> 32);
+    }
+
+}
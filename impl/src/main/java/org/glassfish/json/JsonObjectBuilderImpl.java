@@ -56,17 +56,31 @@ import java.util.*;
  * @author Kin-man Chung
  */
 class JsonObjectBuilderImpl implements JsonObjectBuilder {
+    private static final JsonValue[] EMPTY_VALUES = new JsonValue[0];
+
     private Map<String, JsonValue> valueMap;
     private final BufferPool bufferPool;
 
+    // Members of the object that the builder is created from, until they
+    // are needed in a map. The values are copied before one is replaced.
+    private Shape shape;
+    private JsonValue[] values;
+    private boolean valuesCopied;
+
     JsonObjectBuilderImpl(BufferPool bufferPool) {
         this.bufferPool = bufferPool;
     }
 
     JsonObjectBuilderImpl(JsonObject object, BufferPool bufferPool) {
         this.bufferPool = bufferPool;
-        valueMap = new LinkedHashMap<>();
-        valueMap.putAll(object);
+        if (object instanceof JsonObjectImpl) {
+            // replacing the values of the copy doesn't change its shape
+            shape = ((JsonObjectImpl)object).shape;
+            values = ((JsonObjectImpl)object).values;
+        } else {
+            valueMap = new LinkedHashMap<>();
+            valueMap.putAll(object);
+        }
     }
 
     @Override
@@ -161,6 +175,7 @@ class JsonObjectBuilderImpl implements JsonObjectBuilder {
         if (builder == null) {
             throw new NullPointerException(JsonMessages.OBJBUILDER_OBJECT_BUILDER_NULL());
         }
+        copyToValueMap();
         if (valueMap == null) {
             this.valueMap = new LinkedHashMap<>();
         }
@@ -171,26 +186,90 @@ class JsonObjectBuilderImpl implements JsonObjectBuilder {
     @Override
     public JsonObjectBuilder remove(String name) {
         validateName(name);
+        copyToValueMap();
         this.valueMap.remove(name);
         return this;
     }
 
     @Override
     public JsonObject build() {
-        Map<String, JsonValue> snapshot = (valueMap == null)
-                ? Collections.<String, JsonValue>emptyMap()
-                : Collections.unmodifiableMap(valueMap);
+        if (shape != null) {
+            JsonObject object = new JsonObjectImpl(shape, values, bufferPool);
+            shape = null;
+            values = null;
+            valuesCopied = false;
+            return object;
+        }
+        if (valueMap == null) {
+            return new JsonObjectImpl(Shape.EMPTY, EMPTY_VALUES, bufferPool);
+        }
+        Shape shape = new Shape(valueMap.keySet().toArray(new String[valueMap.size()]));
+        JsonValue[] values = valueMap.values().toArray(new JsonValue[valueMap.size()]);
         valueMap = null;
-        return new JsonObjectImpl(snapshot, bufferPool);
+        return new JsonObjectImpl(shape, values, bufferPool);
+    }
+
+    /*
+     * Creates an object from the members in [from, to) of the given keys
+     * and values, without a builder. Used by the readers, which keep the
+     * members of all the open objects in the same arrays. If the keys have
+     * duplicates, the last value of a key is kept at the position of its
+     * first occurrence, as with a builder.
+     */
+    static JsonObject createObject(String[] keys, JsonValue[] values, int from, int to,
+            JsonObject sibling, BufferPool bufferPool) {
+        if (from == to) {
+            return new JsonObjectImpl(Shape.EMPTY, EMPTY_VALUES, bufferPool);
+        }
+        JsonValue[] memberValues = Arrays.copyOfRange(values, from, to);
+        if (sibling instanceof JsonObjectImpl) {
+            Shape shape = ((JsonObjectImpl)sibling).shape;
+            if (shape.matches(keys, from, to)) {
+                return new JsonObjectImpl(shape, memberValues, bufferPool);
+            }
+        }
+        Shape shape = Shape.create(Arrays.copyOfRange(keys, from, to));
+        if (shape != null) {
+            return new JsonObjectImpl(shape, memberValues, bufferPool);
+        }
+        JsonObjectBuilderImpl builder = new JsonObjectBuilderImpl(bufferPool);
+        for(int i=from; i < to; i++) {
+            builder.putValueMap(keys[i], values[i]);
+        }
+        return builder.build();
     }
 
     private void putValueMap(String name, JsonValue value) {
+        if (shape != null) {
+            int i = shape.indexOf(name);
+            if (i != -1) {
+                if (!valuesCopied) {
+                    values = values.clone();
+                    valuesCopied = true;
+                }
+                values[i] = value;
+                return;
+            }
+            copyToValueMap();
+        }
         if (valueMap == null) {
             this.valueMap = new LinkedHashMap<>();
         }
         valueMap.put(name, value);
     }
 
+    private void copyToValueMap() {
+        if (shape != null) {
+            valueMap = new LinkedHashMap<>();
+            for(int i=0; i < values.length; i++) {
+                valueMap.put(shape.keys[i], values[i]);
+            }
+            shape = null;
+            values = null;
+            valuesCopied = false;
+        }
+    }
+
     private void validateName(String name) {
         if (name == null) {
             throw new NullPointerException(JsonMessages.OBJBUILDER_NAME_NULL());
@@ -203,15 +282,155 @@ class JsonObjectBuilderImpl implements JsonObjectBuilder {
         }
     }
 
+    /*
+     * Immutable key layout of objects: the keys in insertion order and,
+     * for larger objects, an open-addressing table of key indices. Objects
+     * with the same keys in the same order can share one shape.
+     */
+    private static final class Shape {
+        // objects up to this size are searched linearly
+        private static final int LINEAR_MAX = 8;
+
+        static final Shape EMPTY = new Shape(new String[0]);
+
+        private final String[] keys;
+        private final int[] table;          // index+1 of keys, 0 is empty; null for small objects
+
+        Shape(String[] keys) {
+            this(keys, keys.length > LINEAR_MAX ? createTable(keys) : null);
+        }
+
+        private Shape(String[] keys, int[] table) {
+            this.keys = keys;
+            this.table = table;
+        }
+
+        // Returns the shape of the keys, or null if they have duplicates
+        static Shape create(String[] keys) {
+            if (keys.length > LINEAR_MAX) {
+                int[] table = createTable(keys);
+                return (table != null) ? new Shape(keys, table) : null;
+            }
+            for(int i=1; i < keys.length; i++) {
+                for(int j=0; j < i; j++) {
+                    if (keys[i].equals(keys[j])) {
+                        return null;
+                    }
+                }
+            }
+            return new Shape(keys, null);
+        }
+
+        // Returns null if the keys have duplicates
+        private static int[] createTable(String[] keys) {
+            int[] table = new int[Integer.highestOneBit(keys.length - 1) << 2];
+            int mask = table.length - 1;
+            for(int i=0; i < keys.length; i++) {
+                int slot = hash(keys[i]) & mask;
+                while (table[slot] != 0) {
+                    if (keys[i].equals(keys[table[slot] - 1])) {
+                        return null;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = i + 1;
+            }
+            return table;
+        }
+
+        private static int hash(Object key) {
+            int h = key.hashCode();
+            return h ^ (h >>> 16);
+        }
+
+        int indexOf(Object key) {
+            if (key == null) {
+                return -1;
+            }
+            if (table == null) {
+                for(int i=0; i < keys.length; i++) {
+                    if (key.equals(keys[i])) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            int mask = table.length - 1;
+            for(int slot = hash(key) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+                int i = table[slot] - 1;
+                if (key.equals(keys[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Whether the names in [from, to) are the keys, in the same order
+        boolean matches(String[] names, int from, int to) {
+            if (to - from != keys.length) {
+                return false;
+            }
+            for(int i=0; i < keys.length; i++) {
+                if (!names[from + i].equals(keys[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /*
+     * Frozen JsonObject that keeps its values in an array in insertion
+     * order, and its keys in a possibly shared Shape. This avoids the entry
+     * objects and table of a LinkedHashMap for every object.
+     */
     private static final class JsonObjectImpl extends AbstractMap<String, JsonValue> implements JsonObject {
-        private final Map<String, JsonValue> valueMap;      // unmodifiable
+        private final Shape shape;
+        private final JsonValue[] values;
         private final BufferPool bufferPool;
 
-        JsonObjectImpl(Map<String, JsonValue> valueMap, BufferPool bufferPool) {
-            this.valueMap = valueMap;
+        JsonObjectImpl(Shape shape, JsonValue[] values, BufferPool bufferPool) {
+            this.shape = shape;
+            this.values = values;
             this.bufferPool = bufferPool;
         }
 
+        @Override
+        public JsonValue get(Object key) {
+            int i = shape.indexOf(key);
+            return i == -1 ? null : values[i];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return shape.indexOf(key) != -1;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public JsonValue remove(Object key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int hashCode() {
+            String[] keys = shape.keys;
+            int h = 0;
+            for(int i=0; i < keys.length; i++) {
+                h += keys[i].hashCode() ^ values[i].hashCode();
+            }
+            return h;
+        }
+
         @Override
         public JsonArray getJsonArray(String name) {
             return (JsonArray)get(name);
@@ -295,7 +514,36 @@ class JsonObjectBuilderImpl implements JsonObjectBuilder {
 
         @Override
         public Set<Entry<String, JsonValue>> entrySet() {
-            return valueMap.entrySet();
+            final String[] keys = shape.keys;
+            return new AbstractSet<Entry<String, JsonValue>>() {
+                @Override
+                public Iterator<Entry<String, JsonValue>> iterator() {
+                    return new Iterator<Entry<String, JsonValue>>() {
+                        private int i;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < keys.length;
+                        }
+
+                        @Override
+                        public Entry<String, JsonValue> next() {
+                            if (i >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, JsonValue> entry =
+                                    new SimpleImmutableEntry<>(keys[i], values[i]);
+                            i++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
         }
 
         @Override
@@ -0,0 +1,337 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * JsonReader that reads a top-level array of UTF-8 input in parallel.
+ *
+ * <p>
+ * The input is read in blocks, and a structural scan of each block (that
+ * only tracks strings, escapes and nesting) finds the last comma between
+ * two elements of the top-level array. The whole elements before it are
+ * a segment, which is turned into a JSON array of its own by replacing
+ * the commas around it with brackets, and parsed by a fork-join task while
+ * the next block is read. The arrays of the segments are concatenated in
+ * order, so the result and the reported errors, with their locations,
+ * are the same as those of {@link JsonReaderImpl}.
+ *
+ * <p>
+ * Anything other than a top-level array is read with a {@code JsonReaderImpl}.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonParallelArrayReader implements JsonReader {
+
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    private final InputStream in;
+    private final Charset charset;     // null if it is to be detected
+    private final JsonKeyTable keyTable;
+    private final int maxDepth;
+    private final BufferPool bufferPool;
+    private boolean readDone;
+
+    // scanner state, carried over from one block to the next
+    private int depth;
+    private boolean inString;
+    private boolean escape;
+    private long lineNo = 1;
+    private long lastLineOffset;
+    private boolean eof;
+
+    JsonParallelArrayReader(InputStream in, Charset charset,
+            JsonKeyTable keyTable, int maxDepth, BufferPool bufferPool) {
+        this.in = in;
+        this.charset = charset;
+        this.keyTable = keyTable;
+        this.maxDepth = maxDepth;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public JsonStructure read() {
+        return read(false);
+    }
+
+    @Override
+    public JsonObject readObject() {
+        checkReadDone();
+        return sequentialReader(in, charset).readObject();
+    }
+
+    @Override
+    public JsonArray readArray() {
+        return (JsonArray)read(true);
+    }
+
+    @Override
+    public void close() {
+        readDone = true;
+        try {
+            in.close();
+        } catch (IOException ioe) {
+            throw new JsonException(JsonMessages.PARSER_TOKENIZER_CLOSE_IO(), ioe);
+        }
+    }
+
+    private void checkReadDone() {
+        if (readDone) {
+            throw new IllegalStateException(JsonMessages.READER_READ_ALREADY_CALLED());
+        }
+        readDone = true;
+    }
+
+    private JsonReaderImpl sequentialReader(InputStream in, Charset charset) {
+        JsonTokenizer tokenizer = charset == null
+                ? JsonParserImpl.createTokenizer(in, bufferPool)
+                : JsonParserImpl.createTokenizer(in, charset, bufferPool);
+        return new JsonReaderImpl(tokenizer, keyTable, maxDepth, bufferPool);
+    }
+
+    private JsonStructure read(boolean array) {
+        checkReadDone();
+        InputStream input = in;
+        if (charset == null) {
+            UnicodeDetectingInputStream uin = new UnicodeDetectingInputStream(in);
+            if (!StandardCharsets.UTF_8.equals(uin.getCharset())) {
+                JsonReaderImpl reader = sequentialReader(uin, uin.getCharset());
+                return array ? reader.readArray() : reader.read();
+            }
+            input = uin;
+        } else if (!StandardCharsets.UTF_8.equals(charset)) {
+            JsonReaderImpl reader = sequentialReader(in, charset);
+            return array ? reader.readArray() : reader.read();
+        }
+
+        byte[] block = new byte[BLOCK_SIZE];
+        int len = fill(input, block, 0);
+        int start = 0;
+        while (start < len && isWhitespace(block[start])) {
+            start++;
+        }
+        if (start == len || block[start] != '[') {
+            JsonReaderImpl reader = sequentialReader(new SequenceInputStream(
+                    new ByteArrayInputStream(block, 0, len), input), StandardCharsets.UTF_8);
+            return array ? reader.readArray() : reader.read();
+        }
+        return readArray(input, block, len, start);
+    }
+
+    private JsonArray readArray(InputStream input, byte[] block, int len, int start) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        // the tasks parsing the segments, in the order of the input
+        Deque<ForkJoinTask<JsonArray>> tasks = new ArrayDeque<>();
+        int maxTasks = 2 * pool.getParallelism() + 1;
+        JsonArrayBuilder builder = new JsonArrayBuilderImpl(bufferPool);
+
+        long blockOffset = 0;       // offset of block[0] in the input
+        int segStart = start;       // '[' or ',' at which the segment starts
+        for(int i=0; i < start; i++) {
+            newline(block, i, blockOffset);
+        }
+        long segLineNo = lineNo;
+        long segLastLineOffset = lastLineOffset;
+        int scanned = start;
+        try {
+            while (true) {
+                // scans the new bytes for a comma at depth 1 or the end of the array
+                int cut = -1;
+                long cutLineNo = 0;
+                long cutLastLineOffset = 0;
+                int end = -1;
+                for(int i=scanned; i < len; i++) {
+                    byte b = block[i];
+                    if (inString) {
+                        if (escape) {
+                            escape = false;
+                        } else if (b == '\\') {
+                            escape = true;
+                        } else if (b == '"') {
+                            inString = false;
+                        }
+                        continue;
+                    }
+                    if (b == '"') {
+                        inString = true;
+                    } else if (b == '[' || b == '{') {
+                        depth++;
+                    } else if (b == ']' || b == '}') {
+                        if (--depth == 0) {
+                            end = i;
+                            break;
+                        }
+                    } else if (b == ',') {
+                        if (depth == 1) {
+                            cut = i;
+                            cutLineNo = lineNo;
+                            cutLastLineOffset = lastLineOffset;
+                        }
+                    } else if (b == '\n' || b == '\r') {
+                        newline(block, i, blockOffset);
+                    }
+                }
+                scanned = len;
+
+                if (end != -1 || eof) {
+                    // the last segment, it is incomplete if the input has ended
+                    int segEnd = end != -1 ? end+1 : len;
+                    submit(pool, tasks, block, segStart, segEnd, false,
+                            blockOffset, segLineNo, segLastLineOffset);
+                    break;
+                }
+                if (cut != -1) {
+                    submit(pool, tasks, block, segStart, cut+1, true,
+                            blockOffset, segLineNo, segLastLineOffset);
+                    // the next block starts with the comma after the segment
+                    int carry = len - cut;
+                    byte[] next = new byte[Math.max(BLOCK_SIZE, 2*carry)];
+                    System.arraycopy(block, cut, next, 0, carry);
+                    block = next;
+                    blockOffset += cut;
+                    segStart = 0;
+                    segLineNo = cutLineNo;
+                    segLastLineOffset = cutLastLineOffset;
+                    scanned = carry;
+                    len = carry;
+                } else if (len == block.length) {
+                    // an element that is longer than the block
+                    block = Arrays.copyOf(block, 2*block.length);
+                }
+                while (tasks.size() >= maxTasks) {
+                    addAll(builder, tasks.removeFirst().join());
+                }
+                len = fill(input, block, len);
+            }
+            while (!tasks.isEmpty()) {
+                addAll(builder, tasks.removeFirst().join());
+            }
+        } finally {
+            for (ForkJoinTask<JsonArray> task : tasks) {
+                task.cancel(false);
+            }
+        }
+        return builder.build();
+    }
+
+    // block[segStart] and, if the segment ends at a cut, the comma at
+    // block[segEnd-1] become the brackets of the segment
+    private void submit(ForkJoinPool pool, Deque<ForkJoinTask<JsonArray>> tasks,
+            final byte[] block, final int segStart, final int segEnd, boolean cut,
+            final long blockOffset, final long segLineNo, final long segLastLineOffset) {
+        block[segStart] = '[';
+        if (cut) {
+            block[segEnd-1] = ']';
+        }
+        tasks.addLast(pool.submit(new Callable<JsonArray>() {
+            @Override
+            public JsonArray call() {
+                JsonUtf8Tokenizer tokenizer = new JsonUtf8Tokenizer(
+                        ByteBuffer.wrap(block, segStart, segEnd-segStart), bufferPool);
+                tokenizer.setStartLocation(blockOffset+segStart, segLineNo, segLastLineOffset);
+                try (JsonReaderImpl reader =
+                        new JsonReaderImpl(tokenizer, keyTable, maxDepth, bufferPool)) {
+                    return reader.readArray();
+                }
+            }
+        }));
+    }
+
+    private static void addAll(JsonArrayBuilder builder, JsonArray array) {
+        for (JsonValue value : array) {
+            builder.add(value);
+        }
+    }
+
+    // Counts the lines like the tokenizer, "\r\n" is one line break
+    private void newline(byte[] block, int i, long blockOffset) {
+        byte b = block[i];
+        if (b == '\r' || (b == '\n' && (i == 0 || block[i-1] != '\r'))) {
+            lineNo++;
+        }
+        if (b == '\r' || b == '\n') {
+            lastLineOffset = blockOffset+i+1;
+        }
+    }
+
+    private int fill(InputStream input, byte[] block, int len) {
+        try {
+            while (len < block.length) {
+                int n = input.read(block, len, block.length-len);
+                if (n == -1) {
+                    eof = true;
+                    break;
+                }
+                len += n;
+            }
+            return len;
+        } catch (IOException ioe) {
+            throw new JsonException(JsonMessages.TOKENIZER_IO_ERR(), ioe);
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+}
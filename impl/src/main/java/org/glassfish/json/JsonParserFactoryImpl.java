@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2012-2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -41,6 +41,11 @@
 package org.glassfish.json;
 
 import org.glassfish.json.api.BufferPool;
+import org.glassfish.json.api.JsonConfig;
+import org.glassfish.json.api.JsonPathQuery;
+import org.glassfish.json.api.JsonPathQueryFactory;
+import org.glassfish.json.api.JsonPushParser;
+import org.glassfish.json.api.JsonPushParserFactory;
 
 import javax.json.JsonArray;
 import javax.json.JsonObject;
@@ -48,34 +53,80 @@ import javax.json.stream.JsonParserFactory;
 import javax.json.stream.JsonParser;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
  * @author Jitendra Kotamraju
  */
-class JsonParserFactoryImpl implements JsonParserFactory {
-    private final Map<String, ?> config = Collections.emptyMap();
+class JsonParserFactoryImpl implements JsonParserFactory, JsonPushParserFactory,
+        JsonPathQueryFactory {
+    private final Map<String, ?> config;
     private final BufferPool bufferPool;
+    // shared by all the parsers, null if key names are not canonicalized
+    private final JsonKeyTable keyTable;
+    // strings of UTF-8 input are scanned a word at a time
+    private final boolean wordScan;
 
-    JsonParserFactoryImpl(BufferPool bufferPool) {
+    JsonParserFactoryImpl(BufferPool bufferPool, JsonKeyTable keyTable,
+            boolean wordScan) {
         this.bufferPool = bufferPool;
+        this.keyTable = keyTable;
+        this.wordScan = wordScan;
+        Map<String, Object> configInUse = new HashMap<>();
+        if (keyTable != null) {
+            configInUse.put(JsonConfig.CANONICALIZE_KEYS, true);
+        }
+        if (wordScan) {
+            configInUse.put(JsonConfig.WORD_SCAN, true);
+        }
+        this.config = Collections.unmodifiableMap(configInUse);
     }
 
     @Override
     public JsonParser createParser(Reader reader) {
-        return new JsonParserImpl(reader, bufferPool);
+        return new JsonParserImpl(new JsonCharTokenizer(reader, bufferPool), keyTable);
     }
 
     @Override
     public JsonParser createParser(InputStream in) {
-        return new JsonParserImpl(in, bufferPool);
+        return new JsonParserImpl(JsonParserImpl.createTokenizer(in, bufferPool, wordScan),
+                keyTable);
     }
 
     @Override
     public JsonParser createParser(InputStream in, Charset charset) {
-        return new JsonParserImpl(in, charset, bufferPool);
+        return new JsonParserImpl(JsonParserImpl.createTokenizer(in, charset, bufferPool,
+                wordScan), keyTable);
+    }
+
+    @Override
+    public JsonParser createParser(CharSequence chars) {
+        return new JsonParserImpl(new JsonCharTokenizer(chars, bufferPool), keyTable);
+    }
+
+    @Override
+    public JsonParser createParser(char[] chars, int off, int len) {
+        return new JsonParserImpl(new JsonCharTokenizer(chars, off, len, bufferPool), keyTable);
+    }
+
+    @Override
+    public JsonParser createParser(ByteBuffer buffer) {
+        return new JsonParserImpl(JsonParserImpl.createTokenizer(buffer, bufferPool, wordScan),
+                keyTable);
+    }
+
+    @Override
+    public JsonPushParser createPushParser() {
+        return new JsonPushParserImpl(new JsonUtf8Tokenizer(bufferPool), keyTable);
+    }
+
+    @Override
+    public JsonPathQuery createQuery(String path) {
+        return new JsonPathQueryImpl(path, bufferPool);
     }
 
     @Override
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2012-2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -46,7 +46,9 @@ import javax.json.stream.JsonParser;
 import javax.json.stream.JsonParsingException;
 import java.io.*;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import org.glassfish.json.JsonTokenizer.JsonToken;
@@ -66,24 +68,93 @@ public class JsonParserImpl implements JsonParser {
     private final Stack stack = new Stack();
     private final StateIterator stateIterator;
     private final JsonTokenizer tokenizer;
+    // null if key names are not canonicalized
+    private final JsonKeyTable keyTable;
 
     public JsonParserImpl(Reader reader, BufferPool bufferPool) {
-        tokenizer = new JsonTokenizer(reader, bufferPool);
-        stateIterator = new StateIterator();
+        this(new JsonCharTokenizer(reader, bufferPool));
     }
 
     public JsonParserImpl(InputStream in, BufferPool bufferPool) {
-        UnicodeDetectingInputStream uin = new UnicodeDetectingInputStream(in);
-        tokenizer = new JsonTokenizer(new InputStreamReader(uin, uin.getCharset()), bufferPool);
-        stateIterator = new StateIterator();
+        this(createTokenizer(in, bufferPool));
     }
 
     public JsonParserImpl(InputStream in, Charset encoding, BufferPool bufferPool) {
-        tokenizer = new JsonTokenizer(new InputStreamReader(in, encoding), bufferPool);
+        this(createTokenizer(in, encoding, bufferPool));
+    }
+
+    public JsonParserImpl(ByteBuffer buffer, BufferPool bufferPool) {
+        this(createTokenizer(buffer, bufferPool));
+    }
+
+    public JsonParserImpl(CharSequence chars, BufferPool bufferPool) {
+        this(new JsonCharTokenizer(chars, bufferPool));
+    }
+
+    public JsonParserImpl(char[] chars, int off, int len, BufferPool bufferPool) {
+        this(new JsonCharTokenizer(chars, off, len, bufferPool));
+    }
+
+    JsonParserImpl(JsonTokenizer tokenizer) {
+        this(tokenizer, null);
+    }
+
+    JsonParserImpl(JsonTokenizer tokenizer, JsonKeyTable keyTable) {
+        this.tokenizer = tokenizer;
+        this.keyTable = keyTable;
         stateIterator = new StateIterator();
     }
 
+    // The encoding is detected from the first four bytes
+    static JsonTokenizer createTokenizer(InputStream in, BufferPool bufferPool) {
+        return createTokenizer(in, bufferPool, false);
+    }
+
+    static JsonTokenizer createTokenizer(InputStream in, BufferPool bufferPool,
+            boolean wordScan) {
+        UnicodeDetectingInputStream uin = new UnicodeDetectingInputStream(in);
+        return createTokenizer(uin, uin.getCharset(), bufferPool, wordScan);
+    }
+
+    static JsonTokenizer createTokenizer(InputStream in, Charset encoding,
+            BufferPool bufferPool) {
+        return createTokenizer(in, encoding, bufferPool, false);
+    }
+
+    // UTF-8 bytes are tokenized directly, without decoding them to chars.
+    // Their strings are scanned a word at a time if wordScan is true
+    static JsonTokenizer createTokenizer(InputStream in, Charset encoding,
+            BufferPool bufferPool, boolean wordScan) {
+        if (StandardCharsets.UTF_8.equals(encoding)) {
+            return new JsonUtf8Tokenizer(in, bufferPool, wordScan);
+        }
+        return new JsonCharTokenizer(new InputStreamReader(in, encoding), bufferPool);
+    }
+
+    // The encoding is detected from the first four bytes as it is done
+    // for a byte stream. The caller's buffer position is not changed
+    static JsonTokenizer createTokenizer(ByteBuffer buffer, BufferPool bufferPool) {
+        return createTokenizer(buffer, bufferPool, false);
+    }
+
+    static JsonTokenizer createTokenizer(ByteBuffer buffer, BufferPool bufferPool,
+            boolean wordScan) {
+        ByteBuffer bytes = buffer.duplicate();
+        byte[] head = new byte[Math.min(4, bytes.remaining())];
+        bytes.duplicate().get(head);
+        UnicodeDetectingInputStream uin = new UnicodeDetectingInputStream(new ByteArrayInputStream(head));
+        bytes.position(bytes.position() + uin.getBomLength());
+        if (StandardCharsets.UTF_8.equals(uin.getCharset())) {
+            return new JsonUtf8Tokenizer(bytes, bufferPool, wordScan);
+        }
+        return new JsonCharTokenizer(new InputStreamReader(
+                new ByteBufferInputStream(bytes), uin.getCharset()), bufferPool);
+    }
+
     public String getString() {
+        if (currentEvent == Event.KEY_NAME && keyTable != null) {
+            return tokenizer.getValue(keyTable);
+        }
         if (currentEvent == Event.KEY_NAME || currentEvent == Event.VALUE_STRING
                 || currentEvent == Event.VALUE_NUMBER) {
             return tokenizer.getValue();
@@ -114,13 +185,26 @@ public class JsonParserImpl implements JsonParser {
         return tokenizer.isDefinitelyInt();
     }
 
+    JsonNumber getJsonNumber() {
+        return tokenizer.getJsonNumber();
+    }
+
     @Override
     public long getLong() {
         if (currentEvent != Event.VALUE_NUMBER) {
             throw new IllegalStateException(
                     JsonMessages.PARSER_GETLONG_ERR(currentEvent));
         }
-        return tokenizer.getBigDecimal().longValue();
+        return tokenizer.getLong();
+    }
+
+    @Override
+    public double getDouble() {
+        if (currentEvent != Event.VALUE_NUMBER) {
+            throw new IllegalStateException(
+                    JsonMessages.PARSER_GETDOUBLE_ERR(currentEvent));
+        }
+        return tokenizer.getDouble();
     }
 
     @Override
@@ -145,15 +229,61 @@ public class JsonParserImpl implements JsonParser {
         return stateIterator.hasNext();
     }
 
+    @Override
+    public void skipArray() {
+        if (currentContext instanceof ArrayContext) {
+            tokenizer.skipStructure();
+            currentContext = stack.pop();
+            currentEvent = Event.END_ARRAY;
+        }
+    }
+
+    @Override
+    public void skipObject() {
+        if (currentContext instanceof ObjectContext) {
+            tokenizer.skipStructure();
+            currentContext = stack.pop();
+            currentEvent = Event.END_OBJECT;
+        }
+    }
+
+    @Override
+    public void skipValue() {
+        if (currentEvent == Event.KEY_NAME) {
+            next();
+        }
+        if (currentEvent == Event.START_ARRAY) {
+            skipArray();
+        } else if (currentEvent == Event.START_OBJECT) {
+            skipObject();
+        }
+    }
+
     public Event next() {
         return stateIterator.next();
     }
 
+    // true if the current event ends the JSON text
+    boolean isEnded() {
+        return stack.isEmpty() && (currentEvent == Event.END_ARRAY || currentEvent == Event.END_OBJECT);
+    }
+
+    Event getCurrentEvent() {
+        return currentEvent;
+    }
+
+    // Goes back from the START_ARRAY or START_OBJECT event of a member's
+    // value to the KEY_NAME event of the member
+    void backToKeyName() {
+        currentContext = stack.pop();
+        currentEvent = Event.KEY_NAME;
+    }
+
     private class StateIterator implements  Iterator<JsonParser.Event> {
 
         @Override
         public boolean hasNext() {
-            if (stack.isEmpty() && (currentEvent == Event.END_ARRAY || currentEvent == Event.END_OBJECT)) {
+            if (isEnded()) {
                 JsonToken token = tokenizer.nextToken();
                 if (token != JsonToken.EOF) {
                     throw new JsonParsingException(JsonMessages.PARSER_EXPECTED_EOF(token),
@@ -329,4 +459,30 @@ public class JsonParserImpl implements JsonParser {
 
     }
 
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+    }
+
 }
@@ -0,0 +1,264 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.JsonPathQueryImpl.State;
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.JsonException;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Runs the automaton of a {@link JsonPathQueryImpl} over the events of a
+ * parser. The states of the enclosing objects and arrays are kept on an
+ * explicit stack. A value is built only if it is selected, or if it is
+ * needed for a filter; values whose state is dead are skipped.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonPathMatcher {
+
+    private final State root;
+    private final JsonParser parser;
+    // reads the values of this implementation's parser, null otherwise
+    private final JsonReaderImpl reader;
+    private final BufferPool bufferPool;
+    // gets the parsers of the selected values, null if the values are built
+    private final Consumer<? super JsonParser> action;
+    // selected values that are not returned yet
+    private final ArrayDeque<JsonValue> values = new ArrayDeque<>();
+
+    // states of the enclosing objects and arrays
+    private State[] states = new State[16];
+    // next index of each enclosing array, -1 for an object
+    private int[] indices = new int[16];
+    private int depth;
+    private boolean started;
+    private boolean skipSupported = true;
+
+    JsonPathMatcher(State root, JsonParser parser, BufferPool bufferPool,
+            Consumer<? super JsonParser> action) {
+        this.root = root;
+        this.parser = parser;
+        this.reader = (parser instanceof JsonParserImpl)
+                ? new JsonReaderImpl((JsonParserImpl) parser, bufferPool) : null;
+        this.bufferPool = bufferPool;
+        this.action = action;
+    }
+
+    // Returns the next selected value, or null at the end of the text
+    JsonValue nextValue() {
+        while (values.isEmpty()) {
+            if (!findMatch()) {
+                return null;
+            }
+        }
+        return values.poll();
+    }
+
+    void forEachMatch() {
+        while (findMatch()) {
+        }
+    }
+
+    // Reads the events up to the next selected value, false at the end
+    private boolean findMatch() {
+        while (true) {
+            State state;
+            Event event;
+            if (!started) {
+                started = true;
+                if (!parser.hasNext()) {
+                    return false;
+                }
+                state = root;
+                event = parser.next();
+            } else {
+                if (depth == 0) {
+                    return false;
+                }
+                event = parser.next();
+                if (event == Event.END_OBJECT || event == Event.END_ARRAY) {
+                    states[--depth] = null;
+                    continue;
+                }
+                State parent = states[depth - 1];
+                if (indices[depth - 1] == -1) {
+                    state = parent.child(parser.getString());
+                    event = parser.next();
+                } else {
+                    state = parent.child(indices[depth - 1]++);
+                }
+                if (parent.hasFilters()) {
+                    JsonValue value = readValue(event);
+                    if (select(parent.filter(state, value), value)) {
+                        return true;
+                    }
+                    continue;
+                }
+            }
+            if (select(state, event)) {
+                return true;
+            }
+        }
+    }
+
+    // The value starts with the event, true if something is selected
+    private boolean select(State state, Event event) {
+        if (state.accepting) {
+            if (action != null) {
+                JsonSubParser subParser = new JsonSubParser(parser, event);
+                action.accept(subParser);
+                subParser.skipRest();
+                return true;
+            }
+            return select(state, readValue(event));
+        }
+        if (!state.live) {
+            skip(event);
+        } else if (event == Event.START_OBJECT) {
+            push(state, -1);
+        } else if (event == Event.START_ARRAY) {
+            push(state, 0);
+        }
+        return false;
+    }
+
+    // The value is built, true if something is selected
+    private boolean select(State state, JsonValue value) {
+        if (action == null) {
+            int size = values.size();
+            state.select(value, values, true);
+            return values.size() > size;
+        }
+        List<JsonValue> selected = new ArrayList<>();
+        state.select(value, selected, false);
+        for (JsonValue v : selected) {
+            action.accept(JsonSubParser.of(v, bufferPool));
+        }
+        return !selected.isEmpty();
+    }
+
+    private void push(State state, int index) {
+        if (depth == states.length) {
+            states = Arrays.copyOf(states, 2 * depth);
+            indices = Arrays.copyOf(indices, 2 * depth);
+        }
+        states[depth] = state;
+        indices[depth++] = index;
+    }
+
+    // Skips the rest of the value that starts with the event
+    private void skip(Event event) {
+        if (event != Event.START_OBJECT && event != Event.START_ARRAY) {
+            return;
+        }
+        if (skipSupported) {
+            try {
+                if (event == Event.START_OBJECT) {
+                    parser.skipObject();
+                } else {
+                    parser.skipArray();
+                }
+                return;
+            } catch (UnsupportedOperationException e) {
+                skipSupported = false;
+            }
+        }
+        int level = 1;
+        while (level > 0) {
+            switch (parser.next()) {
+                case START_OBJECT:
+                case START_ARRAY:
+                    level++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    level--;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    // Builds the value that starts with the event
+    private JsonValue readValue(Event event) {
+        if (reader != null) {
+            return reader.readValue(event);
+        }
+        switch (event) {
+            case START_OBJECT:
+                JsonObjectBuilderImpl objectBuilder = new JsonObjectBuilderImpl(bufferPool);
+                while (parser.next() != Event.END_OBJECT) {
+                    String name = parser.getString();
+                    objectBuilder.add(name, readValue(parser.next()));
+                }
+                return objectBuilder.build();
+            case START_ARRAY:
+                JsonArrayBuilderImpl arrayBuilder = new JsonArrayBuilderImpl(bufferPool);
+                while ((event = parser.next()) != Event.END_ARRAY) {
+                    arrayBuilder.add(readValue(event));
+                }
+                return arrayBuilder.build();
+            case VALUE_STRING:
+                return new JsonStringImpl(parser.getString());
+            case VALUE_NUMBER:
+                return JsonNumberImpl.getJsonNumber(parser.getBigDecimal());
+            case VALUE_TRUE:
+                return JsonValue.TRUE;
+            case VALUE_FALSE:
+                return JsonValue.FALSE;
+            case VALUE_NULL:
+                return JsonValue.NULL;
+            default:
+                throw new JsonException("Internal Error");
+        }
+    }
+
+}
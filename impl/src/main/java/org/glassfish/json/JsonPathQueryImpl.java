@@ -0,0 +1,855 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+import org.glassfish.json.api.JsonPathQuery;
+
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.JsonValue.ValueType;
+import javax.json.stream.JsonParser;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A JSONPath expression compiled into a list of steps. Matching runs the
+ * steps as a nondeterministic automaton whose state is the set of the
+ * steps that are to be applied to the next value; the sets are turned
+ * into deterministic {@link State}s, with their transitions, the first
+ * time they are reached. A value whose state has no steps left can't
+ * contain a match and is skipped.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonPathQueryImpl implements JsonPathQuery {
+
+    // transitions are not cached for more names, or indices above this
+    private static final int MAX_CACHED_NAMES = 256;
+    private static final int MAX_CACHED_INDEX = 64;
+
+    private final String path;
+    private final Step[] steps;
+    private final BufferPool bufferPool;
+    // states by their steps, every step is a char of the key
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+    private final State root;
+    private final State dead;
+
+    JsonPathQueryImpl(String path, BufferPool bufferPool) {
+        this.path = path;
+        this.steps = new Compiler(path).compile();
+        this.bufferPool = bufferPool;
+        this.root = state(new int[] { 0 }, 1);
+        this.dead = state(new int[0], 0);
+    }
+
+    State root() {
+        return root;
+    }
+
+    @Override
+    public List<JsonValue> select(JsonValue value) {
+        List<JsonValue> values = new ArrayList<>();
+        root.select(value, values, true);
+        return values;
+    }
+
+    @Override
+    public Stream<JsonValue> select(final JsonParser parser) {
+        final JsonPathMatcher matcher = new JsonPathMatcher(root, parser, bufferPool, null);
+        Spliterator<JsonValue> spliterator = new Spliterators.AbstractSpliterator<JsonValue>(
+                Long.MAX_VALUE, Spliterator.ORDERED|Spliterator.NONNULL|Spliterator.IMMUTABLE) {
+            @Override
+            public boolean tryAdvance(Consumer<? super JsonValue> action) {
+                JsonValue value = matcher.nextValue();
+                if (value == null) {
+                    return false;
+                }
+                action.accept(value);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                parser.close();
+            }
+        });
+    }
+
+    @Override
+    public void select(JsonParser parser, Consumer<? super JsonParser> action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        new JsonPathMatcher(root, parser, bufferPool, action).forEachMatch();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    // Returns the state of the first count steps, which may be unsorted
+    // and have duplicates
+    private State state(int[] positions, int count) {
+        Arrays.sort(positions, 0, count);
+        char[] key = new char[count];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            if (length == 0 || key[length - 1] != positions[i]) {
+                key[length++] = (char) positions[i];
+            }
+        }
+        String k = new String(key, 0, length);
+        State state = states.get(k);
+        if (state == null) {
+            state = new State(k);
+            State existing = states.putIfAbsent(k, state);
+            if (existing != null) {
+                state = existing;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * A set of the steps that are to be applied to a value. The step
+     * {@code steps.length} means that the value is selected.
+     */
+    final class State {
+        private final int[] positions;
+        // the value is selected
+        final boolean accepting;
+        // the values inside the value may be selected
+        final boolean live;
+        // steps with filters, which need the values of the children
+        private final int[] filters;
+        private final Map<String, State> names = new ConcurrentHashMap<>();
+        private final AtomicReferenceArray<State> indices =
+                new AtomicReferenceArray<>(MAX_CACHED_INDEX);
+
+        private State(String key) {
+            positions = new int[key.length()];
+            int filterCount = 0;
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = key.charAt(i);
+                if (positions[i] < steps.length && steps[positions[i]].hasFilter) {
+                    filterCount++;
+                }
+            }
+            int last = positions.length - 1;
+            accepting = last >= 0 && positions[last] == steps.length;
+            live = last >= 0 && positions[0] < steps.length;
+            filters = new int[filterCount];
+            for (int i = 0, j = 0; i < positions.length; i++) {
+                if (positions[i] < steps.length && steps[positions[i]].hasFilter) {
+                    filters[j++] = positions[i];
+                }
+            }
+        }
+
+        // Whether the state of a child depends on the child value, see filter()
+        boolean hasFilters() {
+            return filters.length > 0;
+        }
+
+        // State of a member, without the steps of the filters
+        State child(String name) {
+            if (!live) {
+                return dead;
+            }
+            State state = names.get(name);
+            if (state == null) {
+                state = transition(name, -1);
+                if (names.size() < MAX_CACHED_NAMES) {
+                    names.put(name, state);
+                }
+            }
+            return state;
+        }
+
+        // State of an array element, without the steps of the filters
+        State child(int index) {
+            if (!live) {
+                return dead;
+            }
+            if (index >= MAX_CACHED_INDEX) {
+                return transition(null, index);
+            }
+            State state = indices.get(index);
+            if (state == null) {
+                state = transition(null, index);
+                indices.set(index, state);
+            }
+            return state;
+        }
+
+        private State transition(String name, int index) {
+            int[] next = new int[2 * positions.length];
+            int count = 0;
+            for (int position : positions) {
+                if (position == steps.length) {
+                    continue;
+                }
+                Step step = steps[position];
+                if (step.descendant) {
+                    next[count++] = position;
+                }
+                if (name != null ? step.matches(name) : step.matches(index)) {
+                    next[count++] = position + 1;
+                }
+            }
+            return state(next, count);
+        }
+
+        // Adds the steps of the filters that are true for the child value
+        // to the state of the child
+        State filter(State child, JsonValue value) {
+            int[] next = Arrays.copyOf(child.positions, child.positions.length + filters.length);
+            int count = child.positions.length;
+            for (int position : filters) {
+                if (steps[position].test(value)) {
+                    next[count++] = position + 1;
+                }
+            }
+            return count == child.positions.length ? child : state(next, count);
+        }
+
+        // Adds the selected values in document order, with or without the
+        // values inside the selected values
+        void select(JsonValue value, Collection<JsonValue> values, boolean nested) {
+            if (accepting) {
+                values.add(value);
+                if (!nested) {
+                    return;
+                }
+            }
+            if (!live) {
+                return;
+            }
+            ValueType valueType = value.getValueType();
+            if (valueType == ValueType.OBJECT) {
+                for (Map.Entry<String, JsonValue> entry : ((JsonObject) value).entrySet()) {
+                    State state = child(entry.getKey());
+                    if (filters.length > 0) {
+                        state = filter(state, entry.getValue());
+                    }
+                    state.select(entry.getValue(), values, nested);
+                }
+            } else if (valueType == ValueType.ARRAY) {
+                JsonArray array = (JsonArray) value;
+                for (int i = 0; i < array.size(); i++) {
+                    State state = child(i);
+                    if (filters.length > 0) {
+                        state = filter(state, array.get(i));
+                    }
+                    state.select(array.get(i), values, nested);
+                }
+            }
+        }
+    }
+
+    // A segment of the path, the selectors of one bracket or dot
+    private static final class Step {
+        final boolean descendant;
+        final Selector[] selectors;
+        final boolean hasFilter;
+
+        Step(boolean descendant, Selector... selectors) {
+            this.descendant = descendant;
+            this.selectors = selectors;
+            boolean filter = false;
+            for (Selector selector : selectors) {
+                filter |= selector instanceof FilterSelector;
+            }
+            this.hasFilter = filter;
+        }
+
+        boolean matches(String name) {
+            for (Selector selector : selectors) {
+                if (selector.matches(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean matches(int index) {
+            for (Selector selector : selectors) {
+                if (selector.matches(index)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean test(JsonValue value) {
+            for (Selector selector : selectors) {
+                if (selector instanceof FilterSelector
+                        && ((FilterSelector) selector).filter.test(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static abstract class Selector {
+        boolean matches(String name) {
+            return false;
+        }
+
+        boolean matches(int index) {
+            return false;
+        }
+    }
+
+    private static final class NameSelector extends Selector {
+        private final String name;
+
+        NameSelector(String name) {
+            this.name = name;
+        }
+
+        @Override
+        boolean matches(String name) {
+            return this.name.equals(name);
+        }
+    }
+
+    private static final class WildcardSelector extends Selector {
+        @Override
+        boolean matches(String name) {
+            return true;
+        }
+
+        @Override
+        boolean matches(int index) {
+            return true;
+        }
+    }
+
+    // Also an index, as the slice [index:index+1]
+    private static final class SliceSelector extends Selector {
+        private final int start;
+        private final int end;
+        private final int step;
+
+        SliceSelector(int start, int end, int step) {
+            this.start = start;
+            this.end = end;
+            this.step = step;
+        }
+
+        @Override
+        boolean matches(int index) {
+            return index >= start && index < end && step > 0
+                    && (index - start) % step == 0;
+        }
+    }
+
+    private static final class FilterSelector extends Selector {
+        final Filter filter;
+
+        FilterSelector(Filter filter) {
+            this.filter = filter;
+        }
+    }
+
+    private static abstract class Filter {
+        abstract boolean test(JsonValue value);
+    }
+
+    private static final class Exists extends Filter {
+        private final Object[] path;
+
+        Exists(Object[] path) {
+            this.path = path;
+        }
+
+        @Override
+        boolean test(JsonValue value) {
+            return resolve(value, path) != null;
+        }
+    }
+
+    private static final class Comparison extends Filter {
+        static final int EQ = 0;
+        static final int NE = 1;
+        static final int LT = 2;
+        static final int LE = 3;
+        static final int GT = 4;
+        static final int GE = 5;
+
+        private final Object[] path;
+        private final int op;
+        // a BigDecimal, a String or JsonValue.TRUE, FALSE or NULL
+        private final Object literal;
+
+        Comparison(Object[] path, int op, Object literal) {
+            this.path = path;
+            this.op = op;
+            this.literal = literal;
+        }
+
+        // A missing value, or a value of another type, is only != the literal
+        @Override
+        boolean test(JsonValue value) {
+            JsonValue operand = resolve(value, path);
+            if (operand == null) {
+                return op == NE;
+            }
+            ValueType valueType = operand.getValueType();
+            if (literal instanceof BigDecimal) {
+                if (valueType != ValueType.NUMBER) {
+                    return op == NE;
+                }
+                return compare(((JsonNumber) operand).bigDecimalValue()
+                        .compareTo((BigDecimal) literal));
+            } else if (literal instanceof String) {
+                if (valueType != ValueType.STRING) {
+                    return op == NE;
+                }
+                return compare(((JsonString) operand).getString()
+                        .compareTo((String) literal));
+            } else {
+                boolean equal = valueType == ((JsonValue) literal).getValueType();
+                return op == EQ ? equal : op == NE && !equal;
+            }
+        }
+
+        private boolean compare(int c) {
+            switch (op) {
+                case EQ: return c == 0;
+                case NE: return c != 0;
+                case LT: return c < 0;
+                case LE: return c <= 0;
+                case GT: return c > 0;
+                default: return c >= 0;
+            }
+        }
+    }
+
+    private static final class And extends Filter {
+        private final Filter left;
+        private final Filter right;
+
+        And(Filter left, Filter right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(JsonValue value) {
+            return left.test(value) && right.test(value);
+        }
+    }
+
+    private static final class Or extends Filter {
+        private final Filter left;
+        private final Filter right;
+
+        Or(Filter left, Filter right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(JsonValue value) {
+            return left.test(value) || right.test(value);
+        }
+    }
+
+    private static final class Not extends Filter {
+        private final Filter filter;
+
+        Not(Filter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        boolean test(JsonValue value) {
+            return !filter.test(value);
+        }
+    }
+
+    // Resolves a path of names and indices relative to @, null if missing
+    private static JsonValue resolve(JsonValue value, Object[] path) {
+        for (Object token : path) {
+            if (token instanceof String) {
+                if (value.getValueType() != ValueType.OBJECT) {
+                    return null;
+                }
+                value = ((JsonObject) value).get(token);
+            } else {
+                if (value.getValueType() != ValueType.ARRAY) {
+                    return null;
+                }
+                JsonArray array = (JsonArray) value;
+                int index = (Integer) token;
+                value = index < array.size() ? array.get(index) : null;
+            }
+            if (value == null) {
+                return null;
+            }
+        }
+        return value;
+    }
+
+    // Recursive descent compiler of the supported JSONPath syntax
+    private static final class Compiler {
+        private final String path;
+        private int pos;
+
+        Compiler(String path) {
+            this.path = path;
+        }
+
+        Step[] compile() {
+            List<Step> steps = new ArrayList<>();
+            skipWhitespace();
+            expect('$');
+            while (true) {
+                skipWhitespace();
+                if (pos == path.length()) {
+                    break;
+                }
+                char ch = path.charAt(pos);
+                if (ch == '[') {
+                    steps.add(new Step(false, bracket()));
+                } else if (ch == '.') {
+                    pos++;
+                    boolean descendant = peek('.');
+                    if (descendant) {
+                        pos++;
+                    }
+                    if (descendant && peek('[')) {
+                        steps.add(new Step(true, bracket()));
+                    } else if (peek('*')) {
+                        pos++;
+                        steps.add(new Step(descendant, new WildcardSelector()));
+                    } else {
+                        steps.add(new Step(descendant, new NameSelector(name())));
+                    }
+                } else {
+                    throw syntaxError();
+                }
+            }
+            if (steps.size() >= Character.MAX_VALUE) {
+                throw syntaxError();
+            }
+            return steps.toArray(new Step[steps.size()]);
+        }
+
+        private Selector[] bracket() {
+            expect('[');
+            List<Selector> selectors = new ArrayList<>();
+            do {
+                selectors.add(selector());
+            } while (consume(","));
+            expect(']');
+            return selectors.toArray(new Selector[selectors.size()]);
+        }
+
+        private Selector selector() {
+            skipWhitespace();
+            if (pos == path.length()) {
+                throw syntaxError();
+            }
+            char ch = path.charAt(pos);
+            if (ch == '*') {
+                pos++;
+                return new WildcardSelector();
+            } else if (ch == '\'' || ch == '"') {
+                return new NameSelector(string());
+            } else if (ch == '?') {
+                pos++;
+                return new FilterSelector(or());
+            }
+            int start = index(-1);
+            if (!consume(":")) {
+                if (start == -1) {
+                    throw syntaxError();
+                }
+                return new SliceSelector(start, start + 1, 1);
+            }
+            int end = index(Integer.MAX_VALUE);
+            int step = consume(":") ? index(1) : 1;
+            return new SliceSelector(start == -1 ? 0 : start, end, step);
+        }
+
+        // Returns the non-negative integer at pos, or the default value if
+        // there is none
+        private int index(int defaultValue) {
+            skipWhitespace();
+            if (peek('-')) {
+                throw new JsonException(JsonMessages.PATH_NEGATIVE_INDEX_ERR(path, pos));
+            }
+            int begin = pos;
+            long value = 0;
+            while (pos < path.length() && isDigit(path.charAt(pos))) {
+                value = value * 10 + path.charAt(pos++) - '0';
+                if (value > Integer.MAX_VALUE) {
+                    throw syntaxError();
+                }
+            }
+            if (pos == begin) {
+                return defaultValue;
+            }
+            return (int) value;
+        }
+
+        private Filter or() {
+            Filter filter = and();
+            while (consume("||")) {
+                filter = new Or(filter, and());
+            }
+            return filter;
+        }
+
+        private Filter and() {
+            Filter filter = unary();
+            while (consume("&&")) {
+                filter = new And(filter, unary());
+            }
+            return filter;
+        }
+
+        private Filter unary() {
+            if (consume("!")) {
+                return new Not(unary());
+            }
+            if (consume("(")) {
+                Filter filter = or();
+                expect(')');
+                return filter;
+            }
+            Object[] relative = relativePath();
+            int op = operator();
+            if (op == -1) {
+                return new Exists(relative);
+            }
+            return new Comparison(relative, op, literal());
+        }
+
+        private Object[] relativePath() {
+            expect('@');
+            List<Object> tokens = new ArrayList<>();
+            while (pos < path.length()) {
+                char ch = path.charAt(pos);
+                if (ch == '.') {
+                    pos++;
+                    tokens.add(name());
+                } else if (ch == '[') {
+                    pos++;
+                    skipWhitespace();
+                    if (peek('\'') || peek('"')) {
+                        tokens.add(string());
+                    } else {
+                        int index = index(-1);
+                        if (index == -1) {
+                            throw syntaxError();
+                        }
+                        tokens.add(index);
+                    }
+                    expect(']');
+                } else {
+                    break;
+                }
+            }
+            return tokens.toArray();
+        }
+
+        private int operator() {
+            if (consume("==")) {
+                return Comparison.EQ;
+            } else if (consume("!=")) {
+                return Comparison.NE;
+            } else if (consume("<=")) {
+                return Comparison.LE;
+            } else if (consume(">=")) {
+                return Comparison.GE;
+            } else if (consume("<")) {
+                return Comparison.LT;
+            } else if (consume(">")) {
+                return Comparison.GT;
+            }
+            return -1;
+        }
+
+        private Object literal() {
+            skipWhitespace();
+            if (peek('\'') || peek('"')) {
+                return string();
+            } else if (consume("true")) {
+                return JsonValue.TRUE;
+            } else if (consume("false")) {
+                return JsonValue.FALSE;
+            } else if (consume("null")) {
+                return JsonValue.NULL;
+            }
+            int begin = pos;
+            while (pos < path.length() && (isDigit(path.charAt(pos))
+                    || "+-.eE".indexOf(path.charAt(pos)) != -1)) {
+                pos++;
+            }
+            try {
+                return new BigDecimal(path.substring(begin, pos));
+            } catch (NumberFormatException e) {
+                pos = begin;
+                throw syntaxError();
+            }
+        }
+
+        private String name() {
+            int begin = pos;
+            while (pos < path.length()) {
+                char ch = path.charAt(pos);
+                if (!(Character.isLetterOrDigit(ch) || ch == '_' || ch == '-'
+                        || ch == '$' || ch >= 0x80)) {
+                    break;
+                }
+                pos++;
+            }
+            if (pos == begin) {
+                throw syntaxError();
+            }
+            return path.substring(begin, pos);
+        }
+
+        // A quoted string, with the escapes of JSON strings
+        private String string() {
+            char quote = path.charAt(pos++);
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                if (pos >= path.length()) {
+                    throw syntaxError();
+                }
+                char ch = path.charAt(pos++);
+                if (ch == quote) {
+                    return sb.toString();
+                }
+                if (ch != '\\') {
+                    sb.append(ch);
+                    continue;
+                }
+                if (pos >= path.length()) {
+                    throw syntaxError();
+                }
+                ch = path.charAt(pos++);
+                switch (ch) {
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > path.length()) {
+                            throw syntaxError();
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(path.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw syntaxError();
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        sb.append(ch);
+                        break;
+                }
+            }
+        }
+
+        private boolean consume(String token) {
+            skipWhitespace();
+            if (path.startsWith(token, pos)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char ch) {
+            skipWhitespace();
+            if (!peek(ch)) {
+                throw syntaxError();
+            }
+            pos++;
+        }
+
+        private boolean peek(char ch) {
+            return pos < path.length() && path.charAt(pos) == ch;
+        }
+
+        private void skipWhitespace() {
+            while (pos < path.length() && Character.isWhitespace(path.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private static boolean isDigit(char ch) {
+            return ch >= '0' && ch <= '9';
+        }
+
+        private JsonException syntaxError() {
+            return new JsonException(JsonMessages.PATH_SYNTAX_ERR(path, pos));
+        }
+    }
+
+}
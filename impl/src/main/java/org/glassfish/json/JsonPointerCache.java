@@ -0,0 +1,106 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import javax.json.JsonPointer;
+
+/**
+ * Bounded cache of compiled JSON pointers keyed by the pointer string, so
+ * that the pointers that are used over and over are parsed only once.
+ *
+ * <p>
+ * A pointer is kept in one of a few slots after the slot of its hash.
+ * When they are all taken, it replaces the pointer in its own slot. The
+ * cache is safe to use from multiple threads without locking, as the slots
+ * only hold immutable entries and a JsonPointer is immutable.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonPointerCache {
+    // Longer pointers are not kept in the cache
+    static final int MAX_POINTER_LENGTH = 256;
+    // no of slots, power of 2
+    private static final int SIZE = 2048;
+    // no of slots that are searched for a pointer
+    private static final int PROBES = 4;
+
+    private final Entry[] entries = new Entry[SIZE];
+
+    JsonPointer get(String pointer) {
+        if (pointer.length() > MAX_POINTER_LENGTH) {
+            return new JsonPointer(pointer);
+        }
+        int hash = pointer.hashCode();
+        int slot = slot(hash);
+        int free = -1;
+        for(int i=0; i < PROBES; i++) {
+            int probe = (slot + i) & (SIZE-1);
+            Entry entry = entries[probe];
+            if (entry == null) {
+                if (free == -1) {
+                    free = probe;
+                }
+            } else if (entry.hash == hash && entry.pointer.equals(pointer)) {
+                return entry.compiled;
+            }
+        }
+        JsonPointer compiled = new JsonPointer(pointer);
+        entries[free != -1 ? free : slot] = new Entry(hash, pointer, compiled);
+        return compiled;
+    }
+
+    private static int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & (SIZE-1);
+    }
+
+    private static final class Entry {
+        final int hash;
+        final String pointer;
+        final JsonPointer compiled;
+
+        Entry(int hash, String pointer, JsonPointer compiled) {
+            this.hash = hash;
+            this.pointer = pointer;
+            this.compiled = compiled;
+        }
+    }
+
+}
@@ -41,6 +41,7 @@
 package org.glassfish.json;
 
 import org.glassfish.json.api.BufferPool;
+import org.glassfish.json.api.JsonConfig;
 
 import javax.json.*;
 import javax.json.stream.JsonGenerator;
@@ -52,6 +53,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -61,6 +63,9 @@ import java.util.Map;
  */
 public class JsonProviderImpl extends JsonProvider {
 
+    // shared by all the providers, as the pointers don't depend on them
+    private static final JsonPointerCache pointerCache = new JsonPointerCache();
+
     private final BufferPool bufferPool = new BufferPoolImpl();
 
     @Override
@@ -83,6 +88,21 @@ public class JsonProviderImpl extends JsonProvider {
         return new JsonParserImpl(in, bufferPool);
     }
 
+    @Override
+    public JsonParser createParser(CharSequence chars) {
+        return new JsonParserImpl(chars, bufferPool);
+    }
+
+    @Override
+    public JsonParser createParser(char[] chars, int off, int len) {
+        return new JsonParserImpl(chars, off, len, bufferPool);
+    }
+
+    @Override
+    public JsonParser createParser(ByteBuffer buffer) {
+        return new JsonParserImpl(buffer, bufferPool);
+    }
+
     @Override
     public JsonParserFactory createParserFactory(Map<String, ?> config) {
         BufferPool pool = null;
@@ -92,7 +112,11 @@ public class JsonProviderImpl extends JsonProvider {
         if (pool == null) {
             pool = bufferPool;
         }
-        return new JsonParserFactoryImpl(pool);
+        boolean wordScan = false;
+        if (config != null && config.containsKey(JsonConfig.WORD_SCAN)) {
+            wordScan = Boolean.parseBoolean(String.valueOf(config.get(JsonConfig.WORD_SCAN)));
+        }
+        return new JsonParserFactoryImpl(pool, JsonKeyTable.create(config), wordScan);
     }
 
     @Override
@@ -100,6 +124,7 @@ public class JsonProviderImpl extends JsonProvider {
         Map<String, Object> providerConfig;
         boolean prettyPrinting;
         BufferPool pool;
+        int maxDepth = getMaxDepth(config);
         if (config == null) {
             providerConfig = Collections.emptyMap();
             prettyPrinting = false;
@@ -115,10 +140,13 @@ public class JsonProviderImpl extends JsonProvider {
             } else {
                 pool = bufferPool;
             }
+            if (maxDepth != Integer.MAX_VALUE) {
+                providerConfig.put(JsonConfig.MAX_DEPTH, maxDepth);
+            }
             providerConfig = Collections.unmodifiableMap(providerConfig);
         }
 
-        return new JsonGeneratorFactoryImpl(providerConfig, prettyPrinting, pool);
+        return new JsonGeneratorFactoryImpl(providerConfig, prettyPrinting, maxDepth, pool);
     }
 
     @Override
@@ -131,6 +159,16 @@ public class JsonProviderImpl extends JsonProvider {
         return new JsonReaderImpl(in, bufferPool);
     }
 
+    @Override
+    public JsonReader createReader(CharSequence chars) {
+        return new JsonReaderImpl(new JsonCharTokenizer(chars, bufferPool), bufferPool);
+    }
+
+    @Override
+    public JsonReader createReader(char[] chars, int off, int len) {
+        return new JsonReaderImpl(new JsonCharTokenizer(chars, off, len, bufferPool), bufferPool);
+    }
+
     @Override
     public JsonWriter createWriter(Writer writer) {
         return new JsonWriterImpl(writer, bufferPool);
@@ -146,6 +184,7 @@ public class JsonProviderImpl extends JsonProvider {
         Map<String, Object> providerConfig;
         boolean prettyPrinting;
         BufferPool pool;
+        int maxDepth = getMaxDepth(config);
         if (config == null) {
             providerConfig = Collections.emptyMap();
             prettyPrinting = false;
@@ -161,9 +200,12 @@ public class JsonProviderImpl extends JsonProvider {
             } else {
                 pool = bufferPool;
             }
+            if (maxDepth != Integer.MAX_VALUE) {
+                providerConfig.put(JsonConfig.MAX_DEPTH, maxDepth);
+            }
             providerConfig = Collections.unmodifiableMap(providerConfig);
         }
-        return new JsonWriterFactoryImpl(providerConfig, prettyPrinting, pool);
+        return new JsonWriterFactoryImpl(providerConfig, prettyPrinting, maxDepth, pool);
     }
 
     @Override
@@ -175,7 +217,17 @@ public class JsonProviderImpl extends JsonProvider {
         if (pool == null) {
             pool = bufferPool;
         }
-        return new JsonReaderFactoryImpl(pool);
+        boolean parallelReadArray = false;
+        if (config != null && config.containsKey(JsonConfig.PARALLEL_READ_ARRAY)) {
+            parallelReadArray = Boolean.parseBoolean(
+                    String.valueOf(config.get(JsonConfig.PARALLEL_READ_ARRAY)));
+        }
+        boolean lazyRead = false;
+        if (config != null && config.containsKey(JsonConfig.LAZY_READ)) {
+            lazyRead = Boolean.parseBoolean(String.valueOf(config.get(JsonConfig.LAZY_READ)));
+        }
+        return new JsonReaderFactoryImpl(pool, JsonKeyTable.create(config),
+                parallelReadArray, lazyRead, getMaxDepth(config));
     }
 
     @Override
@@ -198,6 +250,11 @@ public class JsonProviderImpl extends JsonProvider {
         return new JsonArrayBuilderImpl(array, bufferPool);
     }
 
+    @Override
+    public JsonPointer createPointer(String pointer) {
+        return pointerCache.get(pointer);
+    }
+
     @Override
     public JsonBuilderFactory createBuilderFactory(Map<String,?> config) {
         BufferPool pool = null ;
@@ -213,4 +270,19 @@ public class JsonProviderImpl extends JsonProvider {
     static boolean isPrettyPrintingEnabled(Map<String, ?> config) {
         return config.containsKey(JsonGenerator.PRETTY_PRINTING);
     }
+
+    // Integer.MAX_VALUE if the depth is not limited
+    static int getMaxDepth(Map<String, ?> config) {
+        Object value = config == null ? null : config.get(JsonConfig.MAX_DEPTH);
+        if (value == null) {
+            return Integer.MAX_VALUE;
+        }
+        int maxDepth = value instanceof Number
+                ? ((Number) value).intValue()
+                : Integer.parseInt(value.toString().trim());
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException(JsonMessages.CONFIG_MAX_DEPTH_ERR(value));
+        }
+        return maxDepth;
+    }
 }
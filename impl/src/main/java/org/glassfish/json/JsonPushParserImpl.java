@@ -0,0 +1,188 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.JsonUtf8Tokenizer.NeedMoreInputException;
+import org.glassfish.json.api.JsonPushParser;
+
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link JsonPushParser} implementation. It is a {@link JsonParserImpl}
+ * over a push {@link JsonUtf8Tokenizer}. If the fed bytes end in the middle
+ * of an event, the tokenizer is rolled back to the start of the event. The
+ * parser contexts are changed only after all the tokens of an event are
+ * read, so the event is parsed again once more bytes are fed.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonPushParserImpl extends JsonParserImpl implements JsonPushParser {
+
+    private final JsonUtf8Tokenizer tokenizer;
+    // used when a ByteBuffer is fed that doesn't have an array
+    private byte[] copyBuf;
+
+    JsonPushParserImpl(JsonUtf8Tokenizer tokenizer, JsonKeyTable keyTable) {
+        super(tokenizer, keyTable);
+        this.tokenizer = tokenizer;
+    }
+
+    @Override
+    public void feed(byte[] bytes, int off, int len) {
+        if (off < 0 || len < 0 || len > bytes.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (tokenizer.isInputEnded()) {
+            throw new IllegalStateException(JsonMessages.PARSER_INPUT_ENDED());
+        }
+        tokenizer.feed(bytes, off, len);
+    }
+
+    @Override
+    public void feed(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            feed(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+        } else {
+            if (copyBuf == null) {
+                copyBuf = new byte[8192];
+            }
+            while (buffer.hasRemaining()) {
+                int len = Math.min(buffer.remaining(), copyBuf.length);
+                buffer.get(copyBuf, 0, len);
+                feed(copyBuf, 0, len);
+            }
+        }
+    }
+
+    @Override
+    public void endOfInput() {
+        tokenizer.endOfInput();
+        if (isEnded()) {
+            // checks that there is only whitespace after the JSON text
+            super.hasNext();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !isEnded();
+    }
+
+    @Override
+    public boolean tryNext() {
+        if (isEnded()) {
+            throw new NoSuchElementException();
+        }
+        if (!tokenizer.mayCompleteToken()) {
+            return false;
+        }
+        tokenizer.mark();
+        try {
+            super.next();
+            return true;
+        } catch (NeedMoreInputException e) {
+            tokenizer.rollback();
+            return false;
+        }
+    }
+
+    @Override
+    public Event currentEvent() {
+        return getCurrentEvent();
+    }
+
+    @Override
+    public Event next() {
+        if (!tryNext()) {
+            throw new IllegalStateException(JsonMessages.PARSER_NEED_MORE_INPUT());
+        }
+        return getCurrentEvent();
+    }
+
+    @Override
+    public void skipArray() {
+        tokenizer.mark();
+        try {
+            super.skipArray();
+        } catch (NeedMoreInputException e) {
+            tokenizer.rollback();
+            throw new IllegalStateException(JsonMessages.PARSER_NEED_MORE_INPUT());
+        }
+    }
+
+    @Override
+    public void skipObject() {
+        tokenizer.mark();
+        try {
+            super.skipObject();
+        } catch (NeedMoreInputException e) {
+            tokenizer.rollback();
+            throw new IllegalStateException(JsonMessages.PARSER_NEED_MORE_INPUT());
+        }
+    }
+
+    @Override
+    public void skipValue() {
+        if (getCurrentEvent() != Event.KEY_NAME) {
+            super.skipValue();
+            return;
+        }
+        // the value's event and the skipping are undone together
+        tokenizer.mark();
+        try {
+            Event event = super.next();
+            if (event == Event.START_ARRAY) {
+                super.skipArray();
+            } else if (event == Event.START_OBJECT) {
+                super.skipObject();
+            }
+        } catch (NeedMoreInputException e) {
+            if (getCurrentEvent() != Event.KEY_NAME) {
+                backToKeyName();
+            }
+            tokenizer.rollback();
+            throw new IllegalStateException(JsonMessages.PARSER_NEED_MORE_INPUT());
+        }
+    }
+
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -41,39 +41,145 @@
 package org.glassfish.json;
 
 import org.glassfish.json.api.BufferPool;
+import org.glassfish.json.api.JsonConfig;
+import org.glassfish.json.api.JsonLinesReaderFactory;
 
+import javax.json.JsonException;
+import javax.json.JsonObject;
 import javax.json.JsonReader;
 import javax.json.JsonReaderFactory;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Jitendra Kotamraju
  */
-class JsonReaderFactoryImpl implements JsonReaderFactory {
-    private final Map<String, ?> config = Collections.emptyMap();
+class JsonReaderFactoryImpl implements JsonReaderFactory, JsonLinesReaderFactory {
+    private final Map<String, ?> config;
     private final BufferPool bufferPool;
+    // shared by all the readers, null if key names are not canonicalized
+    private final JsonKeyTable keyTable;
+    private final boolean parallelReadArray;
+    private final boolean lazyRead;
+    private final int maxDepth;     // Integer.MAX_VALUE if not limited
 
-    JsonReaderFactoryImpl(BufferPool bufferPool) {
+    JsonReaderFactoryImpl(BufferPool bufferPool, JsonKeyTable keyTable,
+            boolean parallelReadArray, boolean lazyRead, int maxDepth) {
         this.bufferPool = bufferPool;
+        this.keyTable = keyTable;
+        this.parallelReadArray = parallelReadArray;
+        this.lazyRead = lazyRead;
+        this.maxDepth = maxDepth;
+        Map<String, Object> configInUse = new HashMap<>();
+        if (keyTable != null) {
+            configInUse.put(JsonConfig.CANONICALIZE_KEYS, true);
+        }
+        if (parallelReadArray) {
+            configInUse.put(JsonConfig.PARALLEL_READ_ARRAY, true);
+        }
+        if (lazyRead) {
+            configInUse.put(JsonConfig.LAZY_READ, true);
+        }
+        if (maxDepth != Integer.MAX_VALUE) {
+            configInUse.put(JsonConfig.MAX_DEPTH, maxDepth);
+        }
+        this.config = Collections.unmodifiableMap(configInUse);
     }
 
     @Override
     public JsonReader createReader(Reader reader) {
-        return new JsonReaderImpl(reader, bufferPool);
+        return new JsonReaderImpl(new JsonCharTokenizer(reader, bufferPool),
+                keyTable, maxDepth, bufferPool);
     }
 
     @Override
     public JsonReader createReader(InputStream in) {
-        return new JsonReaderImpl(in, bufferPool);
+        if (lazyRead) {
+            return new JsonLazyReader(in, null, keyTable, bufferPool);
+        }
+        if (parallelReadArray) {
+            return new JsonParallelArrayReader(in, null, keyTable, maxDepth, bufferPool);
+        }
+        return new JsonReaderImpl(JsonParserImpl.createTokenizer(in, bufferPool),
+                keyTable, maxDepth, bufferPool);
     }
 
     @Override
     public JsonReader createReader(InputStream in, Charset charset) {
-        return new JsonReaderImpl(in, charset, bufferPool);
+        if (lazyRead) {
+            return new JsonLazyReader(in, charset, keyTable, bufferPool);
+        }
+        if (parallelReadArray) {
+            return new JsonParallelArrayReader(in, charset, keyTable, maxDepth, bufferPool);
+        }
+        return new JsonReaderImpl(JsonParserImpl.createTokenizer(in, charset, bufferPool),
+                keyTable, maxDepth, bufferPool);
+    }
+
+    @Override
+    public JsonReader createReader(CharSequence chars) {
+        return new JsonReaderImpl(new JsonCharTokenizer(chars, bufferPool),
+                keyTable, maxDepth, bufferPool);
+    }
+
+    @Override
+    public JsonReader createReader(char[] chars, int off, int len) {
+        return new JsonReaderImpl(new JsonCharTokenizer(chars, off, len, bufferPool),
+                keyTable, maxDepth, bufferPool);
+    }
+
+    @Override
+    public Stream<JsonObject> readLines(ByteBuffer buffer, boolean ordered) {
+        ByteBuffer bytes = buffer.duplicate();
+        JsonLinesSpliterator.skipBom(bytes);
+        return StreamSupport.stream(
+                new JsonLinesSpliterator(bytes, ordered, keyTable, maxDepth, bufferPool), true);
+    }
+
+    @Override
+    public Stream<JsonObject> readLines(final InputStream in, boolean ordered) {
+        return StreamSupport.stream(
+                new JsonLinesInputSpliterator(in, ordered, keyTable, maxDepth, bufferPool), true)
+                .onClose(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            in.close();
+                        } catch (IOException ioe) {
+                            throw new JsonException(JsonMessages.READER_LINES_CLOSE_IO_ERR(), ioe);
+                        }
+                    }
+                });
+    }
+
+    @Override
+    public Stream<JsonObject> readLines(Path path, boolean ordered) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size <= Integer.MAX_VALUE) {
+                // the mapping stays valid after the channel is closed
+                ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                channel.close();
+                return readLines(bytes, ordered);
+            }
+            return readLines(Channels.newInputStream(channel), ordered);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
     }
 
     @Override
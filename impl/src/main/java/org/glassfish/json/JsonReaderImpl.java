@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -44,12 +44,15 @@ import org.glassfish.json.api.BufferPool;
 
 import javax.json.*;
 import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParsingException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 
 /**
- * JsonReader impl using parser and builders.
+ * JsonReader impl using parser. The objects and arrays are created
+ * directly from the parsed values, without builders.
  *
  * @author Jitendra Kotamraju
  */
@@ -57,20 +60,54 @@ class JsonReaderImpl implements JsonReader {
     private final JsonParserImpl parser;
     private boolean readDone;
     private final BufferPool bufferPool;
+    private final int maxDepth;
+
+    // stack of the members of the open structures, see readStructure()
+    private JsonValue[] values = new JsonValue[32];
+    private String[] keys = new String[32];
+    // start slot of the members of each open structure, and the last
+    // object in it, whose shape the next object may share
+    private int[] starts = new int[8];
+    private JsonObject[] siblings = new JsonObject[8];
 
     JsonReaderImpl(Reader reader, BufferPool bufferPool) {
         parser = new JsonParserImpl(reader, bufferPool);
         this.bufferPool = bufferPool;
+        this.maxDepth = Integer.MAX_VALUE;
     }
 
     JsonReaderImpl(InputStream in, BufferPool bufferPool) {
         parser = new JsonParserImpl(in, bufferPool);
         this.bufferPool = bufferPool;
+        this.maxDepth = Integer.MAX_VALUE;
     }
 
     JsonReaderImpl(InputStream in, Charset charset, BufferPool bufferPool) {
         parser = new JsonParserImpl(in, charset, bufferPool);
         this.bufferPool = bufferPool;
+        this.maxDepth = Integer.MAX_VALUE;
+    }
+
+    JsonReaderImpl(JsonTokenizer tokenizer, BufferPool bufferPool) {
+        this(tokenizer, null, bufferPool);
+    }
+
+    JsonReaderImpl(JsonTokenizer tokenizer, JsonKeyTable keyTable, BufferPool bufferPool) {
+        this(tokenizer, keyTable, Integer.MAX_VALUE, bufferPool);
+    }
+
+    JsonReaderImpl(JsonTokenizer tokenizer, JsonKeyTable keyTable, int maxDepth,
+            BufferPool bufferPool) {
+        parser = new JsonParserImpl(tokenizer, keyTable);
+        this.bufferPool = bufferPool;
+        this.maxDepth = maxDepth;
+    }
+
+    // Reads values out of a parser that is already in use, see readValue()
+    JsonReaderImpl(JsonParserImpl parser, BufferPool bufferPool) {
+        this.parser = parser;
+        this.bufferPool = bufferPool;
+        this.maxDepth = Integer.MAX_VALUE;
     }
 
     @Override
@@ -81,10 +118,8 @@ class JsonReaderImpl implements JsonReader {
         readDone = true;
         if (parser.hasNext()) {
             JsonParser.Event e = parser.next();
-            if (e == JsonParser.Event.START_ARRAY) {
-                return readArray(new JsonArrayBuilderImpl(bufferPool));
-            } else if (e == JsonParser.Event.START_OBJECT) {
-                return readObject(new JsonObjectBuilderImpl(bufferPool));
+            if (e == JsonParser.Event.START_ARRAY || e == JsonParser.Event.START_OBJECT) {
+                return readStructure();
             }
         }
         throw new JsonException("Internal Error");
@@ -99,7 +134,7 @@ class JsonReaderImpl implements JsonReader {
         if (parser.hasNext()) {
             JsonParser.Event e = parser.next();
             if (e == JsonParser.Event.START_OBJECT) {
-                return readObject(new JsonObjectBuilderImpl(bufferPool));
+                return (JsonObject) readStructure();
             } else if (e == JsonParser.Event.START_ARRAY) {
                 throw new JsonException(JsonMessages.READER_EXPECTED_OBJECT_GOT_ARRAY());
             }
@@ -116,7 +151,7 @@ class JsonReaderImpl implements JsonReader {
         if (parser.hasNext()) {
             JsonParser.Event e = parser.next();
             if (e == JsonParser.Event.START_ARRAY) {
-                return readArray(new JsonArrayBuilderImpl(bufferPool));
+                return (JsonArray) readStructure();
             } else if (e == JsonParser.Event.START_OBJECT) {
                 throw new JsonException(JsonMessages.READER_EXPECTED_ARRAY_GOT_OBJECT());
             }
@@ -130,88 +165,114 @@ class JsonReaderImpl implements JsonReader {
         parser.close();
     }
 
-    private JsonArray readArray(JsonArrayBuilder builder) {
-        while(parser.hasNext()) {
-            JsonParser.Event e = parser.next();
-            switch (e) {
-                case START_ARRAY:
-                    JsonArray array = readArray(new JsonArrayBuilderImpl(bufferPool));
-                    builder.add(array);
-                    break;
-                case START_OBJECT:
-                    JsonObject object = readObject(new JsonObjectBuilderImpl(bufferPool));
-                    builder.add(object);
-                    break;
-                case VALUE_STRING:
-                    builder.add(parser.getString());
-                    break;
-                case VALUE_NUMBER:
-                    if (parser.isDefinitelyInt()) {
-                        builder.add(parser.getInt());
-                    } else {
-                        builder.add(parser.getBigDecimal());
-                    }
-                    break;
-                case VALUE_TRUE:
-                    builder.add(JsonValue.TRUE);
-                    break;
-                case VALUE_FALSE:
-                    builder.add(JsonValue.FALSE);
-                    break;
-                case VALUE_NULL:
-                    builder.addNull();
-                    break;
-                case END_ARRAY:
-                    return builder.build();
-                default:
-                    throw new JsonException("Internal Error");
-            }
+    // Reads the value that starts with the current event of the parser
+    JsonValue readValue(JsonParser.Event e) {
+        switch (e) {
+            case START_ARRAY:
+            case START_OBJECT:
+                return readStructure();
+            case VALUE_STRING:
+                return new JsonStringImpl(parser.getString());
+            case VALUE_NUMBER:
+                return parser.getJsonNumber();
+            case VALUE_TRUE:
+                return JsonValue.TRUE;
+            case VALUE_FALSE:
+                return JsonValue.FALSE;
+            case VALUE_NULL:
+                return JsonValue.NULL;
+            default:
+                throw new JsonException("Internal Error");
         }
-        throw new JsonException("Internal Error");
     }
 
-    private JsonObject readObject(JsonObjectBuilder builder) {
-        String key = null;
-        while(parser.hasNext()) {
-            JsonParser.Event e = parser .next();
-            switch (e) {
-                case START_ARRAY:
-                    JsonArray array = readArray(new JsonArrayBuilderImpl(bufferPool));
-                    builder.add(key, array);
-                    break;
-                case START_OBJECT:
-                    JsonObject object = readObject(new JsonObjectBuilderImpl(bufferPool));
-                    builder.add(key, object);
-                    break;
-                case KEY_NAME:
-                    key = parser.getString();
-                    break;
-                case VALUE_STRING:
-                    builder.add(key, parser.getString());
-                    break;
-                case VALUE_NUMBER:
-                    if (parser.isDefinitelyInt()) {
-                        builder.add(key, parser.getInt());
-                    } else {
-                        builder.add(key, parser.getBigDecimal());
+    /*
+     * Reads the structure whose START_OBJECT or START_ARRAY is the current
+     * event, with an explicit stack instead of recursion. The members of
+     * all the open structures are kept in the values and keys arrays; each
+     * structure takes the slot before its members, so that it can be
+     * stored there, under its key, when it ends. The objects and arrays
+     * are created directly from the slots, without builders. The depth
+     * is limited only by maxDepth, not by the thread's stack.
+     */
+    private JsonStructure readStructure() {
+        int top = 1;        // next free slot, slot 0 is for the structure
+        int depth = 1;
+        int maxTop = 1;
+        starts[0] = 1;
+        try {
+            while (true) {
+                if (top >= values.length - 1) {
+                    values = Arrays.copyOf(values, 2 * values.length);
+                    keys = Arrays.copyOf(keys, values.length);
+                }
+                JsonValue value;
+                JsonParser.Event e = parser.next();
+                switch (e) {
+                    case KEY_NAME:
+                        keys[top] = parser.getString();
+                        continue;
+                    case START_OBJECT:
+                    case START_ARRAY:
+                        if (depth == maxDepth) {
+                            throw new JsonParsingException(
+                                    JsonMessages.READER_MAX_DEPTH(maxDepth), parser.getLocation());
+                        }
+                        if (depth == starts.length) {
+                            starts = Arrays.copyOf(starts, 2 * depth);
+                            siblings = Arrays.copyOf(siblings, 2 * depth);
+                        }
+                        starts[depth] = ++top;
+                        siblings[depth++] = null;
+                        continue;
+                    case END_OBJECT: {
+                        int start = starts[--depth];
+                        JsonObject sibling = (depth > 0) ? siblings[depth - 1] : null;
+                        JsonObject object = JsonObjectBuilderImpl.createObject(
+                                keys, values, start, top, sibling, bufferPool);
+                        if (depth > 0) {
+                            siblings[depth - 1] = object;
+                        }
+                        maxTop = Math.max(maxTop, top);
+                        top = start - 1;
+                        value = object;
+                        break;
                     }
-                    break;
-                case VALUE_TRUE:
-                    builder.add(key, JsonValue.TRUE);
-                    break;
-                case VALUE_FALSE:
-                    builder.add(key, JsonValue.FALSE);
-                    break;
-                case VALUE_NULL:
-                    builder.addNull(key);
-                    break;
-                case END_OBJECT:
-                    return builder.build();
-                default:
-                    throw new JsonException("Internal Error");
+                    case END_ARRAY: {
+                        int start = starts[--depth];
+                        value = JsonArrayBuilderImpl.createArray(values, start, top, bufferPool);
+                        maxTop = Math.max(maxTop, top);
+                        top = start - 1;
+                        break;
+                    }
+                    case VALUE_STRING:
+                        value = new JsonStringImpl(parser.getString());
+                        break;
+                    case VALUE_NUMBER:
+                        value = parser.getJsonNumber();
+                        break;
+                    case VALUE_TRUE:
+                        value = JsonValue.TRUE;
+                        break;
+                    case VALUE_FALSE:
+                        value = JsonValue.FALSE;
+                        break;
+                    case VALUE_NULL:
+                        value = JsonValue.NULL;
+                        break;
+                    default:
+                        throw new JsonException("Internal Error");
+                }
+                if (depth == 0) {
+                    return (JsonStructure) value;
+                }
+                values[top++] = value;
             }
+        } finally {
+            // the stacks don't keep the values alive
+            Arrays.fill(values, 0, Math.max(maxTop, top), null);
+            Arrays.fill(siblings, null);
         }
-        throw new JsonException("Internal Error");
     }
 
 }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2012-2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -99,6 +99,14 @@ class JsonStructureParser implements JsonParser {
         throw new IllegalStateException(JsonMessages.PARSER_GETLONG_ERR(state));
     }
 
+    @Override
+    public double getDouble() {
+        if (state == Event.VALUE_NUMBER) {
+            return ((JsonNumber)current.getJsonValue()).doubleValue();
+        }
+        throw new IllegalStateException(JsonMessages.PARSER_GETDOUBLE_ERR(state));
+    }
+
     @Override
     public BigDecimal getBigDecimal() {
         if (state == Event.VALUE_NUMBER) {
@@ -126,6 +134,32 @@ class JsonStructureParser implements JsonParser {
         return state;
     }
 
+    @Override
+    public void skipArray() {
+        if (current instanceof ArrayScope && state != null && state != Event.END_ARRAY) {
+            state = Event.END_ARRAY;
+        }
+    }
+
+    @Override
+    public void skipObject() {
+        if (current instanceof ObjectScope && state != null && state != Event.END_OBJECT) {
+            state = Event.END_OBJECT;
+        }
+    }
+
+    @Override
+    public void skipValue() {
+        if (state == Event.KEY_NAME) {
+            transition();
+        }
+        if (state == Event.START_ARRAY) {
+            skipArray();
+        } else if (state == Event.START_OBJECT) {
+            skipObject();
+        }
+    }
+
     private void transition() {
         if (state == null) {
             state = current instanceof ArrayScope ? Event.START_ARRAY : Event.START_OBJECT;
@@ -0,0 +1,221 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.JsonValue;
+import javax.json.stream.JsonLocation;
+import javax.json.stream.JsonParser;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A parser of one value of another parser. The other parser has already
+ * returned the first event of the value, and this parser returns the
+ * events up to the end of the value. Closing this parser skips the rest
+ * of the value, and doesn't close the other parser.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonSubParser implements JsonParser {
+
+    private final JsonParser parser;
+    // first event of the value, until it is returned
+    private Event first;
+    private Event current;
+    // whether each of the open structures is an object
+    private boolean[] objects = new boolean[8];
+    private int depth;
+    private boolean ended;
+
+    JsonSubParser(JsonParser parser, Event first) {
+        this.parser = parser;
+        this.first = first;
+    }
+
+    // A parser of a value that is already built
+    static JsonSubParser of(JsonValue value, BufferPool bufferPool) {
+        JsonParser parser = new JsonStructureParser(
+                new JsonArrayBuilderImpl(bufferPool).add(value).build());
+        parser.next();      // START_ARRAY
+        return new JsonSubParser(parser, parser.next());
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !ended;
+    }
+
+    @Override
+    public Event next() {
+        if (ended) {
+            throw new NoSuchElementException();
+        }
+        Event event = first;
+        if (event == null) {
+            event = parser.next();
+        }
+        first = null;
+        switch (event) {
+            case START_OBJECT:
+                push(true);
+                break;
+            case START_ARRAY:
+                push(false);
+                break;
+            case END_OBJECT:
+            case END_ARRAY:
+                depth--;
+                break;
+            default:
+                break;
+        }
+        ended = depth == 0;
+        current = event;
+        return event;
+    }
+
+    private void push(boolean object) {
+        if (depth == objects.length) {
+            objects = Arrays.copyOf(objects, 2 * depth);
+        }
+        objects[depth++] = object;
+    }
+
+    @Override
+    public String getString() {
+        return parser.getString();
+    }
+
+    @Override
+    public boolean isIntegralNumber() {
+        return parser.isIntegralNumber();
+    }
+
+    @Override
+    public int getInt() {
+        return parser.getInt();
+    }
+
+    @Override
+    public long getLong() {
+        return parser.getLong();
+    }
+
+    @Override
+    public double getDouble() {
+        return parser.getDouble();
+    }
+
+    @Override
+    public BigDecimal getBigDecimal() {
+        return parser.getBigDecimal();
+    }
+
+    @Override
+    public JsonLocation getLocation() {
+        return parser.getLocation();
+    }
+
+    @Override
+    public void skipArray() {
+        if (depth > 0 && !objects[depth - 1]) {
+            skipStructure();
+        }
+    }
+
+    @Override
+    public void skipObject() {
+        if (depth > 0 && objects[depth - 1]) {
+            skipStructure();
+        }
+    }
+
+    @Override
+    public void skipValue() {
+        if (current == Event.KEY_NAME) {
+            next();
+        }
+        if (current == Event.START_ARRAY) {
+            skipArray();
+        } else if (current == Event.START_OBJECT) {
+            skipObject();
+        }
+    }
+
+    // Skips the innermost open structure
+    private void skipStructure() {
+        boolean object = objects[depth - 1];
+        try {
+            if (object) {
+                parser.skipObject();
+            } else {
+                parser.skipArray();
+            }
+            depth--;
+            ended = depth == 0;
+            current = object ? Event.END_OBJECT : Event.END_ARRAY;
+        } catch (UnsupportedOperationException e) {
+            int level = depth;
+            while (depth >= level) {
+                next();
+            }
+        }
+    }
+
+    // Skips the events of the value that are not returned yet
+    void skipRest() {
+        if (first != null) {
+            next();
+        }
+        while (!ended) {
+            skipStructure();
+        }
+    }
+
+    @Override
+    public void close() {
+        skipRest();
+    }
+
+}
@@ -0,0 +1,1196 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.JsonException;
+import javax.json.JsonNumber;
+import javax.json.stream.JsonLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * JSON Tokenizer that works directly on UTF-8 encoded bytes. Unlike
+ * {@link JsonCharTokenizer}, the input is not decoded to chars up front.
+ * All JSON structural chars are ASCII, so the tokens are recognized on
+ * the bytes and only the contents of a string token are decoded, when
+ * its value is asked for.
+ *
+ * <p>
+ * Escaped chars in a string are stored in the buffer in UTF-8 encoding.
+ * A {@code \\uXXXX} escape for a surrogate char is stored as a three byte
+ * sequence of its own, so that {@link #getValue()} gives back the same
+ * chars as {@code JsonCharTokenizer} for such strings.
+ *
+ * <p>
+ * A heap {@link ByteBuffer} is tokenized in place over its backing array.
+ * Its contents are never modified, a string with escaped chars is copied
+ * to a separate store buffer instead. The contents of other buffers are
+ * copied to the internal buffer in chunks.
+ *
+ * <p>
+ * A push tokenizer gets its bytes through {@link #feed}. If a token is
+ * not complete in the fed bytes, {@link NeedMoreInputException} is thrown
+ * and the caller goes back to the {@link #mark()} with {@link #rollback()}.
+ * A structure that is skipped again after that is skipped from where the
+ * last try stopped, not from its start.
+ * Escaped strings are not stored in place, so that a token can be read
+ * again after more bytes are fed.
+ *
+ * <p>
+ * With word scanning, the end of a long string is looked for eight bytes
+ * at a time. The bytes of a {@code long} are used as lanes, and the
+ * quotes, backslashes and control chars are found in all of them with a
+ * few arithmetic operations.
+ *
+ * @author Jitendra Kotamraju
+ */
+final class JsonUtf8Tokenizer extends JsonTokenizer {
+
+    private final BufferPool bufferPool;
+
+    // Source of the bytes, only one of them is used
+    private final InputStream in;
+    private final ByteBuffer src;
+
+    // Internal buffer that is used for parsing. It is also used
+    // for storing current string and number value token
+    private byte[] buf;
+
+    // true if buf is the backing array of a caller's buffer. It is
+    // not refilled and escaped strings are not stored in it
+    private final boolean external;
+
+    // true if the bytes are fed. Escaped strings are not stored in buf
+    private final boolean push;
+    // no more bytes will be fed
+    private boolean inputEnded;
+    // state to go back to when a token is not complete in the fed bytes
+    private int markBegin;
+    private long markLineNo;
+    private long markLastLineOffset;
+    // value of the current token at the mark
+    private byte[] markStore;
+    private int markStoreBegin;
+    private int markStoreEnd;
+    private boolean markAscii;
+    private boolean markMinus;
+    private boolean markFracOrExp;
+    // true while reading a string token
+    private boolean inString;
+    // index in buf from where to look for the end of a string token that
+    // is not complete, -1 if there is no such string
+    private int quoteScan = -1;
+    // where skipStructure() stopped at the end of the fed bytes, so that
+    // skipping the same structure again goes on from there. Offsets are
+    // in the stream, skipBegin is -1 if there is no such skip
+    private long skipBegin = -1;
+    private long skipEnd;
+    private long skipLineNo;
+    private long skipLastLineOffset;
+    private int skipDepth;
+    private int skipString;
+    private boolean skipCr;
+
+    // Buffer for the current token value, it is buf except for
+    // an escaped string in an external buffer
+    private byte[] store;
+    private byte[] scratch;
+    // a push tokenizer swaps scratch with it, while the value at the mark
+    // is in scratch
+    private byte[] spareScratch;
+
+    // Used for decoding non-ASCII strings, taken from the pool on demand
+    private char[] chars;
+
+    // Indexes in buffer
+    //
+    // XXXssssssssssssXXXXXXXXXXXXXXXXXXXXXXrrrrrrrrrrrrrrXXXXXX
+    //    ^           ^                     ^             ^
+    //    |           |                     |             |
+    //   storeBegin  storeEnd            readBegin      readEnd
+    private int readBegin;
+    private int readEnd;
+    private int storeBegin;
+    private int storeEnd;
+    // index in buf of the first byte of the last token
+    private int tokenBegin;
+
+    // line number of the current pointer of parsing byte
+    private long lineNo = 1;
+
+    // offset of the last \r\n or \n. will be used to calculate column number
+    // of a token or an error. This may be outside of the buffer.
+    private long lastLineOffset = 0;
+    // offset in the stream for the start of the buffer, will be used in
+    // calculating JsonLocation's stream offset, column no.
+    private long bufferOffset = 0;
+
+    private boolean minus;
+    private boolean fracOrExp;
+    // true if the stored token has only ASCII chars
+    private boolean ascii;
+    private BigDecimal bd;
+
+    private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH = 0x8080808080808080L;
+    // strings are scanned a word at a time
+    private final boolean wordScan;
+    // little-endian view of buf for the word scanning
+    private ByteBuffer words;
+
+    JsonUtf8Tokenizer(InputStream in, BufferPool bufferPool) {
+        this(in, bufferPool, false);
+    }
+
+    JsonUtf8Tokenizer(InputStream in, BufferPool bufferPool, boolean wordScan) {
+        this.in = in;
+        this.src = null;
+        this.bufferPool = bufferPool;
+        this.external = false;
+        this.push = false;
+        this.wordScan = wordScan;
+        buf = store = bufferPool.takeBytes();
+    }
+
+    // Tokenizes the bytes that are given to feed()
+    JsonUtf8Tokenizer(BufferPool bufferPool) {
+        this.in = null;
+        this.src = null;
+        this.bufferPool = bufferPool;
+        this.external = false;
+        this.push = true;
+        this.wordScan = false;
+        buf = store = bufferPool.takeBytes();
+    }
+
+    // Tokenizes the bytes from position to limit of the buffer. The
+    // position of the buffer is advanced only if it is not a heap buffer
+    JsonUtf8Tokenizer(ByteBuffer buffer, BufferPool bufferPool) {
+        this(buffer, bufferPool, false);
+    }
+
+    JsonUtf8Tokenizer(ByteBuffer buffer, BufferPool bufferPool, boolean wordScan) {
+        this.in = null;
+        this.bufferPool = bufferPool;
+        this.push = false;
+        this.wordScan = wordScan;
+        if (buffer.hasArray()) {
+            this.src = null;
+            this.external = true;
+            buf = store = buffer.array();
+            readBegin = buffer.arrayOffset() + buffer.position();
+            readEnd = buffer.arrayOffset() + buffer.limit();
+            bufferOffset = -readBegin;
+        } else {
+            this.src = buffer;
+            this.external = false;
+            buf = store = bufferPool.takeBytes();
+        }
+    }
+
+    private void readString() {
+        // when inPlace is true, no need to copy bytes
+        boolean inPlace = true;
+        // all the stored bytes are or'ed, to find out if there is non-ASCII
+        int bits = 0;
+        storeBegin = storeEnd = readBegin;
+        inString = true;
+
+        do {
+            // Write unescaped byte block within the current buffer
+            if (inPlace) {
+                int ch;
+                while(readBegin < readEnd && ((ch=buf[readBegin]&0xFF) >= 0x20) && ch != '\\') {
+                    if (ch == '"') {
+                        storeEnd = readBegin++; // ++ to consume quote char
+                        ascii = bits < 0x80;
+                        inString = false;
+                        return;                 // Got the entire string
+                    }
+                    bits |= ch;
+                    readBegin++;                // consume unescaped byte
+                }
+                storeEnd = readBegin;
+            }
+
+            // string may be crossing buffer boundaries and may contain
+            // escaped characters.
+            int ch = read();
+            if (ch >= 0x20 && ch != 0x22 && ch != 0x5c) {
+                if (!inPlace) {
+                    ensureStoreCapacity(1);
+                    store[storeEnd] = (byte)ch;
+                }
+                storeEnd++;
+                bits |= ch;
+                continue;
+            }
+            switch (ch) {
+                case '\\':
+                    if (inPlace && (external || push)) {
+                        copyToScratch();
+                    }
+                    inPlace = false;        // Now onwards need to copy bytes
+                    bits |= unescape();
+                    break;
+                case '"':
+                    ascii = bits < 0x80;
+                    inString = false;
+                    return;
+                default:
+                    throw unexpectedChar(ch);
+            }
+        } while (true);
+    }
+
+    // Finds the end of a string that has no escaped or control chars in the
+    // buffer. The words pay off only for long strings, so the first bytes
+    // are looked at one by one. Other strings are read by readString()
+    private void scanString() {
+        int end = Math.min(readEnd, readBegin + 64);
+        int bits = 0;
+        for(int i=readBegin; i < end; i++) {
+            int ch = buf[i]&0xFF;
+            if (ch == '"') {
+                storeScannedString(i, bits < 0x80);
+                return;
+            } else if (ch == '\\' || ch < 0x20) {
+                readString();
+                return;
+            }
+            bits |= ch;
+        }
+        if (end == readBegin + 64) {
+            scanLongString(end, bits < 0x80);
+        } else {
+            readString();
+        }
+    }
+
+    private void scanLongString(int i, boolean ascii) {
+        if (words == null || words.array() != buf) {
+            words = ByteBuffer.wrap(buf).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        long bits = 0;
+        for(; i + 8 <= readEnd; i += 8) {
+            long word = words.getLong(i);
+            long stops = equal(word, '"') | equal(word, '\\') | lessThan0x20(word);
+            if (stops != 0) {
+                // the lowest byte with the high bit set is the first stop
+                i += Long.numberOfTrailingZeros(stops) >>> 3;
+                if (buf[i] == '"') {
+                    bits |= word & ((stops & -stops) - 1);
+                    storeScannedString(i, ascii && (bits & HIGH) == 0);
+                    return;
+                }
+                break;
+            }
+            bits |= word;
+        }
+        readString();
+    }
+
+    private void storeScannedString(int quote, boolean ascii) {
+        storeBegin = readBegin;
+        storeEnd = quote;
+        this.ascii = ascii;
+        readBegin = quote+1;                // consume quote char
+    }
+
+    // Sets the high bit of the bytes that are equal to ch
+    private static long equal(long word, int ch) {
+        long x = word ^ (ch * 0x0101010101010101L);
+        return ~(((x & LOW7) + LOW7) | x) & HIGH;
+    }
+
+    // Sets the high bit of the bytes that are less than 0x20
+    private static long lessThan0x20(long word) {
+        return ~(((word & LOW7) + 0x6060606060606060L) | word) & HIGH;
+    }
+
+    // Stores the escaped char in UTF-8 encoding and returns it
+    private int unescape() {
+        int ch = read();
+        ensureStoreCapacity(1);
+        switch (ch) {
+            case 'b':
+                store[storeEnd++] = '\b';
+                return ch;
+            case 't':
+                store[storeEnd++] = '\t';
+                return ch;
+            case 'n':
+                store[storeEnd++] = '\n';
+                return ch;
+            case 'f':
+                store[storeEnd++] = '\f';
+                return ch;
+            case 'r':
+                store[storeEnd++] = '\r';
+                return ch;
+            case '"':
+            case '\\':
+            case '/':
+                store[storeEnd++] = (byte)ch;
+                return ch;
+            case 'u': {
+                int unicode = 0;
+                for (int i = 0; i < 4; i++) {
+                    int ch3 = read();
+                    int digit = (ch3 >= 0 && ch3 < HEX_LENGTH) ? HEX[ch3] : -1;
+                    if (digit < 0) {
+                        throw unexpectedChar(ch3);
+                    }
+                    unicode = (unicode << 4)|digit;
+                }
+                if (unicode < 0x80) {
+                    store[storeEnd++] = (byte)unicode;
+                } else if (unicode < 0x800) {
+                    ensureStoreCapacity(2);
+                    store[storeEnd++] = (byte)(0xC0 | (unicode >> 6));
+                    store[storeEnd++] = (byte)(0x80 | (unicode & 0x3F));
+                } else {
+                    ensureStoreCapacity(3);
+                    store[storeEnd++] = (byte)(0xE0 | (unicode >> 12));
+                    store[storeEnd++] = (byte)(0x80 | ((unicode >> 6) & 0x3F));
+                    store[storeEnd++] = (byte)(0x80 | (unicode & 0x3F));
+                }
+                return unicode;
+            }
+            default:
+                throw unexpectedChar(ch);
+        }
+    }
+
+    // An escape sequence is always longer than its UTF-8 encoding. But if
+    // the buffer is filled in the middle of an escape sequence, only a part
+    // of it is before readBegin. Moves the unread bytes so that the encoded
+    // bytes don't overwrite them.
+    private void ensureStoreCapacity(int len) {
+        if (external || push) {
+            if (storeEnd + len > store.length) {
+                byte[] doubleBuf = Arrays.copyOf(store, 2 * store.length + len);
+                bufferPool.recycleBytes(store);
+                store = scratch = doubleBuf;
+            }
+            return;
+        }
+        int shift = storeEnd + len - readBegin;
+        if (shift > 0) {
+            if (readEnd + shift > buf.length) {
+                byte[] doubleBuf = Arrays.copyOf(buf, 2 * buf.length);
+                bufferPool.recycleBytes(buf);
+                buf = store = doubleBuf;
+            }
+            System.arraycopy(buf, readBegin, buf, readBegin + shift, readEnd - readBegin);
+            readBegin += shift;
+            readEnd += shift;
+            bufferOffset -= shift;
+        }
+    }
+
+    // Copies the string read so far from the external buffer, so that
+    // the unescaped chars can be stored without modifying that buffer
+    private void copyToScratch() {
+        int storeLen = storeEnd - storeBegin;
+        if (push && scratch == markStore) {
+            // the value at the mark is kept for a rollback
+            byte[] temp = scratch;
+            scratch = spareScratch;
+            spareScratch = temp;
+        }
+        if (scratch == null) {
+            scratch = bufferPool.takeBytes();
+        }
+        if (scratch.length < storeLen) {
+            bufferPool.recycleBytes(scratch);
+            scratch = new byte[2 * storeLen];
+        }
+        System.arraycopy(buf, storeBegin, scratch, 0, storeLen);
+        store = scratch;
+        storeBegin = 0;
+        storeEnd = storeLen;
+    }
+
+    // Reads a number byte. If the byte is within the buffer, directly
+    // reads from the buffer. Otherwise, uses read() which takes care
+    // of resizing, filling up the buf, adjusting the pointers
+    private int readNumberChar() {
+        if (readBegin < readEnd) {
+            return buf[readBegin++]&0xFF;
+        } else {
+            storeEnd = readBegin;
+            return read();
+        }
+    }
+
+    private void readNumber(int ch)  {
+        storeBegin = storeEnd = readBegin-1;
+        ascii = true;
+        // sign
+        if (ch == '-') {
+            this.minus = true;
+            ch = readNumberChar();
+            if (ch < '0' || ch >'9') {
+                throw unexpectedChar(ch);
+            }
+        }
+
+        // int
+        if (ch == '0') {
+            ch = readNumberChar();
+        } else {
+            do {
+                ch = readNumberChar();
+            } while (ch >= '0' && ch <= '9');
+        }
+
+        // frac
+        if (ch == '.') {
+            this.fracOrExp = true;
+            int count = 0;
+            do {
+                ch = readNumberChar();
+                count++;
+            } while (ch >= '0' && ch <= '9');
+            if (count == 1) {
+                throw unexpectedChar(ch);
+            }
+        }
+
+        // exp
+        if (ch == 'e' || ch == 'E') {
+            this.fracOrExp = true;
+            ch = readNumberChar();
+            if (ch == '+' || ch == '-') {
+                ch = readNumberChar();
+            }
+            int count;
+            for (count = 0; ch >= '0' && ch <= '9'; count++) {
+                ch = readNumberChar();
+            }
+            if (count == 0) {
+                throw unexpectedChar(ch);
+            }
+        }
+        if (ch != -1) {
+            // unread the byte after the number
+            readBegin--;
+        }
+        storeEnd = readBegin;
+    }
+
+    private void readTrue() {
+        int ch1 = read();
+        if (ch1 != 'r') {
+            throw expectedChar(ch1, 'r');
+        }
+        int ch2 = read();
+        if (ch2 != 'u') {
+            throw expectedChar(ch2, 'u');
+        }
+        int ch3 = read();
+        if (ch3 != 'e') {
+            throw expectedChar(ch3, 'e');
+        }
+    }
+
+    private void readFalse() {
+        int ch1 = read();
+        if (ch1 != 'a') {
+            throw expectedChar(ch1, 'a');
+        }
+        int ch2 = read();
+        if (ch2 != 'l') {
+            throw expectedChar(ch2, 'l');
+        }
+        int ch3 = read();
+        if (ch3 != 's') {
+            throw expectedChar(ch3, 's');
+        }
+        int ch4 = read();
+        if (ch4 != 'e') {
+            throw expectedChar(ch4, 'e');
+        }
+    }
+
+    private void readNull() {
+        int ch1 = read();
+        if (ch1 != 'u') {
+            throw expectedChar(ch1, 'u');
+        }
+        int ch2 = read();
+        if (ch2 != 'l') {
+            throw expectedChar(ch2, 'l');
+        }
+        int ch3 = read();
+        if (ch3 != 'l') {
+            throw expectedChar(ch3, 'l');
+        }
+    }
+
+    @Override
+    JsonToken nextToken() {
+        reset();
+        int ch = read();
+
+        // whitespace
+        while (ch == 0x20 || ch == 0x09 || ch == 0x0a || ch == 0x0d) {
+            if (ch == '\r') {
+                ++lineNo;
+                ch = read();
+                if (ch == '\n') {
+                    lastLineOffset = bufferOffset+readBegin;
+                } else {
+                    lastLineOffset = bufferOffset+readBegin-1;
+                    continue;
+                }
+            } else if (ch == '\n') {
+                ++lineNo;
+                lastLineOffset = bufferOffset+readBegin;
+            }
+            ch = read();
+        }
+
+        tokenBegin = readBegin-1;
+        switch (ch) {
+            case '"':
+                if (wordScan) {
+                    scanString();
+                } else {
+                    readString();
+                }
+                return JsonToken.STRING;
+            case '{':
+                return JsonToken.CURLYOPEN;
+            case '[':
+                return JsonToken.SQUAREOPEN;
+            case ':':
+                return JsonToken.COLON;
+            case ',':
+                return JsonToken.COMMA;
+            case 't':
+                readTrue();
+                return JsonToken.TRUE;
+            case 'f':
+                readFalse();
+                return JsonToken.FALSE;
+            case 'n':
+                readNull();
+                return JsonToken.NULL;
+            case ']':
+                return JsonToken.SQUARECLOSE;
+            case '}':
+                return JsonToken.CURLYCLOSE;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case '-':
+                readNumber(ch);
+                return JsonToken.NUMBER;
+            case -1:
+                return JsonToken.EOF;
+            default:
+                throw unexpectedChar(ch);
+        }
+    }
+
+    @Override
+    void skipStructure() {
+        reset();
+        int depth = 0;
+        boolean cr = false;     // last byte is \r, for \r\n line ending
+        int string = 0;         // 1 in a string, 2 after a backslash in it
+        long begin = bufferOffset+readBegin;
+        if (begin == skipBegin) {
+            // more bytes are fed since the last try
+            readBegin = (int)(skipEnd-bufferOffset);
+            lineNo = skipLineNo;
+            lastLineOffset = skipLastLineOffset;
+            depth = skipDepth;
+            string = skipString;
+            cr = skipCr;
+        }
+        skipBegin = -1;
+        try {
+            while(true) {
+                int ch;
+                if (string == 1) {
+                    // skips the string without storing or unescaping it
+                    while(readBegin < readEnd && (ch=buf[readBegin]) != '"' && ch != '\\') {
+                        readBegin++;
+                    }
+                    ch = read();
+                    if (ch == '"') {
+                        string = 0;
+                    } else if (ch == '\\') {
+                        string = 2;
+                    } else if (ch == -1) {
+                        throw unexpectedChar(ch);
+                    }
+                    continue;
+                }
+                ch = read();
+                if (string == 2) {
+                    if (ch == -1) {
+                        throw unexpectedChar(ch);
+                    }
+                    string = 1;
+                    continue;
+                }
+                switch (ch) {
+                    case '"':
+                        string = 1;
+                        break;
+                    case '[':
+                    case '{':
+                        depth++;
+                        break;
+                    case ']':
+                    case '}':
+                        if (depth-- == 0) {
+                            return;
+                        }
+                        break;
+                    case '\r':
+                        ++lineNo;
+                        lastLineOffset = bufferOffset+readBegin;
+                        break;
+                    case '\n':
+                        if (!cr) {
+                            ++lineNo;
+                        }
+                        lastLineOffset = bufferOffset+readBegin;
+                        break;
+                    case -1:
+                        throw unexpectedChar(ch);
+                    default:
+                        break;
+                }
+                cr = ch == '\r';
+            }
+        } catch (NeedMoreInputException e) {
+            skipBegin = begin;
+            skipEnd = bufferOffset+readBegin;
+            skipLineNo = lineNo;
+            skipLastLineOffset = lastLineOffset;
+            skipDepth = depth;
+            skipString = string;
+            skipCr = cr;
+            throw e;
+        }
+    }
+
+    // Column number and stream offset are in bytes
+    @Override
+    JsonLocation getLastCharLocation() {
+        // Already read the byte, so subtracting -1
+        return new JsonLocationImpl(lineNo, bufferOffset +readBegin-lastLineOffset, bufferOffset +readBegin-1);
+    }
+
+    @Override
+    JsonLocation getLocation() {
+        return new JsonLocationImpl(lineNo, bufferOffset +readBegin-lastLineOffset+1, bufferOffset +readBegin);
+    }
+
+    private int read() {
+        try {
+            if (readBegin == readEnd) {     // need to fill the buffer
+                int len = fillBuf();
+                if (len == -1) {
+                    return -1;
+                }
+                assert len != 0;
+                readBegin = storeEnd;
+                readEnd = readBegin+len;
+            }
+            return buf[readBegin++]&0xFF;
+        } catch (IOException ioe) {
+            throw new JsonException(JsonMessages.TOKENIZER_IO_ERR(), ioe);
+        }
+    }
+
+    private int fillBuf() throws IOException {
+        if (push) {
+            if (inputEnded) {
+                return -1;
+            }
+            throw NeedMoreInputException.INSTANCE;
+        }
+        if (external) {
+            return -1;
+        }
+        if (storeEnd != 0) {
+            int storeLen = storeEnd-storeBegin;
+            if (storeLen > 0) {
+                // there is some store data
+                if (storeLen == buf.length) {
+                    // buffer is full, double the capacity
+                    byte[] doubleBuf = Arrays.copyOf(buf, 2 * buf.length);
+                    bufferPool.recycleBytes(buf);
+                    buf = store = doubleBuf;
+                } else {
+                    // Left shift all the stored data to make space
+                    System.arraycopy(buf, storeBegin, buf, 0, storeLen);
+                    storeEnd = storeLen;
+                    storeBegin = 0;
+                    bufferOffset += readBegin-storeEnd;
+                }
+            } else {
+                storeBegin = storeEnd = 0;
+                bufferOffset += readBegin;
+            }
+        } else {
+            bufferOffset += readBegin;
+        }
+        // everything before storeEnd is consumed, also when the end of
+        // input is reached
+        readBegin = readEnd = storeEnd;
+        // Fill the rest of the buf
+        if (in != null) {
+            return in.read(buf, storeEnd, buf.length-storeEnd);
+        }
+        int len = Math.min(src.remaining(), buf.length-storeEnd);
+        if (len == 0) {
+            return -1;
+        }
+        src.get(buf, storeEnd, len);
+        return len;
+    }
+
+    // state associated with the current token is no more valid
+    private void reset() {
+        if (storeEnd != 0) {
+            store = buf;
+            storeBegin = 0;
+            storeEnd = 0;
+            bd = null;
+            minus = false;
+            fracOrExp = false;
+        }
+    }
+
+    @Override
+    String getValue() {
+        if (ascii) {
+            return new String(store, storeBegin, storeEnd-storeBegin, StandardCharsets.ISO_8859_1);
+        }
+        return decode(storeBegin, storeEnd, null);
+    }
+
+    @Override
+    String getValue(JsonKeyTable keyTable) {
+        if (ascii) {
+            return keyTable.get(store, storeBegin, storeEnd);
+        }
+        return decode(storeBegin, storeEnd, keyTable);
+    }
+
+    // Decodes UTF-8 bytes. Malformed input is replaced with U+FFFD like
+    // the JDK decoder does. Surrogates that are stored by unescape() are
+    // decoded as they are. The String is taken from keyTable if it is not null
+    private String decode(int begin, int end, JsonKeyTable keyTable) {
+        int len = end - begin;              // no of chars <= no of bytes
+        if (chars == null) {
+            chars = bufferPool.take();
+        }
+        char[] dst = chars.length >= len ? chars : new char[len];
+        byte[] store = this.store;
+        int j = 0;
+        int i = begin;
+        while (i < end) {
+            int b1 = store[i++];
+            if (b1 >= 0) {
+                dst[j++] = (char)b1;
+            } else if ((b1 >> 5) == -2 && (b1 & 0x1E) != 0) {
+                // 2 bytes, 11 bits: 110xxxxx 10xxxxxx
+                if (i < end && isContinuation(store[i])) {
+                    dst[j++] = (char)(((b1 & 0x1F) << 6) | (store[i++] & 0x3F));
+                } else {
+                    dst[j++] = '\uFFFD';
+                }
+            } else if ((b1 >> 4) == -2) {
+                // 3 bytes, 16 bits: 1110xxxx 10xxxxxx 10xxxxxx
+                if (i+1 < end && isContinuation(store[i]) && isContinuation(store[i+1])) {
+                    int c = ((b1 & 0x0F) << 12) | ((store[i] & 0x3F) << 6) | (store[i+1] & 0x3F);
+                    if (c >= 0x800) {
+                        dst[j++] = (char)c;
+                        i += 2;
+                        continue;
+                    }
+                }
+                dst[j++] = '\uFFFD';
+            } else if ((b1 >> 3) == -2) {
+                // 4 bytes, 21 bits: 11110xxx 10xxxxxx 10xxxxxx 10xxxxxx
+                if (i+2 < end && isContinuation(store[i]) && isContinuation(store[i+1])
+                        && isContinuation(store[i+2])) {
+                    int cp = ((b1 & 0x07) << 18) | ((store[i] & 0x3F) << 12)
+                            | ((store[i+1] & 0x3F) << 6) | (store[i+2] & 0x3F);
+                    if (cp >= Character.MIN_SUPPLEMENTARY_CODE_POINT && cp <= Character.MAX_CODE_POINT) {
+                        dst[j++] = Character.highSurrogate(cp);
+                        dst[j++] = Character.lowSurrogate(cp);
+                        i += 3;
+                        continue;
+                    }
+                }
+                dst[j++] = '\uFFFD';
+            } else {
+                dst[j++] = '\uFFFD';
+            }
+        }
+        return keyTable == null ? new String(dst, 0, j) : keyTable.get(dst, 0, j);
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    @Override
+    BigDecimal getBigDecimal() {
+        if (bd == null) {
+            bd = new BigDecimal(getValue());
+        }
+        return bd;
+    }
+
+    @Override
+    int getInt() {
+        // no need to create BigDecimal for common integer values (1-9 digits)
+        int storeLen = storeEnd-storeBegin;
+        if (!fracOrExp && (storeLen <= 9 || (minus && storeLen == 10))) {
+            int num = 0;
+            int i = minus ? 1 : 0;
+            for(; i < storeLen; i++) {
+                num = num * 10 + (store[storeBegin+i] - '0');
+            }
+            return minus ? -num : num;
+        } else {
+            // same as getBigDecimal().intValue()
+            return (int)getLong();
+        }
+    }
+
+    @Override
+    long getLong() {
+        int i = minus ? storeBegin+1 : storeBegin;
+        if (!fracOrExp && storeEnd-i <= 19) {
+            // accumulated as a negative number to cover Long.MIN_VALUE
+            long num = 0;
+            for(; i < storeEnd; i++) {
+                int digit = store[i] - '0';
+                if (num < Long.MIN_VALUE / 10 || (num == Long.MIN_VALUE / 10 && digit > 8)) {
+                    return getBigDecimal().longValue();
+                }
+                num = num * 10 - digit;
+            }
+            if (minus) {
+                return num;
+            }
+            if (num != Long.MIN_VALUE) {
+                return -num;
+            }
+        }
+        return getBigDecimal().longValue();
+    }
+
+    @Override
+    double getDouble() {
+        // up to 19 significant digits are accumulated in an unsigned long
+        long mantissa = 0;
+        int digits = 0;
+        int exp10 = 0;
+        int i = minus ? storeBegin+1 : storeBegin;
+        int ch = 0;
+        for(; i < storeEnd && (ch = store[i]) >= '0' && ch <= '9'; i++) {
+            if (digits < 19) {
+                mantissa = mantissa * 10 + (ch - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else if (ch != '0') {
+                return Double.parseDouble(getValue());
+            } else {
+                exp10++;
+            }
+        }
+        if (ch == '.') {
+            for(i++; i < storeEnd && (ch = store[i]) >= '0' && ch <= '9'; i++) {
+                if (digits < 19) {
+                    mantissa = mantissa * 10 + (ch - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    exp10--;
+                } else if (ch != '0') {
+                    return Double.parseDouble(getValue());
+                }
+            }
+        }
+        if (ch == 'e' || ch == 'E') {
+            ch = store[++i];
+            boolean expMinus = ch == '-';
+            if (ch == '-' || ch == '+') {
+                i++;
+            }
+            int exp = 0;
+            for(; i < storeEnd; i++) {
+                if (exp < 100000) {
+                    exp = exp * 10 + (store[i] - '0');
+                }
+            }
+            exp10 += expMinus ? -exp : exp;
+        }
+        double d = JsonNumberParser.toDouble(mantissa, exp10, minus);
+        return Double.isNaN(d) ? Double.parseDouble(getValue()) : d;
+    }
+
+    @Override
+    JsonNumber getJsonNumber() {
+        if (isDefinitelyInt()) {
+            return JsonNumberImpl.getJsonNumber(getInt());
+        }
+        // up to 18 digits fit in a long. The scale is from the number of
+        // fraction digits and the exponent
+        long unscaledValue = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean frac = false;
+        int i = minus ? storeBegin+1 : storeBegin;
+        for(; i < storeEnd; i++) {
+            int ch = store[i];
+            if (ch >= '0' && ch <= '9') {
+                if (++digits > 18) {
+                    return JsonNumberImpl.getJsonNumber(getBigDecimal());
+                }
+                unscaledValue = unscaledValue * 10 + (ch - '0');
+                if (frac) {
+                    scale++;
+                }
+            } else if (ch == '.') {
+                frac = true;
+            } else {
+                break;                      // exponent
+            }
+        }
+        if (i < storeEnd) {
+            int ch = store[++i];
+            boolean expMinus = ch == '-';
+            if (ch == '-' || ch == '+') {
+                i++;
+            }
+            if (storeEnd-i > 9) {
+                return JsonNumberImpl.getJsonNumber(getBigDecimal());
+            }
+            int exp = 0;
+            for(; i < storeEnd; i++) {
+                exp = exp * 10 + (store[i] - '0');
+            }
+            scale += expMinus ? exp : -exp;
+        }
+        return JsonNumberImpl.getJsonNumber(minus ? -unscaledValue : unscaledValue, scale);
+    }
+
+    @Override
+    boolean isDefinitelyInt() {
+        int storeLen = storeEnd-storeBegin;
+        return !fracOrExp && (storeLen <= 9 || (minus && storeLen == 10));
+    }
+
+    @Override
+    boolean isIntegral() {
+        return !fracOrExp || getBigDecimal().scale() == 0;
+    }
+
+    // Appends the bytes to the unread bytes. The bytes before the
+    // current token are dropped, if the buffer needs space
+    void feed(byte[] bytes, int off, int len) {
+        if (readEnd + len > buf.length) {
+            int keep = readBegin;
+            boolean keepStore = store == buf && storeEnd > storeBegin;
+            if (keepStore) {
+                keep = Math.min(keep, storeBegin);
+            }
+            int keepLen = readEnd - keep;
+            if (keepLen + len > buf.length) {
+                byte[] newBuf = new byte[Math.max(2 * buf.length, keepLen + len)];
+                System.arraycopy(buf, keep, newBuf, 0, keepLen);
+                bufferPool.recycleBytes(buf);
+                if (store == buf) {
+                    store = newBuf;
+                }
+                buf = newBuf;
+            } else {
+                System.arraycopy(buf, keep, buf, 0, keepLen);
+            }
+            readBegin -= keep;
+            readEnd -= keep;
+            bufferOffset += keep;
+            if (quoteScan != -1) {
+                quoteScan -= keep;
+            }
+            if (keepStore) {
+                storeBegin -= keep;
+                storeEnd -= keep;
+            } else if (store == buf) {
+                storeBegin = storeEnd = 0;
+            }
+        }
+        System.arraycopy(bytes, off, buf, readEnd, len);
+        readEnd += len;
+    }
+
+    // The tokenized bytes are a part of a larger input that starts at the
+    // given offset and line. Called before any token is read, so that the
+    // locations are the ones of the larger input
+    void setStartLocation(long offset, long lineNo, long lastLineOffset) {
+        this.bufferOffset = offset - readBegin;
+        this.lineNo = lineNo;
+        this.lastLineOffset = lastLineOffset;
+    }
+
+    // Index of the last token in the caller's buffer, only for a heap
+    // buffer that is tokenized in place
+    int getTokenBegin() {
+        return tokenBegin;
+    }
+
+    void endOfInput() {
+        inputEnded = true;
+    }
+
+    boolean isInputEnded() {
+        return inputEnded;
+    }
+
+    // Remembers the state before reading the next token(s)
+    void mark() {
+        markBegin = readBegin;
+        markLineNo = lineNo;
+        markLastLineOffset = lastLineOffset;
+        markStore = store;
+        markStoreBegin = storeBegin;
+        markStoreEnd = storeEnd;
+        markAscii = ascii;
+        markMinus = minus;
+        markFracOrExp = fracOrExp;
+    }
+
+    // Goes back to the mark() after NeedMoreInputException, the value of
+    // the current token is kept. If the incomplete token is a string, its
+    // end is looked for in the bytes that are fed later, before the string
+    // is read again
+    void rollback() {
+        quoteScan = inString ? readEnd : -1;
+        inString = false;
+        readBegin = markBegin;
+        lineNo = markLineNo;
+        lastLineOffset = markLastLineOffset;
+        store = markStore;
+        storeBegin = markStoreBegin;
+        storeEnd = markStoreEnd;
+        ascii = markAscii;
+        bd = null;
+        minus = markMinus;
+        fracOrExp = markFracOrExp;
+    }
+
+    // false if the fed bytes cannot complete the string that was not
+    // complete last time. Avoids reading a long string again and again
+    // while it arrives in small chunks
+    boolean mayCompleteToken() {
+        if (quoteScan == -1 || inputEnded) {
+            return true;
+        }
+        for(int i=quoteScan; i < readEnd; i++) {
+            if (buf[i] == '"') {
+                quoteScan = -1;
+                return true;
+            }
+        }
+        quoteScan = readEnd;
+        return false;
+    }
+
+    // Thrown when a push tokenizer reaches the end of the fed bytes
+    // before the end of the input. No stack trace as it is a control flow
+    static final class NeedMoreInputException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        static final NeedMoreInputException INSTANCE = new NeedMoreInputException();
+
+        private NeedMoreInputException() {
+            super(null, null, false, false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+        if (!external) {
+            bufferPool.recycleBytes(buf);
+        }
+        if (scratch != null) {
+            bufferPool.recycleBytes(scratch);
+        }
+        if (spareScratch != null) {
+            bufferPool.recycleBytes(spareScratch);
+        }
+        if (chars != null) {
+            bufferPool.recycle(chars);
+        }
+    }
+
+}
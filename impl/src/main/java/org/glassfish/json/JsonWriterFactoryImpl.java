@@ -47,6 +47,7 @@ import javax.json.JsonWriterFactory;
 import java.io.OutputStream;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
@@ -55,28 +56,31 @@ import java.util.Map;
 class JsonWriterFactoryImpl implements JsonWriterFactory {
     private final Map<String, ?> config;        // unmodifiable map
     private final boolean prettyPrinting;
+    private final int maxDepth;                 // Integer.MAX_VALUE if not limited
     private final BufferPool bufferPool;
 
     JsonWriterFactoryImpl(Map<String, ?> config, boolean prettyPrinting,
-            BufferPool bufferPool) {
+            int maxDepth, BufferPool bufferPool) {
         this.config = config;
         this.prettyPrinting = prettyPrinting;
+        this.maxDepth = maxDepth;
         this.bufferPool = bufferPool;
     }
 
     @Override
     public JsonWriter createWriter(Writer writer) {
-        return new JsonWriterImpl(writer, prettyPrinting, bufferPool);
+        return new JsonWriterImpl(writer, prettyPrinting, maxDepth, bufferPool);
     }
 
     @Override
     public JsonWriter createWriter(OutputStream out) {
-        return new JsonWriterImpl(out, prettyPrinting, bufferPool);
+        return new JsonWriterImpl(out, StandardCharsets.UTF_8, prettyPrinting,
+                maxDepth, bufferPool);
     }
 
     @Override
     public JsonWriter createWriter(OutputStream out, Charset charset) {
-        return new JsonWriterImpl(out, charset, prettyPrinting, bufferPool);
+        return new JsonWriterImpl(out, charset, prettyPrinting, maxDepth, bufferPool);
     }
 
     @Override
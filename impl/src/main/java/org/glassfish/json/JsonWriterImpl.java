@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -43,13 +43,10 @@ package org.glassfish.json;
 import org.glassfish.json.api.BufferPool;
 
 import javax.json.*;
-import java.io.FilterOutputStream;
-import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
 
 /**
  * JsonWriter impl using generator.
@@ -60,17 +57,21 @@ class JsonWriterImpl implements JsonWriter {
 
     private final JsonGeneratorImpl generator;
     private boolean writeDone;
-    private final NoFlushOutputStream os;
 
     JsonWriterImpl(Writer writer, BufferPool bufferPool) {
         this(writer, false, bufferPool);
     }
 
     JsonWriterImpl(Writer writer, boolean prettyPrinting, BufferPool bufferPool) {
+        this(writer, prettyPrinting, Integer.MAX_VALUE, bufferPool);
+    }
+
+    JsonWriterImpl(Writer writer, boolean prettyPrinting, int maxDepth,
+                   BufferPool bufferPool) {
         generator = prettyPrinting
                 ? new JsonPrettyGeneratorImpl(writer, bufferPool)
                 : new JsonGeneratorImpl(writer, bufferPool);
-        os = null;
+        generator.setMaxDepth(maxDepth);
     }
 
     JsonWriterImpl(OutputStream out, BufferPool bufferPool) {
@@ -83,12 +84,15 @@ class JsonWriterImpl implements JsonWriter {
 
     JsonWriterImpl(OutputStream out, Charset charset,
                    boolean prettyPrinting, BufferPool bufferPool) {
-        // Decorating the given stream, so that buffered contents can be
-        // written without actually flushing the stream.
-        this.os = new NoFlushOutputStream(out);
+        this(out, charset, prettyPrinting, Integer.MAX_VALUE, bufferPool);
+    }
+
+    JsonWriterImpl(OutputStream out, Charset charset,
+                   boolean prettyPrinting, int maxDepth, BufferPool bufferPool) {
         generator = prettyPrinting
-                ? new JsonPrettyGeneratorImpl(os, charset, bufferPool)
-                : new JsonGeneratorImpl(os, charset, bufferPool);
+                ? new JsonPrettyGeneratorImpl(out, charset, bufferPool)
+                : new JsonGeneratorImpl(out, charset, bufferPool);
+        generator.setMaxDepth(maxDepth);
     }
 
     @Override
@@ -98,19 +102,11 @@ class JsonWriterImpl implements JsonWriter {
         }
         writeDone = true;
         generator.writeStartArray();
-        for(JsonValue value : array) {
-            generator.write(value);
-        }
-        generator.writeEnd();
-        // Flush the generator's buffered contents. This won't work for byte
-        // streams as intermediary OutputStreamWriter buffers.
+        generator.writeStructure(array);
+        // Write the generator's buffered contents without flushing the
+        // underlying stream. For byte streams, the generator encodes them
+        // directly to the stream.
         generator.flushBuffer();
-        // Flush buffered contents but not the byte stream. generator.flush()
-        // does OutputStreamWriter#flushBuffer (package private) and underlying
-        // byte stream#flush(). Here underlying stream's flush() is no-op.
-        if (os != null) {
-            generator.flush();
-        }
     }
 
     @Override
@@ -120,19 +116,11 @@ class JsonWriterImpl implements JsonWriter {
         }
         writeDone = true;
         generator.writeStartObject();
-        for(Map.Entry<String, JsonValue> e : object.entrySet()) {
-            generator.write(e.getKey(), e.getValue());
-        }
-        generator.writeEnd();
-        // Flush the generator's buffered contents. This won't work for byte
-        // streams as intermediary OutputStreamWriter buffers.
+        generator.writeStructure(object);
+        // Write the generator's buffered contents without flushing the
+        // underlying stream. For byte streams, the generator encodes them
+        // directly to the stream.
         generator.flushBuffer();
-        // Flush buffered contents but not the byte stream. generator.flush()
-        // does OutputStreamWriter#flushBuffer (package private) and underlying
-        // byte stream#flush(). Here underlying stream's flush() is no-op.
-        if (os != null) {
-            generator.flush();
-        }
     }
 
     @Override
@@ -150,20 +138,4 @@ class JsonWriterImpl implements JsonWriter {
         generator.close();
     }
 
-    private static final class NoFlushOutputStream extends FilterOutputStream {
-        public NoFlushOutputStream(OutputStream out) {
-            super(out);
-        }
-
-        @Override
-        public void write(byte b[], int off, int len) throws IOException {
-            out.write(b, off ,len);
-        }
-
-        @Override
-        public void flush() {
-            // no-op
-        }
-    }
-
 }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2012-2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -79,6 +79,11 @@ class UnicodeDetectingInputStream extends FilterInputStream {
         return charset;
     }
 
+    // Length of the byte order mark. Valid only before reading this stream
+    int getBomLength() {
+        return curIndex;
+    }
+
     private void fillBuf() {
         int b1;
         int b2;
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -42,6 +42,8 @@ package org.glassfish.json.api;
 
 /**
  * char[] pool that pool instances of char[] which are expensive to create.
+ * It may also pool byte[] instances that are used when JSON is read from or
+ * written to byte streams.
  *
  * @author Jitendra Kotamraju
  */
@@ -63,4 +65,25 @@ public interface BufferPool {
      */
     void recycle(char[] buf);
 
+    /**
+     * Gets a new byte[] object from the pool.
+     *
+     * <p>
+     * If no object is available in the pool, this method creates a new one.
+     * The default implementation doesn't pool and always creates a new one.
+     *
+     * @return
+     *      always non-null.
+     */
+    default byte[] takeBytes() {
+        return new byte[8192];
+    }
+
+    /**
+     * Returns a byte[] object back to the pool. The default implementation
+     * doesn't do anything.
+     */
+    default void recycleBytes(byte[] buf) {
+    }
+
 }
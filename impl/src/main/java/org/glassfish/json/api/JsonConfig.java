@@ -0,0 +1,117 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.api;
+
+/**
+ * Names of the configuration properties that are specific to this
+ * implementation. They are passed in the config map of the factory
+ * methods like {@code Json.createParserFactory(Map)}.
+ *
+ * @author Jitendra Kotamraju
+ */
+public final class JsonConfig {
+
+    /**
+     * Configuration property to canonicalize the object key names that
+     * are read by the parsers of a {@code JsonParserFactory} or
+     * {@code JsonReaderFactory}. If its value is {@code true} (a
+     * {@code Boolean} or a {@code String}), the parsers return the same
+     * {@code String} instance for the same key name as long as it is in
+     * the factory's bounded table of key names. This reduces allocation
+     * and retained memory for documents that repeat the same keys.
+     */
+    public static final String CANONICALIZE_KEYS = "org.glassfish.json.canonicalizeKeys";
+
+    /**
+     * Configuration property to read a top-level JSON array in parallel.
+     * If its value is {@code true}, the readers that a
+     * {@code JsonReaderFactory} creates for UTF-8 byte streams split the
+     * elements of a top-level array into segments that are parsed on the
+     * common {@code ForkJoinPool}. The result is the same as that of a
+     * sequential read. It pays off for large arrays, as the input is
+     * scanned and parsed in blocks of a megabyte.
+     */
+    public static final String PARALLEL_READ_ARRAY = "org.glassfish.json.parallelReadArray";
+
+    /**
+     * Configuration property to scan strings a word at a time. If its
+     * value is {@code true}, the parsers that a {@code JsonParserFactory}
+     * creates for UTF-8 bytes look for the end of a long string eight bytes
+     * at a time instead of byte by byte. The events are the same as those
+     * of the default parsers. It pays off for documents with long strings
+     * like text, when run on Java 9 or later where a {@code ByteBuffer}
+     * reads a {@code long} in a single access. Other encodings and char
+     * input are parsed as usual.
+     */
+    public static final String WORD_SCAN = "org.glassfish.json.wordScan";
+
+    /**
+     * Configuration property to read JSON objects and arrays lazily. If
+     * its value is {@code true}, the readers that a {@code JsonReaderFactory}
+     * creates for UTF-8 byte streams read the whole input and return an
+     * object or array that is backed by its bytes. A structure's key names
+     * and the offsets of its values are found when the structure is first
+     * accessed. Its strings and numbers are decoded, and its nested
+     * structures are indexed, only when they are accessed. It pays off when
+     * only a few values of a large document are used. The structures are
+     * immutable, as usual. Malformed input in a nested structure is
+     * reported when that structure is accessed. This property takes
+     * precedence over {@link #PARALLEL_READ_ARRAY}.
+     */
+    public static final String LAZY_READ = "org.glassfish.json.lazyRead";
+
+    /**
+     * Configuration property to limit the nesting depth of JSON objects
+     * and arrays. Its value is a positive integer (a {@code Number} or a
+     * {@code String}). The readers of a {@code JsonReaderFactory} throw a
+     * {@code JsonParsingException}, and the generators and writers of a
+     * {@code JsonGeneratorFactory} or {@code JsonWriterFactory} throw a
+     * {@code JsonGenerationException}, when a structure is nested deeper
+     * than that. Readers and writers use an explicit stack for nested
+     * structures, so the depth is not limited by the thread's stack size
+     * otherwise. The readers of {@link #LAZY_READ} don't apply the limit.
+     */
+    public static final String MAX_DEPTH = "org.glassfish.json.maxDepth";
+
+    private JsonConfig() {
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.api;
+
+import javax.json.JsonObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Reads newline-delimited JSON (NDJSON, JSON Lines) input, in which every
+ * line holds one JSON object, as a parallel {@code Stream}. The input is
+ * split into ranges of whole lines that are parsed by the fork-join
+ * workers of the stream. Blank lines are skipped. The
+ * {@code JsonReaderFactory} instances of this implementation also
+ * implement this interface, for e.g.
+ *
+ * <pre>
+ * <code>
+ * JsonLinesReaderFactory factory =
+ *         (JsonLinesReaderFactory) Json.createReaderFactory(config);
+ * try (Stream&lt;JsonObject&gt; records = factory.readLines(path, false)) {
+ *     records.forEach(...);
+ * }
+ * </code>
+ * </pre>
+ *
+ * <p>
+ * The input must be UTF-8 encoded. A line that is not a JSON object
+ * makes the terminal operation of the stream throw a {@code JsonException},
+ * a {@code JsonParsingException} with a location relative to the start of
+ * the line if it is not valid JSON. Use {@code sequential()} on the
+ * returned stream to parse in the calling thread.
+ *
+ * @author Jitendra Kotamraju
+ */
+public interface JsonLinesReaderFactory {
+
+    /**
+     * Reads the remaining bytes of a buffer. The position of the buffer is
+     * not changed and the buffer must not be modified while the stream is
+     * used.
+     *
+     * @param buffer UTF-8 encoded lines
+     * @param ordered whether the stream keeps the order of the lines.
+     *     Parsing is faster if the order doesn't matter
+     * @return a parallel stream of the objects of the lines
+     */
+    Stream<JsonObject> readLines(ByteBuffer buffer, boolean ordered);
+
+    /**
+     * Reads the lines of a byte stream. The stream is read in growing
+     * batches of whole lines, which are then parsed in parallel. Closing
+     * the returned stream closes the byte stream.
+     *
+     * @param in UTF-8 encoded lines
+     * @param ordered whether the stream keeps the order of the lines
+     * @return a parallel stream of the objects of the lines
+     */
+    Stream<JsonObject> readLines(InputStream in, boolean ordered);
+
+    /**
+     * Reads the lines of a file. The file is mapped into memory when its
+     * size allows, otherwise it is read like a byte stream.
+     *
+     * @param path UTF-8 encoded file
+     * @param ordered whether the stream keeps the order of the lines
+     * @return a parallel stream of the objects of the lines
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    Stream<JsonObject> readLines(Path path, boolean ordered) throws IOException;
+
+}
@@ -0,0 +1,138 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.api;
+
+import javax.json.JsonValue;
+import javax.json.stream.JsonParser;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A compiled JSONPath expression that selects values in a single pass
+ * over the events of a {@link JsonParser}. The expression is compiled into
+ * a state machine; values that cannot contain a match are skipped without
+ * being built, so the memory that is used is bounded by the size of the
+ * selected values rather than the size of the input.
+ *
+ * <p>
+ * The supported syntax is a subset of JSONPath:
+ * <table border="1">
+ * <tr><td>{@code $}</td><td>the root value, it starts every expression</td></tr>
+ * <tr><td>{@code .name}, {@code ['name']}</td><td>a member of an object</td></tr>
+ * <tr><td>{@code .*}, {@code [*]}</td><td>all the members of an object or
+ *     elements of an array</td></tr>
+ * <tr><td>{@code [2]}, {@code [0,3]}</td><td>elements of an array</td></tr>
+ * <tr><td>{@code [1:10:2]}</td><td>a slice of an array, start, end and step
+ *     can be omitted</td></tr>
+ * <tr><td>{@code [?(@.price < 10)]}</td><td>the members or elements for
+ *     which the filter is true. A filter compares a value, relative to
+ *     {@code @}, with a string, number, {@code true}, {@code false} or
+ *     {@code null} using {@code ==}, {@code !=}, {@code <}, {@code <=},
+ *     {@code >} or {@code >=}, or tests that the value exists
+ *     ({@code [?(@.isbn)]}). Filters are combined with {@code &&},
+ *     {@code ||}, {@code !} and parentheses</td></tr>
+ * <tr><td>{@code ..name}, {@code ..*}, {@code ..[...]}</td><td>recursive
+ *     descent, the selector is applied to the value and all its
+ *     descendants</td></tr>
+ * </table>
+ * Negative array indices and steps are not supported, as they need the size
+ * of an array before its elements are seen. Selectors of a bracket may be
+ * combined with {@code ,}. A value is selected at most once, and the values
+ * are selected in document order; a value that is selected is returned
+ * before the selected values inside it.
+ *
+ * <p>
+ * <b>For example:</b>
+ * <pre>
+ * <code>
+ * JsonPathQuery query = ((JsonPathQueryFactory) Json.createParserFactory(null))
+ *         .createQuery("$..book[?(@.price &lt; 10)].title");
+ * try (Stream&lt;JsonValue&gt; titles = query.select(Json.createParser(in))) {
+ *     titles.forEach(...);
+ * }
+ * </code>
+ * </pre>
+ *
+ * @author Jitendra Kotamraju
+ */
+public interface JsonPathQuery {
+
+    /**
+     * Selects the values in a JSON value that is already built.
+     *
+     * @param value the root value
+     * @return the selected values, in document order
+     */
+    List<JsonValue> select(JsonValue value);
+
+    /**
+     * Selects the values in the JSON text of a parser. The parser must not
+     * have returned any event yet. The text is parsed as the stream is
+     * consumed, and only the selected values are built. Closing the
+     * returned stream closes the parser.
+     *
+     * @param parser the parser of the root value
+     * @return a sequential stream of the selected values, in document order
+     * @throws javax.json.JsonException if an i/o error occurs, from the
+     *     terminal operation of the stream
+     * @throws javax.json.stream.JsonParsingException if the parser
+     *     encounters invalid JSON, from the terminal operation of the stream
+     */
+    Stream<JsonValue> select(JsonParser parser);
+
+    /**
+     * Selects the values in the JSON text of a parser, and passes a parser
+     * of each selected value to an action. The parser that is given to
+     * the action returns the events of the selected value only; the events
+     * that it doesn't consume are skipped when the action returns. The
+     * values inside a selected value are not selected again. The parser
+     * must not have returned any event yet, and it is not closed.
+     *
+     * @param parser the parser of the root value
+     * @param action the action for the parser of each selected value
+     * @throws javax.json.JsonException if an i/o error occurs
+     * @throws javax.json.stream.JsonParsingException if the parser
+     *     encounters invalid JSON
+     */
+    void select(JsonParser parser, Consumer<? super JsonParser> action);
+
+}
@@ -0,0 +1,135 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.api;
+
+import javax.json.stream.JsonParser;
+import java.nio.ByteBuffer;
+
+/**
+ * A non-blocking {@link JsonParser} to which the input is pushed. The
+ * caller feeds UTF-8 encoded bytes as they arrive, and drains the events
+ * that can be parsed from them. The parser never reads from a blocking
+ * source, so it can be used on event loop threads.
+ *
+ * <p>
+ * For example:
+ * <pre>
+ * <code>
+ * // when a chunk of bytes arrives
+ * parser.feed(chunk, 0, len);
+ * while (parser.hasNext() &amp;&amp; parser.tryNext()) {
+ *     Event event = parser.currentEvent();
+ *     // process event
+ * }
+ *
+ * // when there are no more bytes
+ * parser.endOfInput();
+ * // drain the remaining events the same way
+ * </code>
+ * </pre>
+ *
+ * <p>
+ * {@link #hasNext()} returns false once the event that ends the JSON text
+ * is returned. {@link #next()}, {@link #skipArray()},
+ * {@link #skipObject()} and {@link #skipValue()} can also be used, but
+ * they throw
+ * {@code IllegalStateException} if more input is needed for them. The
+ * parser state is not changed in that case.
+ * A token that is split across the fed chunks is kept by the parser until
+ * it is complete.
+ *
+ * @author Jitendra Kotamraju
+ * @see JsonPushParserFactory
+ */
+public interface JsonPushParser extends JsonParser {
+
+    /**
+     * Feeds more input to the parser. The bytes are copied, the array can
+     * be reused once this method returns.
+     *
+     * @param bytes UTF-8 encoded bytes of the JSON text
+     * @param off offset of the first byte
+     * @param len number of bytes
+     * @throws IllegalStateException if {@link #endOfInput()} is already called
+     */
+    void feed(byte[] bytes, int off, int len);
+
+    /**
+     * Feeds the remaining bytes of the buffer to the parser. The position
+     * of the buffer is advanced to its limit.
+     *
+     * @param buffer UTF-8 encoded bytes of the JSON text
+     * @throws IllegalStateException if {@link #endOfInput()} is already called
+     */
+    void feed(ByteBuffer buffer);
+
+    /**
+     * Tells the parser that there is no more input. The remaining events
+     * can be drained after this.
+     *
+     * @throws javax.json.stream.JsonParsingException if there is
+     *     anything other than whitespace after a complete JSON text
+     */
+    void endOfInput();
+
+    /**
+     * Advances to the next event if it can be parsed from the input fed
+     * so far. The event is then returned by {@link #currentEvent()}.
+     * Otherwise the parser stays in the current state until more input
+     * is fed.
+     *
+     * @return true if the parser advanced to the next event, false if
+     *     more input needs to be fed
+     * @throws java.util.NoSuchElementException if there are no more events
+     * @throws javax.json.stream.JsonParsingException if the parser
+     *     encounters invalid JSON
+     */
+    boolean tryNext();
+
+    /**
+     * Returns the event that the parser is at, that is the one that was
+     * returned by {@link #next()} or advanced to by {@link #tryNext()}.
+     *
+     * @return the current event, or null if the parser is not advanced yet
+     */
+    Event currentEvent();
+
+}
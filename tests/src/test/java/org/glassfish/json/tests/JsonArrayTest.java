@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2012-2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -42,9 +42,14 @@ package org.glassfish.json.tests;
 
 import junit.framework.TestCase;
 
+import org.glassfish.json.api.JsonNumberArray;
+
 import javax.json.*;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -126,6 +131,206 @@ public class JsonArrayTest extends TestCase {
         assertEquals(10, array.getInt(1));
     }
 
+    public void testNumberArrays() throws Exception {
+        checkNumberArray("[1,-2,2147483647,-2147483648,0]", new int[] {1, -2, 2147483647, -2147483648, 0});
+        checkNumberArray("[1,2147483648,-9223372036854775808,9223372036854775807]", null);
+        checkNumberArray("[1.5,2,-3.25,1e5,1E-3,12345678.12345678,0.10,-0.0]", null);
+        checkNumberArray("[1.5,123456789012345678901234567890]", null);
+        checkNumberArray("[1,1e-300]", null);
+
+        JsonArray doubles = Json.createArrayBuilder().add(1.0).add(-2.5).add(Double.MAX_VALUE).build();
+        assertTrue(doubles instanceof JsonNumberArray);
+        assertEquals("[1.0,-2.5,1.7976931348623157E+308]", doubles.toString());
+        assertTrue(Arrays.equals(new double[] {1.0, -2.5, Double.MAX_VALUE},
+                ((JsonNumberArray)doubles).toDoubleArray()));
+        assertEquals(Json.createArrayBuilder().add(1.0).add(-2.5).add(Double.MAX_VALUE).add("x").build()
+                .subList(0, 3), doubles);
+
+        JsonArray mixed = Json.createArrayBuilder().add(1.5).add(2).add(new BigDecimal("2.50")).build();
+        assertTrue(mixed instanceof JsonNumberArray);
+        assertEquals("[1.5,2,2.50]", mixed.toString());
+        assertTrue(Arrays.equals(new int[] {1, 2, 2}, ((JsonNumberArray)mixed).toIntArray()));
+
+        assertFalse(Json.createArrayBuilder().build() instanceof JsonNumberArray);
+        assertFalse(Json.createArrayBuilder().add(1).addNull().build() instanceof JsonNumberArray);
+        assertFalse(Json.createArrayBuilder().add(1).add("1").build() instanceof JsonNumberArray);
+    }
+
+    public void testNumberArrayAccess() {
+        JsonArray array = Json.createArrayBuilder().add(1).add(2L).add(3).build();
+        assertTrue(array instanceof JsonNumberArray);
+        assertEquals(3, array.getInt(2));
+        assertEquals(2, array.getJsonNumber(1).longValue());
+        assertEquals(5, array.getInt(3, 5));
+        assertFalse(array.isNull(0));
+        assertFalse(array.getBoolean(0, false));
+        assertEquals("x", array.getString(0, "x"));
+        try {
+            array.getJsonString(0);
+            fail("JsonArray#getJsonString() should throw ClassCastException");
+        } catch(ClassCastException e) {
+            // Expected
+        }
+        try {
+            array.get(3);
+            fail("JsonArray#get() should throw IndexOutOfBoundsException");
+        } catch(IndexOutOfBoundsException e) {
+            // Expected
+        }
+        try {
+            array.set(0, JsonValue.NULL);
+            fail("JsonArray#set() should throw UnsupportedOperationException");
+        } catch(UnsupportedOperationException e) {
+            // Expected
+        }
+        try {
+            array.remove(0);
+            fail("JsonArray#remove() should throw UnsupportedOperationException");
+        } catch(UnsupportedOperationException e) {
+            // Expected
+        }
+        assertEquals(Arrays.asList(1, 2, 3), toIntegers(array.getValuesAs(JsonNumber.class)));
+        JsonArray copy = Json.createArrayBuilder(array).add(4).build();
+        assertEquals("[1,2,3,4]", copy.toString());
+    }
+
+    // Checks that an array of numbers is read and built packed, and that
+    // it has the same values as an array that is not packed
+    private static void checkNumberArray(String json, int[] ints) {
+        JsonArray array = Json.createReader(new StringReader(json)).readArray();
+        assertTrue(array instanceof JsonNumberArray);
+        String unpackedJson = json.substring(0, json.length() - 1) + ",\"x\"]";
+        JsonArray unpacked = Json.createReader(new StringReader(unpackedJson)).readArray();
+        assertFalse(unpacked instanceof JsonNumberArray);
+        List<JsonValue> expected = unpacked.subList(0, unpacked.size() - 1);
+
+        assertEquals(expected, array);
+        assertEquals(array, expected);
+        assertEquals(expected.hashCode(), array.hashCode());
+        String unpackedString = unpacked.toString();
+        assertEquals(unpackedString.substring(0, unpackedString.length() - 5) + "]", array.toString());
+        int size = expected.size();
+        int[] expectedInts = new int[size];
+        long[] expectedLongs = new long[size];
+        double[] expectedDoubles = new double[size];
+        for(int i=0; i < size; i++) {
+            JsonNumber num = (JsonNumber)expected.get(i);
+            assertEquals(num.toString(), array.getJsonNumber(i).toString());
+            assertEquals(num.isIntegral(), array.getJsonNumber(i).isIntegral());
+            assertEquals(num.intValue(), array.getInt(i));
+            expectedInts[i] = num.intValue();
+            expectedLongs[i] = num.longValue();
+            expectedDoubles[i] = num.doubleValue();
+        }
+        JsonNumberArray numbers = (JsonNumberArray)array;
+        assertTrue(Arrays.equals(expectedInts, numbers.toIntArray()));
+        assertTrue(Arrays.equals(expectedLongs, numbers.toLongArray()));
+        assertTrue(Arrays.equals(expectedDoubles, numbers.toDoubleArray()));
+        if (ints != null) {
+            assertTrue(Arrays.equals(ints, numbers.toIntArray()));
+        }
+
+        JsonArrayBuilder builder = Json.createArrayBuilder();
+        for(JsonValue value : expected) {
+            builder.add(value);
+        }
+        JsonArray built = builder.build();
+        assertTrue(built instanceof JsonNumberArray);
+        assertEquals(array, built);
+    }
+
+    private static List<Integer> toIntegers(List<JsonNumber> numbers) {
+        List<Integer> list = new ArrayList<>();
+        for(JsonNumber num : numbers) {
+            list.add(num.intValue());
+        }
+        return list;
+    }
+
+    public void testBuilderFromArray() {
+        JsonArray[] arrays = { read("[1,2,3]"), read("[1,2147483648,3]"), read("[1.5,2,0.25]"),
+                Json.createArrayBuilder().add(1.5).add(2.5).add(3.5).build(),
+                read("[1.5,123456789012345678901234567890,3]"), read("[1,\"a\",null]") };
+        JsonValue[] values = { value(7), value(1L << 40), value(new BigDecimal("0.5")),
+                value(0.5), value("b"), JsonValue.TRUE };
+        for (JsonArray array : arrays) {
+            String json = array.toString();
+            assertSame(array, Json.createArrayBuilder(array).build());
+            for (JsonValue value : values) {
+                List<JsonValue> expected = new ArrayList<>(array);
+                expected.set(1, value);
+                assertEquals(json, copy(expected),
+                        Json.createArrayBuilder(array).set(1, value).build());
+
+                expected.add(0, value);
+                expected.remove(3);
+                assertEquals(json, copy(expected), Json.createArrayBuilder(array)
+                        .set(1, value).add(0, value).remove(3).build());
+
+                expected.add(value);
+                assertEquals(json, copy(expected), Json.createArrayBuilder(array)
+                        .set(1, value).add(0, value).remove(3).add(value).build());
+            }
+            assertEquals(json, array.toString());
+            try {
+                Json.createArrayBuilder(array).set(3, JsonValue.NULL);
+                fail("JsonArrayBuilder#set() should throw IndexOutOfBoundsException");
+            } catch(IndexOutOfBoundsException e) {
+                // Expected
+            }
+            try {
+                Json.createArrayBuilder(array).add(4, JsonValue.NULL);
+                fail("JsonArrayBuilder#add() should throw IndexOutOfBoundsException");
+            } catch(IndexOutOfBoundsException e) {
+                // Expected
+            }
+            JsonArray empty = Json.createArrayBuilder(array).remove(0).remove(0).remove(0).build();
+            assertTrue(empty.isEmpty());
+            assertFalse(empty instanceof JsonNumberArray);
+        }
+
+        // packed like an array that is built from scratch
+        JsonArray ints = Json.createArrayBuilder(read("[1,\"a\"]")).set(1, 2).build();
+        assertTrue(ints instanceof JsonNumberArray);
+        assertTrue(Arrays.equals(new int[] {1, 2}, ((JsonNumberArray)ints).toIntArray()));
+        JsonArray longs = Json.createArrayBuilder(ints).add(1, 1L << 40).build();
+        assertTrue(longs instanceof JsonNumberArray);
+        assertEquals("[1,1099511627776,2]", longs.toString());
+        assertEquals("[1,2]", ints.toString());
+        assertFalse(Json.createArrayBuilder(ints).add(0, "x").build() instanceof JsonNumberArray);
+    }
+
+    private static JsonArray read(String json) {
+        JsonReader reader = Json.createReader(new StringReader(json));
+        JsonArray array = reader.readArray();
+        reader.close();
+        return array;
+    }
+
+    private static JsonValue value(Object num) {
+        JsonArrayBuilder builder = Json.createArrayBuilder();
+        if (num instanceof String) {
+            builder.add((String)num);
+        } else if (num instanceof Integer) {
+            builder.add((Integer)num);
+        } else if (num instanceof Long) {
+            builder.add((Long)num);
+        } else if (num instanceof Double) {
+            builder.add((Double)num);
+        } else {
+            builder.add((BigDecimal)num);
+        }
+        return builder.build().get(0);
+    }
+
+    private static JsonArray copy(List<JsonValue> values) {
+        JsonArrayBuilder builder = Json.createArrayBuilder();
+        for (JsonValue value : values) {
+            builder.add(value);
+        }
+        return builder.build();
+    }
+
     public void testArrayBuilderNpe() {
         try {
             JsonArray array = Json.createArrayBuilder().add((JsonValue)null).build();
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2012-2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -42,10 +42,13 @@ package org.glassfish.json.tests;
 
 import junit.framework.TestCase;
 import org.glassfish.json.api.BufferPool;
+import org.glassfish.json.api.JsonConfig;
 
 import javax.json.*;
 import javax.json.stream.*;
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
@@ -185,6 +188,69 @@ public class JsonGeneratorTest extends TestCase {
         assertEquals(expected, got);
     }
 
+    public void testEscapedControlChars() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for(char c=0; c < 0x20; c++) {
+            sb.append(c);
+        }
+        sb.append("\"\\/\u007f");
+        StringWriter writer = new StringWriter();
+        JsonGenerator generator = Json.createGenerator(writer);
+        generator.writeStartArray().write(sb.toString()).writeEnd();
+        generator.close();
+
+        assertEquals("[\"\\u0000\\u0001\\u0002\\u0003\\u0004\\u0005\\u0006\\u0007"
+                + "\\b\\t\\n\\u000b\\f\\r\\u000e\\u000f"
+                + "\\u0010\\u0011\\u0012\\u0013\\u0014\\u0015\\u0016\\u0017"
+                + "\\u0018\\u0019\\u001a\\u001b\\u001c\\u001d\\u001e\\u001f"
+                + "\\\"\\\\/\u007f\"]", writer.toString());
+    }
+
+    public void testByteStreamEncodings() throws Exception {
+        String[] strings = {
+            "ascii", "caf\u00e9", "\u20ac100", "\ud83d\ude00\ud83d\ude00",
+            "lone \ud83d high", "lone \ude00 low", "end \ud83d", "\u0001\u00ff\uffff"
+        };
+        Charset[] charsets = {
+            StandardCharsets.UTF_8, StandardCharsets.UTF_16LE, StandardCharsets.ISO_8859_1
+        };
+        for(Charset charset : charsets) {
+            for(int size=10; size < 100; size++) {
+                final BufferPool bufferPool = new JsonParserTest.MyByteBufferPool(size, size);
+                Map<String, Object> config = new HashMap<String, Object>() {{
+                    put(BufferPool.class.getName(), bufferPool);
+                }};
+                JsonGeneratorFactory gf = Json.createGeneratorFactory(config);
+
+                StringWriter sw = new StringWriter();
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                JsonGenerator charGenerator = Json.createGenerator(sw);
+                JsonGenerator byteGenerator = gf.createGenerator(baos, charset);
+                charGenerator.writeStartArray();
+                byteGenerator.writeStartArray();
+                for(String str : strings) {
+                    charGenerator.write(str);
+                    byteGenerator.write(str);
+                }
+                charGenerator.writeEnd().close();
+                byteGenerator.writeEnd().close();
+
+                String expected = new String(sw.toString().getBytes(charset), charset);
+                assertEquals(charset+" "+size, expected, new String(baos.toByteArray(), charset));
+            }
+        }
+    }
+
+    public void testByteStreamFlush() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        JsonGenerator generator = Json.createGenerator(baos);
+        generator.writeStartObject().write("name", "caf\u00e9");
+        generator.flush();
+        assertEquals("{\"name\":\"caf\u00e9\"", new String(baos.toByteArray(), StandardCharsets.UTF_8));
+        generator.writeEnd().close();
+        assertEquals("{\"name\":\"caf\u00e9\"}", new String(baos.toByteArray(), StandardCharsets.UTF_8));
+    }
+
     public void testGeneratorEquals() throws Exception {
         StringWriter sw = new StringWriter();
         JsonGenerator generator = Json.createGenerator(sw);
@@ -409,6 +475,96 @@ public class JsonGeneratorTest extends TestCase {
         }
     }
 
+    public void testLongGenerator() throws Exception {
+        assertEquals("[9223372036854775807]", generateArray(Long.MAX_VALUE));
+        assertEquals("[-9223372036854775808]", generateArray(Long.MIN_VALUE));
+        assertEquals("[-2147483649]", generateArray(Integer.MIN_VALUE - 1L));
+        assertEquals("[2147483648]", generateArray(Integer.MAX_VALUE + 1L));
+        assertEquals("[1000000000000000000]", generateArray(1000000000000000000L));
+
+        Random r = new Random(System.currentTimeMillis());
+        for(int i=0; i < 100000; i++) {
+            long num = r.nextLong() >> r.nextInt(64);
+            assertEquals("["+num+"]", generateArray(num));
+        }
+    }
+
+    public void testDoubleGenerator() throws Exception {
+        assertEquals("[0.0]", generateArray(0.0));
+        assertEquals("[-0.0]", generateArray(-0.0));
+        assertEquals("[1.0]", generateArray(1.0));
+        assertEquals("[-1.5]", generateArray(-1.5));
+        assertEquals("[0.1]", generateArray(0.1));
+        assertEquals("[0.001]", generateArray(0.001));
+        assertEquals("[1.0E-4]", generateArray(0.0001));
+        assertEquals("[1234567.0]", generateArray(1234567.0));
+        assertEquals("[1.0E7]", generateArray(1.0E7));
+        assertEquals("[1.0E23]", generateArray(1.0E23));
+        assertEquals("[2.82879384806159E17]", generateArray(2.82879384806159E17));
+        assertEquals("[1.7976931348623157E308]", generateArray(Double.MAX_VALUE));
+        assertEquals("[4.9E-324]", generateArray(Double.MIN_VALUE));
+        assertEquals("[-2.2250738585072014E-308]", generateArray(-Double.MIN_NORMAL));
+
+        Random r = new Random(System.currentTimeMillis());
+        for(int i=0; i < 100000; i++) {
+            double num = Double.longBitsToDouble(r.nextLong());
+            if (Double.isNaN(num) || Double.isInfinite(num)) {
+                continue;
+            }
+            String str = generateArray(num);
+            assertEquals(num, Double.parseDouble(str.substring(1, str.length()-1)));
+        }
+    }
+
+    public void testNumberBufferSizes() {
+        JsonReaderFactory rf = Json.createReaderFactory(null);
+        Random r = new Random(System.currentTimeMillis());
+        for(int size=10; size < 100; size++) {
+            final JsonParserTest.MyBufferPool bufferPool = new JsonParserTest.MyBufferPool(size);
+            Map<String, Object> config = new HashMap<String, Object>() {{
+                put(BufferPool.class.getName(), bufferPool);
+            }};
+            JsonGeneratorFactory gf = Json.createGeneratorFactory(config);
+            for(int i=0; i < 100; i++) {
+                long l = r.nextLong();
+                double d = -Double.MIN_NORMAL * r.nextDouble();
+                StringWriter sw = new StringWriter();
+                JsonGenerator generator = gf.createGenerator(sw);
+                generator.writeStartObject()
+                        .write("l", l)
+                        .write("d", d)
+                        .writeStartArray("a")
+                            .write(l)
+                            .write(d)
+                        .writeEnd()
+                    .writeEnd().close();
+
+                JsonReader reader = rf.createReader(new StringReader(sw.toString()));
+                JsonObject got = reader.readObject();
+                reader.close();
+
+                assertEquals(l, got.getJsonNumber("l").longValue());
+                assertEquals(d, got.getJsonNumber("d").doubleValue());
+                assertEquals(l, got.getJsonArray("a").getJsonNumber(0).longValue());
+                assertEquals(d, got.getJsonArray("a").getJsonNumber(1).doubleValue());
+            }
+        }
+    }
+
+    private static String generateArray(long value) {
+        StringWriter sw = new StringWriter();
+        JsonGenerator generator = Json.createGenerator(sw);
+        generator.writeStartArray().write(value).writeEnd().close();
+        return sw.toString();
+    }
+
+    private static String generateArray(double value) {
+        StringWriter sw = new StringWriter();
+        JsonGenerator generator = Json.createGenerator(sw);
+        generator.writeStartArray().write(value).writeEnd().close();
+        return sw.toString();
+    }
+
     public void testGeneratorBuf() throws Exception {
         JsonGeneratorFactory gf = Json.createGeneratorFactory(null);
         JsonReaderFactory rf = Json.createReaderFactory(null);
@@ -506,6 +662,57 @@ public class JsonGeneratorTest extends TestCase {
         assertEquals(expected, got);
     }
 
+    public void testDeeplyNestedJsonValue() throws Exception {
+        int depth = 100000;
+        JsonValue value = JsonValue.TRUE;
+        for(int i=depth-1; i >= 0; i--) {
+            value = (i % 2 == 0)
+                    ? Json.createArrayBuilder().add(value).build()
+                    : Json.createObjectBuilder().add("a", value).build();
+        }
+        StringWriter sw = new StringWriter();
+        JsonGenerator generator = Json.createGenerator(sw);
+        generator.writeStartArray().write(value).writeEnd();
+        generator.close();
+
+        JsonReader reader = Json.createReader(new StringReader(sw.toString()));
+        value = reader.readArray().get(0);
+        reader.close();
+        for(int i=0; i < depth; i++) {
+            value = (i % 2 == 0) ? ((JsonArray)value).get(0) : ((JsonObject)value).get("a");
+        }
+        assertEquals(JsonValue.TRUE, value);
+    }
+
+    public void testMaxDepth() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(JsonConfig.MAX_DEPTH, 2);
+        JsonGeneratorFactory factory = Json.createGeneratorFactory(config);
+        assertEquals(2, factory.getConfigInUse().get(JsonConfig.MAX_DEPTH));
+
+        StringWriter sw = new StringWriter();
+        JsonGenerator generator = factory.createGenerator(sw);
+        generator.writeStartArray().writeStartObject().writeEnd().writeStartArray();
+        try {
+            generator.writeStartObject();
+            fail("writeStartObject() should throw JsonGenerationException for depth 3");
+        } catch (JsonGenerationException e) {
+            // Expected
+        }
+
+        JsonArray nested = Json.createArrayBuilder()
+                .add(Json.createObjectBuilder().add("a", Json.createArrayBuilder()))
+                .build();
+        generator = factory.createGenerator(new StringWriter());
+        generator.writeStartObject().write("b", nested.getJsonObject(0).getJsonArray("a"));
+        try {
+            generator.write("c", nested);
+            fail("write() should throw JsonGenerationException for depth 3");
+        } catch (JsonGenerationException e) {
+            // Expected
+        }
+    }
+
     public void testFlush() throws Exception {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         JsonGenerator gen = Json.createGenerator(baos);
@@ -0,0 +1,263 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.tests;
+
+import junit.framework.TestCase;
+import org.glassfish.json.api.JsonConfig;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonReaderFactory;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParsingException;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the readers that read JSON objects and arrays lazily
+ *
+ * @author Jitendra Kotamraju
+ */
+public class JsonLazyReaderTest extends TestCase {
+
+    private static final JsonReaderFactory LAZY = Json.createReaderFactory(
+            Collections.singletonMap(JsonConfig.LAZY_READ, true));
+
+    public JsonLazyReaderTest(String testName) {
+        super(testName);
+    }
+
+    public void testConfigInUse() {
+        assertEquals(true, LAZY.getConfigInUse().get(JsonConfig.LAZY_READ));
+        assertFalse(Json.createReaderFactory(null).getConfigInUse()
+                .containsKey(JsonConfig.LAZY_READ));
+    }
+
+    public void testSamples() throws Exception {
+        for(String name : new String[] {"/wiki.json", "/twitter.json", "/facebook.json",
+                "/facebook1.json", "/facebook2.json", "/rfc6901.json"}) {
+            byte[] bytes = JsonParserTest.readAll(
+                    JsonLazyReaderTest.class.getResourceAsStream(name));
+            JsonStructure expected = readEager(bytes);
+            JsonStructure lazy = readLazy(bytes);
+            assertEquals(name, expected, lazy);
+            assertEquals(name, lazy, expected);
+            assertEquals(name, expected.hashCode(), lazy.hashCode());
+            assertEquals(name, expected.toString(), lazy.toString());
+        }
+    }
+
+    public void testValues() {
+        JsonObject object = (JsonObject)readLazy(("{\"int\":-12, \"long\":12345678901,"
+                + "\"big\":123456789012345678901234567890, \"dec\":1.5e-3,"
+                + "\"str\":\"caf\u00e9\", \"esc\":\"a\\\"b\\\\c\\u00e9\\n\","
+                + "\"t\":true, \"f\":false, \"n\":null, \"empty\":{}, \"none\":[],"
+                + "\"nested\":{\"a\":[1,{\"b\":\"c\"},[true]]}}").getBytes(StandardCharsets.UTF_8));
+        assertEquals(12, object.size());
+        assertEquals(-12, object.getInt("int"));
+        assertEquals(12345678901L, object.getJsonNumber("long").longValue());
+        assertEquals(new BigDecimal("123456789012345678901234567890"),
+                object.getJsonNumber("big").bigDecimalValue());
+        assertEquals(new BigDecimal("1.5e-3"), object.getJsonNumber("dec").bigDecimalValue());
+        assertEquals("caf\u00e9", object.getString("str"));
+        assertEquals("a\"b\\c\u00e9\n", object.getString("esc"));
+        assertTrue(object.getBoolean("t"));
+        assertFalse(object.getBoolean("f"));
+        assertTrue(object.isNull("n"));
+        assertTrue(object.getJsonObject("empty").isEmpty());
+        assertTrue(object.getJsonArray("none").isEmpty());
+        assertEquals("c", object.getJsonObject("nested").getJsonArray("a")
+                .getJsonObject(1).getString("b"));
+        assertTrue(object.getJsonObject("nested").getJsonArray("a")
+                .getJsonArray(2).getBoolean(0));
+        assertSame(object.get("nested"), object.get("nested"));
+        assertNull(object.get("missing"));
+        assertFalse(object.containsKey("missing"));
+        assertEquals("default", object.getString("missing", "default"));
+        assertEquals(7, object.getInt("str", 7));
+        assertEquals(Arrays.asList("int", "long", "big", "dec", "str", "esc", "t", "f", "n",
+                "empty", "none", "nested"), new ArrayList<>(object.keySet()));
+
+        JsonArray array = (JsonArray)readLazy("[1, \"two\", [3]]".getBytes(StandardCharsets.UTF_8));
+        assertEquals(3, array.size());
+        assertEquals(1, array.getInt(0));
+        assertEquals("two", array.getString(1));
+        assertEquals(3, array.getJsonArray(2).getInt(0));
+        try {
+            array.get(3);
+            fail("get() should throw IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    public void testDuplicateKeys() {
+        StringBuilder sb = new StringBuilder("{");
+        for(int i=0; i < 40; i++) {
+            sb.append("\"k").append(i % 13).append("\":").append(i).append(',');
+        }
+        sb.append("\"k0\":\"last\"}");
+        byte[] large = sb.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] small = "{\"a\":1,\"b\":2,\"a\":3}".getBytes(StandardCharsets.UTF_8);
+        for(byte[] bytes : new byte[][] {large, small}) {
+            JsonObject expected = (JsonObject)readEager(bytes);
+            JsonObject lazy = (JsonObject)readLazy(bytes);
+            assertEquals(expected, lazy);
+            assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(lazy.keySet()));
+            assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(lazy.values()));
+        }
+    }
+
+    public void testErrors() {
+        // the top-level structure is validated when it is read
+        String[] errors = {"{\"a\" 1}", "[1,,2]", "{\"a\":[1]", "[\"\\x\"]", "{\"a\":1,}"};
+        for(String json : errors) {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            String expected = readError(bytes, false);
+            assertNotNull(json, expected);
+            assertEquals(json, expected, readError(bytes, true));
+        }
+
+        // a nested structure, when it is accessed
+        byte[] bytes = "{\"a\":1,\n \"b\":[2,\n{\"c\" 3}]}".getBytes(StandardCharsets.UTF_8);
+        String expected = readError(bytes, false);
+        JsonObject object = (JsonObject)readLazy(bytes);
+        assertEquals(1, object.getInt("a"));
+        JsonArray b = object.getJsonArray("b");
+        assertEquals(2, b.getInt(0));
+        try {
+            b.get(1);
+            fail("get() should throw JsonParsingException");
+        } catch (JsonParsingException e) {
+            assertEquals(expected, e.getMessage());
+            assertEquals(3, e.getLocation().getLineNumber());
+        }
+    }
+
+    public void testExpectedType() {
+        JsonReader reader = LAZY.createReader(new ByteArrayInputStream(
+                "[1]".getBytes(StandardCharsets.UTF_8)));
+        try {
+            reader.readObject();
+            fail("readObject() should throw JsonException");
+        } catch (JsonException e) {
+            // expected
+        }
+        reader = LAZY.createReader(new ByteArrayInputStream(
+                "{}".getBytes(StandardCharsets.UTF_8)));
+        try {
+            reader.readArray();
+            fail("readArray() should throw JsonException");
+        } catch (JsonException e) {
+            // expected
+        }
+        reader = LAZY.createReader(new ByteArrayInputStream(
+                "{}".getBytes(StandardCharsets.UTF_8)));
+        reader.read();
+        try {
+            reader.read();
+            fail("read() should throw IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    public void testEncodings() {
+        String json = "{\"a\":[1,\"\u00e9\"]}";
+        JsonStructure expected = readEager(json.getBytes(StandardCharsets.UTF_8));
+        byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+        byte[] bom = new byte[utf8.length + 3];
+        bom[0] = (byte)0xEF;
+        bom[1] = (byte)0xBB;
+        bom[2] = (byte)0xBF;
+        System.arraycopy(utf8, 0, bom, 3, utf8.length);
+        assertEquals(expected, readLazy(bom));
+        assertEquals(expected, readLazy(json.getBytes(StandardCharsets.UTF_16LE)));
+        assertEquals(expected, LAZY.createReader(new ByteArrayInputStream(
+                json.getBytes(StandardCharsets.UTF_16BE)), StandardCharsets.UTF_16BE).read());
+    }
+
+    public void testCanonicalizeKeys() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(JsonConfig.LAZY_READ, true);
+        config.put(JsonConfig.CANONICALIZE_KEYS, true);
+        JsonReaderFactory factory = Json.createReaderFactory(config);
+        JsonArray array = factory.createReader(new ByteArrayInputStream(
+                "[{\"key\":1},{\"key\":2}]".getBytes(StandardCharsets.UTF_8))).readArray();
+        assertSame(array.getJsonObject(0).keySet().iterator().next(),
+                array.getJsonObject(1).keySet().iterator().next());
+    }
+
+    private static JsonStructure readEager(byte[] bytes) {
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(bytes))) {
+            return reader.read();
+        }
+    }
+
+    private static JsonStructure readLazy(byte[] bytes) {
+        try (JsonReader reader = LAZY.createReader(new ByteArrayInputStream(bytes))) {
+            return reader.read();
+        }
+    }
+
+    // Reads all of the input and returns the message of the error
+    private static String readError(byte[] bytes, boolean lazy) {
+        try {
+            JsonValue value = lazy ? readLazy(bytes) : readEager(bytes);
+            value.toString();
+        } catch (JsonParsingException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,248 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.tests;
+
+import junit.framework.TestCase;
+import org.glassfish.json.api.JsonConfig;
+import org.glassfish.json.api.JsonLinesReaderFactory;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.stream.JsonParsingException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Tests JsonLinesReaderFactory
+ *
+ * @author Jitendra Kotamraju
+ */
+public class JsonLinesReaderTest extends TestCase {
+
+    private static final int LINES = 20000;
+
+    public JsonLinesReaderTest(String testName) {
+        super(testName);
+    }
+
+    public void testByteBuffer() {
+        byte[] bytes = createLines(LINES);
+        List<Integer> ids = ids(createFactory().readLines(ByteBuffer.wrap(bytes), true));
+        assertEquals(expectedIds(LINES), ids);
+    }
+
+    public void testByteBufferPosition() {
+        byte[] bytes = createLines(10);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 10);
+        buffer.position(5);
+        buffer.put(bytes);
+        buffer.flip();
+        buffer.position(5);
+        List<Integer> ids = ids(createFactory().readLines(buffer, true));
+        assertEquals(expectedIds(10), ids);
+        assertEquals(5, buffer.position());
+    }
+
+    public void testDirectByteBuffer() {
+        byte[] bytes = createLines(LINES);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        List<Integer> ids = ids(createFactory().readLines(buffer, true));
+        assertEquals(expectedIds(LINES), ids);
+    }
+
+    public void testUnordered() {
+        byte[] bytes = createLines(LINES);
+        List<Integer> ids = ids(createFactory().readLines(ByteBuffer.wrap(bytes), false));
+        Collections.sort(ids);
+        assertEquals(expectedIds(LINES), ids);
+    }
+
+    public void testInputStream() throws Exception {
+        // more than a few batches
+        byte[] bytes = createLines(5 * LINES);
+        final boolean[] closed = new boolean[1];
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+            }
+        };
+        try (Stream<JsonObject> stream = createFactory().readLines(in, true)) {
+            assertEquals(expectedIds(5 * LINES), ids(stream));
+        }
+        assertTrue(closed[0]);
+    }
+
+    public void testInputStreamLongLine() {
+        StringBuilder sb = new StringBuilder();
+        for(int i=0; i < 100000; i++) {
+            sb.append('x');
+        }
+        String json = "{\"id\":0}\n{\"id\":1,\"long\":\"" + sb + "\"}\n{\"id\":2}";
+        Stream<JsonObject> stream = createFactory().readLines(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), true);
+        List<JsonObject> list = stream.collect(Collectors.toList());
+        assertEquals(3, list.size());
+        assertEquals(sb.toString(), list.get(1).getString("long"));
+        assertEquals(2, list.get(2).getInt("id"));
+    }
+
+    public void testSequential() {
+        byte[] bytes = createLines(LINES);
+        List<Integer> ids = ids(createFactory().readLines(ByteBuffer.wrap(bytes), true).sequential());
+        assertEquals(expectedIds(LINES), ids);
+    }
+
+    public void testPath() throws Exception {
+        File file = File.createTempFile("lines", ".json");
+        try {
+            Files.write(file.toPath(), createLines(LINES));
+            try (Stream<JsonObject> stream = createFactory().readLines(file.toPath(), true)) {
+                assertEquals(expectedIds(LINES), ids(stream));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testBlankLinesAndBom() {
+        String json = "\ufeff{\"id\":0}\r\n\r\n  \n{\"id\":1} \r\n{\"id\":2}";
+        List<Integer> ids = ids(createFactory().readLines(
+                ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), true));
+        assertEquals(Arrays.asList(0, 1, 2), ids);
+
+        ids = ids(createFactory().readLines(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), true));
+        assertEquals(Arrays.asList(0, 1, 2), ids);
+    }
+
+    public void testEmpty() {
+        assertEquals(0, createFactory().readLines(ByteBuffer.allocate(0), true).count());
+        assertEquals(0, createFactory().readLines(
+                new ByteArrayInputStream(new byte[0]), true).count());
+    }
+
+    public void testInvalidLine() {
+        String json = "{\"id\":0}\n{\"id\":}\n";
+        try {
+            createFactory().readLines(
+                    ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), true).count();
+            fail("Expected JsonParsingException");
+        } catch (JsonParsingException e) {
+            // relative to the line
+            assertEquals(1, e.getLocation().getLineNumber());
+            assertEquals(7, e.getLocation().getColumnNumber());
+        }
+    }
+
+    public void testNotObjectLine() {
+        String json = "{\"id\":0}\n[1]\n";
+        try {
+            createFactory().readLines(
+                    ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), true).count();
+            fail("Expected JsonException");
+        } catch (JsonException e) {
+            // expected
+        }
+    }
+
+    public void testMaxDepth() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(JsonConfig.MAX_DEPTH, 2);
+        JsonLinesReaderFactory factory = (JsonLinesReaderFactory)Json.createReaderFactory(config);
+        byte[] bytes = "{\"a\":{\"b\":1}}\n{\"a\":{\"b\":{\"c\":1}}}\n"
+                .getBytes(StandardCharsets.UTF_8);
+        try {
+            factory.readLines(ByteBuffer.wrap(bytes), true).count();
+            fail("Expected JsonParsingException for depth 3");
+        } catch (JsonParsingException e) {
+            assertEquals(1, e.getLocation().getLineNumber());
+        }
+        try {
+            factory.readLines(new ByteArrayInputStream(bytes), true).count();
+            fail("Expected JsonParsingException for depth 3");
+        } catch (JsonParsingException e) {
+            // expected
+        }
+        assertEquals(1, factory.readLines(ByteBuffer.wrap(bytes, 0, 14), true).count());
+    }
+
+    private static JsonLinesReaderFactory createFactory() {
+        return (JsonLinesReaderFactory)Json.createReaderFactory(null);
+    }
+
+    private static List<Integer> ids(Stream<JsonObject> stream) {
+        return stream.map(obj -> obj.getInt("id")).collect(Collectors.toList());
+    }
+
+    private static List<Integer> expectedIds(int count) {
+        List<Integer> ids = new ArrayList<>();
+        for(int i=0; i < count; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+
+    private static byte[] createLines(int count) {
+        StringBuilder sb = new StringBuilder();
+        for(int i=0; i < count; i++) {
+            sb.append("{\"id\":").append(i)
+                    .append(",\"name\":\"n\\u00e9").append(i).append("\"}\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2012-2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -220,6 +220,69 @@ public class JsonNumberTest extends TestCase {
         assertEquals("[12.1]", sw.toString());
     }
 
+    public void testDoubleNumber() {
+        double[] values = { 0.0, -0.0, 1.0, -12.5, 0.1, 1e10, 1.5e-7,
+                Double.MIN_VALUE, Double.MAX_VALUE, 3e9, -3e9, 1e20, -1e19 };
+        for (double value : values) {
+            JsonNumber num = Json.createArrayBuilder().add(value).build().getJsonNumber(0);
+            BigDecimal bd = BigDecimal.valueOf(value);
+            assertEquals(value, num.doubleValue());
+            assertEquals(bd, num.bigDecimalValue());
+            assertEquals(bd.intValue(), num.intValue());
+            assertEquals(bd.longValue(), num.longValue());
+            assertEquals(bd.scale() == 0, num.isIntegral());
+            assertEquals(bd.toString(), num.toString());
+            assertEquals(Json.createArrayBuilder().add(bd).build().get(0), num);
+            assertEquals(bd.hashCode(), num.hashCode());
+        }
+    }
+
+    public void testDoubleNaN() {
+        try {
+            Json.createArrayBuilder().add(Double.NaN);
+            fail("Expected NumberFormatException");
+        } catch (NumberFormatException expected) {
+            // no-op
+        }
+        try {
+            Json.createObjectBuilder().add("a", Double.POSITIVE_INFINITY);
+            fail("Expected NumberFormatException");
+        } catch (NumberFormatException expected) {
+            // no-op
+        }
+    }
+
+    public void testReadNumbers() {
+        String[] nums = { "0", "-0", "12", "-2147483649", "9223372036854775807",
+                "-9223372036854775808", "9223372036854775808", "1.10", "-0.0",
+                "123456789.123456789", "1234567890.123456789", "1e3", "1.5E-3",
+                "-2.5e+10", "0.000000000000000001", "1e1000000000", "99999999999999999" };
+        for (String str : nums) {
+            JsonReader reader = Json.createReader(new StringReader("[" + str + "]"));
+            JsonNumber num = reader.readArray().getJsonNumber(0);
+            reader.close();
+            BigDecimal bd = new BigDecimal(str);
+            assertEquals(str, bd, num.bigDecimalValue());
+            assertEquals(str, bd.toString(), num.toString());
+            assertEquals(str, bd.intValue(), num.intValue());
+            assertEquals(str, bd.longValue(), num.longValue());
+            assertEquals(str, bd.doubleValue(), num.doubleValue());
+            assertEquals(str, bd.scale() == 0, num.isIntegral());
+            assertEquals(str, Json.createArrayBuilder().add(bd).build().get(0), num);
+        }
+    }
+
+    public void testLongExact() {
+        JsonNumber num = Json.createArrayBuilder().add(Long.MAX_VALUE).build().getJsonNumber(0);
+        assertEquals(-1, num.intValue());
+        try {
+            num.intValueExact();
+            fail("Expected Arithmetic exception");
+        } catch (ArithmeticException expected) {
+            // no-op
+        }
+    }
+
     public void testBigIntegerExact() {
         try {
             JsonArray array = Json.createArrayBuilder().add(12345.12345).build();
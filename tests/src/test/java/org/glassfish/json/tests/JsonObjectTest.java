@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2012-2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -43,6 +43,8 @@ package org.glassfish.json.tests;
 import junit.framework.TestCase;
 
 import javax.json.*;
+import java.io.StringReader;
+import java.util.*;
 
 /**
  * @author Jitendra Kotamraju
@@ -137,6 +139,97 @@ public class JsonObjectTest extends TestCase {
         }
     }
 
+    public void testClear() {
+        JsonObject obj = Json.createObjectBuilder().add("foo", 1).build();
+        try {
+            obj.clear();
+            fail("JsonObject#clear() should throw UnsupportedOperationException");
+        } catch(UnsupportedOperationException e) {
+            // Expected
+        }
+    }
+
+    public void testSizes() {
+        for(int size=0; size < 100; size++) {
+            JsonObjectBuilder builder = Json.createObjectBuilder();
+            Map<String, JsonValue> expected = new LinkedHashMap<>();
+            for(int i=size-1; i >= 0; i--) {
+                builder.add("key" + i, i);
+                expected.put("key" + i, number(i));
+            }
+            JsonObject obj = builder.build();
+            assertEquals(size, obj.size());
+            assertEquals(expected, obj);
+            assertEquals(obj, expected);
+            assertEquals(expected.hashCode(), obj.hashCode());
+            assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(obj.keySet()));
+            for(int i=0; i < size; i++) {
+                assertEquals(i, obj.getInt("key" + i));
+                assertTrue(obj.containsKey("key" + i));
+            }
+            assertNull(obj.get("key" + size));
+            assertFalse(obj.containsKey("key"));
+            assertFalse(obj.containsKey(null));
+            assertFalse(obj.containsKey(1));
+            assertEquals(obj, Json.createReader(new StringReader(obj.toString())).readObject());
+        }
+    }
+
+    public void testCollidingKeys() {
+        // "Aa" and "BB" have the same hash code
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        String[] keys = { "AaAa", "AaBB", "BBAa", "BBBB", "AaAaAa", "AaAaBB", "AaBBAa",
+                "AaBBBB", "BBAaAa", "BBAaBB", "BBBBAa", "BBBBBB" };
+        for(int i=0; i < keys.length; i++) {
+            builder.add(keys[i], i);
+        }
+        JsonObject obj = builder.build();
+        for(int i=0; i < keys.length; i++) {
+            assertEquals(i, obj.getInt(keys[i]));
+        }
+        assertNull(obj.get("AaAaAaAa"));
+    }
+
+    public void testDuplicateKeys() {
+        JsonObject obj = Json.createObjectBuilder()
+                .add("a", 1).add("b", 2).add("a", 3).remove("b").add("c", 4)
+                .build();
+        assertEquals(Arrays.asList("a", "c"), new ArrayList<>(obj.keySet()));
+        assertEquals(3, obj.getInt("a"));
+
+        obj = Json.createReader(new StringReader("{\"a\":1,\"b\":2,\"a\":3}")).readObject();
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(obj.keySet()));
+        assertEquals(3, obj.getInt("a"));
+    }
+
+    public void testEntrySet() {
+        JsonObject obj = Json.createObjectBuilder().add("a", 1).add("b", true).build();
+        Iterator<Map.Entry<String, JsonValue>> it = obj.entrySet().iterator();
+        Map.Entry<String, JsonValue> entry = it.next();
+        assertEquals("a", entry.getKey());
+        assertEquals(number(1), entry.getValue());
+        try {
+            entry.setValue(JsonValue.NULL);
+            fail("Map.Entry#setValue() should throw UnsupportedOperationException");
+        } catch(UnsupportedOperationException e) {
+            // Expected
+        }
+        try {
+            it.remove();
+            fail("Iterator#remove() should throw UnsupportedOperationException");
+        } catch(UnsupportedOperationException e) {
+            // Expected
+        }
+        assertEquals(JsonValue.TRUE, it.next().getValue());
+        assertFalse(it.hasNext());
+        try {
+            it.next();
+            fail("Iterator#next() should throw NoSuchElementException");
+        } catch(NoSuchElementException e) {
+            // Expected
+        }
+    }
+
     public void testObjectBuilderNpe() {
         try {
             JsonObject obj = Json.createObjectBuilder().add(null, 1).build();
@@ -146,4 +239,8 @@ public class JsonObjectTest extends TestCase {
         }
     }
 
+    private static JsonValue number(int value) {
+        return Json.createArrayBuilder().add(value).build().get(0);
+    }
+
 }
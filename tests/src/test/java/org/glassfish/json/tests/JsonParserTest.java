@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2012-2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -47,16 +47,25 @@ import javax.json.stream.JsonLocation;
 import javax.json.stream.JsonParser;
 import javax.json.stream.JsonParser.Event;
 import javax.json.stream.JsonParserFactory;
+import javax.json.stream.JsonParsingException;
 import java.io.*;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Random;
 
 import org.glassfish.json.api.BufferPool;
+import org.glassfish.json.api.JsonConfig;
 
 /**
  * JsonParser Tests
@@ -598,6 +607,98 @@ public class JsonParserTest extends TestCase {
 
     }
 
+    public void testLongNumber() {
+        JsonParserFactory factory = Json.createParserFactory(null);
+
+        Random r = new Random(System.currentTimeMillis());
+
+        String[] nums = { "9223372036854775807", "-9223372036854775808",
+                "9223372036854775808", "-9223372036854775809",
+                "99999999999999999999", "1.5e3", "-2.7", "1e19" };
+        for (String num : nums) {
+            assertLong(factory, num);
+        }
+        for(int i=0; i < 100000; i++) {
+            long num = r.nextLong() >> r.nextInt(64);
+            assertLong(factory, String.valueOf(num));
+        }
+    }
+
+    private static void assertLong(JsonParserFactory factory, String num) {
+        long expected = new BigDecimal(num).longValue();
+        JsonParser parser = factory.createParser(new StringReader("["+num+"]"));
+        parser.next();
+        parser.next();
+        assertEquals("Fails for num="+num, expected, parser.getLong());
+        assertEquals("Fails for num="+num, (int)expected, parser.getInt());
+        parser.close();
+
+        parser = factory.createParser(new ByteArrayInputStream(("["+num+"]").getBytes(StandardCharsets.UTF_8)));
+        parser.next();
+        parser.next();
+        assertEquals("Fails for num="+num, expected, parser.getLong());
+        assertEquals("Fails for num="+num, (int)expected, parser.getInt());
+        parser.close();
+    }
+
+    public void testDoubleNumber() {
+        JsonParserFactory factory = Json.createParserFactory(null);
+
+        Random r = new Random(System.currentTimeMillis());
+
+        String[] nums = { "0", "-0", "-0.0", "-0e5", "0e10", "1", "1.5", "-2.25E-3", "1e23",
+                "9007199254740993", "2.2250738585072011e-308", "4.9e-324", "2e-324",
+                "1.7976931348623157e308", "1.8e308", "1e-400", "0.000000000000000000000001",
+                "123456789012345678901234567890", "1.00000000000000000000000000001",
+                "3.141592653589793238462643383279", "1E+2", "12345678901234567e-10" };
+        for (String num : nums) {
+            assertDouble(factory, num);
+        }
+        for(int i=0; i < 100000; i++) {
+            String num;
+            switch (i % 3) {
+                case 0:
+                    double d = Double.longBitsToDouble(r.nextLong());
+                    num = Double.isNaN(d) || Double.isInfinite(d) ? "0" : Double.toString(d);
+                    break;
+                case 1:
+                    num = (r.nextLong() >> r.nextInt(64)) + "e" + (r.nextInt(700) - 350);
+                    break;
+                default:
+                    num = (r.nextInt() >> r.nextInt(32)) + "." + Math.abs(r.nextLong() >> r.nextInt(64));
+                    break;
+            }
+            assertDouble(factory, num);
+        }
+    }
+
+    private static void assertDouble(JsonParserFactory factory, String num) {
+        // keeps the sign of zero, unlike BigDecimal
+        double expected = Double.parseDouble(num);
+        JsonParser parser = factory.createParser(new StringReader("["+num+"]"));
+        parser.next();
+        parser.next();
+        assertEquals("Fails for num="+num, expected, parser.getDouble());
+        parser.close();
+
+        parser = factory.createParser(new ByteArrayInputStream(("["+num+"]").getBytes(StandardCharsets.UTF_8)));
+        parser.next();
+        parser.next();
+        assertEquals("Fails for num="+num, expected, parser.getDouble());
+        parser.close();
+    }
+
+    public void testDoubleNumberStructure() {
+        JsonArray array = Json.createArrayBuilder().add(1.5).add(2).build();
+        JsonParser parser = Json.createParserFactory(null).createParser(array);
+        parser.next();
+        parser.next();
+        assertEquals(1.5, parser.getDouble());
+        parser.next();
+        assertEquals(2.0, parser.getDouble());
+        parser.close();
+    }
+
     static class MyBufferPool implements BufferPool {
         private boolean takeCalled;
         private boolean recycleCalled;
@@ -766,4 +867,473 @@ public class JsonParserTest extends TestCase {
         }
     }
 
+    static class MyByteBufferPool extends MyBufferPool {
+        private final int byteSize;
+
+        MyByteBufferPool(int size, int byteSize) {
+            super(size);
+            this.byteSize = byteSize;
+        }
+
+        @Override
+        public byte[] takeBytes() {
+            return new byte[byteSize];
+        }
+    }
+
+    public void testUtf8Strings() {
+        String[][] strings = {
+            { "ascii", "ascii" },
+            { "caf\u00e9 \u20ac \ud83d\ude00", "caf\u00e9 \u20ac \ud83d\ude00" },
+            { "\\u0063af\\u00e9 \\u20ac \\ud83d\\ude00", "caf\u00e9 \u20ac \ud83d\ude00" },
+            { "\\ud83d\u00e9\\ude00", "\ud83d\u00e9\ude00" },
+            { "a\\n\\t\\\"\\\\\\/b\u00e9", "a\n\t\"\\/b\u00e9" },
+            { "", "" }
+        };
+        for (String[] pair : strings) {
+            byte[] json = ("[\"" + pair[0] + "\", 12]").getBytes(StandardCharsets.UTF_8);
+            JsonParser parser = Json.createParser(new ByteArrayInputStream(json));
+            assertEquals(Event.START_ARRAY, parser.next());
+            assertEquals(Event.VALUE_STRING, parser.next());
+            assertEquals(pair[1], parser.getString());
+            assertEquals(Event.VALUE_NUMBER, parser.next());
+            assertEquals(12, parser.getInt());
+            assertEquals(Event.END_ARRAY, parser.next());
+            parser.close();
+        }
+    }
+
+    public void testUtf8StringsUsingBuffers() throws Throwable {
+        String name = "\u00e9\\u00e9\u20ac\\ud83d\\ude00\ud83d\ude00a\\n";
+        String expected = "\u00e9\u00e9\u20ac\ud83d\ude00\ud83d\ude00a\n";
+        int nameBytes = name.getBytes(StandardCharsets.UTF_8).length;
+        for(int size=1; size < 100; size++) {
+            final MyBufferPool bufferPool = new MyByteBufferPool(1024, size);
+            Map<String, Object> config = new HashMap<String, Object>() {{
+                put(BufferPool.class.getName(), bufferPool);
+            }};
+            JsonParserFactory factory = Json.createParserFactory(config);
+            for(int i=0; i < 40; i++) {
+                StringBuilder sb = new StringBuilder();
+                for(int j=0; j < i; j++) {
+                    sb.append(' ');
+                }
+                String str = sb+"{\""+name+"\":\""+name+"\"}";
+                try {
+                    JsonParser parser = factory.createParser(
+                            new ByteArrayInputStream(str.getBytes(StandardCharsets.UTF_8)));
+                    parser.next();
+                    parser.next();
+                    assertEquals(expected, parser.getString());
+                    assertEquals(i+nameBytes+3, parser.getLocation().getStreamOffset());
+                    parser.next();
+                    assertEquals(expected, parser.getString());
+                    assertEquals(i+2*nameBytes+6, parser.getLocation().getStreamOffset());
+                    parser.next();
+                    parser.close();
+                } catch (Throwable e) {
+                    throw new Throwable("Failed for buffer size="+size+" offset="+i, e);
+                }
+            }
+        }
+    }
+
+    public void testWikiByteBuffer() throws Exception {
+        byte[] bytes = readAll(JsonParserTest.class.getResourceAsStream("/wiki.json"));
+        JsonParser parser = Json.createParser(ByteBuffer.wrap(bytes));
+        testWiki(parser);
+        parser.close();
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        parser = Json.createParser(direct);
+        testWiki(parser);
+        parser.close();
+        assertEquals(0, direct.position());
+    }
+
+    public void testWikiByteBufferUTF16LE() throws Exception {
+        byte[] bytes = readAll(JsonParserTest.class.getResourceAsStream("/wiki.json"));
+        String str = new String(bytes, StandardCharsets.UTF_8);
+        JsonParser parser = Json.createParser(ByteBuffer.wrap(str.getBytes(StandardCharsets.UTF_16LE)));
+        testWiki(parser);
+        parser.close();
+    }
+
+    public void testWikiMappedFile() throws Exception {
+        File file = File.createTempFile("wiki", ".json");
+        try {
+            byte[] bytes = readAll(JsonParserTest.class.getResourceAsStream("/wiki.json"));
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(bytes);
+            out.close();
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                JsonParser parser = Json.createParser(buffer);
+                testWiki(parser);
+                parser.close();
+            } finally {
+                raf.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testByteBufferSlice() {
+        byte[] bytes = "xx[\"a\\u00e9b\", \"c\u00e9\", 1.5]yy".getBytes(StandardCharsets.UTF_8);
+        byte[] copy = bytes.clone();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 4).slice();
+        JsonParser parser = Json.createParser(buffer);
+        assertEquals(Event.START_ARRAY, parser.next());
+        assertEquals(Event.VALUE_STRING, parser.next());
+        assertEquals("a\u00e9b", parser.getString());
+        assertEquals(11, parser.getLocation().getStreamOffset());
+        assertEquals(Event.VALUE_STRING, parser.next());
+        assertEquals("c\u00e9", parser.getString());
+        assertEquals(Event.VALUE_NUMBER, parser.next());
+        assertEquals(new BigDecimal("1.5"), parser.getBigDecimal());
+        assertEquals(Event.END_ARRAY, parser.next());
+        assertFalse(parser.hasNext());
+        parser.close();
+        // escapes are not unescaped in the caller's buffer
+        assertTrue(Arrays.equals(copy, bytes));
+    }
+
+    public void testByteBufferTruncated() {
+        JsonParser parser = Json.createParser(ByteBuffer.wrap("[\"abc".getBytes(StandardCharsets.UTF_8)));
+        parser.next();
+        try {
+            parser.next();
+            fail("Expected JsonParsingException for truncated string");
+        } catch (JsonParsingException expected) {
+            // no-op
+        }
+        parser.close();
+    }
+
+    public void testWikiString() throws Exception {
+        String str = new String(readAll(JsonParserTest.class.getResourceAsStream("/wiki.json")),
+                StandardCharsets.UTF_8);
+        JsonParser parser = Json.createParser(str);
+        testWiki(parser);
+        parser.close();
+
+        parser = Json.createParser(new StringBuilder(str));
+        testWiki(parser);
+        parser.close();
+    }
+
+    public void testCharArraySlice() {
+        char[] chars = "xx[\"a\\u00e9b\\n\", 12]yy".toCharArray();
+        char[] copy = chars.clone();
+        JsonParser parser = Json.createParser(chars, 2, chars.length - 4);
+        assertEquals(Event.START_ARRAY, parser.next());
+        assertEquals(Event.VALUE_STRING, parser.next());
+        assertEquals("a\u00e9b\n", parser.getString());
+        assertEquals(13, parser.getLocation().getStreamOffset());
+        assertEquals(Event.VALUE_NUMBER, parser.next());
+        assertEquals(12, parser.getInt());
+        assertEquals(Event.END_ARRAY, parser.next());
+        assertFalse(parser.hasNext());
+        parser.close();
+        // escapes are not unescaped in the caller's array
+        assertTrue(Arrays.equals(copy, chars));
+    }
+
+    public void testStringUsingSmallBuffer() {
+        final MyBufferPool bufferPool = new MyBufferPool(8);
+        Map<String, Object> config = new HashMap<String, Object>() {{
+            put(BufferPool.class.getName(), bufferPool);
+        }};
+        JsonParserFactory factory = Json.createParserFactory(config);
+        JsonParser parser = factory.createParser("{\"name\":\"\\\"value\\\"\"}");
+        parser.next();
+        parser.next();
+        assertEquals("name", parser.getString());
+        parser.next();
+        assertEquals("\"value\"", parser.getString());
+        assertEquals(Event.END_OBJECT, parser.next());
+        parser.close();
+    }
+
+    // the chars don't fit in the buffer, it is filled in chunks of them
+    public void testLargeCharSequenceUsingSmallBuffer() throws Exception {
+        String str = new String(readAll(JsonParserTest.class.getResourceAsStream("/wiki.json")),
+                StandardCharsets.UTF_8);
+        CharSequence[] inputs = { str, new StringBuilder(str), CharBuffer.wrap(str) };
+        for(CharSequence chars : inputs) {
+            final MyBufferPool bufferPool = new MyBufferPool(8);
+            Map<String, Object> config = new HashMap<String, Object>() {{
+                put(BufferPool.class.getName(), bufferPool);
+            }};
+            JsonParser parser = Json.createParserFactory(config).createParser(chars);
+            testWiki(parser);
+            parser.close();
+        }
+
+        JsonParser parser = smallBufferFactory().createParser("[\"a\\u00e9b\\n\", 12345678901, -1.5e3]");
+        assertEquals(Event.START_ARRAY, parser.next());
+        assertEquals(Event.VALUE_STRING, parser.next());
+        assertEquals("a\u00e9b\n", parser.getString());
+        assertEquals(13, parser.getLocation().getStreamOffset());
+        assertEquals(Event.VALUE_NUMBER, parser.next());
+        assertEquals(12345678901L, parser.getLong());
+        assertEquals(Event.VALUE_NUMBER, parser.next());
+        assertEquals(new BigDecimal("-1.5e3"), parser.getBigDecimal());
+        assertEquals(Event.END_ARRAY, parser.next());
+        assertFalse(parser.hasNext());
+        parser.close();
+    }
+
+    public void testVeryLargeCharSequence() throws Exception {
+        // longer than the sequences that are copied at once
+        StringBuilder sb = new StringBuilder("[");
+        for(int i=0; sb.length() <= 1 << 21; i++) {
+            sb.append("{\"id\":").append(i).append(",\"text\":\"a\\\"b\\u00e9\",\"n\":1.5e")
+                    .append(i % 10).append("},\n");
+        }
+        sb.append("null]");
+        String str = sb.toString();
+        List<String> expected = events(Json.createParser(new StringReader(str)));
+        assertEquals(expected, events(Json.createParser(str)));
+        assertEquals(expected, events(Json.createParser(CharBuffer.wrap(str))));
+    }
+
+    private static List<String> events(JsonParser parser) {
+        List<String> events = new ArrayList<>();
+        while (parser.hasNext()) {
+            Event event = parser.next();
+            if (event == Event.KEY_NAME || event == Event.VALUE_STRING
+                    || event == Event.VALUE_NUMBER) {
+                events.add(event + " " + parser.getString() + " " + parser.getLocation());
+            } else {
+                events.add(event.toString());
+            }
+        }
+        parser.close();
+        return events;
+    }
+
+    private static final String SKIP_JSON =
+            "{\"skip\":{\"a\":[1,\"x]}\\\"y\",{\"b\":null}],\"c\":\"\\\\\"}," +
+            "\"arr\":[[1,2],{\"x\":\"]\"},3],\"name\":\"value\",\"last\":true}";
+
+    public void testSkipObject() {
+        for(JsonParser parser : createParsers(SKIP_JSON)) {
+            assertEquals(Event.START_OBJECT, parser.next());
+            parser.skipArray();     // not in array context
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertEquals(Event.START_OBJECT, parser.next());
+            assertEquals(Event.KEY_NAME, parser.next());
+            parser.skipObject();
+            assertEquals("arr", nextKey(parser));
+            assertEquals(Event.START_ARRAY, parser.next());
+            parser.skipObject();    // not in object context
+            assertEquals(Event.START_ARRAY, parser.next());
+            parser.skipArray();
+            assertEquals(Event.START_OBJECT, parser.next());
+            parser.skipObject();
+            assertEquals(Event.VALUE_NUMBER, parser.next());
+            assertEquals(3, parser.getInt());
+            assertEquals(Event.END_ARRAY, parser.next());
+            assertEquals("name", nextKey(parser));
+            assertEquals(Event.VALUE_STRING, parser.next());
+            parser.skipObject();
+            assertFalse(parser.hasNext());
+            parser.close();
+        }
+    }
+
+    public void testSkipArray() {
+        for(JsonParser parser : createParsers(SKIP_JSON)) {
+            assertEquals(Event.START_OBJECT, parser.next());
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertEquals(Event.START_OBJECT, parser.next());
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertEquals(Event.START_ARRAY, parser.next());
+            assertEquals(Event.VALUE_NUMBER, parser.next());
+            parser.skipArray();
+            assertEquals("c", nextKey(parser));
+            assertEquals(Event.VALUE_STRING, parser.next());
+            assertEquals("\\", parser.getString());
+            assertEquals(Event.END_OBJECT, parser.next());
+            assertEquals("arr", nextKey(parser));
+            assertEquals(Event.START_ARRAY, parser.next());
+            parser.skipArray();
+            assertEquals("name", nextKey(parser));
+            parser.close();
+        }
+    }
+
+    public void testSkipValue() {
+        for(JsonParser parser : createParsers(SKIP_JSON)) {
+            assertEquals(Event.START_OBJECT, parser.next());
+            assertEquals(Event.KEY_NAME, parser.next());
+            parser.skipValue();
+            assertEquals("arr", nextKey(parser));
+            parser.skipValue();
+            assertEquals("name", nextKey(parser));
+            parser.skipValue();
+            assertEquals("value", parser.getString());
+            assertEquals("last", nextKey(parser));
+            assertEquals(Event.VALUE_TRUE, parser.next());
+            parser.skipValue();     // nothing to skip
+            assertEquals(Event.END_OBJECT, parser.next());
+            assertFalse(parser.hasNext());
+            parser.close();
+        }
+        for(JsonParser parser : createParsers(SKIP_JSON)) {
+            assertEquals(Event.START_OBJECT, parser.next());
+            parser.skipValue();
+            assertFalse(parser.hasNext());
+            parser.close();
+        }
+    }
+
+    public void testSkipLocation() {
+        String json = "{\"a\":[\n1,\r\n\"2\",\r3\n],\"b\":1}";
+        for(JsonParser parser : createParsers(json)) {
+            parser.next();
+            parser.next();
+            parser.next();
+            parser.skipArray();
+            assertEquals("b", nextKey(parser));
+            if (parser.getLocation().getLineNumber() != -1) {
+                assertEquals(5, parser.getLocation().getLineNumber());
+                assertEquals(6, parser.getLocation().getColumnNumber());
+            }
+            parser.close();
+        }
+    }
+
+    public void testSkipTruncated() {
+        String[] jsons = { "{\"a\":[1,2", "{\"a\":[\"]", "{\"a\":[\"\\" };
+        for(String json : jsons) {
+            JsonParser parser = Json.createParser(new StringReader(json));
+            parser.next();
+            parser.next();
+            parser.next();
+            try {
+                parser.skipArray();
+                fail("Expected JsonParsingException for "+json);
+            } catch (JsonParsingException e) {
+                // expected
+            }
+            parser.close();
+        }
+    }
+
+    // a factory that doesn't override createParser(ByteBuffer)
+    public void testByteBufferDefaultFactory() {
+        final JsonParserFactory delegate = Json.createParserFactory(null);
+        JsonParserFactory factory = new JsonParserFactory() {
+            public JsonParser createParser(Reader reader) {
+                return delegate.createParser(reader);
+            }
+            public JsonParser createParser(InputStream in) {
+                return delegate.createParser(in);
+            }
+            public JsonParser createParser(InputStream in, Charset charset) {
+                return delegate.createParser(in, charset);
+            }
+            public JsonParser createParser(JsonObject obj) {
+                return delegate.createParser(obj);
+            }
+            public JsonParser createParser(JsonArray array) {
+                return delegate.createParser(array);
+            }
+            public Map<String, ?> getConfigInUse() {
+                return delegate.getConfigInUse();
+            }
+        };
+        byte[] bytes = "xx[\"c\u00e9\", 1.5]".getBytes(StandardCharsets.UTF_16LE);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(4);
+        JsonParser parser = factory.createParser(buffer);
+        assertEquals(Event.START_ARRAY, parser.next());
+        assertEquals(Event.VALUE_STRING, parser.next());
+        assertEquals("c\u00e9", parser.getString());
+        assertEquals(Event.VALUE_NUMBER, parser.next());
+        assertEquals(Event.END_ARRAY, parser.next());
+        assertFalse(parser.hasNext());
+        parser.close();
+        assertEquals(4, buffer.position());
+    }
+
+    public void testCanonicalizeKeys() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(JsonConfig.CANONICALIZE_KEYS, true);
+        JsonParserFactory factory = Json.createParserFactory(config);
+        String json = "{\"name\":1,\"n\\u0061me\":2,\"na\u00efve\":3,\"\":4}";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        JsonParser[] parsers = {
+            factory.createParser(new StringReader(json)),
+            factory.createParser(new ByteArrayInputStream(bytes)),
+            factory.createParser(ByteBuffer.wrap(bytes)),
+            factory.createParser(json)
+        };
+        String[] expected = { "name", "name", "na\u00efve", "" };
+        String[] first = new String[expected.length];
+        for(JsonParser parser : parsers) {
+            parser.next();
+            for(int i=0; i < expected.length; i++) {
+                String key = nextKey(parser);
+                assertEquals(expected[i], key);
+                if (first[i] == null) {
+                    first[i] = key;
+                }
+                assertSame(first[i], key);
+                parser.next();
+            }
+            parser.close();
+        }
+        assertSame(first[0], first[1]);
+    }
+
+    private static String nextKey(JsonParser parser) {
+        assertEquals(Event.KEY_NAME, parser.next());
+        return parser.getString();
+    }
+
+    // parsers over all kinds of input for the same JSON text
+    private static List<JsonParser> createParsers(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        List<JsonParser> parsers = new ArrayList<>();
+        parsers.add(Json.createParser(new StringReader(json)));
+        parsers.add(Json.createParser(new ByteArrayInputStream(bytes)));
+        parsers.add(Json.createParser(ByteBuffer.wrap(bytes)));
+        parsers.add(Json.createParser(direct));
+        parsers.add(Json.createParser(json));
+        parsers.add(smallBufferFactory().createParser(new StringReader(json)));
+        parsers.add(smallBufferFactory().createParser(new ByteArrayInputStream(bytes)));
+        JsonReader reader = Json.createReader(new StringReader(json));
+        parsers.add(Json.createParserFactory(null).createParser(reader.readObject()));
+        reader.close();
+        return parsers;
+    }
+
+    private static JsonParserFactory smallBufferFactory() {
+        final BufferPool bufferPool = new MyByteBufferPool(8, 8);
+        Map<String, Object> config = new HashMap<String, Object>() {{
+            put(BufferPool.class.getName(), bufferPool);
+        }};
+        return Json.createParserFactory(config);
+    }
+
+    static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int len;
+        while ((len = in.read(buf)) != -1) {
+            out.write(buf, 0, len);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
 }
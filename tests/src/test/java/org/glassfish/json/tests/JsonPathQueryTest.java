@@ -0,0 +1,266 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.tests;
+
+import junit.framework.TestCase;
+import org.glassfish.json.api.JsonPathQuery;
+import org.glassfish.json.api.JsonPathQueryFactory;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Tests JsonPathQuery
+ *
+ * @author Jitendra Kotamraju
+ */
+public class JsonPathQueryTest extends TestCase {
+
+    private static final String STORE = ("{'store':{'book':["
+            + "{'category':'reference','author':'Nigel Rees','title':'Sayings of the Century','price':8.95},"
+            + "{'category':'fiction','author':'Evelyn Waugh','title':'Sword of Honour','price':12.99},"
+            + "{'category':'fiction','author':'Herman Melville','title':'Moby Dick',"
+            + "'isbn':'0-553-21311-3','price':8.99},"
+            + "{'category':'fiction','author':'J. R. R. Tolkien','title':'The Lord of the Rings',"
+            + "'isbn':'0-395-19395-8','price':22.99}],"
+            + "'bicycle':{'color':'red','price':19.95}}}").replace('\'', '"');
+
+    public JsonPathQueryTest(String testName) {
+        super(testName);
+    }
+
+    public void testChild() {
+        assertSelected(STORE, "$.store.bicycle.color", "\"red\"");
+        assertSelected(STORE, "$['store'][\"bicycle\"]['color']", "\"red\"");
+        assertSelected(STORE, "$.store.book[*].author", "\"Nigel Rees\"", "\"Evelyn Waugh\"",
+                "\"Herman Melville\"", "\"J. R. R. Tolkien\"");
+        assertSelected(STORE, "$.store.bicycle.*", "\"red\"", "19.95");
+        assertSelected(STORE, "$.store.missing");
+        assertSelected(STORE, "$.store.book.author");
+        assertSelected(STORE, "$", Json.createReader(new StringReader(STORE)).read().toString());
+    }
+
+    public void testDescendants() {
+        assertSelected(STORE, "$..author", "\"Nigel Rees\"", "\"Evelyn Waugh\"",
+                "\"Herman Melville\"", "\"J. R. R. Tolkien\"");
+        assertSelected(STORE, "$.store..price", "8.95", "12.99", "8.99", "22.99", "19.95");
+        assertSelected(STORE, "$..book[2].title", "\"Moby Dick\"");
+        assertSelected(STORE, "$..[0].price", "8.95");
+        assertEquals(27, select("$..*", STORE).size());
+        // a selected value comes before the selected values inside it
+        assertSelected("{'a':{'b':1,'a':{'a':2}}}", "$..a", "{\"b\":1,\"a\":{\"a\":2}}",
+                "{\"a\":2}", "2");
+        // a value is selected once
+        assertSelected("{'a':{'a':1}}", "$..*", "{\"a\":1}", "1");
+    }
+
+    public void testIndicesAndSlices() {
+        assertSelected(STORE, "$..book[0,2].price", "8.95", "8.99");
+        assertSelected(STORE, "$..book[2,0].price", "8.95", "8.99");
+        assertSelected(STORE, "$..book[:2].price", "8.95", "12.99");
+        assertSelected(STORE, "$..book[1:].price", "12.99", "8.99", "22.99");
+        assertSelected(STORE, "$..book[::2].price", "8.95", "8.99");
+        assertSelected(STORE, "$..book[1:4:2].price", "12.99", "22.99");
+        assertSelected(STORE, "$..book[4]");
+        assertSelected(STORE, "$..book[0:0]");
+        assertSelected("[0,1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16,17,18,19,20,21,22,23,24,"
+                + "25,26,27,28,29,30,31,32,33,34,35,36,37,38,39,40,41,42,43,44,45,46,47,48,49,"
+                + "50,51,52,53,54,55,56,57,58,59,60,61,62,63,64,65,66,67,68,69,70]",
+                "$[10:70:20]", "10", "30", "50");
+    }
+
+    public void testFilters() {
+        assertSelected(STORE, "$..book[?(@.isbn)].title", "\"Moby Dick\"",
+                "\"The Lord of the Rings\"");
+        assertSelected(STORE, "$..book[?(!@.isbn)].title", "\"Sayings of the Century\"",
+                "\"Sword of Honour\"");
+        assertSelected(STORE, "$..book[?(@.price < 10)].title", "\"Sayings of the Century\"",
+                "\"Moby Dick\"");
+        assertSelected(STORE, "$..book[?(@.price >= 12.99)].price", "12.99", "22.99");
+        assertSelected(STORE, "$..book[?(@.category == 'fiction' && @.price > 10)].title",
+                "\"Sword of Honour\"", "\"The Lord of the Rings\"");
+        assertSelected(STORE, "$..book[?(@.price < 9 || (@.author == \"Evelyn Waugh\"))].price",
+                "8.95", "12.99", "8.99");
+        assertSelected(STORE, "$..book[?(@.category != 'fiction')].author", "\"Nigel Rees\"");
+        assertSelected(STORE, "$.store[?(@.color)].price", "19.95");
+        assertSelected(STORE, "$..[?(@.price > 20)].title", "\"The Lord of the Rings\"");
+        assertSelected("[[1,2],[3],[],[4,null]]", "$[?(@[1])]", "[1,2]", "[4,null]");
+        assertSelected("[[1,2],[3],[],[4,null]]", "$[?(@[1] == null)]", "[4,null]");
+        assertSelected("[{'a':true},{'a':false},{'a':'true'},{}]", "$[?(@.a == true)]",
+                "{\"a\":true}");
+        assertSelected("[{'a':true},{'a':false},{'a':'true'},{}]", "$[?(@.a != true)]",
+                "{\"a\":false}", "{\"a\":\"true\"}", "{}");
+        assertSelected("[1,'1',2,'b',10]", "$[?(@ > 1)]", "2", "10");
+        assertSelected("[1,'1',2,'b',10]", "$[?(@ >= 'a')]", "\"b\"");
+    }
+
+    public void testParsers() {
+        JsonPathQuery query = createQuery("$..book[?(@.price < 10)]");
+        JsonObject store = Json.createReader(new StringReader(STORE)).readObject();
+        List<JsonValue> expected = query.select(store);
+        assertEquals(2, expected.size());
+        // a parser of a JsonObject doesn't read the values of this implementation
+        try (Stream<JsonValue> values = query.select(
+                Json.createParserFactory(null).createParser(store))) {
+            assertEquals(expected, values.collect(Collectors.toList()));
+        }
+
+        // the parsers of the selected values
+        final List<String> titles = new ArrayList<>();
+        JsonParser parser = Json.createParser(new StringReader(STORE));
+        createQuery("$..book[*]").select(parser, p -> {
+            assertEquals(Event.START_OBJECT, p.next());
+            while (p.hasNext()) {
+                if (p.next() == Event.KEY_NAME && p.getString().equals("title")) {
+                    p.next();
+                    titles.add(p.getString());
+                    break;  // the rest of the book is skipped
+                }
+            }
+        });
+        assertFalse(parser.hasNext());
+        parser.close();
+        assertEquals(Arrays.asList("Sayings of the Century", "Sword of Honour",
+                "Moby Dick", "The Lord of the Rings"), titles);
+
+        // the events of values that are selected by filters
+        final List<Event> events = new ArrayList<>();
+        parser = Json.createParser(new StringReader(STORE));
+        createQuery("$..book[?(@.isbn)].isbn").select(parser, p -> {
+            while (p.hasNext()) {
+                events.add(p.next());
+                assertEquals(p.getString().length(), 13);
+            }
+        });
+        assertFalse(parser.hasNext());
+        parser.close();
+        assertEquals(Arrays.asList(Event.VALUE_STRING, Event.VALUE_STRING), events);
+
+        // nested values are not selected again
+        final List<Event> first = new ArrayList<>();
+        parser = Json.createParser(new StringReader("{\"a\":{\"a\":[1]},\"b\":{\"a\":2}}"));
+        createQuery("$..a").select(parser, p -> {
+            first.add(p.next());
+            p.skipObject();
+            assertFalse(p.hasNext());
+        });
+        parser.close();
+        assertEquals(Arrays.asList(Event.START_OBJECT, Event.VALUE_NUMBER), first);
+    }
+
+    public void testTwitter() throws Exception {
+        JsonReader reader = Json.createReader(new InputStreamReader(
+                JsonPathQueryTest.class.getResourceAsStream("/twitter.json"), "UTF-8"));
+        JsonObject twitter = reader.readObject();
+        reader.close();
+        for (String path : new String[] { "$.statuses[*].user.screen_name",
+                "$..hashtags[*].text", "$..urls[0].expanded_url", "$.statuses[?(@.user.followers_count > 1000)].user.name",
+                "$.statuses[?(@.retweet_count > 0)].id_str", "$..*", "$.search_metadata" }) {
+            JsonPathQuery query = createQuery(path);
+            List<JsonValue> expected = query.select(twitter);
+            assertFalse(path, expected.isEmpty());
+            try (Stream<JsonValue> values = query.select(Json.createParser(new InputStreamReader(
+                    JsonPathQueryTest.class.getResourceAsStream("/twitter.json"), "UTF-8")))) {
+                assertEquals(path, expected, values.collect(Collectors.toList()));
+            }
+        }
+    }
+
+    public void testInvalidPaths() {
+        for (String path : new String[] { "", "store", "$.", "$..", "$[", "$[]", "$['a'",
+                "$.a[?(@.b <)]", "$.a[?(@.b == x)]", "$.a[?@.b", "$[1:2:3:4]", "$a",
+                "$.a[?(@.b == 1]", "$['a\\u00']", "$[2147483648]" }) {
+            try {
+                createQuery(path);
+                fail("createQuery(" + path + ") should throw JsonException");
+            } catch (JsonException e) {
+                // expected
+            }
+        }
+        for (String path : new String[] { "$[-1]", "$[-2:]", "$[::-1]" }) {
+            try {
+                createQuery(path);
+                fail("createQuery(" + path + ") should throw JsonException");
+            } catch (JsonException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("Negative"));
+            }
+        }
+    }
+
+    private static JsonPathQuery createQuery(String path) {
+        return ((JsonPathQueryFactory) Json.createParserFactory(null)).createQuery(path);
+    }
+
+    private static List<String> select(String path, String json) {
+        JsonPathQuery query = createQuery(path);
+        List<String> values = new ArrayList<>();
+        try (Stream<JsonValue> selected = query.select(
+                Json.createParser(new StringReader(json)))) {
+            selected.forEach(v -> values.add(v.toString()));
+        }
+        // the same values are selected from the built value
+        JsonValue value = Json.createReader(new StringReader(json)).read();
+        List<String> expected = new ArrayList<>();
+        for (JsonValue v : query.select(value)) {
+            expected.add(v.toString());
+        }
+        assertEquals(path, expected, values);
+        return values;
+    }
+
+    private static void assertSelected(String json, String path, String... expected) {
+        assertEquals(path, Arrays.asList(expected), select(path, json.replace('\'', '"')));
+    }
+
+}
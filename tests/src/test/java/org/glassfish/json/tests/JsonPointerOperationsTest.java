@@ -2,11 +2,15 @@ package org.glassfish.json.tests;
 
 import static org.junit.Assert.assertThat;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 
 import javax.json.Json;
+import javax.json.JsonException;
 import javax.json.JsonObject;
 import javax.json.JsonPointer;
 
+import org.glassfish.json.api.JsonNumberArray;
 import org.junit.Test;
 
 public class JsonPointerOperationsTest {
@@ -64,6 +68,140 @@ public class JsonPointerOperationsTest {
         JsonObject modified = (JsonObject) pointer.remove(buildPerson());
         assertThat(modified, is(buildPersonWithoutFirstPhone()));
     }
+    @Test
+    public void shouldReplaceSimpleAttribute() {
+        JsonPointer pointer = new JsonPointer("/streetAddress");
+        JsonObject modified = (JsonObject) pointer.replace(buildAddress(), Json.createArrayBuilder()
+                .add("myaddress").build().get(0));
+        assertThat(modified, is(buildExpectedAddress()));
+    }
+
+    @Test
+    public void shouldReplaceInArrayElement() {
+        JsonPointer pointer = new JsonPointer("/phoneNumber/0");
+        JsonObject phone = Json.createObjectBuilder()
+                .add("type", "fax")
+                .add("number", "646 555-4567")
+                .build();
+        JsonObject person = buildPerson();
+        JsonObject modified = (JsonObject) pointer.replace(person, phone);
+        assertThat(modified.getJsonArray("phoneNumber").size(), is(2));
+        assertThat(modified.getJsonArray("phoneNumber").getJsonObject(0), is(phone));
+        assertThat(modified.getJsonArray("phoneNumber").getJsonObject(1),
+                is(person.getJsonArray("phoneNumber").getJsonObject(1)));
+    }
+
+    @Test
+    public void shouldUpdateInsideArrayElement() {
+        JsonPointer pointer = new JsonPointer("/phoneNumber/1/type");
+        JsonObject person = buildPerson();
+        JsonObject modified = (JsonObject) pointer.add(person, Json.createArrayBuilder()
+                .add("home").build().get(0));
+        assertThat(modified.getJsonArray("phoneNumber").size(), is(2));
+        assertThat(modified.getJsonArray("phoneNumber").getJsonObject(1).getString("type"), is("home"));
+        assertThat(modified.getJsonArray("phoneNumber").getJsonObject(1).getString("number"),
+                is("646 555-4567"));
+
+        modified = (JsonObject) new JsonPointer("/phoneNumber/0/number").remove(person);
+        assertThat(modified.getJsonArray("phoneNumber").size(), is(2));
+        assertThat(modified.getJsonArray("phoneNumber").getJsonObject(0).size(), is(1));
+    }
+
+    @Test
+    public void shouldShareUnchangedValues() {
+        JsonObject person = buildPerson();
+        JsonObject modified = (JsonObject) new JsonPointer("/address/city")
+                .replace(person, JsonObject.NULL);
+        assertThat(modified.get("phoneNumber"), sameInstance(person.get("phoneNumber")));
+        assertThat(modified.getJsonObject("address").get("state"),
+                sameInstance(person.getJsonObject("address").get("state")));
+        assertThat(modified.getJsonObject("address").get("city"), is((Object) JsonObject.NULL));
+        assertThat(person.getJsonObject("address").getString("city"), is("New York"));
+    }
+
+    @Test
+    public void shouldShareUnchangedArrayElements() {
+        JsonObject person = buildPerson();
+        JsonObject modified = (JsonObject) new JsonPointer("/phoneNumber/0/type")
+                .replace(person, JsonObject.NULL);
+        assertThat(modified.getJsonArray("phoneNumber").get(1),
+                sameInstance(person.getJsonArray("phoneNumber").get(1)));
+
+        JsonObject scores = Json.createObjectBuilder()
+                .add("scores", Json.createArrayBuilder().add(1).add(2).add(3))
+                .build();
+        JsonObject updated = (JsonObject) new JsonPointer("/scores/1")
+                .replace(scores, Json.createArrayBuilder().add(5).build().get(0));
+        assertThat(updated.getJsonArray("scores") instanceof JsonNumberArray, is(true));
+        assertThat(updated.getJsonArray("scores").toString(), is("[1,5,3]"));
+        updated = (JsonObject) new JsonPointer("/scores/0").remove(updated);
+        assertThat(updated.getJsonArray("scores") instanceof JsonNumberArray, is(true));
+        assertThat(updated.getJsonArray("scores").toString(), is("[5,3]"));
+        assertThat(scores.getJsonArray("scores").toString(), is("[1,2,3]"));
+    }
+
+    @Test(expected = JsonException.class)
+    public void shouldNotReplaceMissingAttribute() {
+        new JsonPointer("/address/country").replace(buildPerson(), JsonObject.NULL);
+    }
+
+    @Test(expected = JsonException.class)
+    public void shouldNotReplaceMissingElement() {
+        new JsonPointer("/phoneNumber/2").replace(buildPerson(), JsonObject.NULL);
+    }
+
+    @Test(expected = JsonException.class)
+    public void shouldNotUpdateMissingParent() {
+        new JsonPointer("/phone/0").add(buildPerson(), JsonObject.NULL);
+    }
+
+    @Test(expected = JsonException.class)
+    public void shouldNotRemoveTarget() {
+        new JsonPointer("").remove(buildPerson());
+    }
+
+    @Test
+    public void shouldAddTarget() {
+        JsonObject address = buildAddress();
+        assertThat(new JsonPointer("").add(buildPerson(), address), is((Object) address));
+    }
+
+    @Test
+    public void shouldCreateSamePointer() {
+        JsonPointer pointer = Json.createPointer("/phoneNumber/1/number");
+        assertThat(Json.createPointer("/phoneNumber/1/number"), sameInstance(pointer));
+        assertThat(pointer.getValue(buildPerson()).toString(), is("\"646 555-4567\""));
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append("/a~1b");
+        }
+        String longPointer = sb.toString();
+        assertThat(Json.createPointer(longPointer), not(sameInstance(Json.createPointer(longPointer))));
+    }
+
+    @Test
+    public void shouldEvaluateCompiledTokens() {
+        JsonObject object = Json.createObjectBuilder()
+                .add("a/b", Json.createObjectBuilder()
+                        .add("~", Json.createArrayBuilder().add(10).add(20))
+                        .add("1", "one"))
+                .build();
+        assertThat(Json.createPointer("/a~1b/~0/1").getValue(object).toString(), is("20"));
+        assertThat(Json.createPointer("/a~1b/~0/01").getValue(object).toString(), is("20"));
+        assertThat(Json.createPointer("/a~1b/1").getValue(object).toString(), is("\"one\""));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldNotEvaluateNameOnArray() {
+        new JsonPointer("/phoneNumber/first").getValue(buildPerson());
+    }
+
+    @Test(expected = JsonException.class)
+    public void shouldNotCreateRelativePointer() {
+        Json.createPointer("a/b");
+    }
+
     static JsonObject buildAddress() {
         return Json.createObjectBuilder()
                 .add("streetAddress", "21 2nd Street")
@@ -0,0 +1,286 @@
+package org.glassfish.json.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonPointer;
+import javax.json.JsonPointerSet;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.stream.JsonLocation;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+import org.junit.Test;
+
+public class JsonPointerSetTest {
+
+    private static final String[] POINTERS = { "", "/foo", "/foo/0", "/foo/1",
+            "/", "/a~1b", "/m~0n", "/o", "/p", "/p/q", "/s/0/t", "/s/0", "/foo/1" };
+
+    @Test
+    public void shouldResolveSameValuesAsGetValue() throws Exception {
+        JsonObject rfc6901Example = JsonPointerTest.readRfc6901Example();
+        JsonPointer[] pointers = new JsonPointer[POINTERS.length];
+        for (int i = 0; i < pointers.length; i++) {
+            pointers[i] = Json.createPointer(POINTERS[i]);
+        }
+        JsonPointerSet set = new JsonPointerSet(pointers);
+        assertThat(set.size(), is(POINTERS.length));
+        JsonValue[] values = set.getValues(rfc6901Example);
+        assertThat(values.length, is(POINTERS.length));
+        for (int i = 0; i < pointers.length; i++) {
+            assertThat(set.getPointer(i), sameInstance(pointers[i]));
+            assertThat(values[i], sameInstance(pointers[i].getValue(rfc6901Example)));
+        }
+    }
+
+    @Test
+    public void shouldReturnNullForMissingValues() throws Exception {
+        JsonObject rfc6901Example = JsonPointerTest.readRfc6901Example();
+        JsonPointerSet set = new JsonPointerSet(
+                new JsonPointer("/foo/5"),
+                new JsonPointer("/foo/-"),
+                new JsonPointer("/foo/x"),
+                new JsonPointer("/p/1"),
+                new JsonPointer("/s/t"),
+                new JsonPointer("/o/x"),
+                new JsonPointer("/notexists"),
+                new JsonPointer("/notexists/0"),
+                new JsonPointer("/c%d/0"),
+                new JsonPointer("/p/q"));
+        JsonValue[] values = set.getValues(rfc6901Example);
+        for (int i = 0; i < values.length - 1; i++) {
+            assertThat(values[i], nullValue());
+        }
+        assertThat(values[values.length - 1], is(rfc6901Example.getJsonObject("p").get("q")));
+    }
+
+    @Test
+    public void shouldResolveAgainstArray() {
+        JsonArray array = Json.createArrayBuilder()
+                .add(Json.createObjectBuilder().add("id", 1).add("tags",
+                        Json.createArrayBuilder().add("a").add("b")))
+                .add(Json.createObjectBuilder().add("id", 2))
+                .build();
+        JsonPointerSet set = new JsonPointerSet(
+                new JsonPointer("/1/id"),
+                new JsonPointer("/0/tags/1"),
+                new JsonPointer("/0/id"),
+                new JsonPointer("/2/id"),
+                new JsonPointer(""));
+        JsonValue[] values = set.getValues(array);
+        assertThat(values[0], is(array.getJsonObject(1).get("id")));
+        assertThat(values[1], is(array.getJsonObject(0).getJsonArray("tags").get(1)));
+        assertThat(values[2], is(array.getJsonObject(0).get("id")));
+        assertThat(values[3], nullValue());
+        assertThat(values[4], sameInstance((JsonValue) array));
+    }
+
+    @Test
+    public void shouldResolveEmptySet() {
+        JsonPointerSet set = new JsonPointerSet();
+        assertThat(set.getValues(Json.createObjectBuilder().build()).length, is(0));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void shouldNotResolveNullTarget() {
+        new JsonPointerSet(new JsonPointer("/a")).getValues((JsonValue) null);
+    }
+
+    @Test
+    public void shouldStreamSameValuesAsGetValues() throws Exception {
+        JsonObject rfc6901Example = JsonPointerTest.readRfc6901Example();
+        List<JsonPointer> pointers = new ArrayList<>();
+        for (String pointer : POINTERS) {
+            pointers.add(new JsonPointer(pointer));
+        }
+        for (String pointer : new String[] { "/foo/5", "/foo/-", "/p/1", "/s/t",
+                "/o/x", "/notexists", "/c%d/0" }) {
+            pointers.add(new JsonPointer(pointer));
+        }
+        JsonPointerSet set = new JsonPointerSet(pointers.toArray(new JsonPointer[0]));
+        assertStreamed(set, rfc6901Example);
+        assertStreamed(new JsonPointerSet(new JsonPointer("/p/q")), rfc6901Example);
+        assertStreamed(new JsonPointerSet(new JsonPointer("/g|h"), new JsonPointer("/foo/1")),
+                rfc6901Example);
+    }
+
+    @Test
+    public void shouldStreamTwitterValues() throws Exception {
+        JsonReader reader = Json.createReader(new InputStreamReader(
+                JsonPointerSetTest.class.getResourceAsStream("/twitter.json"), "UTF-8"));
+        JsonObject twitter = reader.readObject();
+        reader.close();
+        List<JsonPointer> pointers = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            pointers.add(new JsonPointer("/statuses/" + i + "/id"));
+            pointers.add(new JsonPointer("/statuses/" + i + "/text"));
+            pointers.add(new JsonPointer("/statuses/" + i + "/user/screen_name"));
+            pointers.add(new JsonPointer("/statuses/" + i + "/entities/urls/0/expanded_url"));
+            pointers.add(new JsonPointer("/statuses/" + i + "/metadata"));
+        }
+        pointers.add(new JsonPointer("/statuses/3/user"));
+        pointers.add(new JsonPointer("/search_metadata"));
+        JsonPointerSet set = new JsonPointerSet(pointers.toArray(new JsonPointer[0]));
+        assertStreamed(set, twitter);
+    }
+
+    @Test
+    public void shouldStopStreamingWhenAllFound() {
+        String json = "{\"a\":1,\"b\":{\"c\":[true,2.5],\"d\":3},\"e\":[4,5]}";
+        JsonParser parser = Json.createParser(new StringReader(json));
+        JsonValue[] values = new JsonPointerSet(
+                new JsonPointer("/b/c/1"), new JsonPointer("/a")).getValues(parser);
+        assertThat(values[0], is(number(new BigDecimal("2.5"))));
+        assertThat(values[1], is(number(new BigDecimal(1))));
+        assertThat(parser.next(), is(Event.END_ARRAY));
+        parser.close();
+
+        // "/a/x" is missing, as "a" isn't a structure
+        parser = Json.createParser(new StringReader(json));
+        values = new JsonPointerSet(new JsonPointer("/a/x")).getValues(parser);
+        assertThat(values[0], nullValue());
+        assertThat(parser.next(), is(Event.KEY_NAME));
+        assertThat(parser.getString(), is("b"));
+        parser.close();
+
+        // the rest of "b" is skipped once "c" is found
+        parser = Json.createParser(new StringReader(json));
+        values = new JsonPointerSet(new JsonPointer("/b/c"), new JsonPointer("/e/1"))
+                .getValues(parser);
+        assertThat(values[0], is((JsonValue) Json.createArrayBuilder()
+                .add(true).add(new BigDecimal("2.5")).build()));
+        assertThat(values[1], is(number(new BigDecimal(5))));
+        assertThat(parser.next(), is(Event.END_ARRAY));
+        assertThat(parser.next(), is(Event.END_OBJECT));
+        assertThat(parser.hasNext(), is(false));
+        parser.close();
+    }
+
+    @Test
+    public void shouldStreamFirstOfDuplicateNames() {
+        // the streamed values are those of the document without the later
+        // duplicates, the DOM keeps the last of them
+        assertStreamedDuplicates("{\"a\":1,\"a\":2,\"b\":3}", "{\"a\":1,\"b\":3}",
+                "/a", "/b");
+        assertStreamedDuplicates("{\"a\":{\"x\":1},\"a\":{\"x\":2},\"b\":3}",
+                "{\"a\":{\"x\":1},\"b\":3}", "/a/x", "/b");
+        assertStreamedDuplicates("{\"a\":[0,{\"x\":1,\"x\":2}],\"a\":[],\"b\":[3]}",
+                "{\"a\":[0,{\"x\":1}],\"b\":[3]}", "/a/1/x", "/a/0", "/b/0");
+    }
+
+    private static void assertStreamedDuplicates(String json, String firstValuesJson,
+            String... pointers) {
+        JsonPointer[] array = new JsonPointer[pointers.length];
+        for (int i = 0; i < pointers.length; i++) {
+            array[i] = new JsonPointer(pointers[i]);
+        }
+        JsonPointerSet set = new JsonPointerSet(array);
+        JsonParser parser = Json.createParser(new StringReader(json));
+        JsonValue[] values = set.getValues(parser);
+        parser.close();
+        JsonReader reader = Json.createReader(new StringReader(firstValuesJson));
+        assertArrayEquals(set.getValues(reader.readObject()), values);
+        reader.close();
+        // a name that isn't repeated has the same value as in the DOM
+        reader = Json.createReader(new StringReader(json));
+        JsonValue last = set.getValues(reader.readObject())[pointers.length - 1];
+        reader.close();
+        assertThat(values[pointers.length - 1], is(last));
+    }
+
+    @Test
+    public void shouldStreamWithoutParserSkipping() throws Exception {
+        JsonObject rfc6901Example = JsonPointerTest.readRfc6901Example();
+        JsonPointerSet set = new JsonPointerSet(new JsonPointer("/o"),
+                new JsonPointer("/s/0/t"), new JsonPointer("/p/x"));
+        JsonParser parser = new NoSkipParser(
+                Json.createParser(new StringReader(rfc6901Example.toString())));
+        JsonValue[] values = set.getValues(parser);
+        parser.close();
+        assertArrayEquals(set.getValues(rfc6901Example), values);
+    }
+
+    private static void assertStreamed(JsonPointerSet set, JsonObject target) {
+        JsonValue[] expected = set.getValues(target);
+        JsonParser parser = Json.createParser(new StringReader(target.toString()));
+        JsonValue[] values = set.getValues(parser);
+        parser.close();
+        assertThat(values.length, is(expected.length));
+        for (int i = 0; i < values.length; i++) {
+            assertThat(set.getPointer(i).toString(), values[i], is(expected[i]));
+        }
+    }
+
+    private static JsonValue number(BigDecimal value) {
+        return Json.createArrayBuilder().add(value).build().get(0);
+    }
+
+    // A parser that doesn't implement the skip methods
+    private static final class NoSkipParser implements JsonParser {
+        private final JsonParser parser;
+
+        NoSkipParser(JsonParser parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return parser.hasNext();
+        }
+
+        @Override
+        public Event next() {
+            return parser.next();
+        }
+
+        @Override
+        public String getString() {
+            return parser.getString();
+        }
+
+        @Override
+        public boolean isIntegralNumber() {
+            return parser.isIntegralNumber();
+        }
+
+        @Override
+        public int getInt() {
+            return parser.getInt();
+        }
+
+        @Override
+        public long getLong() {
+            return parser.getLong();
+        }
+
+        @Override
+        public BigDecimal getBigDecimal() {
+            return parser.getBigDecimal();
+        }
+
+        @Override
+        public JsonLocation getLocation() {
+            return parser.getLocation();
+        }
+
+        @Override
+        public void close() {
+            parser.close();
+        }
+    }
+
+}
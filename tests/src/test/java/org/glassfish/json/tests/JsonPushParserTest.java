@@ -0,0 +1,375 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.tests;
+
+import junit.framework.TestCase;
+import org.glassfish.json.api.JsonConfig;
+import org.glassfish.json.api.JsonPushParser;
+import org.glassfish.json.api.JsonPushParserFactory;
+
+import javax.json.Json;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParsingException;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Tests JsonPushParser
+ *
+ * @author Jitendra Kotamraju
+ */
+public class JsonPushParserTest extends TestCase {
+
+    public JsonPushParserTest(String testName) {
+        super(testName);
+    }
+
+    public void testWikiChunks() throws Exception {
+        byte[] bytes = JsonParserTest.readAll(
+                JsonPushParserTest.class.getResourceAsStream("/wiki.json"));
+        List<String> expected = pullEvents(bytes);
+        Random r = new Random(System.currentTimeMillis());
+        for(int maxChunk=1; maxChunk < 100; maxChunk++) {
+            JsonPushParser parser = createPushParser();
+            List<String> got = new ArrayList<>();
+            int off = 0;
+            while (off < bytes.length) {
+                int len = Math.min(1 + r.nextInt(maxChunk), bytes.length - off);
+                parser.feed(bytes, off, len);
+                off += len;
+                drain(parser, got);
+            }
+            parser.endOfInput();
+            drain(parser, got);
+            assertFalse(parser.hasNext());
+            parser.close();
+            assertEquals(expected, got);
+        }
+    }
+
+    public void testStringsChunks() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for(int i=0; i < 10000; i++) {
+            sb.append((char)('a' + i % 26));
+        }
+        String json = "{\"esc\\u0061ped\":\"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00e9\\ud83d\\ude00\","
+                + "\"utf8\":\"caf\u00e9 \u20ac \ud83d\ude00\","
+                + "\"long\":\"" + sb + "\",\"numbers\":[0,-1,1.5e10,12345678901234567890],"
+                + "\"literals\":[true,false,null]}";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        List<String> expected = pullEvents(bytes);
+        for(int chunk=1; chunk < 20; chunk++) {
+            JsonPushParser parser = createPushParser();
+            List<String> got = new ArrayList<>();
+            for(int off=0; off < bytes.length; off += chunk) {
+                parser.feed(ByteBuffer.wrap(bytes, off, Math.min(chunk, bytes.length - off)));
+                drain(parser, got);
+            }
+            parser.endOfInput();
+            drain(parser, got);
+            parser.close();
+            assertEquals(expected, got);
+        }
+    }
+
+    public void testNeedMoreInput() {
+        JsonPushParser parser = createPushParser();
+        assertFalse(parser.tryNext());
+        assertNull(parser.currentEvent());
+        feed(parser, "{\"na");
+        assertTrue(parser.tryNext());
+        assertEquals(Event.START_OBJECT, parser.currentEvent());
+        assertFalse(parser.tryNext());
+        assertEquals(Event.START_OBJECT, parser.currentEvent());
+        try {
+            parser.next();
+            fail("next() should throw IllegalStateException when more input is needed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        feed(parser, "me\":[1");
+        assertEquals(Event.KEY_NAME, parser.next());
+        assertEquals("name", parser.getString());
+        assertEquals(Event.START_ARRAY, parser.next());
+        // number may continue
+        assertFalse(parser.tryNext());
+        feed(parser, "2");
+        assertFalse(parser.tryNext());
+        feed(parser, "3 ]");
+        assertEquals(Event.VALUE_NUMBER, parser.next());
+        assertEquals(123, parser.getInt());
+        assertEquals(Event.END_ARRAY, parser.next());
+        feed(parser, "}");
+        assertEquals(Event.END_OBJECT, parser.next());
+        assertFalse(parser.hasNext());
+        try {
+            parser.tryNext();
+            fail("tryNext() should throw NoSuchElementException after the end");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+        feed(parser, " \n");
+        parser.endOfInput();
+        try {
+            feed(parser, " ");
+            fail("feed() should throw IllegalStateException after endOfInput()");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        parser.close();
+    }
+
+    public void testSkipArray() {
+        JsonPushParser parser = createPushParser();
+        feed(parser, "[[1,[2,\"]");
+        assertEquals(Event.START_ARRAY, parser.next());
+        assertEquals(Event.START_ARRAY, parser.next());
+        try {
+            parser.skipArray();
+            fail("skipArray() should throw IllegalStateException when more input is needed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        feed(parser, "\"]],3]");
+        parser.skipArray();
+        assertEquals(Event.VALUE_NUMBER, parser.next());
+        assertEquals(3, parser.getInt());
+        assertEquals(Event.END_ARRAY, parser.next());
+        parser.close();
+    }
+
+    public void testSkipArrayInChunks() {
+        String json = "[[1,{\"a\":\"]}\\\"[\"},\r\n[\"\\\\\"],\n\"\\u005d\"],\r\n 2]";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        JsonPushParser parser = createPushParser();
+        feed(parser, "[[");
+        assertEquals(Event.START_ARRAY, parser.next());
+        assertEquals(Event.START_ARRAY, parser.next());
+        // the skip goes on from where it stopped, a byte at a time
+        int off = 2;
+        while (true) {
+            try {
+                parser.skipArray();
+                break;
+            } catch (IllegalStateException e) {
+                parser.feed(bytes, off++, 1);
+            }
+        }
+        assertEquals(json.indexOf("],\r\n 2]") + 1, off);
+        parser.feed(bytes, off, bytes.length - off);
+        assertEquals(Event.VALUE_NUMBER, parser.next());
+        assertEquals(2, parser.getInt());
+
+        JsonParser pullParser = Json.createParser(new ByteArrayInputStream(bytes));
+        pullParser.next();
+        pullParser.next();
+        pullParser.skipArray();
+        pullParser.next();
+        assertEquals(pullParser.getLocation().toString(), parser.getLocation().toString());
+        assertEquals(4, parser.getLocation().getLineNumber());
+        pullParser.close();
+        assertEquals(Event.END_ARRAY, parser.next());
+        parser.close();
+    }
+
+    public void testSkipValue() {
+        JsonPushParser parser = createPushParser();
+        feed(parser, "{\"\\u0061\":[1,{\"b\":\"]");
+        assertEquals(Event.START_OBJECT, parser.next());
+        assertEquals(Event.KEY_NAME, parser.next());
+        try {
+            parser.skipValue();
+            fail("skipValue() should throw IllegalStateException when more input is needed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        // still at the key name
+        assertEquals("a", parser.getString());
+        feed(parser, "}\"}],\"c\":");
+        parser.skipValue();
+        assertEquals(Event.KEY_NAME, parser.next());
+        assertEquals("c", parser.getString());
+        feed(parser, "{\"d\":");
+        try {
+            parser.skipValue();
+            fail("skipValue() should throw IllegalStateException when more input is needed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(Event.START_OBJECT, parser.next());
+        assertEquals(Event.KEY_NAME, parser.next());
+        assertEquals("d", parser.getString());
+        feed(parser, "2,\"\\u0065\":\"\\u0066");
+        parser.skipValue();
+        assertEquals(Event.KEY_NAME, parser.next());
+        assertFalse(parser.tryNext());
+        assertEquals("e", parser.getString());
+        feed(parser, "\"}}");
+        assertEquals(Event.VALUE_STRING, parser.next());
+        assertEquals("f", parser.getString());
+        assertEquals(Event.END_OBJECT, parser.next());
+        assertEquals(Event.END_OBJECT, parser.next());
+        parser.close();
+    }
+
+    public void testLocation() {
+        JsonPushParser parser = createPushParser();
+        feed(parser, "{\n\"a\"");
+        parser.next();
+        feed(parser, ":\n tr");
+        assertEquals(Event.KEY_NAME, parser.next());
+        assertFalse(parser.tryNext());
+        feed(parser, "ue}");
+        assertEquals(Event.VALUE_TRUE, parser.next());
+        assertEquals(3, parser.getLocation().getLineNumber());
+        assertEquals(6, parser.getLocation().getColumnNumber());
+        assertEquals(12, parser.getLocation().getStreamOffset());
+        parser.close();
+    }
+
+    public void testTrailingGarbage() {
+        JsonPushParser parser = createPushParser();
+        feed(parser, "{} x");
+        assertEquals(Event.START_OBJECT, parser.next());
+        assertEquals(Event.END_OBJECT, parser.next());
+        try {
+            parser.endOfInput();
+            fail("endOfInput() should throw JsonParsingException");
+        } catch (JsonParsingException e) {
+            // expected
+        }
+    }
+
+    public void testTruncated() {
+        JsonPushParser parser = createPushParser();
+        feed(parser, "{\"a\":");
+        assertEquals(Event.START_OBJECT, parser.next());
+        assertEquals(Event.KEY_NAME, parser.next());
+        assertFalse(parser.tryNext());
+        parser.endOfInput();
+        try {
+            parser.tryNext();
+            fail("tryNext() should throw JsonParsingException");
+        } catch (JsonParsingException e) {
+            // expected
+        }
+    }
+
+    public void testNumberAtEndOfInput() {
+        JsonPushParser parser = createPushParser();
+        feed(parser, "[1,");
+        feed(parser, "23");
+        assertEquals(Event.START_ARRAY, parser.next());
+        assertEquals(Event.VALUE_NUMBER, parser.next());
+        assertFalse(parser.tryNext());
+        parser.endOfInput();
+        assertEquals(Event.VALUE_NUMBER, parser.next());
+        assertEquals(23, parser.getInt());
+        try {
+            parser.tryNext();
+            fail("tryNext() should throw JsonParsingException");
+        } catch (JsonParsingException e) {
+            assertEquals(4, e.getLocation().getStreamOffset());
+        }
+    }
+
+    public void testCanonicalizeKeys() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(JsonConfig.CANONICALIZE_KEYS, true);
+        JsonPushParserFactory factory = (JsonPushParserFactory)Json.createParserFactory(config);
+        String[] keys = new String[2];
+        for(int i=0; i < keys.length; i++) {
+            JsonPushParser parser = factory.createPushParser();
+            feed(parser, "{\"key\":1}");
+            parser.next();
+            parser.next();
+            keys[i] = parser.getString();
+            parser.close();
+        }
+        assertEquals("key", keys[0]);
+        assertSame(keys[0], keys[1]);
+    }
+
+    private static JsonPushParser createPushParser() {
+        return ((JsonPushParserFactory)Json.createParserFactory(null)).createPushParser();
+    }
+
+    private static void feed(JsonPushParser parser, String str) {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        parser.feed(bytes, 0, bytes.length);
+    }
+
+    private static void drain(JsonPushParser parser, List<String> events) {
+        while (parser.hasNext() && parser.tryNext()) {
+            events.add(toString(parser, parser.currentEvent()));
+        }
+    }
+
+    private static List<String> pullEvents(byte[] bytes) {
+        List<String> events = new ArrayList<>();
+        JsonParser parser = Json.createParser(new ByteArrayInputStream(bytes));
+        while (parser.hasNext()) {
+            events.add(toString(parser, parser.next()));
+        }
+        parser.close();
+        return events;
+    }
+
+    private static String toString(JsonParser parser, Event event) {
+        switch (event) {
+            case KEY_NAME:
+            case VALUE_STRING:
+            case VALUE_NUMBER:
+                return event + " " + parser.getString() + " " + parser.getLocation();
+            default:
+                return event + " " + parser.getLocation();
+        }
+    }
+
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2012-2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -42,10 +42,15 @@ package org.glassfish.json.tests;
 
 import junit.framework.TestCase;
 import org.glassfish.json.api.BufferPool;
+import org.glassfish.json.api.JsonConfig;
 
 import javax.json.*;
+import javax.json.stream.JsonParsingException;
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -70,6 +75,22 @@ public class JsonReaderTest extends TestCase {
         assertEquals("\u0000\u00ff\u00ff", str);
     }
 
+    public void testString() throws Exception {
+        JsonReader reader = Json.createReader("{\"a\":[1, \"\\u00ff\"]}");
+        JsonObject object = reader.readObject();
+        reader.close();
+        assertEquals(1, object.getJsonArray("a").getInt(0));
+        assertEquals("\u00ff", object.getJsonArray("a").getString(1));
+
+        char[] chars = "[{}, \"\\t\"]".toCharArray();
+        reader = Json.createReaderFactory(null).createReader(chars, 0, chars.length);
+        JsonArray array = reader.readArray();
+        reader.close();
+        assertTrue(array.getJsonObject(0).isEmpty());
+        assertEquals("\t", array.getString(1));
+        assertEquals("[{}, \"\\t\"]", new String(chars));
+    }
+
     public void testUnknownFeature() throws Exception {
         Map<String, Object> config = new HashMap<>();
         config.put("foo", true);
@@ -81,6 +102,183 @@ public class JsonReaderTest extends TestCase {
         }
     }
 
+    public void testCanonicalizeKeys() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(JsonConfig.CANONICALIZE_KEYS, true);
+        JsonReaderFactory factory = Json.createReaderFactory(config);
+        assertEquals(true, factory.getConfigInUse().get(JsonConfig.CANONICALIZE_KEYS));
+
+        String json = "[{\"id\":1,\"caf\u00e9\":2},{\"id\":3,\"caf\u00e9\":4}]";
+        JsonReader reader = factory.createReader(new StringReader(json));
+        JsonArray array1 = reader.readArray();
+        reader.close();
+        reader = factory.createReader(new ByteArrayInputStream(json.getBytes("UTF-8")));
+        JsonArray array2 = reader.readArray();
+        reader.close();
+
+        String[] keys = { "id", "caf\u00e9" };
+        for(int i=0; i < keys.length; i++) {
+            String key = getKey(array1, 0, i);
+            assertEquals(keys[i], key);
+            assertSame(key, getKey(array1, 1, i));
+            assertSame(key, getKey(array2, 0, i));
+            assertSame(key, getKey(array2, 1, i));
+        }
+        assertEquals(Json.createReader(new StringReader(json)).readArray(), array2);
+    }
+
+    public void testCanonicalizeKeysDisabled() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(JsonConfig.CANONICALIZE_KEYS, "false");
+        JsonReaderFactory factory = Json.createReaderFactory(config);
+        assertTrue(factory.getConfigInUse().isEmpty());
+
+        // objects with different keys, they don't share a shape
+        JsonReader reader = factory.createReader(new StringReader("[{\"id\":1},{\"id\":2,\"x\":3}]"));
+        JsonArray array = reader.readArray();
+        reader.close();
+        assertNotSame(getKey(array, 0, 0), getKey(array, 1, 0));
+    }
+
+    public void testSharedShapes() throws Exception {
+        StringBuilder row = new StringBuilder("{");
+        for(int i=0; i < 20; i++) {
+            row.append(i == 0 ? "" : ",").append("\"k").append(i).append("\":").append(i);
+        }
+        row.append('}');
+        String json = "[" + row + "," + row + ",{\"a\":1,\"b\":2},{\"a\":3,\"b\":4},"
+                + "{\"b\":5,\"a\":6},{\"a\":7},{\"a\":8,\"b\":9,\"a\":10},{\"a\":11,\"b\":12},[]]";
+        JsonReader reader = Json.createReader(new StringReader(json));
+        JsonArray array = reader.readArray();
+        reader.close();
+
+        for(int i=0; i < 20; i++) {
+            assertSame(getKey(array, 0, i), getKey(array, 1, i));
+            assertEquals(i, array.getJsonObject(1).getInt("k" + i));
+        }
+        assertSame(getKey(array, 2, 0), getKey(array, 3, 0));
+        assertSame(getKey(array, 2, 1), getKey(array, 3, 1));
+        assertEquals(4, array.getJsonObject(3).getInt("b"));
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<>(array.getJsonObject(4).keySet()));
+        assertEquals(6, array.getJsonObject(4).getInt("a"));
+        assertEquals(1, array.getJsonObject(5).size());
+        assertEquals(10, array.getJsonObject(6).getInt("a"));
+        assertEquals(12, array.getJsonObject(7).getInt("b"));
+
+        JsonArray expected = Json.createArrayBuilder()
+                .add(Json.createObjectBuilder().add("a", 1).add("b", 2))
+                .add(Json.createObjectBuilder().add("a", 3).add("b", 4))
+                .add(Json.createObjectBuilder().add("b", 5).add("a", 6))
+                .add(Json.createObjectBuilder().add("a", 7))
+                .add(Json.createObjectBuilder().add("a", 10).add("b", 9))
+                .add(Json.createObjectBuilder().add("a", 11).add("b", 12))
+                .build();
+        assertEquals(expected, array.subList(2, 8));
+        assertEquals(expected.hashCode(), array.subList(2, 8).hashCode());
+    }
+
+    public void testDuplicateKeysInLargeObject() throws Exception {
+        StringBuilder sb = new StringBuilder("{");
+        for(int i=0; i < 12; i++) {
+            sb.append("\"k").append(i).append("\":").append(i).append(',');
+        }
+        sb.append("\"k3\":33,\"x\":[{\"k0\":1}]}");
+        JsonObject object = Json.createReader(new StringReader(sb.toString())).readObject();
+        assertEquals(13, object.size());
+        assertEquals(33, object.getInt("k3"));
+        assertEquals("k3", new ArrayList<>(object.keySet()).get(3));
+        assertEquals("x", new ArrayList<>(object.keySet()).get(12));
+        assertEquals(1, object.getJsonArray("x").getJsonObject(0).getInt("k0"));
+    }
+
+    public void testDeeplyNested() throws Exception {
+        int depth = 100000;
+        StringBuilder sb = new StringBuilder();
+        for(int i=0; i < depth; i++) {
+            sb.append(i % 2 == 0 ? "[" : "{\"a\":");
+        }
+        sb.append("true");
+        for(int i=depth-1; i >= 0; i--) {
+            sb.append(i % 2 == 0 ? "]" : "}");
+        }
+        JsonReader reader = Json.createReader(new StringReader(sb.toString()));
+        JsonValue value = reader.readArray();
+        reader.close();
+        for(int i=0; i < depth; i++) {
+            value = (i % 2 == 0) ? ((JsonArray)value).get(0) : ((JsonObject)value).get("a");
+        }
+        assertEquals(JsonValue.TRUE, value);
+    }
+
+    public void testSharedShapesOfMembers() throws Exception {
+        JsonObject object = Json.createReader(new StringReader(
+                "{\"a\":{\"x\":1,\"y\":2},\"b\":{\"x\":3,\"y\":4},\"c\":{\"y\":5}}"))
+                .readObject();
+        assertSame(getKey(object, "a", 0), getKey(object, "b", 0));
+        assertEquals(4, object.getJsonObject("b").getInt("y"));
+        assertEquals(5, object.getJsonObject("c").getInt("y"));
+        assertFalse(object.getJsonObject("c").containsKey("x"));
+    }
+
+    public void testMaxDepth() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(JsonConfig.MAX_DEPTH, 3);
+        JsonReaderFactory factory = Json.createReaderFactory(config);
+        assertEquals(3, factory.getConfigInUse().get(JsonConfig.MAX_DEPTH));
+
+        JsonArray array = factory.createReader(new StringReader("[{\"a\":[1]},[]]")).readArray();
+        assertEquals(1, array.getJsonObject(0).getJsonArray("a").getInt(0));
+        try {
+            factory.createReader(new StringReader("[{\"a\":[[1]]}]")).readArray();
+            fail("readArray() should throw JsonParsingException for depth 4");
+        } catch (JsonParsingException e) {
+            assertEquals(8, e.getLocation().getStreamOffset());
+        }
+
+        config.put(JsonConfig.PARALLEL_READ_ARRAY, true);
+        factory = Json.createReaderFactory(config);
+        try {
+            factory.createReader(new ByteArrayInputStream("[1,[[[2]]]]".getBytes("UTF-8")))
+                    .readArray();
+            fail("readArray() should throw JsonParsingException for depth 4");
+        } catch (JsonParsingException e) {
+            // Expected
+        }
+    }
+
+    public void testMaxDepthConfig() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(JsonConfig.MAX_DEPTH, "1");
+        JsonReaderFactory factory = Json.createReaderFactory(config);
+        assertEquals(0, factory.createReader(new StringReader("[]")).readArray().size());
+        try {
+            factory.createReader(new StringReader("{\"a\":{}}")).readObject();
+            fail("readObject() should throw JsonParsingException for depth 2");
+        } catch (JsonParsingException e) {
+            // Expected
+        }
+
+        config.put(JsonConfig.MAX_DEPTH, 0);
+        try {
+            Json.createReaderFactory(config);
+            fail("createReaderFactory() should throw IllegalArgumentException for depth 0");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    private static String getKey(JsonObject object, String name, int keyIndex) {
+        return new ArrayList<>(object.getJsonObject(name).keySet()).get(keyIndex);
+    }
+
+    private static String getKey(JsonArray array, int index, int keyIndex) {
+        Iterator<String> it = array.getJsonObject(index).keySet().iterator();
+        for(int i=0; i < keyIndex; i++) {
+            it.next();
+        }
+        return it.next();
+    }
+
     public void testIllegalStateExcepton() throws Exception {
         JsonReader reader = Json.createReader(new StringReader("{}"));
         reader.readObject();
@@ -175,4 +373,112 @@ public class JsonReaderTest extends TestCase {
         }
     }
 
+    public void testParallelReadArray() throws Exception {
+        // a few blocks of the parallel reader, with commas and brackets in strings
+        StringBuilder sb = new StringBuilder("\r\n [");
+        for(int i=0; i < 150000; i++) {
+            if (i > 0) {
+                sb.append(i % 3 == 0 ? ",\r\n" : i % 3 == 1 ? " ,\n " : ",");
+            }
+            switch (i % 6) {
+                case 0: sb.append("{\"id\":").append(i).append(",\"s\":\"a,b]\\\"c\\\\\"}"); break;
+                case 1: sb.append("[").append(i).append(",[true,null],{}]"); break;
+                case 2: sb.append("\"x\\u00e9,\u00e9[{\\\\\""); break;
+                case 3: sb.append(i).append(".5e3"); break;
+                case 4: sb.append("{\"nested\":{\"a\":[1,{\"b\":\"}\"}]}}"); break;
+                default: sb.append("false");
+            }
+        }
+        sb.append("]  ");
+        String json = sb.toString();
+        assertTrue(json.length() > 2 << 20);
+
+        JsonArray expected = readSequential(json);
+        JsonArray array = readParallel(json).readArray();
+        assertEquals(expected, array);
+
+        JsonStructure structure = readParallel(json).read();
+        assertEquals(expected, structure);
+    }
+
+    public void testParallelReadArrayLongElement() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for(int i=0; i < 3 << 20; i++) {
+            sb.append((char)('a' + i % 26));
+        }
+        String json = "[1,{\"long\":\"" + sb + "\"},2]";
+        JsonArray array = readParallel(json).readArray();
+        assertEquals(3, array.size());
+        assertEquals(sb.toString(), array.getJsonObject(1).getString("long"));
+        assertEquals(2, array.getInt(2));
+    }
+
+    public void testParallelReadSmall() throws Exception {
+        assertEquals(0, readParallel("[]").readArray().size());
+        assertEquals(0, readParallel(" [ ] ").readArray().size());
+        assertEquals(readSequential("[1,\"a\",[]]"), readParallel("[1,\"a\",[]]").readArray());
+    }
+
+    public void testParallelReadObject() throws Exception {
+        String json = " {\"a\":[1,2]}";
+        assertEquals(Json.createReader(new StringReader(json)).read(),
+                readParallel(json).read());
+        assertEquals(Json.createReader(new StringReader(json)).read(),
+                readParallel(json).readObject());
+        try {
+            readParallel(json).readArray();
+            fail("readArray() should throw JsonException for an object");
+        } catch (JsonException e) {
+            // expected
+        }
+    }
+
+    public void testParallelReadUtf16() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(JsonConfig.PARALLEL_READ_ARRAY, true);
+        JsonReader reader = Json.createReaderFactory(config).createReader(
+                new ByteArrayInputStream("[1,\"\u00e9\"]".getBytes("UTF-16BE")));
+        assertEquals(readSequential("[1,\"\u00e9\"]"), reader.readArray());
+    }
+
+    public void testParallelReadErrors() throws Exception {
+        StringBuilder sb = new StringBuilder("[");
+        for(int i=0; i < 200000; i++) {
+            sb.append(i).append(",\r\n");
+        }
+        String prefix = sb.toString();
+        for (String json : new String[] {
+                prefix + "1,",
+                prefix + "1",
+                prefix + "{\"a\":}]",
+                "[1,\n2,\r" + prefix.substring(1) + "1 2]",
+                "[1,]"}) {
+            String expected = null;
+            try {
+                readSequential(json);
+                fail("Sequential read should fail");
+            } catch (JsonException e) {
+                expected = e.getMessage();
+            }
+            try {
+                readParallel(json).readArray();
+                fail("Parallel read should fail");
+            } catch (JsonException e) {
+                assertEquals(expected, e.getMessage());
+            }
+        }
+    }
+
+    private static JsonArray readSequential(String json) throws Exception {
+        JsonReader reader = Json.createReader(new ByteArrayInputStream(json.getBytes("UTF-8")));
+        return reader.readArray();
+    }
+
+    private static JsonReader readParallel(String json) throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(JsonConfig.PARALLEL_READ_ARRAY, "true");
+        return Json.createReaderFactory(config).createReader(
+                new ByteArrayInputStream(json.getBytes("UTF-8")));
+    }
+
 }
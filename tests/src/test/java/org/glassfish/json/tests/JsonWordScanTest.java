@@ -0,0 +1,250 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.tests;
+
+import junit.framework.TestCase;
+import org.glassfish.json.api.JsonConfig;
+
+import javax.json.Json;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParserFactory;
+import javax.json.stream.JsonParsingException;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests the parsers that scan strings a word at a time against
+ * the default parsers
+ *
+ * @author Jitendra Kotamraju
+ */
+public class JsonWordScanTest extends TestCase {
+
+    private static final JsonParserFactory SCANNING = Json.createParserFactory(
+            Collections.singletonMap(JsonConfig.WORD_SCAN, true));
+    private static final JsonParserFactory DEFAULT = Json.createParserFactory(null);
+
+    public JsonWordScanTest(String testName) {
+        super(testName);
+    }
+
+    public void testConfigInUse() {
+        assertEquals(true, SCANNING.getConfigInUse().get(JsonConfig.WORD_SCAN));
+        assertFalse(DEFAULT.getConfigInUse().containsKey(JsonConfig.WORD_SCAN));
+    }
+
+    public void testWiki() throws Exception {
+        byte[] bytes = JsonParserTest.readAll(
+                JsonWordScanTest.class.getResourceAsStream("/wiki.json"));
+        assertSameEvents(bytes);
+    }
+
+    public void testTwitter() throws Exception {
+        byte[] bytes = JsonParserTest.readAll(
+                JsonWordScanTest.class.getResourceAsStream("/twitter.json"));
+        assertSameEvents(bytes);
+    }
+
+    public void testStrings() {
+        assertSameEvents("[\"\", \"a\", \"esc\\u0061ped\", \"\\\"\\\\\\/\\b\\f\\n\\r\\t\","
+                + "\"\\ud83d\\ude00\", \"caf\u00e9 \u20ac \ud83d\ude00\", \"\\\\\", \"a\\\\\"]");
+        assertSameEvents("{\"k\u00e9y\":\"v\",\"\\\\\\\"\":\"}\",\"[\":\",:\"}");
+    }
+
+    // the end of the strings in all the positions of the scanned words
+    public void testStringLengths() {
+        String[] tails = {"", "\\n", "\u00e9", "\u20ac", "\ud83d\ude00", "\u0001", "\\\""};
+        for(int len=0; len < 200; len++) {
+            StringBuilder sb = new StringBuilder();
+            for(int i=0; i < len; i++) {
+                sb.append((char)('a' + i % 26));
+            }
+            for(String tail : tails) {
+                for(String head : new String[] {"", "\u00e9"}) {
+                    String str = head + sb + tail;
+                    String json = "[\"" + str + "\",\"" + sb + "\",{\"" + str + "\":1}]";
+                    if (tail.equals("\u0001")) {
+                        String expected = events(DEFAULT, json.getBytes(StandardCharsets.UTF_8));
+                        assertTrue(expected.contains("JsonParsingException"));
+                        assertEquals(expected, events(SCANNING, json.getBytes(StandardCharsets.UTF_8)));
+                    } else {
+                        assertSameEvents(json);
+                    }
+                }
+            }
+        }
+        // unterminated long string
+        String json = "[\"" + new String(new char[100]).replace('\0', 'a');
+        assertEquals(events(DEFAULT, json.getBytes(StandardCharsets.UTF_8)),
+                events(SCANNING, json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // strings that cross the buffer of a byte stream
+    public void testLargeInput() {
+        StringBuilder str = new StringBuilder();
+        for(int i=0; i < 200000; i++) {
+            str.append((char)('a' + i % 26));
+        }
+        StringBuilder space = new StringBuilder();
+        for(int i=0; i < 100000; i++) {
+            space.append(i % 1000 == 0 ? '\n' : ' ');
+        }
+        assertSameEvents("[\"" + str + "\"," + space + "\"" + str + "\\n\"," + space + "1]");
+
+        Random r = new Random(7);
+        StringBuilder sb = new StringBuilder("[");
+        for(int i=0; i < 20000; i++) {
+            if (i > 0) {
+                sb.append(r.nextBoolean() ? "," : " ,\r\n ");
+            }
+            switch (r.nextInt(5)) {
+                case 0:
+                    sb.append(r.nextInt());
+                    break;
+                case 1:
+                    sb.append("\"s").append(i).append(r.nextBoolean() ? "\\t\"" : "\"");
+                    break;
+                case 2:
+                    sb.append("{\"k\u00e9\":").append(r.nextDouble()).append("}");
+                    break;
+                case 3:
+                    sb.append("[true,false,null]");
+                    break;
+                default:
+                    sb.append("\"\u20ac").append(str, 0, r.nextInt(100)).append("\"");
+            }
+        }
+        sb.append("]");
+        assertSameEvents(sb.toString());
+    }
+
+    public void testErrors() {
+        String[] errors = {
+                "[123abc]", "[1 2]", "[tru]", "[truex]", "{\"a\" 1}", "[\"abc",
+                "[1,\n\"a\nb\"]", "[\n\"a\u0001\"]", "[\"\\x\"]", "[\"\\u12G4\"]",
+                "{\n\"a\":\r\n}", "[1,]", "[ ", "  \n ", "[1]]", "[1] x", "[-]",
+                "[1.]", "[1e]", "[\u00e9]", "{\"a\":1,}"
+        };
+        for(String json : errors) {
+            String expected = events(DEFAULT, json.getBytes(StandardCharsets.UTF_8));
+            String got = events(SCANNING, json.getBytes(StandardCharsets.UTF_8));
+            assertTrue(json, expected.contains("JsonParsingException"));
+            assertEquals(json, expected, got);
+        }
+    }
+
+    public void testOtherEncodings() {
+        String json = "{\"a\":[1,\"\u00e9\"]}";
+        List<String> expected = new ArrayList<>();
+        collect(DEFAULT.createParser(new ByteArrayInputStream(
+                json.getBytes(StandardCharsets.UTF_16LE))), expected);
+        List<String> got = new ArrayList<>();
+        collect(SCANNING.createParser(new ByteArrayInputStream(
+                json.getBytes(StandardCharsets.UTF_16LE))), got);
+        assertEquals(expected, got);
+        got.clear();
+        collect(SCANNING.createParser(ByteBuffer.wrap(
+                json.getBytes(StandardCharsets.UTF_16BE))), got);
+        assertEquals(expected, got);
+    }
+
+    private static void assertSameEvents(String json) {
+        assertSameEvents(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertSameEvents(byte[] bytes) {
+        String expected = events(DEFAULT, bytes);
+        assertFalse(expected.contains("JsonParsingException"));
+        assertEquals(expected, events(SCANNING, bytes));
+
+        // in the middle of a heap buffer
+        byte[] padded = new byte[bytes.length + 10];
+        System.arraycopy(bytes, 0, padded, 5, bytes.length);
+        List<String> got = new ArrayList<>();
+        collect(SCANNING.createParser(ByteBuffer.wrap(padded, 5, bytes.length).slice()), got);
+        assertEquals(expected, got.toString());
+
+        // direct buffer
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        got.clear();
+        collect(SCANNING.createParser(direct), got);
+        assertEquals(expected, got.toString());
+
+        // byte stream
+        got.clear();
+        collect(SCANNING.createParser(new ByteArrayInputStream(bytes)), got);
+        assertEquals(expected, got.toString());
+    }
+
+    private static String events(JsonParserFactory factory, byte[] bytes) {
+        List<String> events = new ArrayList<>();
+        collect(factory.createParser(ByteBuffer.wrap(bytes)), events);
+        return events.toString();
+    }
+
+    private static void collect(JsonParser parser, List<String> events) {
+        try {
+            while (parser.hasNext()) {
+                Event event = parser.next();
+                switch (event) {
+                    case KEY_NAME:
+                    case VALUE_STRING:
+                    case VALUE_NUMBER:
+                        events.add(event + " " + parser.getString() + " " + parser.getLocation());
+                        break;
+                    default:
+                        events.add(event + " " + parser.getLocation());
+                }
+            }
+        } catch (JsonParsingException e) {
+            events.add("JsonParsingException " + e.getMessage() + " " + e.getLocation());
+        }
+        parser.close();
+    }
+
+}
@@ -41,11 +41,17 @@
 package org.glassfish.json.tests;
 
 import javax.json.*;
+import javax.json.stream.JsonGenerationException;
+import javax.json.stream.JsonGenerator;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
 
 import junit.framework.TestCase;
+import org.glassfish.json.api.JsonConfig;
 
 /**
  * @author Jitendra Kotamraju
@@ -178,6 +184,31 @@ public class JsonWriterTest extends TestCase {
         assertTrue(baos.isClosed());
     }
 
+    public void testMaxDepth() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(JsonGenerator.PRETTY_PRINTING, true);
+        config.put(JsonConfig.MAX_DEPTH, "2");
+        JsonWriterFactory factory = Json.createWriterFactory(config);
+        assertEquals(2, factory.getConfigInUse().get(JsonConfig.MAX_DEPTH));
+
+        JsonObject object = Json.createObjectBuilder()
+                .add("a", Json.createArrayBuilder().add(1))
+                .build();
+        StringWriter sw = new StringWriter();
+        JsonWriter writer = factory.createWriter(sw);
+        writer.writeObject(object);
+        writer.close();
+        assertEquals(object, Json.createReader(new StringReader(sw.toString())).readObject());
+
+        writer = factory.createWriter(new ByteArrayOutputStream());
+        try {
+            writer.writeArray(Json.createArrayBuilder().add(object).build());
+            fail("writeArray() should throw JsonGenerationException for depth 3");
+        } catch (JsonGenerationException e) {
+            // Expected
+        }
+    }
+
     private static final class MyByteStream extends ByteArrayOutputStream {
         boolean closed;
 